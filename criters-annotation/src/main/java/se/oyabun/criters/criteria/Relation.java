@@ -51,4 +51,27 @@ public @interface Relation {
      */
     Parameter[] parameters() default {};
 
+    /**
+     * Strategy rendering restrictions of an iterable relation, ignored for non iterable relations.
+     *
+     * @return the strategy, defaults to the globally configured strategy
+     */
+    Strategy strategy() default Strategy.DEFAULT;
+
+    /**
+     * Strategies rendering restrictions of iterable relations.
+     */
+    enum Strategy {
+
+        /** Use the globally configured strategy, {@link #JOIN} unless configured otherwise. */
+        DEFAULT,
+
+        /** Inner join the relation, duplicating root rows matching several related rows. */
+        JOIN,
+
+        /** Restrict the relation in a correlated {@code EXISTS} subquery, a semi join. */
+        EXISTS
+
+    }
+
 }
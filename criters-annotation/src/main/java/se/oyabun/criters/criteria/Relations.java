@@ -36,4 +36,13 @@ public @interface Relations {
      */
     Relation[] value() default {};
 
+    /**
+     * Join alias of the relations. Relations of getters sharing an alias are joined once
+     * per relation path, declare distinct aliases to restrict independent joins, e.g. to
+     * match different elements of the same collection.
+     *
+     * @return the join alias, defaults to the shared empty alias
+     */
+    String alias() default "";
+
 }
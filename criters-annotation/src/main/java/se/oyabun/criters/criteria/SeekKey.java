@@ -0,0 +1,50 @@
+/*
+ * Copyright 2017 Oyabun AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.oyabun.criters.criteria;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Repeatable;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Sort key of keyset pagination, declared on a filter class. Declare keys in sort order,
+ * ending with a unique attribute such as the identifier to keep the order total.
+ *
+ * @author Daniel Sundberg
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+@Repeatable(SeekKeys.class)
+public @interface SeekKey {
+
+    /**
+     * The entity attribute to sort and seek by, read through its getter. Its values must
+     * never be null.
+     *
+     * @return the attribute name
+     */
+    String name();
+
+    /**
+     * Sort direction of the attribute.
+     *
+     * @return true to sort descending, defaults to ascending
+     */
+    boolean descending() default false;
+
+}
@@ -0,0 +1,34 @@
+plugins {
+    alias(libs.plugins.java.library)
+    alias(libs.plugins.jmh)
+}
+
+group = "se.oyabun.criters.test"
+
+sourceSets {
+    main {
+        java.setSrcDirs(emptySet<String>())
+        resources.setSrcDirs(emptySet<String>())
+    }
+}
+
+dependencies {
+    jmh(project(":criters-engine"))
+    jmh(project(":criters-test-core"))
+    jmh(project(":criters-test-core-jpa"))
+    jmh(libs.hibernate.core)
+    jmh(libs.h2)
+    jmh(libs.logback.classic)
+}
+
+jmh {
+    jmhVersion = libs.versions.jmh
+    //
+    // Report allocated bytes per operation along with the timings
+    //
+    profilers.add("gc")
+    fork = 1
+    warmupIterations = 3
+    iterations = 5
+    includes.addAll(providers.gradleProperty("jmhIncludes").map { listOf(it) }.orElse(emptyList()))
+}
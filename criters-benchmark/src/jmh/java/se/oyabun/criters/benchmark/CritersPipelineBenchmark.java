@@ -0,0 +1,104 @@
+/*
+ * Copyright 2017 Oyabun AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.oyabun.criters.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import se.oyabun.criters.Criters;
+import se.oyabun.criters.criteria.Filter;
+import se.oyabun.criters.exception.CritersException;
+import se.oyabun.criters.test.data.Foo;
+
+import jakarta.persistence.criteria.CriteriaQuery;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the full search pipeline, from factory to criteria query and results.
+ *
+ * @author Daniel Sundberg
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CritersPipelineBenchmark {
+
+    @Param({FilterFixtures.PROPERTY,
+            FilterFixtures.RELATION,
+            FilterFixtures.IN,
+            FilterFixtures.BAZ_LIKE})
+    private String fixture;
+
+    private Filter<Foo> filter;
+
+    /** Creates a new {@code CritersPipelineBenchmark}. */
+    public CritersPipelineBenchmark() {}
+
+    /**
+     * Create the benchmarked filter fixture.
+     *
+     * @param persistence shared persistence unit state
+     */
+    @Setup
+    public void setup(final PersistenceState persistence) {
+
+        filter = FilterFixtures.create(fixture, persistence.barId);
+
+    }
+
+    /**
+     * Build the criteria query of a search, without executing it.
+     *
+     * @param state entity manager of the benchmark thread
+     * @return criteria query of the search
+     * @throws CritersException if the search can not be built
+     */
+    @Benchmark
+    public CriteriaQuery<Foo> criteria(final EntityManagerState state)
+            throws CritersException {
+
+        return Criters.<Foo, Filter<Foo>>factory()
+                      .use(state.entityManager)
+                      .prepare(filter)
+                      .build()
+                      .criteria();
+
+    }
+
+    /**
+     * Build and execute a search against the embedded database.
+     *
+     * @param state entity manager of the benchmark thread
+     * @return search results
+     * @throws CritersException if the search can not be built
+     */
+    @Benchmark
+    public List<Foo> resultList(final EntityManagerState state)
+            throws CritersException {
+
+        return state.entityManager
+                    .createQuery(criteria(state))
+                    .getResultList();
+
+    }
+
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2017 Oyabun AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.oyabun.criters.benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Per benchmark thread entity manager, entity managers are not thread safe.
+ *
+ * @author Daniel Sundberg
+ */
+@State(Scope.Thread)
+public class EntityManagerState {
+
+    /** Entity manager owned by the benchmark thread. */
+    public EntityManager entityManager;
+
+    /** Creates a new {@code EntityManagerState}. */
+    public EntityManagerState() {}
+
+    /**
+     * Open an entity manager on the shared persistence unit.
+     *
+     * @param persistence shared persistence unit state
+     */
+    @Setup(Level.Trial)
+    public void setup(final PersistenceState persistence) {
+
+        entityManager = persistence.entityManagerFactory.createEntityManager();
+
+    }
+
+    /**
+     * Clear the persistence context so results do not accumulate between iterations.
+     */
+    @TearDown(Level.Iteration)
+    public void clear() {
+
+        entityManager.clear();
+
+    }
+
+    /** Close the entity manager. */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+
+        entityManager.close();
+
+    }
+
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2017 Oyabun AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.oyabun.criters.benchmark;
+
+import se.oyabun.criters.criteria.Filter;
+import se.oyabun.criters.test.data.Foo;
+import se.oyabun.criters.test.filter.FooBazLikeFilter;
+import se.oyabun.criters.test.filter.FooInFilter;
+import se.oyabun.criters.test.filter.FooPropertyFilter;
+import se.oyabun.criters.test.filter.FooRelationFilter;
+
+import java.util.List;
+
+/**
+ * Benchmarked filter fixtures, selected by name through a JMH {@code @Param}.
+ *
+ * @author Daniel Sundberg
+ */
+public final class FilterFixtures {
+
+    /** Name of the {@link FooPropertyFilter} fixture. */
+    public static final String PROPERTY = "property";
+
+    /** Name of the {@link FooRelationFilter} fixture. */
+    public static final String RELATION = "relation";
+
+    /** Name of the {@link FooInFilter} fixture. */
+    public static final String IN = "in";
+
+    /** Name of the {@link FooBazLikeFilter} fixture. */
+    public static final String BAZ_LIKE = "bazLike";
+
+    private FilterFixtures() {}
+
+    /**
+     * Create the named filter fixture.
+     *
+     * @param name of the fixture
+     * @param barId of a persisted bar, used by relational fixtures
+     * @return new filter instance
+     */
+    public static Filter<Foo> create(final String name,
+                                     final long barId) {
+
+        return switch (name) {
+            case PROPERTY -> new FooPropertyFilter(PersistenceState.FOO_VALUE);
+            case RELATION -> new FooRelationFilter(barId, PersistenceState.BAZ_VALUE + 0);
+            case IN -> new FooInFilter(List.of(1, PersistenceState.FOO_VALUE, 3, 5, 7));
+            case BAZ_LIKE -> new FooBazLikeFilter("%alu%");
+            default -> throw new IllegalArgumentException(name);
+        };
+
+    }
+
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2017 Oyabun AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.oyabun.criters.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import se.oyabun.criters.criteria.Filter;
+import se.oyabun.criters.exception.InvalidCritersFilteringException;
+import se.oyabun.criters.test.data.Foo;
+import se.oyabun.criters.util.FilterUtil;
+
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of filter introspection and relation validation.
+ *
+ * @author Daniel Sundberg
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FilterUtilBenchmark {
+
+    @Param({FilterFixtures.PROPERTY,
+            FilterFixtures.RELATION,
+            FilterFixtures.IN,
+            FilterFixtures.BAZ_LIKE})
+    private String fixture;
+
+    private Filter<Foo> filter;
+
+    private Collection<Method> relationalMethods;
+
+    /** Creates a new {@code FilterUtilBenchmark}. */
+    public FilterUtilBenchmark() {}
+
+    /** Create the benchmarked filter fixture. */
+    @Setup
+    public void setup() {
+
+        filter = FilterFixtures.create(fixture, 1L);
+        relationalMethods = FilterUtil.relationalMethods(filter);
+
+    }
+
+    /**
+     * Introspect parameter getters of the filter.
+     *
+     * @return parameter getters
+     */
+    @Benchmark
+    public Collection<Method> parameterMethods() {
+
+        return FilterUtil.parameterMethods(filter);
+
+    }
+
+    /**
+     * Validate every relational getter of the filter against the entity.
+     *
+     * @param blackhole consuming the introspected methods
+     * @throws InvalidCritersFilteringException if the fixture is invalid
+     */
+    @Benchmark
+    public void validateRelations(final Blackhole blackhole)
+            throws InvalidCritersFilteringException {
+
+        for(final Method method : relationalMethods) {
+
+            FilterUtil.validateRelations(method, Foo.class);
+            blackhole.consume(method);
+
+        }
+
+    }
+
+}
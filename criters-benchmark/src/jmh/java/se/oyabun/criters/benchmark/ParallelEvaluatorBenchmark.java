@@ -0,0 +1,226 @@
+/*
+ * Copyright 2017 Oyabun AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.oyabun.criters.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import se.oyabun.criters.analysis.FilterEvaluator;
+import se.oyabun.criters.analysis.ParallelEvaluator;
+import se.oyabun.criters.criteria.Filter;
+import se.oyabun.criters.exception.InvalidCritersFilteringException;
+import se.oyabun.criters.test.data.Bar;
+import se.oyabun.criters.test.data.Baz;
+import se.oyabun.criters.test.data.Foo;
+import se.oyabun.criters.test.filter.FooBazLikeFilter;
+import se.oyabun.criters.test.filter.FooPropertyFilter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Benchmarks of evaluating filters in memory over a snapshot of entities, sequentially and on
+ * a {@link ParallelEvaluator} of growing parallelism. Compare the scores of one benchmark across
+ * parallelism values to see how evaluation scales with the number of cores.
+ *
+ * <p>The sequential baseline does not depend on the evaluator, and only runs once per fixture.
+ *
+ * @author Daniel Sundberg
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ParallelEvaluatorBenchmark {
+
+    private static final int ENTITIES = 200_000;
+
+    /** Creates a new {@code ParallelEvaluatorBenchmark}. */
+    public ParallelEvaluatorBenchmark() {}
+
+    /**
+     * Evaluate the snapshot with a sequential stream, the baseline of the parallel evaluations.
+     *
+     * @param snapshot of evaluated entities
+     * @return matching entities
+     */
+    @Benchmark
+    public List<Foo> sequential(final Snapshot snapshot) {
+
+        return snapshot.foos.stream()
+                            .filter(snapshot.predicate)
+                            .toList();
+
+    }
+
+    /**
+     * Evaluate the snapshot in parallel, collecting matches in encounter order.
+     *
+     * @param snapshot of evaluated entities
+     * @param evaluator of given parallelism
+     * @return matching entities
+     */
+    @Benchmark
+    public List<Foo> ordered(final Snapshot snapshot,
+                             final Evaluator evaluator) {
+
+        return evaluator.evaluator.filter(snapshot.foos, snapshot.predicate, true);
+
+    }
+
+    /**
+     * Evaluate the snapshot in parallel, collecting matches as found.
+     *
+     * @param snapshot of evaluated entities
+     * @param evaluator of given parallelism
+     * @return matching entities
+     */
+    @Benchmark
+    public List<Foo> unordered(final Snapshot snapshot,
+                               final Evaluator evaluator) {
+
+        return evaluator.evaluator.filter(snapshot.foos, snapshot.predicate, false);
+
+    }
+
+    /**
+     * Find whether any entity matches a filter only the last entity of the snapshot matches in
+     * parallel, the worst case of an early exit.
+     *
+     * @param snapshot of evaluated entities
+     * @param evaluator of given parallelism
+     * @return true if any entity matches
+     */
+    @Benchmark
+    public boolean exists(final Snapshot snapshot,
+                          final Evaluator evaluator) {
+
+        return evaluator.evaluator.exists(snapshot.foos, snapshot.last);
+
+    }
+
+    /**
+     * Entity snapshot and the evaluated predicates of a filter fixture.
+     */
+    @State(Scope.Benchmark)
+    public static class Snapshot {
+
+        @Param({FilterFixtures.PROPERTY,
+                FilterFixtures.BAZ_LIKE})
+        private String fixture;
+
+        private List<Foo> foos;
+
+        private Predicate<Foo> predicate;
+
+        /** Predicate of the fixture matching only the last entity. */
+        private Predicate<Foo> last;
+
+        /** Creates a new {@code Snapshot}. */
+        public Snapshot() {}
+
+        /**
+         * Create the entity snapshot and the evaluated predicates.
+         *
+         * @throws InvalidCritersFilteringException if the filter fixture is invalid
+         */
+        @Setup
+        public void setup()
+                throws InvalidCritersFilteringException {
+
+            foos = new ArrayList<>(ENTITIES);
+
+            for(int i = 0; i < ENTITIES; i++) {
+
+                final Foo foo = new Foo();
+                foo.setId(i);
+                foo.setValue(i % 2 == 0 ? PersistenceState.FOO_VALUE : i);
+
+                final Bar bar = new Bar();
+                bar.setId(i);
+                bar.setFoo(foo);
+                foo.getBars().add(bar);
+
+                final Baz baz = new Baz();
+                baz.setId(i);
+                baz.setValue(PersistenceState.BAZ_VALUE + i);
+                baz.setBar(bar);
+                bar.setBaz(baz);
+
+                foos.add(foo);
+
+            }
+
+            predicate = FilterEvaluator.of(FilterFixtures.create(fixture, 0L));
+            last = FilterEvaluator.of(last(fixture));
+
+        }
+
+        /**
+         * Create a filter of the same kind as the named fixture, matching only the last entity
+         * by its unique odd value, or the unique value of its baz.
+         */
+        private static Filter<Foo> last(final String fixture) {
+
+            return switch (fixture) {
+                case FilterFixtures.PROPERTY -> new FooPropertyFilter(ENTITIES - 1);
+                case FilterFixtures.BAZ_LIKE -> new FooBazLikeFilter(PersistenceState.BAZ_VALUE + (ENTITIES - 1));
+                default -> throw new IllegalArgumentException(fixture);
+            };
+
+        }
+
+    }
+
+    /**
+     * Parallel evaluator of given parallelism.
+     */
+    @State(Scope.Benchmark)
+    public static class Evaluator {
+
+        @Param({"1", "2", "4", "8"})
+        private int parallelism;
+
+        private ParallelEvaluator evaluator;
+
+        /** Creates a new {@code Evaluator}. */
+        public Evaluator() {}
+
+        /** Create the evaluator. */
+        @Setup
+        public void setup() {
+
+            evaluator = ParallelEvaluator.of(parallelism);
+
+        }
+
+        /** Shut down the evaluator pool. */
+        @TearDown
+        public void tearDown() {
+
+            evaluator.close();
+
+        }
+
+    }
+
+}
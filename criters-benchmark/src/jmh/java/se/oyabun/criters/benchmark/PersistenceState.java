@@ -0,0 +1,103 @@
+/*
+ * Copyright 2017 Oyabun AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.oyabun.criters.benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import se.oyabun.criters.test.data.Bar;
+import se.oyabun.criters.test.data.Baz;
+import se.oyabun.criters.test.data.Foo;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Persistence;
+
+/**
+ * Shared embedded database backed persistence unit for benchmarks.
+ *
+ * @author Daniel Sundberg
+ */
+@State(Scope.Benchmark)
+public class PersistenceState {
+
+    /** Name of the embedded benchmark persistence unit. */
+    public static final String PERSISTENCE_UNIT = "critersbenchmark";
+
+    /** Value of the first half of the generated foo entities. */
+    public static final Integer FOO_VALUE = 2;
+
+    /** Value of the generated baz entities. */
+    public static final String BAZ_VALUE = "value";
+
+    private static final int ENTITIES = 1_000;
+
+    /** Factory of the embedded persistence unit. */
+    public EntityManagerFactory entityManagerFactory;
+
+    /** Identifier of a persisted bar, usable in relational filters. */
+    public long barId;
+
+    /** Creates a new {@code PersistenceState}. */
+    public PersistenceState() {}
+
+    /** Start the persistence unit and populate the embedded database. */
+    @Setup(Level.Trial)
+    public void setup() {
+
+        entityManagerFactory = Persistence.createEntityManagerFactory(PERSISTENCE_UNIT);
+
+        final EntityManager entityManager = entityManagerFactory.createEntityManager();
+
+        entityManager.getTransaction().begin();
+
+        for(int i = 0; i < ENTITIES; i++) {
+
+            final Foo foo = new Foo();
+            foo.setValue(i % 2 == 0 ? FOO_VALUE : i);
+            entityManager.persist(foo);
+
+            final Bar bar = new Bar();
+            bar.setFoo(foo);
+            foo.getBars().add(bar);
+            entityManager.persist(bar);
+
+            final Baz baz = new Baz();
+            baz.setValue(BAZ_VALUE + i);
+            baz.setBar(bar);
+            bar.setBaz(baz);
+            entityManager.persist(baz);
+
+            barId = bar.getId();
+
+        }
+
+        entityManager.getTransaction().commit();
+        entityManager.close();
+
+    }
+
+    /** Close the persistence unit. */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+
+        entityManagerFactory.close();
+
+    }
+
+}
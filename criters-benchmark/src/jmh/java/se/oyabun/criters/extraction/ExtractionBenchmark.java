@@ -0,0 +1,125 @@
+/*
+ * Copyright 2017 Oyabun AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.oyabun.criters.extraction;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import se.oyabun.criters.benchmark.EntityManagerState;
+import se.oyabun.criters.benchmark.FilterFixtures;
+import se.oyabun.criters.benchmark.PersistenceState;
+import se.oyabun.criters.criteria.Filter;
+import se.oyabun.criters.exception.InvalidCritersFilteringException;
+import se.oyabun.criters.metadata.FilterMetadata;
+import se.oyabun.criters.metadata.ParameterMetadata;
+import se.oyabun.criters.test.data.Foo;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of predicate extraction. Placed in the extraction package to reach the
+ * package private {@link ParameterExtractor#produce} hot path directly.
+ *
+ * @author Daniel Sundberg
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ExtractionBenchmark {
+
+    @Param({FilterFixtures.PROPERTY,
+            FilterFixtures.IN})
+    private String parameterFixture;
+
+    @Param({FilterFixtures.RELATION,
+            FilterFixtures.BAZ_LIKE})
+    private String relationFixture;
+
+    private Filter<Foo> parameterFilter;
+
+    private ParameterMetadata parameterMetadata;
+
+    private Filter<Foo> relationFilter;
+
+    private final RelationExtractor relationExtractor = new RelationExtractor();
+
+    /** Creates a new {@code ExtractionBenchmark}. */
+    public ExtractionBenchmark() {}
+
+    /**
+     * Create the benchmarked filter fixtures.
+     *
+     * @param persistence shared persistence unit state
+     */
+    @Setup
+    public void setup(final PersistenceState persistence) {
+
+        parameterFilter = FilterFixtures.create(parameterFixture, persistence.barId);
+        parameterMetadata = FilterMetadata.of(parameterFilter).parameters().iterator().next();
+        relationFilter = FilterFixtures.create(relationFixture, persistence.barId);
+
+    }
+
+    /**
+     * Produce the predicate of a single filter parameter on a fresh root.
+     *
+     * @param state entity manager of the benchmark thread
+     * @return produced predicate
+     * @throws InvalidCritersFilteringException if the fixture is invalid
+     */
+    @Benchmark
+    public Predicate produce(final EntityManagerState state)
+            throws InvalidCritersFilteringException {
+
+        final CriteriaBuilder builder = state.entityManager.getCriteriaBuilder();
+        final Root<Foo> root = builder.createQuery(Foo.class).from(Foo.class);
+
+        return ParameterExtractor.produce(parameterFilter,
+                                          ExtractionContext.of(builder, root),
+                                          root,
+                                          parameterMetadata.parameter(),
+                                          parameterMetadata.accessor());
+
+    }
+
+    /**
+     * Generate the relational predicates of a filter on a fresh root.
+     *
+     * @param state entity manager of the benchmark thread
+     * @return generated predicate
+     * @throws InvalidCritersFilteringException if the fixture is invalid
+     */
+    @Benchmark
+    public Optional<Predicate> relations(final EntityManagerState state)
+            throws InvalidCritersFilteringException {
+
+        final CriteriaBuilder builder = state.entityManager.getCriteriaBuilder();
+        final Root<Foo> root = builder.createQuery(Foo.class).from(Foo.class);
+
+        return relationExtractor.generatePredicate(relationFilter, builder, root);
+
+    }
+
+}
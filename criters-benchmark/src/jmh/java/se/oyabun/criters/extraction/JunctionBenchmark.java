@@ -0,0 +1,112 @@
+/*
+ * Copyright 2017 Oyabun AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.oyabun.criters.extraction;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import se.oyabun.criters.benchmark.EntityManagerState;
+import se.oyabun.criters.criteria.Combination;
+import se.oyabun.criters.test.data.Foo;
+import se.oyabun.criters.util.FilterUtil;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of translating a disjunction of growing parameter count, combined pairwise
+ * into a left-deep tree versus flat through a {@link Junction}. Queries are executed so the
+ * provider translation to SQL is measured, not only the criteria construction.
+ *
+ * @author Daniel Sundberg
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JunctionBenchmark {
+
+    @Param({"1", "10", "40"})
+    private int parameters;
+
+    /** Creates a new {@code JunctionBenchmark}. */
+    public JunctionBenchmark() {}
+
+    /**
+     * Combine the predicates pairwise, each one nesting all previous ones.
+     *
+     * @param state entity manager of the benchmark thread
+     * @return search results
+     */
+    @Benchmark
+    public List<Foo> leftDeep(final EntityManagerState state) {
+
+        final CriteriaBuilder builder = state.entityManager.getCriteriaBuilder();
+        final CriteriaQuery<Foo> criteria = builder.createQuery(Foo.class);
+        final Root<Foo> root = criteria.from(Foo.class);
+
+        Predicate predicate = builder.equal(root.get("value"), 0);
+
+        for(int i = 1; i < parameters; i++) {
+
+            predicate = FilterUtil.combine(Combination.Combine.OR,
+                                           builder,
+                                           predicate,
+                                           builder.equal(root.get("value"), i));
+
+        }
+
+        return state.entityManager
+                    .createQuery(criteria.where(predicate))
+                    .getResultList();
+
+    }
+
+    /**
+     * Combine the predicates in one flat junction.
+     *
+     * @param state entity manager of the benchmark thread
+     * @return search results
+     */
+    @Benchmark
+    public List<Foo> flat(final EntityManagerState state) {
+
+        final CriteriaBuilder builder = state.entityManager.getCriteriaBuilder();
+        final CriteriaQuery<Foo> criteria = builder.createQuery(Foo.class);
+        final Root<Foo> root = criteria.from(Foo.class);
+        final Junction junction = new Junction(builder);
+
+        for(int i = 0; i < parameters; i++) {
+
+            junction.add(Combination.Combine.OR,
+                         builder.equal(root.get("value"), i));
+
+        }
+
+        return state.entityManager
+                    .createQuery(criteria.where(junction.build()))
+                    .getResultList();
+
+    }
+
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2017 Oyabun AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.oyabun.criters;
+
+/**
+ * Count of search results bounded by a limit, exact up to the limit.
+ *
+ * @author Daniel Sundberg
+ */
+public final class BoundedCount {
+
+    private static final String EXCEEDED_SUFFIX = "+";
+
+    private final long count;
+    private final boolean exceeded;
+
+    BoundedCount(final long count,
+                 final boolean exceeded) {
+
+        this.count = count;
+        this.exceeded = exceeded;
+
+    }
+
+    /**
+     * Returns the counted number of results, the limit itself when exceeded.
+     *
+     * @return the exact count, or the limit when more results match
+     */
+    public long count() {
+
+        return count;
+
+    }
+
+    /**
+     * Did more results than the limit match
+     *
+     * @return true if the count is a lower bound, false if it is exact
+     */
+    public boolean exceeded() {
+
+        return exceeded;
+
+    }
+
+    /**
+     * Returns the count for display, such as {@code 42} or {@code 1000+}.
+     *
+     * @return the count, suffixed by {@code +} when exceeded
+     */
+    @Override
+    public String toString() {
+
+        return exceeded ?
+               count + EXCEEDED_SUFFIX :
+               Long.toString(count);
+
+    }
+
+}
@@ -18,7 +18,9 @@ package se.oyabun.criters;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import se.oyabun.criters.criteria.Filter;
+import se.oyabun.criters.criteria.Relation;
 
+import jakarta.persistence.EntityManagerFactory;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
@@ -32,7 +34,7 @@ import java.util.stream.Collectors;
  */
 public class Criters {
 
-    /** Not instantiable; use the static {@link #factory()} method. */
+    /** Not instantiable; use the static {@link #factory()} or {@link #engine} methods. */
     private Criters() {}
 
     private static final Logger logger = LoggerFactory.getLogger(Criters.class);
@@ -94,4 +96,21 @@ public class Criters {
 
     }
 
+    /**
+     * Produce a thread safe criters engine, to be created once per entity manager factory
+     * and shared.
+     *
+     * @param entityManagerFactory to search entities of
+     * @return criters engine
+     */
+    public static CritersEngine engine(final EntityManagerFactory entityManagerFactory) {
+
+        return new CritersEngine(entityManagerFactory,
+                                 Relation.Strategy.JOIN,
+                                 CritersSearchImpl.DEFAULT_FETCH_SIZE,
+                                 false,
+                                 null);
+
+    }
+
 }
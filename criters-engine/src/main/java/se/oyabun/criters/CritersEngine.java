@@ -0,0 +1,220 @@
+/*
+ * Copyright 2017 Oyabun AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.oyabun.criters;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import se.oyabun.criters.cache.ResultCache;
+import se.oyabun.criters.criteria.Filter;
+import se.oyabun.criters.criteria.Relation;
+import se.oyabun.criters.exception.InvalidCritersFilteringException;
+import se.oyabun.criters.exception.InvalidCritersTargetException;
+import se.oyabun.criters.extraction.Extractors;
+import se.oyabun.criters.metadata.FilterMetadata;
+import se.oyabun.criters.metadata.MetamodelIndex;
+
+import jakarta.persistence.EntityManagerFactory;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Immutable, thread safe criters engine bound to one entity manager factory.
+ *
+ * <p>An engine is meant to be created once and shared, e.g. as a singleton. It resolves one
+ * validated {@link SearchPlan} per filter class, leaving only a cheap execution per request.
+ *
+ * @author Daniel Sundberg
+ */
+public final class CritersEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(CritersEngine.class);
+
+    static final String INVALID_FILTER = "Filter class '%s' does not directly extend Filter.";
+    static final String INVALID_TARGET = "Class '%s' is an invalid criters target.";
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final Relation.Strategy strategy;
+    private final int fetchSize;
+    private final boolean clearing;
+    private final ResultCache resultCache;
+
+    private final Map<Class<?>, SearchPlan<?, ?>> plans = new ConcurrentHashMap<>();
+
+    CritersEngine(final EntityManagerFactory entityManagerFactory,
+                  final Relation.Strategy strategy,
+                  final int fetchSize,
+                  final boolean clearing,
+                  final ResultCache resultCache) {
+
+        if(fetchSize < 1) {
+
+            throw new IllegalArgumentException(
+                    String.format(CritersSearchImpl.INVALID_FETCH_SIZE, fetchSize));
+
+        }
+
+        this.entityManagerFactory = Objects.requireNonNull(entityManagerFactory);
+        this.strategy = Objects.requireNonNull(strategy);
+        this.fetchSize = fetchSize;
+        this.clearing = clearing;
+        this.resultCache = resultCache;
+
+    }
+
+    /**
+     * Returns an engine restricting iterable relations with given default strategy. The
+     * current engine and its plans are left untouched.
+     *
+     * @param strategy to restrict iterable relations with
+     * @return new engine using given strategy
+     */
+    public CritersEngine strategy(final Relation.Strategy strategy) {
+
+        return new CritersEngine(entityManagerFactory,
+                                 Objects.requireNonNull(strategy),
+                                 fetchSize,
+                                 clearing,
+                                 resultCache);
+
+    }
+
+    /**
+     * Returns an engine streaming search results with given fetch size. The current engine
+     * and its plans are left untouched.
+     *
+     * @param fetchSize of streamed queries, must be positive
+     * @return new engine using given fetch size
+     */
+    public CritersEngine fetchSize(final int fetchSize) {
+
+        return new CritersEngine(entityManagerFactory,
+                                 strategy,
+                                 fetchSize,
+                                 clearing,
+                                 resultCache);
+
+    }
+
+    /**
+     * Returns an engine whose streamed, chunked and iterated searches flush and clear the
+     * persistence context between chunks. The current engine and its plans are left untouched.
+     *
+     * @param clearing true to clear the persistence context while streaming
+     * @return new engine using given clearing
+     */
+    public CritersEngine clearing(final boolean clearing) {
+
+        return new CritersEngine(entityManagerFactory,
+                                 strategy,
+                                 fetchSize,
+                                 clearing,
+                                 resultCache);
+
+    }
+
+    /**
+     * Returns an engine serving the results of {@link CritersSearch#list()} and
+     * {@link CritersSearch#count()} of its searches from given cache. The current engine and
+     * its plans are left untouched.
+     *
+     * @param resultCache to serve results from, null to always query
+     * @return new engine using given cache
+     */
+    public CritersEngine cache(final ResultCache resultCache) {
+
+        return new CritersEngine(entityManagerFactory,
+                                 strategy,
+                                 fetchSize,
+                                 clearing,
+                                 resultCache);
+
+    }
+
+    /**
+     * Returns the validated search plan of given filter class, resolving it on first use.
+     *
+     * @param filterClass to resolve plan for
+     * @param <E> type of entity
+     * @param <S> type of filter
+     * @return shared search plan of the filter class
+     * @throws InvalidCritersTargetException if the filter does not target a known entity
+     * @throws InvalidCritersFilteringException if the filter does not match its entity
+     */
+    @SuppressWarnings("unchecked")
+    public <E, S extends Filter<E>> SearchPlan<E, S> plan(final Class<S> filterClass)
+            throws InvalidCritersTargetException,
+                   InvalidCritersFilteringException {
+
+        final SearchPlan<E, S> cached = (SearchPlan<E, S>) plans.get(filterClass);
+
+        if(Objects.nonNull(cached)) {
+
+            return cached;
+
+        }
+
+        final FilterMetadata metadata = FilterMetadata.of(filterClass);
+
+        final Class<E> entityClass =
+                (Class<E>) metadata.entityClass()
+                                   .orElseThrow(() -> new InvalidCritersTargetException(
+                                           String.format(INVALID_FILTER, filterClass.getName())));
+
+        if(!isSearchable(entityClass)) {
+
+            throw new InvalidCritersTargetException(
+                    String.format(INVALID_TARGET, entityClass.getName()));
+
+        }
+
+        metadata.validateParameters(entityClass);
+        metadata.validateRelations(entityClass);
+
+        final SearchPlan<E, S> plan = new SearchPlan<>(entityManagerFactory,
+                                                       filterClass,
+                                                       entityClass,
+                                                       Extractors.of(filterClass),
+                                                       strategy,
+                                                       fetchSize,
+                                                       clearing,
+                                                       resultCache);
+
+        if(logger.isDebugEnabled()) {
+
+            logger.debug("Resolved search plan for '{}'.",
+                         filterClass.getName());
+
+        }
+
+        return (SearchPlan<E, S>) plans.computeIfAbsent(filterClass, key -> plan);
+
+    }
+
+    /**
+     * Can this engine search entities of given type
+     *
+     * @param targetClass type to search
+     * @return true if the type is an entity of the engine persistence unit
+     */
+    public boolean isSearchable(final Class<?> targetClass) {
+
+        return MetamodelIndex.of(entityManagerFactory)
+                             .isEntity(targetClass);
+
+    }
+
+}
@@ -15,7 +15,9 @@
  */
 package se.oyabun.criters;
 
+import se.oyabun.criters.cache.ResultCache;
 import se.oyabun.criters.criteria.Filter;
+import se.oyabun.criters.criteria.Relation;
 import se.oyabun.criters.exception.InvalidCritersTargetException;
 
 import jakarta.persistence.EntityManager;
@@ -66,6 +68,43 @@ public interface CritersFactory<E, S extends Filter<E>> {
     CritersFactory<E, S>  prepare(final S searchFilter)
             throws InvalidCritersTargetException;
 
+    /**
+     * Configure the default strategy restricting iterable relations, used by relations
+     * declaring {@link Relation.Strategy#DEFAULT}
+     *
+     * @param strategy to restrict iterable relations with
+     * @return configured factory
+     */
+    CritersFactory<E, S> strategy(final Relation.Strategy strategy);
+
+    /**
+     * Configure the number of rows fetched per database round trip when streaming search
+     * results, defaults to {@link CritersSearchImpl#DEFAULT_FETCH_SIZE}
+     *
+     * @param fetchSize of streamed queries, must be positive
+     * @return configured factory
+     */
+    CritersFactory<E, S> fetchSize(final int fetchSize);
+
+    /**
+     * Configure whether streamed, chunked and iterated searches flush and clear the persistence
+     * context between chunks, keeping it small, disabled by default. Clearing detaches every
+     * managed entity, including those loaded before the search.
+     *
+     * @param clearing true to clear the persistence context while streaming
+     * @return configured factory
+     */
+    CritersFactory<E, S> clearing(final boolean clearing);
+
+    /**
+     * Configure a cache serving the results of {@link CritersSearch#list()} and
+     * {@link CritersSearch#count()}, none by default
+     *
+     * @param resultCache to serve results from, null to always query
+     * @return configured factory
+     */
+    CritersFactory<E, S> cache(final ResultCache resultCache);
+
     /**
      * Produce a critters search based on configured search filter and entity manager
      *
@@ -17,8 +17,11 @@ package se.oyabun.criters;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import se.oyabun.criters.cache.ResultCache;
 import se.oyabun.criters.criteria.Filter;
+import se.oyabun.criters.criteria.Relation;
 import se.oyabun.criters.exception.InvalidCritersTargetException;
+import se.oyabun.criters.metadata.MetamodelIndex;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.criteria.CriteriaBuilder;
@@ -50,6 +53,10 @@ public class CritersFactoryImpl<E, S extends Filter<E>>
     private CriteriaQuery<E> criteriaQuery;
     private CriteriaBuilder criteriaBuilder;
     private S searchFilter;
+    private Relation.Strategy strategy = Relation.Strategy.JOIN;
+    private int fetchSize = CritersSearchImpl.DEFAULT_FETCH_SIZE;
+    private boolean clearing;
+    private ResultCache resultCache;
 
     CritersFactoryImpl() {}
 
@@ -146,6 +153,90 @@ public class CritersFactoryImpl<E, S extends Filter<E>>
 
     }
 
+    /**
+     * ${@inheritDoc}
+     */
+    @Override
+    public CritersFactory<E, S> strategy(final Relation.Strategy strategy) {
+
+        this.strategy = Optional.ofNullable(strategy)
+                                .orElseThrow(IllegalArgumentException::new);
+
+        if(logger.isDebugEnabled()) {
+
+            logger.debug("Configured iterable relation strategy '{}'.",
+                         strategy);
+
+        }
+
+        return this;
+
+    }
+
+    /**
+     * ${@inheritDoc}
+     */
+    @Override
+    public CritersFactory<E, S> fetchSize(final int fetchSize) {
+
+        if(fetchSize < 1) {
+
+            throw new IllegalArgumentException(
+                    String.format(CritersSearchImpl.INVALID_FETCH_SIZE, fetchSize));
+
+        }
+
+        this.fetchSize = fetchSize;
+
+        if(logger.isDebugEnabled()) {
+
+            logger.debug("Configured streaming fetch size {}.",
+                         fetchSize);
+
+        }
+
+        return this;
+
+    }
+
+    /**
+     * ${@inheritDoc}
+     */
+    @Override
+    public CritersFactory<E, S> clearing(final boolean clearing) {
+
+        this.clearing = clearing;
+
+        if(logger.isDebugEnabled()) {
+
+            logger.debug("Configured streaming clearing {}.",
+                         clearing);
+
+        }
+
+        return this;
+
+    }
+
+    /**
+     * ${@inheritDoc}
+     */
+    @Override
+    public CritersFactory<E, S> cache(final ResultCache resultCache) {
+
+        this.resultCache = resultCache;
+
+        if(logger.isDebugEnabled()) {
+
+            logger.debug("Configured result cache '{}'.",
+                         resultCache);
+
+        }
+
+        return this;
+
+    }
+
     /**
      * ${@inheritDoc}
      */
@@ -188,10 +279,18 @@ public class CritersFactoryImpl<E, S extends Filter<E>>
 
             }
 
-            return new CritersSearchImpl<>(criteriaBuilder,
-                                           criteriaQuery,
-                                           root,
-                                           searchFilter);
+            final CritersSearchImpl<E, S> search = new CritersSearchImpl<>(entityManager,
+                                                                           criteriaBuilder,
+                                                                           criteriaQuery,
+                                                                           root,
+                                                                           searchFilter);
+
+            search.using(strategy);
+            search.fetchSize(fetchSize);
+            search.clearing(clearing);
+            search.caching(resultCache);
+
+            return search;
 
         } else {
 
@@ -209,10 +308,8 @@ public class CritersFactoryImpl<E, S extends Filter<E>>
 
         if(Objects.nonNull(entityManager)) {
 
-            return entityManager.getMetamodel()
-                                .getEntities()
-                                .stream()
-                                .anyMatch(type -> type.getJavaType().equals(targetClass));
+            return MetamodelIndex.of(entityManager.getEntityManagerFactory())
+                                 .isEntity(targetClass);
 
         } else if(Objects.nonNull(root)) {
 
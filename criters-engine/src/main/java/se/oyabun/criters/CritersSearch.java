@@ -17,13 +17,21 @@ package se.oyabun.criters;
 
 import se.oyabun.criters.exception.InvalidCritersFilteringException;
 
+import jakarta.persistence.TypedQuery;
 import jakarta.persistence.criteria.CriteriaQuery;
 import jakarta.persistence.criteria.Predicate;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Criters search interface providing both a {@link CriteriaQuery} and the ability
  * to produce a combined restrictions {@link Predicate}.
  *
+ * <p>Methods executing the search, rather than returning a query, return no results without
+ * a database round trip when the filter restrictions provably contradict each other.
+ *
  * @param <E> type of entity the search targets
  * @author Daniel Sundberg
  */
@@ -47,4 +55,152 @@ public interface CritersSearch<E> {
     Predicate restrictions()
             throws InvalidCritersFilteringException;
 
+    /**
+     * Return a query of the cached, parameterized plan for the shape of the search filter,
+     * with the current filter values bound. The plan criteria is built once per filter shape
+     * and entity manager factory, only values are bound per call.
+     *
+     * @throws InvalidCritersFilteringException if restrictions fails to calculate
+     * @throws IllegalStateException if the search was not configured with an entity manager
+     * @return executable query bound to the search filter values
+     */
+    TypedQuery<E> query()
+            throws InvalidCritersFilteringException;
+
+    /**
+     * Return a query counting the results of {@link #query()}, from a cached plan restricted by
+     * the same predicates and joins, without ordering or fetches. Roots are only counted
+     * distinct when an iterable relation is joined.
+     *
+     * @throws InvalidCritersFilteringException if restrictions fails to calculate
+     * @throws IllegalStateException if the search was not configured with an entity manager
+     * @return executable count query bound to the search filter values
+     */
+    TypedQuery<Long> countQuery()
+            throws InvalidCritersFilteringException;
+
+    /**
+     * Count the results of {@link #query()} up to a limit. At most one identifier beyond the
+     * limit is read, so the cost is bounded by the limit regardless of how many results match.
+     *
+     * @param limit of the count, positive
+     * @throws InvalidCritersFilteringException if restrictions fails to calculate
+     * @throws IllegalStateException if the search was not configured with an entity manager
+     * @throws IllegalArgumentException if the limit is not positive or too large
+     * @return exact count up to the limit, or the limit flagged as exceeded
+     */
+    BoundedCount countAtMost(long limit)
+            throws InvalidCritersFilteringException;
+
+    /**
+     * Return the results of {@link #query()}, without querying the database when the search
+     * filter restrictions contradict each other.
+     *
+     * @throws InvalidCritersFilteringException if restrictions fails to calculate
+     * @throws IllegalStateException if the search was not configured with an entity manager
+     * @return search results
+     */
+    List<E> list()
+            throws InvalidCritersFilteringException;
+
+    /**
+     * Return the result of {@link #countQuery()}, without querying the database when the search
+     * filter restrictions contradict each other.
+     *
+     * @throws InvalidCritersFilteringException if restrictions fails to calculate
+     * @throws IllegalStateException if the search was not configured with an entity manager
+     * @return number of search results
+     */
+    long count()
+            throws InvalidCritersFilteringException;
+
+    /**
+     * Return a query of the cached JPQL rendering of the search filter shape, with the current
+     * filter values bound. Queries are created from the same string for every filter of the
+     * same shape, letting the provider reuse its parsed query plan.
+     *
+     * @throws InvalidCritersFilteringException if restrictions fails to render
+     * @throws IllegalStateException if the search was not configured with an entity manager
+     * @return executable query bound to the search filter values
+     */
+    TypedQuery<E> jpqlQuery()
+            throws InvalidCritersFilteringException;
+
+    /**
+     * Stream the results of the prepared {@link #query()}, fetched from the database in batches
+     * of the configured fetch size.
+     *
+     * <p>Streamed entities stay managed, so the persistence context grows with the number of
+     * results unless the search is configured to clear it. A clearing search flushes pending
+     * changes and clears the whole persistence context every fetch size entities, detaching
+     * entities loaded before the search as well. The stream must be closed to release its
+     * database cursor.
+     *
+     * @throws InvalidCritersFilteringException if restrictions fails to calculate
+     * @throws IllegalStateException if the search was not configured with an entity manager
+     * @return sequential stream of search results
+     */
+    Stream<E> stream()
+            throws InvalidCritersFilteringException;
+
+    /**
+     * Pass the results of the prepared {@link #query()} to given consumer in chunks of at
+     * most given size. The entities of a chunk are managed while the consumer runs. A clearing
+     * search flushes pending changes and clears the whole persistence context when the
+     * consumer returns, before the next chunk is read.
+     *
+     * @param chunkSize maximum number of entities per chunk
+     * @param consumer of each chunk, in result order
+     * @throws InvalidCritersFilteringException if restrictions fails to calculate
+     * @throws IllegalArgumentException if chunk size is not positive
+     * @throws IllegalStateException if the search was not configured with an entity manager
+     */
+    void forEachChunk(int chunkSize,
+                      Consumer<List<E>> consumer)
+            throws InvalidCritersFilteringException;
+
+    /**
+     * Iterate the results of {@link #stream()}. The underlying stream is closed when the
+     * iterator is exhausted, an iterator abandoned before that keeps its database cursor open
+     * until the entity manager is closed.
+     *
+     * @throws InvalidCritersFilteringException if restrictions fails to calculate
+     * @throws IllegalStateException if the search was not configured with an entity manager
+     * @return iterator of search results
+     */
+    Iterator<E> iterator()
+            throws InvalidCritersFilteringException;
+
+    /**
+     * Return the first page of the search results in the order of the filter
+     * {@link se.oyabun.criters.criteria.SeekKey}s.
+     *
+     * @param limit maximum number of results of the page
+     * @throws InvalidCritersFilteringException if restrictions fails to calculate or the filter
+     *                                          declares no seek keys
+     * @throws IllegalStateException if the search was not configured with an entity manager
+     * @return first page of results
+     */
+    KeysetPage<E> seek(int limit)
+            throws InvalidCritersFilteringException;
+
+    /**
+     * Return the page of the search results following the page of given continuation token,
+     * seeking beyond its last seek key values instead of skipping rows. Deep pages cost as
+     * much as the first one when the seek keys are indexed.
+     *
+     * <p>Pages are read with a query of their own, leaving {@link #criteria()} untouched, and
+     * restrict iterable relations in {@code EXISTS} subqueries so every entity is read once.
+     *
+     * @param limit maximum number of results of the page
+     * @param token continuation token of the previous page, null for the first page
+     * @throws InvalidCritersFilteringException if restrictions fails to calculate, the filter
+     *                                          declares no seek keys or the token does not match them
+     * @throws IllegalStateException if the search was not configured with an entity manager
+     * @return page of results
+     */
+    KeysetPage<E> seek(int limit,
+                       String token)
+            throws InvalidCritersFilteringException;
+
 }
@@ -15,21 +15,42 @@
  */
 package se.oyabun.criters;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import se.oyabun.criters.analysis.Satisfiability;
+import se.oyabun.criters.cache.ResultCache;
 import se.oyabun.criters.criteria.Combination;
 import se.oyabun.criters.criteria.Filter;
+import se.oyabun.criters.criteria.Relation;
+import se.oyabun.criters.criteria.SeekKey;
 import se.oyabun.criters.exception.InvalidCritersFilteringException;
+import se.oyabun.criters.extraction.ExtractionContext;
 import se.oyabun.criters.extraction.Extractor;
-import se.oyabun.criters.extraction.ParameterExtractor;
-import se.oyabun.criters.extraction.RelationExtractor;
+import se.oyabun.criters.extraction.Extractors;
+import se.oyabun.criters.metadata.MetamodelIndex;
+import se.oyabun.criters.metadata.SeekMetadata;
+import se.oyabun.criters.plan.QueryPlanCache;
 import se.oyabun.criters.util.FilterUtil;
 
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
 import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Basic Criters search implementation.
@@ -41,26 +62,72 @@ import java.util.Optional;
 public class CritersSearchImpl<E, S extends Filter<E>>
         implements CritersSearch<E> {
 
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    static final String ENTITY_MANAGER_REQUIRED = "Entity manager required to execute search.";
+
+    static final String NO_PREDICATES = "No predicates generated.";
+
+    static final String NO_SEEK_KEYS = "Filter '%s' declares no seek keys.";
+
+    static final String INVALID_LIMIT = "Page limit must be positive, was %d.";
+
+    static final String INVALID_COUNT_LIMIT = "Count limit must be between 1 and %d, was %d.";
+
+    static final String INVALID_CHUNK_SIZE = "Chunk size must be positive, was %d.";
+
+    static final String INVALID_FETCH_SIZE = "Fetch size must be positive, was %d.";
+
+    /** Default number of rows fetched per database round trip when streaming results. */
+    public static final int DEFAULT_FETCH_SIZE = 1000;
+
+    //
+    // JPA has no standard fetch size hint, providers ignore hints of other providers.
+    //
+    static final String HIBERNATE_FETCH_SIZE = "org.hibernate.fetchSize";
+    static final String ECLIPSELINK_FETCH_SIZE = "eclipselink.jdbc.fetch-size";
+
     private final S searchCriteria;
+    private final EntityManager entityManager;
     private final CriteriaBuilder criteriaBuilder;
     private final CriteriaQuery<E> criteriaQuery;
     private final Root<E> root;
 
-    private Iterable<Extractor> extractors =
-            Arrays.asList(new ParameterExtractor(),
-                          new RelationExtractor());
+    private Iterable<Extractor> extractors;
+
+    private Relation.Strategy strategy = Relation.Strategy.JOIN;
+
+    private int fetchSize = DEFAULT_FETCH_SIZE;
 
-    private Predicate finalRestrictions;
+    private boolean clearing;
+
+    private ResultCache resultCache;
 
     CritersSearchImpl(final CriteriaBuilder criteriaBuilder,
                       final CriteriaQuery<E> criteriaQuery,
                       final Root<E> root,
                       final S searchCriteria) {
 
+        this(null,
+             criteriaBuilder,
+             criteriaQuery,
+             root,
+             searchCriteria);
+
+    }
+
+    CritersSearchImpl(final EntityManager entityManager,
+                      final CriteriaBuilder criteriaBuilder,
+                      final CriteriaQuery<E> criteriaQuery,
+                      final Root<E> root,
+                      final S searchCriteria) {
+
+        this.entityManager = entityManager;
         this.criteriaBuilder = criteriaBuilder;
         this.criteriaQuery = criteriaQuery;
         this.root = root;
         this.searchCriteria = searchCriteria;
+        this.extractors = Extractors.of(searchCriteria.getClass());
 
     }
 
@@ -75,6 +142,56 @@ public class CritersSearchImpl<E, S extends Filter<E>>
 
     }
 
+    /**
+     * Configure current instance default strategy of iterable relations
+     *
+     * @param strategy to restrict iterable relations with
+     */
+    void using(final Relation.Strategy strategy) {
+
+        this.strategy = strategy;
+
+    }
+
+    /**
+     * Configure current instance number of rows fetched per round trip when streaming
+     *
+     * @param fetchSize of streamed queries
+     */
+    void fetchSize(final int fetchSize) {
+
+        if(fetchSize < 1) {
+
+            throw new IllegalArgumentException(String.format(INVALID_FETCH_SIZE, fetchSize));
+
+        }
+
+        this.fetchSize = fetchSize;
+
+    }
+
+    /**
+     * Configure current instance to flush and clear the persistence context between streamed chunks
+     *
+     * @param clearing true to clear the persistence context while streaming
+     */
+    void clearing(final boolean clearing) {
+
+        this.clearing = clearing;
+
+    }
+
+    /**
+     * Configure current instance cache of listed and counted results
+     *
+     * @param resultCache to serve results from, null to always query
+     */
+    void caching(final ResultCache resultCache) {
+
+        this.resultCache = resultCache;
+
+    }
+
     /**
      * ${@inheritDoc}
      */
@@ -93,31 +210,578 @@ public class CritersSearchImpl<E, S extends Filter<E>>
     public Predicate restrictions()
             throws InvalidCritersFilteringException {
 
-        for(final Extractor extractor : extractors) {
+        return generateRestrictions().orElseThrow(() -> new IllegalStateException(NO_PREDICATES));
+
+    }
+
+    /**
+     * ${@inheritDoc}
+     */
+    @Override
+    public TypedQuery<E> query()
+            throws InvalidCritersFilteringException {
+
+        requireEntityManager();
+
+        return QueryPlanCache.of(entityManager.getEntityManagerFactory())
+                             .plan(entityManager.getEntityManagerFactory(), searchCriteria, extractors, strategy)
+                             .query(entityManager, searchCriteria);
+
+    }
+
+    /**
+     * ${@inheritDoc}
+     */
+    @Override
+    public TypedQuery<Long> countQuery()
+            throws InvalidCritersFilteringException {
+
+        requireEntityManager();
+
+        return QueryPlanCache.of(entityManager.getEntityManagerFactory())
+                             .count(entityManager.getEntityManagerFactory(), searchCriteria, extractors, strategy)
+                             .query(entityManager, searchCriteria);
+
+    }
+
+    /**
+     * ${@inheritDoc}
+     */
+    @Override
+    public List<E> list()
+            throws InvalidCritersFilteringException {
+
+        requireEntityManager();
+
+        return Objects.nonNull(resultCache) ?
+               resultCache.list(searchCriteria, strategy, this::loadList) :
+               loadList();
+
+    }
+
+    /**
+     * ${@inheritDoc}
+     */
+    @Override
+    public long count()
+            throws InvalidCritersFilteringException {
+
+        requireEntityManager();
+
+        return Objects.nonNull(resultCache) ?
+               resultCache.count(searchCriteria, strategy, this::loadCount) :
+               loadCount();
+
+    }
+
+    /**
+     * ${@inheritDoc}
+     */
+    @Override
+    public BoundedCount countAtMost(final long limit)
+            throws InvalidCritersFilteringException {
+
+        requireEntityManager();
+
+        if(limit < 1 || limit >= Integer.MAX_VALUE) {
+
+            throw new IllegalArgumentException(String.format(INVALID_COUNT_LIMIT, Integer.MAX_VALUE - 1, limit));
+
+        }
+
+        if(unsatisfiable()) {
+
+            return new BoundedCount(0L, false);
+
+        }
+
+        //
+        // Read one identifier beyond the limit to know whether the limit is exceeded.
+        //
+        final int count = QueryPlanCache.of(entityManager.getEntityManagerFactory())
+                                        .identifiers(entityManager.getEntityManagerFactory(),
+                                                     searchCriteria,
+                                                     extractors,
+                                                     strategy)
+                                        .query(entityManager, searchCriteria)
+                                        .setMaxResults((int) limit + 1)
+                                        .getResultList()
+                                        .size();
+
+        return count > limit ?
+               new BoundedCount(limit, true) :
+               new BoundedCount(count, false);
+
+    }
+
+    /**
+     * ${@inheritDoc}
+     */
+    @Override
+    public TypedQuery<E> jpqlQuery()
+            throws InvalidCritersFilteringException {
+
+        requireEntityManager();
+
+        return QueryPlanCache.of(entityManager.getEntityManagerFactory())
+                             .jpql(entityManager.getEntityManagerFactory(), searchCriteria, strategy)
+                             .query(entityManager, searchCriteria);
+
+    }
+
+    /**
+     * ${@inheritDoc}
+     */
+    @Override
+    public Stream<E> stream()
+            throws InvalidCritersFilteringException {
+
+        if(!clearing) {
+
+            return results();
+
+        }
+
+        final Stream<E> results = results();
+        final Chunks<E> chunks = new Chunks<>(results.iterator(), fetchSize, this::clear);
+
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(chunks, Spliterator.ORDERED), false)
+                            .flatMap(List::stream)
+                            .onClose(results::close);
+
+    }
+
+    /**
+     * ${@inheritDoc}
+     */
+    @Override
+    public void forEachChunk(final int chunkSize,
+                             final Consumer<List<E>> consumer)
+            throws InvalidCritersFilteringException {
+
+        if(chunkSize < 1) {
+
+            throw new IllegalArgumentException(String.format(INVALID_CHUNK_SIZE, chunkSize));
+
+        }
+
+        Objects.requireNonNull(consumer);
+
+        try(final Stream<E> results = results()) {
+
+            final Chunks<E> chunks = new Chunks<>(results.iterator(),
+                                                  chunkSize,
+                                                  clearing ? this::clear : () -> {});
+
+            while(chunks.hasNext()) {
+
+                consumer.accept(chunks.next());
+
+            }
+
+        }
+
+    }
+
+    /**
+     * ${@inheritDoc}
+     */
+    @Override
+    public Iterator<E> iterator()
+            throws InvalidCritersFilteringException {
+
+        return new ClosingIterator<>(stream());
+
+    }
+
+    /**
+     * Stream the results of the prepared query, fetching rows in batches of the fetch size.
+     */
+    private Stream<E> results()
+            throws InvalidCritersFilteringException {
+
+        requireEntityManager();
+
+        if(unsatisfiable()) {
+
+            return Stream.empty();
+
+        }
+
+        final TypedQuery<E> query = query();
+
+        query.setHint(HIBERNATE_FETCH_SIZE, fetchSize);
+        query.setHint(ECLIPSELINK_FETCH_SIZE, fetchSize);
+
+        return query.getResultStream();
+
+    }
+
+    /**
+     * ${@inheritDoc}
+     */
+    @Override
+    public KeysetPage<E> seek(final int limit)
+            throws InvalidCritersFilteringException {
+
+        return seek(limit, null);
+
+    }
+
+    /**
+     * ${@inheritDoc}
+     */
+    @Override
+    public KeysetPage<E> seek(final int limit,
+                              final String token)
+            throws InvalidCritersFilteringException {
+
+        requireEntityManager();
+
+        if(limit < 1) {
+
+            throw new IllegalArgumentException(String.format(INVALID_LIMIT, limit));
+
+        }
+
+        final SeekMetadata seekMetadata = SeekMetadata.of(searchCriteria.getClass());
+        final List<SeekKey> keys = seekMetadata.keys();
+        final Class<E> entityClass = searchCriteria.getEntityClass();
+
+        if(keys.isEmpty()) {
+
+            throw new InvalidCritersFilteringException(
+                    String.format(NO_SEEK_KEYS, searchCriteria.getClass().getName()));
+
+        }
+
+        if(unsatisfiable()) {
+
+            return new KeysetPage<>(List.of(), null);
+
+        }
+
+        //
+        // Pages are queried on a query of their own, leaving the search criteria query untouched,
+        // and restrict iterable relations in subqueries so each root is read once.
+        //
+        final CriteriaQuery<E> pageQuery = criteriaBuilder.createQuery(entityClass);
+        final Root<E> pageRoot = pageQuery.from(entityClass);
+
+        final List<Predicate> predicates = new ArrayList<>(2);
+
+        generateRestrictions(context(pageQuery, pageRoot).semiJoined()).ifPresent(predicates::add);
+
+        if(Objects.nonNull(token)) {
+
+            predicates.add(seekPredicate(pageRoot, keys, seekMetadata.decode(entityClass, token)));
+
+        }
+
+        pageQuery.where(predicates.toArray(new Predicate[0]));
+        pageQuery.orderBy(keys.stream()
+                              .map(key -> key.descending() ?
+                                          criteriaBuilder.desc(pageRoot.get(key.name())) :
+                                          criteriaBuilder.asc(pageRoot.get(key.name())))
+                              .toList());
+
+        //
+        // Read one row beyond the page to know whether another page follows.
+        //
+        final List<E> results = entityManager.createQuery(pageQuery)
+                                             .setMaxResults(limit + 1)
+                                             .getResultList();
+
+        if(results.size() <= limit) {
+
+            return new KeysetPage<>(results, null);
+
+        }
+
+        final List<E> page = results.subList(0, limit);
+
+        return new KeysetPage<>(page,
+                                seekMetadata.encode(seekMetadata.values(entityClass,
+                                                                        page.get(limit - 1))));
+
+    }
+
+    /**
+     * Flush pending changes, when taking part in a transaction, and clear the persistence context.
+     */
+    private void clear() {
+
+        if(entityManager.isJoinedToTransaction()) {
+
+            entityManager.flush();
+
+        }
+
+        entityManager.clear();
+
+        if(logger.isDebugEnabled()) {
+
+            logger.debug("Cleared persistence context while streaming '{}'.", searchCriteria);
+
+        }
+
+    }
+
+    /**
+     * Query the search results, skipping contradicting searches.
+     */
+    private List<E> loadList()
+            throws InvalidCritersFilteringException {
+
+        return unsatisfiable() ?
+               List.of() :
+               query().getResultList();
+
+    }
+
+    /**
+     * Query the search result count, skipping contradicting searches.
+     */
+    private long loadCount()
+            throws InvalidCritersFilteringException {
 
-            extractor.generatePredicate(searchCriteria, criteriaBuilder, root)
-                     .ifPresent(this::addPredicate);
+        return unsatisfiable() ?
+               0L :
+               countQuery().getSingleResult();
+
+    }
+
+    /**
+     * Executing the search requires an entity manager.
+     */
+    private void requireEntityManager() {
+
+        if(Objects.isNull(entityManager)) {
+
+            throw new IllegalStateException(ENTITY_MANAGER_REQUIRED);
 
         }
 
-        return Optional.ofNullable(finalRestrictions)
-                       .orElseThrow(() -> new IllegalStateException("No predicates generated."));
+    }
+
+    /**
+     * Do the search filter restrictions provably contradict each other, making a database
+     * round trip pointless.
+     */
+    private boolean unsatisfiable()
+            throws InvalidCritersFilteringException {
+
+        final boolean unsatisfiable = Satisfiability.of(searchCriteria.getClass())
+                                                    .unsatisfiable(searchCriteria);
+
+        if(unsatisfiable && logger.isDebugEnabled()) {
+
+            logger.debug("Skipped unsatisfiable search of '{}'.", searchCriteria);
+
+        }
+
+        return unsatisfiable;
 
     }
 
     /**
-     * Combine all predicates we have, starting with non null predicate
+     * Generate and combine the predicates of every extractor on the search criteria query.
      *
-     * @param predicate to be combined with final restrictions
+     * @return combined restrictions, empty if no extractor restricted the search
      */
-    private void addPredicate(final Predicate predicate) {
+    private Optional<Predicate> generateRestrictions()
+            throws InvalidCritersFilteringException {
+
+        return generateRestrictions(context(criteriaQuery, root));
 
-        finalRestrictions = Objects.isNull(finalRestrictions) ?
-                            predicate :
-                            FilterUtil.combine(Combination.Combine.AND,
-                                               criteriaBuilder,
-                                               finalRestrictions,
-                                               predicate);
+    }
+
+    /**
+     * Create an extraction context of given query and root.
+     */
+    private ExtractionContext<E> context(final CriteriaQuery<E> query,
+                                         final Root<E> root) {
+
+        return Objects.nonNull(entityManager) ?
+               ExtractionContext.of(criteriaBuilder, query, root, strategy)
+                                .indexed(MetamodelIndex.of(entityManager.getEntityManagerFactory())) :
+               ExtractionContext.of(criteriaBuilder, query, root, strategy);
+
+    }
+
+    /**
+     * Generate and combine the predicates of every extractor within given context.
+     *
+     * @return combined restrictions, empty if no extractor restricted the search
+     */
+    private Optional<Predicate> generateRestrictions(final ExtractionContext<E> context)
+            throws InvalidCritersFilteringException {
+
+        final List<Predicate> restrictions = new ArrayList<>();
+
+        for(final Extractor extractor : extractors) {
+
+            extractor.generatePredicate(searchCriteria, context)
+                     .ifPresent(restrictions::add);
+
+        }
+
+        return restrictions.isEmpty() ?
+               Optional.empty() :
+               Optional.of(FilterUtil.combine(Combination.Combine.AND,
+                                              criteriaBuilder,
+                                              restrictions.toArray(new Predicate[0])));
+
+    }
+
+    /**
+     * Seek beyond given key values, in the key sort order. Expands the row value comparison
+     * {@code (k1, k2) > (v1, v2)} to {@code k1 > v1 or (k1 = v1 and k2 > v2)}, supported by
+     * every provider and database.
+     */
+    private Predicate seekPredicate(final Root<E> root,
+                                    final List<SeekKey> keys,
+                                    final List<Object> values) {
+
+        final List<Predicate> alternatives = new ArrayList<>(keys.size());
+
+        for(int i = 0; i < keys.size(); i++) {
+
+            final List<Predicate> conjunction = new ArrayList<>(i + 1);
+
+            for(int j = 0; j < i; j++) {
+
+                conjunction.add(criteriaBuilder.equal(root.get(keys.get(j).name()), values.get(j)));
+
+            }
+
+            conjunction.add(beyond(root, keys.get(i), values.get(i)));
+
+            alternatives.add(criteriaBuilder.and(conjunction.toArray(new Predicate[0])));
+
+        }
+
+        return criteriaBuilder.or(alternatives.toArray(new Predicate[0]));
+
+    }
+
+    /**
+     * Seek key values are decoded into the getter types, which the supported types make Comparable.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Predicate beyond(final Root<E> root,
+                             final SeekKey key,
+                             final Object value) {
+
+        final Expression<Comparable> path = root.get(key.name());
+
+        return key.descending() ?
+               criteriaBuilder.lessThan(path, (Comparable) value) :
+               criteriaBuilder.greaterThan(path, (Comparable) value);
+
+    }
+
+    /**
+     * Chunks of streamed entities, releasing each chunk once the next one is asked for.
+     */
+    private static final class Chunks<E>
+            implements Iterator<List<E>> {
+
+        private final Iterator<E> iterator;
+        private final int size;
+        private final Runnable release;
+
+        private boolean consumed;
+
+        private Chunks(final Iterator<E> iterator,
+                       final int size,
+                       final Runnable release) {
+
+            this.iterator = iterator;
+            this.size = size;
+            this.release = release;
+
+        }
+
+        @Override
+        public boolean hasNext() {
+
+            //
+            // The previous chunk is consumed once the next one is asked for.
+            //
+            if(consumed) {
+
+                consumed = false;
+                release.run();
+
+            }
+
+            return iterator.hasNext();
+
+        }
+
+        @Override
+        public List<E> next() {
+
+            if(!hasNext()) {
+
+                throw new NoSuchElementException();
+
+            }
+
+            final List<E> chunk = new ArrayList<>(size);
+
+            while(chunk.size() < size && iterator.hasNext()) {
+
+                chunk.add(iterator.next());
+
+            }
+
+            consumed = true;
+
+            return Collections.unmodifiableList(chunk);
+
+        }
+
+    }
+
+    /**
+     * Iterator closing its stream when exhausted.
+     */
+    private static final class ClosingIterator<E>
+            implements Iterator<E> {
+
+        private final Stream<E> stream;
+        private final Iterator<E> iterator;
+
+        private ClosingIterator(final Stream<E> stream) {
+
+            this.stream = stream;
+            this.iterator = stream.iterator();
+
+        }
+
+        @Override
+        public boolean hasNext() {
+
+            final boolean hasNext = iterator.hasNext();
+
+            if(!hasNext) {
+
+                stream.close();
+
+            }
+
+            return hasNext;
+
+        }
+
+        @Override
+        public E next() {
+
+            return iterator.next();
+
+        }
 
     }
 
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2017 Oyabun AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.oyabun.criters;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Page of keyset paginated search results, with the continuation token of the next page.
+ *
+ * @param <E> type of entity
+ * @author Daniel Sundberg
+ */
+public final class KeysetPage<E> {
+
+    private final List<E> results;
+    private final String next;
+
+    KeysetPage(final List<E> results,
+               final String next) {
+
+        this.results = List.copyOf(results);
+        this.next = next;
+
+    }
+
+    /**
+     * Returns the results of the page, in seek key order.
+     *
+     * @return immutable list of results
+     */
+    public List<E> results() {
+
+        return results;
+
+    }
+
+    /**
+     * Returns the opaque continuation token seeking the page following this one.
+     *
+     * @return the continuation token, empty if this is the last page
+     */
+    public Optional<String> next() {
+
+        return Optional.ofNullable(next);
+
+    }
+
+    /**
+     * Is there a page following this one
+     *
+     * @return true if more results follow
+     */
+    public boolean hasNext() {
+
+        return Objects.nonNull(next);
+
+    }
+
+}
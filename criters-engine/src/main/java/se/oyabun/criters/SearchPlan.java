@@ -0,0 +1,204 @@
+/*
+ * Copyright 2017 Oyabun AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.oyabun.criters;
+
+import se.oyabun.criters.cache.ResultCache;
+import se.oyabun.criters.criteria.Filter;
+import se.oyabun.criters.criteria.Relation;
+import se.oyabun.criters.exception.InvalidCritersFilteringException;
+import se.oyabun.criters.extraction.Extractor;
+import se.oyabun.criters.plan.QueryPlanCache;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import java.util.List;
+
+/**
+ * Immutable, validated plan of searches with one filter class, shared between threads.
+ *
+ * <p>Entity managers passed to a plan must be created by the entity manager factory of the
+ * {@link CritersEngine} which resolved the plan.
+ *
+ * @param <E> type of entity
+ * @param <S> type of filter
+ * @author Daniel Sundberg
+ */
+public final class SearchPlan<E, S extends Filter<E>> {
+
+    static final String MISMATCHING_FILTER = "Filter '%s' is not planned by '%s'.";
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final Class<S> filterClass;
+    private final Class<E> entityClass;
+    private final List<Extractor> extractors;
+    private final Relation.Strategy strategy;
+    private final int fetchSize;
+    private final boolean clearing;
+    private final ResultCache resultCache;
+    private final QueryPlanCache queryPlans;
+
+    SearchPlan(final EntityManagerFactory entityManagerFactory,
+               final Class<S> filterClass,
+               final Class<E> entityClass,
+               final List<Extractor> extractors,
+               final Relation.Strategy strategy,
+               final int fetchSize,
+               final boolean clearing,
+               final ResultCache resultCache) {
+
+        this.entityManagerFactory = entityManagerFactory;
+        this.filterClass = filterClass;
+        this.entityClass = entityClass;
+        this.extractors = extractors;
+        this.strategy = strategy;
+        this.fetchSize = fetchSize;
+        this.clearing = clearing;
+        this.resultCache = resultCache;
+        this.queryPlans = QueryPlanCache.of(entityManagerFactory);
+
+    }
+
+    /**
+     * Returns the planned filter class.
+     *
+     * @return the filter class
+     */
+    public Class<S> filterClass() {
+
+        return filterClass;
+
+    }
+
+    /**
+     * Returns the entity class targeted by the planned filter class.
+     *
+     * @return the entity class
+     */
+    public Class<E> entityClass() {
+
+        return entityClass;
+
+    }
+
+    /**
+     * Create a search of given filter on given entity manager.
+     *
+     * @param entityManager to search with
+     * @param filter of the planned filter class
+     * @return new search
+     */
+    public CritersSearch<E> search(final EntityManager entityManager,
+                                   final S filter) {
+
+        verify(filter);
+
+        final CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        final CriteriaQuery<E> criteriaQuery = criteriaBuilder.createQuery(entityClass);
+        final Root<E> root = criteriaQuery.from(entityClass);
+
+        final CritersSearchImpl<E, S> search = new CritersSearchImpl<>(entityManager,
+                                                                       criteriaBuilder,
+                                                                       criteriaQuery,
+                                                                       root,
+                                                                       filter);
+
+        search.using(extractors);
+        search.using(strategy);
+        search.fetchSize(fetchSize);
+        search.clearing(clearing);
+        search.caching(resultCache);
+
+        return search;
+
+    }
+
+    /**
+     * Create a prepared query of given filter on given entity manager, bound to the filter
+     * values. Equivalent to {@code search(entityManager, filter).query()} without creating
+     * an intermediate criteria query.
+     *
+     * @param entityManager to create the query on
+     * @param filter of the planned filter class
+     * @return bound, executable query
+     * @throws InvalidCritersFilteringException if the query fails to compile or bind
+     */
+    public TypedQuery<E> query(final EntityManager entityManager,
+                               final S filter)
+            throws InvalidCritersFilteringException {
+
+        verify(filter);
+
+        return queryPlans.plan(entityManagerFactory, filter, extractors, strategy)
+                         .query(entityManager, filter);
+
+    }
+
+    /**
+     * Create a query counting the results of {@link #query}, bound to the filter values.
+     * Equivalent to {@code search(entityManager, filter).countQuery()}.
+     *
+     * @param entityManager to create the query on
+     * @param filter of the planned filter class
+     * @return bound, executable count query
+     * @throws InvalidCritersFilteringException if the query fails to compile or bind
+     */
+    public TypedQuery<Long> countQuery(final EntityManager entityManager,
+                                       final S filter)
+            throws InvalidCritersFilteringException {
+
+        verify(filter);
+
+        return queryPlans.count(entityManagerFactory, filter, extractors, strategy)
+                         .query(entityManager, filter);
+
+    }
+
+    /**
+     * Create a query of the JPQL rendering of given filter on given entity manager, bound to
+     * the filter values. Equivalent to {@code search(entityManager, filter).jpqlQuery()}.
+     *
+     * @param entityManager to create the query on
+     * @param filter of the planned filter class
+     * @return bound, executable query
+     * @throws InvalidCritersFilteringException if the query fails to render or bind
+     */
+    public TypedQuery<E> jpqlQuery(final EntityManager entityManager,
+                                   final S filter)
+            throws InvalidCritersFilteringException {
+
+        verify(filter);
+
+        return queryPlans.jpql(entityManagerFactory, filter, strategy)
+                         .query(entityManager, filter);
+
+    }
+
+    private void verify(final S filter) {
+
+        if(filter.getClass() != filterClass) {
+
+            throw new IllegalArgumentException(
+                    String.format(MISMATCHING_FILTER, filter.getClass().getName(), filterClass.getName()));
+
+        }
+
+    }
+
+}
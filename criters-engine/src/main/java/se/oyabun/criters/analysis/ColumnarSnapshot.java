@@ -0,0 +1,790 @@
+/*
+ * Copyright 2017 Oyabun AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.oyabun.criters.analysis;
+
+import se.oyabun.criters.CritersSearch;
+import se.oyabun.criters.criteria.Combination;
+import se.oyabun.criters.criteria.Filter;
+import se.oyabun.criters.criteria.Restriction;
+import se.oyabun.criters.exception.InvalidCritersFilteringException;
+import se.oyabun.criters.metadata.Accessor;
+import se.oyabun.criters.metadata.FilterMetadata;
+import se.oyabun.criters.metadata.ParameterMetadata;
+import se.oyabun.criters.util.FilterUtil;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Column oriented snapshot of entities, evaluating the {@link se.oyabun.criters.criteria.Parameter}
+ * restrictions of one filter class a column at a time.
+ *
+ * <p>The attributes restricted by the parameters of the filter class are copied once into one
+ * column each, integral attributes into {@code int[]} or {@code long[]} columns, strings
+ * dictionary encoded with each distinct string stored once, and other attributes as objects.
+ * Null attributes are recorded in a bitmap per column. Each restriction is evaluated over its
+ * column into a {@link BitSet} of matching rows, string restrictions once per distinct string
+ * rather than once per row, and the bitsets of parameters are combined by their
+ * {@link Combination} groups. Relation restrictions alone are evaluated by the
+ * {@link FilterEvaluator}, only on the rows matching the parameters.
+ *
+ * <p>Restrictions follow the semantics of the {@link RestrictionEvaluator}. Snapshots are
+ * immutable and thread safe, changes of the entities after the snapshot is taken are not seen by
+ * parameter restrictions. Related entities are not copied, relation restrictions see them as
+ * they are when evaluated.
+ *
+ * @param <E> type of entity
+ * @author Daniel Sundberg
+ */
+public final class ColumnarSnapshot<E> {
+
+    static final String MISSING_ENTITY_CLASS = "Filter class '%s' does not declare its entity class.";
+    static final String MISSING_GETTER = "Type '%s' has no getter of '%s'.";
+    static final String FILTER_MISMATCH = "Snapshot of '%s' can not evaluate filter '%s'.";
+
+    private final Class<?> filterClass;
+    private final List<E> entities;
+    private final Term[][] groups;
+    private final boolean relations;
+
+    private ColumnarSnapshot(final Class<?> filterClass,
+                             final List<E> entities,
+                             final Term[][] groups,
+                             final boolean relations) {
+
+        this.filterClass = filterClass;
+        this.entities = entities;
+        this.groups = groups;
+        this.relations = relations;
+
+    }
+
+    /**
+     * Take a snapshot of the results of a search, for filters of given class. Results repeated
+     * by joined iterable relations are only taken once, in order of their first occurrence.
+     *
+     * @param filterClass of the filters to evaluate
+     * @param search to take the results of
+     * @param <E> type of entity
+     * @param <S> type of filter
+     * @return snapshot of the search results
+     * @throws InvalidCritersFilteringException if the search fails or the filter class does not
+     *                                          match its entity
+     */
+    public static <E, S extends Filter<E>> ColumnarSnapshot<E> of(final Class<S> filterClass,
+                                                                  final CritersSearch<E> search)
+            throws InvalidCritersFilteringException {
+
+        final Set<E> distinct = Collections.newSetFromMap(new IdentityHashMap<>());
+        final List<E> rows = new ArrayList<>();
+
+        for(final E result : search.list()) {
+
+            if(distinct.add(result)) {
+
+                rows.add(result);
+
+            }
+
+        }
+
+        return of(filterClass, rows);
+
+    }
+
+    /**
+     * Take a snapshot of given entities, for filters of given class.
+     *
+     * @param filterClass of the filters to evaluate
+     * @param entities to take a snapshot of, in the order filtered results are returned
+     * @param <E> type of entity
+     * @param <S> type of filter
+     * @return snapshot of the entities
+     * @throws InvalidCritersFilteringException if the filter class does not match its entity or
+     *                                          an attribute can not be read
+     */
+    public static <E, S extends Filter<E>> ColumnarSnapshot<E> of(final Class<S> filterClass,
+                                                                  final Collection<? extends E> entities)
+            throws InvalidCritersFilteringException {
+
+        final FilterMetadata metadata = FilterMetadata.of(filterClass);
+
+        final Class<?> entityClass = metadata.entityClass()
+                                             .orElseThrow(() -> new InvalidCritersFilteringException(
+                                                     String.format(MISSING_ENTITY_CLASS, filterClass.getName())));
+
+        metadata.validateParameters(entityClass);
+
+        final List<E> rows = List.copyOf(entities);
+        final Map<String, Column> columns = new HashMap<>();
+        final Map<String, List<Term>> groups = new LinkedHashMap<>();
+
+        for(final ParameterMetadata parameter : metadata.parameters()) {
+
+            Column column = columns.get(parameter.name());
+
+            if(Objects.isNull(column)) {
+
+                column = Column.of(getter(entityClass, parameter.name()), rows);
+                columns.put(parameter.name(), column);
+
+            }
+
+            groups.computeIfAbsent(parameter.group(), group -> new ArrayList<>())
+                  .add(new Term(parameter.combine(), column, parameter.restriction(), parameter.accessor()));
+
+        }
+
+        return new ColumnarSnapshot<>(filterClass,
+                                      rows,
+                                      groups.values()
+                                            .stream()
+                                            .map(group -> group.toArray(Term[]::new))
+                                            .toArray(Term[][]::new),
+                                      !metadata.relations().isEmpty());
+
+    }
+
+    /**
+     * Returns the number of entities of the snapshot.
+     *
+     * @return number of rows
+     */
+    public int size() {
+
+        return entities.size();
+
+    }
+
+    /**
+     * Returns the entity of a row.
+     *
+     * @param row of the entity
+     * @return entity of the row
+     */
+    public E get(final int row) {
+
+        return entities.get(row);
+
+    }
+
+    /**
+     * Returns the entities matching a filter, in snapshot order.
+     *
+     * @param filter of the snapshot filter class
+     * @param <S> type of filter
+     * @return matching entities
+     * @throws InvalidCritersFilteringException if a filter value can not be read or is invalid
+     * @throws IllegalArgumentException if the filter is not of the snapshot filter class
+     */
+    public <S extends Filter<E>> List<E> filter(final S filter)
+            throws InvalidCritersFilteringException {
+
+        final BitSet rows = matches(filter);
+        final List<E> matches = new ArrayList<>(rows.cardinality());
+
+        for(int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1)) {
+
+            matches.add(entities.get(row));
+
+        }
+
+        return matches;
+
+    }
+
+    /**
+     * Returns the rows of the entities matching a filter.
+     *
+     * @param filter of the snapshot filter class
+     * @param <S> type of filter
+     * @return bitset of matching rows
+     * @throws InvalidCritersFilteringException if a filter value can not be read or is invalid
+     * @throws IllegalArgumentException if the filter is not of the snapshot filter class
+     */
+    public <S extends Filter<E>> BitSet matches(final S filter)
+            throws InvalidCritersFilteringException {
+
+        if(filter.getClass() != filterClass) {
+
+            throw new IllegalArgumentException(
+                    String.format(FILTER_MISMATCH, filterClass.getName(), filter.getClass().getName()));
+
+        }
+
+        final int size = entities.size();
+        final BitSet result = new BitSet(size);
+
+        result.set(0, size);
+
+        for(final Term[] group : groups) {
+
+            if(result.isEmpty()) {
+
+                return result;
+
+            }
+
+            result.and(fold(group, filter, size));
+
+        }
+
+        if(relations && !result.isEmpty()) {
+
+            final Predicate<E> predicate = FilterEvaluator.ofRelations(filter);
+
+            for(int row = result.nextSetBit(0); row >= 0; row = result.nextSetBit(row + 1)) {
+
+                if(!predicate.test(entities.get(row))) {
+
+                    result.clear(row);
+
+                }
+
+            }
+
+        }
+
+        return result;
+
+    }
+
+    /**
+     * Fold the restrictions of a group in order. The combination of the first restriction of a
+     * group is never applied, restrictions that can not change the result are not evaluated.
+     */
+    private static BitSet fold(final Term[] group,
+                               final Object filter,
+                               final int size)
+            throws InvalidCritersFilteringException {
+
+        final BitSet result = group[ 0 ].evaluate(filter, size);
+
+        for(int i = 1; i < group.length; i++) {
+
+            if(group[ i ].combine() == Combination.Combine.OR) {
+
+                if(result.nextClearBit(0) < size) {
+
+                    result.or(group[ i ].evaluate(filter, size));
+
+                }
+
+            } else if(!result.isEmpty()) {
+
+                result.and(group[ i ].evaluate(filter, size));
+
+            }
+
+        }
+
+        return result;
+
+    }
+
+    private static Accessor getter(final Class<?> type,
+                                   final String name)
+            throws InvalidCritersFilteringException {
+
+        return Accessor.of(FilterUtil.getter(type, name)
+                                     .orElseThrow(() -> new InvalidCritersFilteringException(
+                                             String.format(MISSING_GETTER, type.getName(), name))));
+
+    }
+
+    /**
+     * Restriction of a column by the value of a filter getter.
+     */
+    private record Term(Combination.Combine combine,
+                        Column column,
+                        Restriction restriction,
+                        Accessor value) {
+
+        private BitSet evaluate(final Object filter,
+                                final int size)
+                throws InvalidCritersFilteringException {
+
+            if(restriction == Restriction.IS_NULL) {
+
+                return (BitSet) column.nulls.clone();
+
+            }
+
+            final BitSet result = new BitSet(size);
+
+            if(restriction == Restriction.IS_NOT_NULL) {
+
+                result.set(0, size);
+                result.andNot(column.nulls);
+
+                return result;
+
+            }
+
+            final Object bound = value.get(filter);
+
+            //
+            // Restrictions of null values are unknown in SQL, never matching.
+            //
+            if(Objects.nonNull(bound)) {
+
+                try {
+
+                    column.select(restriction, bound, result);
+
+                } catch (IllegalArgumentException e) {
+
+                    throw new InvalidCritersFilteringException(e.getMessage(), e);
+
+                }
+
+            }
+
+            return result;
+
+        }
+
+    }
+
+    /**
+     * Column of the values of one attribute, with a bitmap of null rows.
+     */
+    private abstract static class Column {
+
+        protected final BitSet nulls = new BitSet();
+
+        /**
+         * Copy an attribute of every row into a column specialized for its declared type.
+         */
+        private static Column of(final Accessor getter,
+                                 final List<?> rows)
+                throws InvalidCritersFilteringException {
+
+            final Class<?> type = getter.type();
+
+            final Column column;
+
+            if(type == int.class || type == Integer.class ||
+               type == short.class || type == Short.class ||
+               type == byte.class || type == Byte.class) {
+
+                column = new IntColumn(rows.size());
+
+            } else if(type == long.class || type == Long.class) {
+
+                column = new LongColumn(rows.size());
+
+            } else if(type == String.class) {
+
+                column = new StringColumn(rows.size());
+
+            } else {
+
+                column = new ObjectColumn(rows.size());
+
+            }
+
+            for(int row = 0; row < rows.size(); row++) {
+
+                final Object value = getter.get(rows.get(row));
+
+                if(Objects.isNull(value)) {
+
+                    column.nulls.set(row);
+
+                } else {
+
+                    column.store(row, value);
+
+                }
+
+            }
+
+            return column;
+
+        }
+
+        /**
+         * Store the non null value of a row.
+         */
+        protected abstract void store(int row,
+                                      Object value);
+
+        /**
+         * Returns the boxed non null value of a row.
+         */
+        protected abstract Object value(int row);
+
+        /**
+         * Returns the number of rows of the column.
+         */
+        protected abstract int size();
+
+        /**
+         * Set the rows whose non null value matches a restriction to a non null value, by
+         * default evaluating the boxed value of every row.
+         */
+        protected void select(final Restriction restriction,
+                              final Object bound,
+                              final BitSet result) {
+
+            final Predicate<Object> predicate = RestrictionEvaluator.of(restriction, bound);
+
+            for(int row = nulls.nextClearBit(0); row < size(); row = nulls.nextClearBit(row + 1)) {
+
+                if(predicate.test(value(row))) {
+
+                    result.set(row);
+
+                }
+
+            }
+
+        }
+
+    }
+
+    /**
+     * Column of integral values, compared as primitives when the restriction value is integral.
+     */
+    private abstract static class IntegralColumn
+            extends Column {
+
+        /**
+         * Returns the non null value of a row as a long.
+         */
+        protected abstract long longValue(int row);
+
+        @Override
+        protected void select(final Restriction restriction,
+                              final Object bound,
+                              final BitSet result) {
+
+            if(restriction == Restriction.IN) {
+
+                final long[] candidates = integrals(bound);
+
+                if(Objects.isNull(candidates)) {
+
+                    super.select(restriction, bound, result);
+                    return;
+
+                }
+
+                for(int row = nulls.nextClearBit(0); row < size(); row = nulls.nextClearBit(row + 1)) {
+
+                    if(Arrays.binarySearch(candidates, longValue(row)) >= 0) {
+
+                        result.set(row);
+
+                    }
+
+                }
+
+                return;
+
+            }
+
+            if(!integral(bound) ||
+               restriction == Restriction.LIKE) {
+
+                super.select(restriction, bound, result);
+                return;
+
+            }
+
+            final long value = ((Number) bound).longValue();
+
+            for(int row = nulls.nextClearBit(0); row < size(); row = nulls.nextClearBit(row + 1)) {
+
+                final int comparison = Long.compare(longValue(row), value);
+
+                final boolean matches = switch (restriction) {
+                    case EQUALS -> comparison == 0;
+                    case NOT_EQUALS -> comparison != 0;
+                    case GREATER_THAN -> comparison > 0;
+                    case GREATER_THAN_OR_EQUALS -> comparison >= 0;
+                    case LESS_THAN -> comparison < 0;
+                    case LESS_THAN_OR_EQUALS -> comparison <= 0;
+                    case LIKE, IN, IS_NULL, IS_NOT_NULL -> throw new IllegalStateException();
+                };
+
+                if(matches) {
+
+                    result.set(row);
+
+                }
+
+            }
+
+        }
+
+        /**
+         * Sorted integral candidates of an {@code IN} collection without nulls, null when any
+         * candidate is not integral.
+         */
+        private static long[] integrals(final Object bound) {
+
+            if(!(bound instanceof Collection<?> collection)) {
+
+                return null;
+
+            }
+
+            final long[] candidates = new long[collection.size()];
+
+            int count = 0;
+
+            for(final Object candidate : collection) {
+
+                if(Objects.isNull(candidate)) {
+
+                    continue;
+
+                }
+
+                if(!integral(candidate)) {
+
+                    return null;
+
+                }
+
+                candidates[ count++ ] = ((Number) candidate).longValue();
+
+            }
+
+            final long[] sorted = Arrays.copyOf(candidates, count);
+
+            Arrays.sort(sorted);
+
+            return sorted;
+
+        }
+
+        private static boolean integral(final Object value) {
+
+            return value instanceof Long ||
+                   value instanceof Integer ||
+                   value instanceof Short ||
+                   value instanceof Byte;
+
+        }
+
+    }
+
+    private static final class IntColumn
+            extends IntegralColumn {
+
+        private final int[] values;
+
+        private IntColumn(final int size) {
+
+            this.values = new int[size];
+
+        }
+
+        @Override
+        protected void store(final int row,
+                             final Object value) {
+
+            values[ row ] = ((Number) value).intValue();
+
+        }
+
+        @Override
+        protected Object value(final int row) {
+
+            return values[ row ];
+
+        }
+
+        @Override
+        protected long longValue(final int row) {
+
+            return values[ row ];
+
+        }
+
+        @Override
+        protected int size() {
+
+            return values.length;
+
+        }
+
+    }
+
+    private static final class LongColumn
+            extends IntegralColumn {
+
+        private final long[] values;
+
+        private LongColumn(final int size) {
+
+            this.values = new long[size];
+
+        }
+
+        @Override
+        protected void store(final int row,
+                             final Object value) {
+
+            values[ row ] = ((Number) value).longValue();
+
+        }
+
+        @Override
+        protected Object value(final int row) {
+
+            return values[ row ];
+
+        }
+
+        @Override
+        protected long longValue(final int row) {
+
+            return values[ row ];
+
+        }
+
+        @Override
+        protected int size() {
+
+            return values.length;
+
+        }
+
+    }
+
+    /**
+     * Dictionary encoded strings, restrictions are evaluated once per distinct string.
+     */
+    private static final class StringColumn
+            extends Column {
+
+        private final int[] codes;
+        private final List<String> dictionary = new ArrayList<>();
+        private final Map<String, Integer> encodings = new HashMap<>();
+
+        private StringColumn(final int size) {
+
+            this.codes = new int[size];
+
+        }
+
+        @Override
+        protected void store(final int row,
+                             final Object value) {
+
+            codes[ row ] = encodings.computeIfAbsent((String) value, string -> {
+
+                dictionary.add(string);
+
+                return dictionary.size() - 1;
+
+            });
+
+        }
+
+        @Override
+        protected Object value(final int row) {
+
+            return dictionary.get(codes[ row ]);
+
+        }
+
+        @Override
+        protected int size() {
+
+            return codes.length;
+
+        }
+
+        @Override
+        protected void select(final Restriction restriction,
+                              final Object bound,
+                              final BitSet result) {
+
+            final Predicate<Object> predicate = RestrictionEvaluator.of(restriction, bound);
+            final boolean[] matching = new boolean[dictionary.size()];
+
+            for(int code = 0; code < matching.length; code++) {
+
+                matching[ code ] = predicate.test(dictionary.get(code));
+
+            }
+
+            for(int row = nulls.nextClearBit(0); row < codes.length; row = nulls.nextClearBit(row + 1)) {
+
+                if(matching[ codes[ row ] ]) {
+
+                    result.set(row);
+
+                }
+
+            }
+
+        }
+
+    }
+
+    private static final class ObjectColumn
+            extends Column {
+
+        private final Object[] values;
+
+        private ObjectColumn(final int size) {
+
+            this.values = new Object[size];
+
+        }
+
+        @Override
+        protected void store(final int row,
+                             final Object value) {
+
+            values[ row ] = value;
+
+        }
+
+        @Override
+        protected Object value(final int row) {
+
+            return values[ row ];
+
+        }
+
+        @Override
+        protected int size() {
+
+            return values.length;
+
+        }
+
+    }
+
+}
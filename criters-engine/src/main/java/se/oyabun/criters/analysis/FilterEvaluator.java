@@ -0,0 +1,793 @@
+/*
+ * Copyright 2017 Oyabun AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.oyabun.criters.analysis;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import se.oyabun.criters.criteria.Combination;
+import se.oyabun.criters.criteria.Filter;
+import se.oyabun.criters.criteria.Parameter;
+import se.oyabun.criters.criteria.Relation;
+import se.oyabun.criters.criteria.Restriction;
+import se.oyabun.criters.exception.InvalidCritersFilteringException;
+import se.oyabun.criters.metadata.Accessor;
+import se.oyabun.criters.metadata.FilterMetadata;
+import se.oyabun.criters.metadata.ParameterMetadata;
+import se.oyabun.criters.metadata.RelationsMetadata;
+import se.oyabun.criters.util.FilterUtil;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * In memory evaluation of the restrictions of a filter class, as a {@link Predicate} of entities
+ * following the semantics of the criteria the filter is translated to.
+ *
+ * <p>The restrictions of a filter class are compiled once per entity class and strategy, resolving
+ * the entity getters of every restricted attribute and relation to {@link Accessor}s. Each filter
+ * only reads its values, once, into {@link RestrictionEvaluator} predicates. Parameters and
+ * relations are combined by their {@link Combination} groups as the extractors combine them.
+ *
+ * <p>Relations are followed through their getters. Joined relations match when any combination
+ * of the related entities satisfies the restrictions, related entities sharing a join, per alias
+ * and path, are the same entity for every restriction of it. A missing to-one entity or an empty
+ * iterable relation matches nothing, as with inner joins. Iterable relations resolving to
+ * {@link Relation.Strategy#EXISTS} are evaluated as correlated subqueries instead, one per
+ * combination group in the place of the first restriction of the group. As in SQL, null filter
+ * values match nothing, except for the null checks.
+ *
+ * <p>Evaluating filters without relations allocates nothing. Evaluating relations allocates one
+ * array per entity, binding the related entities while traversing them, and iterators of
+ * iterable relations that are not random access lists.
+ *
+ * @author Daniel Sundberg
+ */
+public final class FilterEvaluator {
+
+    private static final Logger logger = LoggerFactory.getLogger(FilterEvaluator.class);
+
+    static final String MISSING_GETTER = "Type '%s' has no getter of '%s'.";
+    static final String INVALID_VALUE = "Invalid %s value of '%s'.";
+    static final String EVALUATION_FAILED = "Failed to evaluate filter '%s'.";
+
+    private static final ClassValue<Map<Key, FilterEvaluator>> REGISTRY = new ClassValue<>() {
+
+        @Override
+        protected Map<Key, FilterEvaluator> computeValue(final Class<?> filterClass) {
+
+            return new ConcurrentHashMap<>();
+
+        }
+
+    };
+
+    private final Class<?> filterClass;
+    private final Scope scope;
+    private final Restriction[] restrictions;
+    private final Accessor[] values;
+    private final String[] names;
+    private final int slots;
+
+    private FilterEvaluator(final Class<?> filterClass,
+                            final Scope scope,
+                            final List<Restriction> restrictions,
+                            final List<Accessor> values,
+                            final List<String> names,
+                            final int slots) {
+
+        this.filterClass = filterClass;
+        this.scope = scope;
+        this.restrictions = restrictions.toArray(Restriction[]::new);
+        this.values = values.toArray(Accessor[]::new);
+        this.names = names.toArray(String[]::new);
+        this.slots = slots;
+
+    }
+
+    /**
+     * Returns a predicate of the entities matching given filter, restricting iterable
+     * relations with the default {@link Relation.Strategy#JOIN} strategy.
+     *
+     * @param filter to read restriction values from
+     * @param <E> type of entity
+     * @param <S> type of filter
+     * @return predicate of matching entities
+     * @throws InvalidCritersFilteringException if the filter is invalid for its entity or a
+     *                                          value can not be read
+     * @see #of(Filter, Relation.Strategy)
+     */
+    public static <E, S extends Filter<E>> Predicate<E> of(final S filter)
+            throws InvalidCritersFilteringException {
+
+        return of(filter, Relation.Strategy.JOIN);
+
+    }
+
+    /**
+     * Returns a predicate of the entities matching given filter. Filter values are read once,
+     * later changes of the filter do not affect the predicate.
+     *
+     * <p>The predicate is thread safe. It throws {@link IllegalStateException} when an entity
+     * getter throws, and {@link IllegalArgumentException} when an attribute can not be compared
+     * with its filter value.
+     *
+     * @param filter to read restriction values from
+     * @param strategy default strategy of iterable relations
+     * @param <E> type of entity
+     * @param <S> type of filter
+     * @return predicate of matching entities
+     * @throws InvalidCritersFilteringException if the filter is invalid for its entity or a
+     *                                          value can not be read
+     */
+    public static <E, S extends Filter<E>> Predicate<E> of(final S filter,
+                                                           final Relation.Strategy strategy)
+            throws InvalidCritersFilteringException {
+
+        return evaluator(filter, strategy, false).bind(filter);
+
+    }
+
+    /**
+     * Returns a predicate of the entities whose relations match given filter, restricting
+     * iterable relations with the default {@link Relation.Strategy#JOIN} strategy. The parameters
+     * of the filter are neither read nor evaluated, for callers evaluating them on their own.
+     *
+     * @param filter to read relation restriction values from
+     * @param <E> type of entity
+     * @param <S> type of filter
+     * @return predicate of entities with matching relations
+     * @throws InvalidCritersFilteringException if the filter is invalid for its entity or a
+     *                                          value can not be read
+     */
+    static <E, S extends Filter<E>> Predicate<E> ofRelations(final S filter)
+            throws InvalidCritersFilteringException {
+
+        return evaluator(filter, Relation.Strategy.JOIN, true).bind(filter);
+
+    }
+
+    /**
+     * Returns the evaluator of a filter class for its entity class and strategy, compiling it
+     * on first use.
+     */
+    private static FilterEvaluator evaluator(final Filter<?> filter,
+                                             final Relation.Strategy strategy,
+                                             final boolean relations)
+            throws InvalidCritersFilteringException {
+
+        final Key key = new Key(filter.getEntityClass(),
+                                strategy == Relation.Strategy.DEFAULT ?
+                                Relation.Strategy.JOIN :
+                                Objects.requireNonNull(strategy),
+                                relations);
+
+        final Map<Key, FilterEvaluator> evaluators = REGISTRY.get(filter.getClass());
+
+        FilterEvaluator evaluator = evaluators.get(key);
+
+        if(Objects.isNull(evaluator)) {
+
+            //
+            // Compile outside of the map, concurrent misses compile equivalent evaluators
+            // and the first one stored wins.
+            //
+            final FilterEvaluator compiled = compile(filter.getClass(), key.entityClass(), key.strategy(), key.relations());
+
+            if(logger.isDebugEnabled()) {
+
+                logger.debug("Compiled in memory evaluator of '{}' for '{}'.", filter.getClass(), key);
+
+            }
+
+            evaluator = evaluators.computeIfAbsent(key, k -> compiled);
+
+        }
+
+        return evaluator;
+
+    }
+
+    /**
+     * Bind the values of a filter to a predicate of the compiled restrictions.
+     */
+    private <E> Predicate<E> bind(final Object filter)
+            throws InvalidCritersFilteringException {
+
+        final List<Predicate<Object>> conditions = new ArrayList<>(values.length);
+
+        for(int i = 0; i < values.length; i++) {
+
+            try {
+
+                conditions.add(RestrictionEvaluator.of(restrictions[i], values[i].get(filter)));
+
+            } catch (IllegalArgumentException e) {
+
+                throw new InvalidCritersFilteringException(String.format(INVALID_VALUE, restrictions[i], names[i]), e);
+
+            }
+
+        }
+
+        final Evaluation evaluation = new Evaluation(conditions);
+
+        return entity -> evaluation.test(entity, slots == 0 ? null : new Object[slots]);
+
+    }
+
+    /**
+     * Compile the restrictions of a filter class against an entity class, mirroring how the
+     * parameter and relation extractors group and join them. Parameters are left out of
+     * evaluators of relations only.
+     */
+    private static FilterEvaluator compile(final Class<?> filterClass,
+                                           final Class<?> entityClass,
+                                           final Relation.Strategy strategy,
+                                           final boolean relationsOnly)
+            throws InvalidCritersFilteringException {
+
+        final FilterMetadata metadata = FilterMetadata.of(filterClass);
+
+        metadata.validateParameters(entityClass);
+        metadata.validateRelations(entityClass);
+
+        final List<Restriction> restrictions = new ArrayList<>();
+        final List<Accessor> values = new ArrayList<>();
+        final List<String> names = new ArrayList<>();
+
+        final Map<String, List<Term>> parameters = new LinkedHashMap<>();
+
+        //
+        // Evaluators of relations only leave the parameters to their callers.
+        //
+        final List<ParameterMetadata> restricted = relationsOnly ?
+                                                   List.of() :
+                                                   metadata.parameters();
+
+        for(final ParameterMetadata parameter : restricted) {
+
+            parameters.computeIfAbsent(parameter.group(), group -> new ArrayList<>())
+                      .add(new Restrict(parameter.combine(),
+                                        -1,
+                                        getter(entityClass, parameter.name()),
+                                        values.size()));
+
+            restrictions.add(parameter.restriction());
+            values.add(parameter.accessor());
+            names.add(parameter.name());
+
+        }
+
+        final ScopeBuilder root = new ScopeBuilder(-1);
+        final Map<String, ScopeBuilder> semiJoins = new LinkedHashMap<>();
+        final int[] slots = {0};
+
+        for(final RelationsMetadata relations : metadata.relations()) {
+
+            final List<Relation> path = relations.path();
+            final List<Class<?>> types = FilterUtil.relationTypes(entityClass, path);
+
+            int semiJoinIndex = path.size();
+
+            for(int i = 0; i < path.size(); i++) {
+
+                if(strategy(path.get(i), strategy) == Relation.Strategy.EXISTS) {
+
+                    semiJoinIndex = i;
+                    break;
+
+                }
+
+            }
+
+            final int[] pathSlots = new int[path.size()];
+
+            String key = relations.alias() + "@";
+            int parent = -1;
+
+            for(int i = 0; i < semiJoinIndex; i++) {
+
+                final Relation relation = path.get(i);
+
+                key = key + (key.endsWith("@") ? "" : ".") + relation.name();
+
+                final Node node = root.node(key,
+                                            parent,
+                                            getter(i == 0 ? entityClass : types.get(i - 1), relation.name()),
+                                            relation.iterable(),
+                                            slots);
+
+                pathSlots[i] = node.slot();
+                parent = node.slot();
+
+            }
+
+            final String semiJoinPrefix = semiJoinIndex < path.size() ?
+                                          semiJoinKey(relations.alias(), path, semiJoinIndex) :
+                                          null;
+
+            boolean semiJoined = false;
+
+            for(int i = 0; i < path.size(); i++) {
+
+                for(final Parameter parameter : path.get(i).parameters()) {
+
+                    final ScopeBuilder semiJoin = i >= semiJoinIndex ?
+                                                  semiJoin(semiJoins,
+                                                           semiJoinPrefix + "#" + parameter.combinate().group(),
+                                                           parent,
+                                                           entityClass,
+                                                           path,
+                                                           types,
+                                                           semiJoinIndex,
+                                                           pathSlots,
+                                                           slots) :
+                                                  null;
+
+                    final Restrict restrict = new Restrict(parameter.combinate().combine(),
+                                                           pathSlots[i],
+                                                           getter(types.get(i), parameter.name()),
+                                                           values.size());
+
+                    restrictions.add(parameter.restriction());
+                    values.add(relations.accessor());
+                    names.add(parameter.name());
+
+                    if(Objects.isNull(semiJoin)) {
+
+                        root.restrict(parameter, restrict);
+
+                    } else {
+
+                        //
+                        // The subquery of the parameter group takes the place of its first
+                        // restriction within the group, completed once every relation is compiled.
+                        //
+                        if(Objects.isNull(semiJoin.first)) {
+
+                            root.place(parameter, semiJoin);
+
+                        }
+
+                        semiJoin.restrict(parameter, restrict);
+                        semiJoined = true;
+
+                    }
+
+                }
+
+            }
+
+            if(Objects.nonNull(semiJoinPrefix) && !semiJoined) {
+
+                semiJoin(semiJoins, semiJoinPrefix, parent, entityClass, path, types, semiJoinIndex, pathSlots, slots);
+
+            }
+
+        }
+
+        for(final ScopeBuilder semiJoin : semiJoins.values()) {
+
+            if(Objects.isNull(semiJoin.first)) {
+
+                root.groups.computeIfAbsent("", group -> new ArrayList<>())
+                           .add(new Exists(Combination.Combine.AND, semiJoin.build(List.of())));
+
+            } else {
+
+                semiJoin.placement.set(semiJoin.position,
+                                       new Exists(semiJoin.first.combinate().combine(),
+                                                  semiJoin.build(List.of())));
+
+            }
+
+        }
+
+        //
+        // Parameter and relation groups are separate junctions, both combined with AND.
+        //
+        return new FilterEvaluator(filterClass,
+                                   root.build(parameters.values()),
+                                   restrictions,
+                                   values,
+                                   names,
+                                   slots[0]);
+
+    }
+
+    /**
+     * Returns the subquery scope of a path from its first iterable relation restricted by
+     * {@code EXISTS}, creating it and the nodes of the relations within it on first use.
+     * Binds the slots of the relations within the subquery.
+     */
+    private static ScopeBuilder semiJoin(final Map<String, ScopeBuilder> semiJoins,
+                                         final String key,
+                                         final int anchor,
+                                         final Class<?> entityClass,
+                                         final List<Relation> path,
+                                         final List<Class<?>> types,
+                                         final int semiJoinIndex,
+                                         final int[] pathSlots,
+                                         final int[] slots)
+            throws InvalidCritersFilteringException {
+
+        //
+        // The subquery correlates the join it starts from, the relation it restricts and the
+        // relations beyond it are joined within it.
+        //
+        final ScopeBuilder semiJoin = semiJoins.computeIfAbsent(key, k -> new ScopeBuilder(anchor));
+
+        String nodeKey = "@";
+        int parent = -1;
+
+        for(int i = semiJoinIndex; i < path.size(); i++) {
+
+            final Relation relation = path.get(i);
+
+            nodeKey = nodeKey + (i > semiJoinIndex ? "." : "") + relation.name();
+
+            final Node node = semiJoin.node(nodeKey,
+                                            parent,
+                                            getter(i == 0 ? entityClass : types.get(i - 1), relation.name()),
+                                            relation.iterable(),
+                                            slots);
+
+            pathSlots[i] = node.slot();
+            parent = node.slot();
+
+        }
+
+        return semiJoin;
+
+    }
+
+    private static String semiJoinKey(final String alias,
+                                      final List<Relation> path,
+                                      final int semiJoinIndex) {
+
+        return alias + "@" + String.join(".", path.subList(0, semiJoinIndex + 1)
+                                                  .stream()
+                                                  .map(Relation::name)
+                                                  .toList());
+
+    }
+
+    /**
+     * Resolve the strategy of a relation as the extraction context does, to-one relations
+     * are always joined.
+     */
+    private static Relation.Strategy strategy(final Relation relation,
+                                              final Relation.Strategy strategy) {
+
+        if(!relation.iterable()) {
+
+            return Relation.Strategy.JOIN;
+
+        }
+
+        return relation.strategy() == Relation.Strategy.DEFAULT ?
+               strategy :
+               relation.strategy();
+
+    }
+
+    private static Accessor getter(final Class<?> type,
+                                   final String name)
+            throws InvalidCritersFilteringException {
+
+        return Accessor.of(FilterUtil.getter(type, name)
+                                     .orElseThrow(() -> new InvalidCritersFilteringException(
+                                             String.format(MISSING_GETTER, type.getName(), name))));
+
+    }
+
+    /**
+     * Filter values bound to the compiled restrictions of an evaluator.
+     */
+    private final class Evaluation {
+
+        private final Predicate<Object>[] conditions;
+
+        @SuppressWarnings("unchecked")
+        private Evaluation(final List<Predicate<Object>> conditions) {
+
+            this.conditions = conditions.toArray(Predicate[]::new);
+
+        }
+
+        private boolean test(final Object entity,
+                             final Object[] bound) {
+
+            try {
+
+                return matches(scope, 0, entity, entity, bound);
+
+            } catch (InvalidCritersFilteringException e) {
+
+                throw new IllegalStateException(String.format(EVALUATION_FAILED, filterClass.getName()), e);
+
+            }
+
+        }
+
+        /**
+         * Bind the related entities of a scope node by node, parents before children, and
+         * evaluate the scope restrictions once every node is bound.
+         */
+        private boolean matches(final Scope scope,
+                                final int index,
+                                final Object root,
+                                final Object anchor,
+                                final Object[] bound)
+                throws InvalidCritersFilteringException {
+
+            if(index == scope.nodes().length) {
+
+                return satisfies(scope, root, bound);
+
+            }
+
+            final Node node = scope.nodes()[ index ];
+            final Object value = node.getter().get(node.parent() < 0 ? anchor : bound[ node.parent() ]);
+
+            if(Objects.isNull(value)) {
+
+                return false;
+
+            }
+
+            if(!node.iterable()) {
+
+                bound[ node.slot() ] = value;
+
+                return matches(scope, index + 1, root, anchor, bound);
+
+            }
+
+            if(value instanceof List<?> list && value instanceof RandomAccess) {
+
+                for(int i = 0; i < list.size(); i++) {
+
+                    if(bind(scope, index, node, list.get(i), root, anchor, bound)) {
+
+                        return true;
+
+                    }
+
+                }
+
+                return false;
+
+            }
+
+            for(final Object element : (Iterable<?>) value) {
+
+                if(bind(scope, index, node, element, root, anchor, bound)) {
+
+                    return true;
+
+                }
+
+            }
+
+            return false;
+
+        }
+
+        private boolean bind(final Scope scope,
+                             final int index,
+                             final Node node,
+                             final Object element,
+                             final Object root,
+                             final Object anchor,
+                             final Object[] bound)
+                throws InvalidCritersFilteringException {
+
+            if(Objects.isNull(element)) {
+
+                return false;
+
+            }
+
+            bound[ node.slot() ] = element;
+
+            return matches(scope, index + 1, root, anchor, bound);
+
+        }
+
+        /**
+         * Evaluate the groups of a scope, each one folded in order and all of them combined
+         * with AND. The combination of the first restriction of a group is never applied.
+         */
+        private boolean satisfies(final Scope scope,
+                                  final Object root,
+                                  final Object[] bound)
+                throws InvalidCritersFilteringException {
+
+            for(final Term[] group : scope.groups()) {
+
+                boolean result = test(group[ 0 ], root, bound);
+
+                for(int i = 1; i < group.length; i++) {
+
+                    if(group[ i ].combine() == Combination.Combine.OR) {
+
+                        result = result || test(group[ i ], root, bound);
+
+                    } else {
+
+                        result = result && test(group[ i ], root, bound);
+
+                    }
+
+                }
+
+                if(!result) {
+
+                    return false;
+
+                }
+
+            }
+
+            return true;
+
+        }
+
+        private boolean test(final Term term,
+                             final Object root,
+                             final Object[] bound)
+                throws InvalidCritersFilteringException {
+
+            if(term instanceof Restrict restrict) {
+
+                return conditions[ restrict.condition() ].test(
+                        restrict.attribute().get(restrict.slot() < 0 ? root : bound[ restrict.slot() ]));
+
+            }
+
+            final Scope subquery = ((Exists) term).scope();
+
+            return matches(subquery,
+                           0,
+                           root,
+                           subquery.anchor() < 0 ? root : bound[ subquery.anchor() ],
+                           bound);
+
+        }
+
+    }
+
+    /**
+     * Builder of a scope, the root entity or a subquery, sharing nodes per join key.
+     */
+    private static final class ScopeBuilder {
+
+        private final int anchor;
+        private final Map<String, Node> nodes = new LinkedHashMap<>();
+        private final Map<String, List<Term>> groups = new LinkedHashMap<>();
+
+        private Parameter first;
+
+        /** Group and position of the subquery among the groups of its enclosing scope. */
+        private List<Term> placement;
+        private int position;
+
+        private ScopeBuilder(final int anchor) {
+
+            this.anchor = anchor;
+
+        }
+
+        private Node node(final String key,
+                          final int parent,
+                          final Accessor getter,
+                          final boolean iterable,
+                          final int[] slots) {
+
+            return nodes.computeIfAbsent(key, k -> new Node(slots[0]++, parent, getter, iterable));
+
+        }
+
+        private void restrict(final Parameter parameter,
+                              final Restrict restrict) {
+
+            if(Objects.isNull(first)) {
+
+                first = parameter;
+
+            }
+
+            groups.computeIfAbsent(parameter.combinate().group(), group -> new ArrayList<>())
+                  .add(restrict);
+
+        }
+
+        /**
+         * Reserve the position of a subquery within the group of its first parameter.
+         */
+        private void place(final Parameter parameter,
+                           final ScopeBuilder semiJoin) {
+
+            semiJoin.placement = groups.computeIfAbsent(parameter.combinate().group(), group -> new ArrayList<>());
+            semiJoin.position = semiJoin.placement.size();
+            semiJoin.placement.add(null);
+
+        }
+
+        private Scope build(final Iterable<List<Term>> preceding) {
+
+            final List<Term[]> terms = new ArrayList<>();
+
+            preceding.forEach(group -> terms.add(group.toArray(Term[]::new)));
+            groups.values().forEach(group -> terms.add(group.toArray(Term[]::new)));
+
+            return new Scope(anchor,
+                             nodes.values().toArray(Node[]::new),
+                             terms.toArray(Term[][]::new));
+
+        }
+
+    }
+
+    /**
+     * Related entity bound while evaluating, read from the anchor of its scope or its parent.
+     */
+    private record Node(int slot,
+                        int parent,
+                        Accessor getter,
+                        boolean iterable) {}
+
+    /**
+     * Root entity or subquery, with related entities bound in order and groups of restrictions.
+     */
+    private record Scope(int anchor,
+                         Node[] nodes,
+                         Term[][] groups) {}
+
+    private interface Term {
+
+        Combination.Combine combine();
+
+    }
+
+    /**
+     * Restriction of an attribute of the root, slot -1, or of a bound related entity.
+     */
+    private record Restrict(Combination.Combine combine,
+                            int slot,
+                            Accessor attribute,
+                            int condition)
+            implements Term {}
+
+    /**
+     * Existence of related entities of a subquery satisfying its restrictions.
+     */
+    private record Exists(Combination.Combine combine,
+                          Scope scope)
+            implements Term {}
+
+    private record Key(Class<?> entityClass,
+                       Relation.Strategy strategy,
+                       boolean relations) {}
+
+}
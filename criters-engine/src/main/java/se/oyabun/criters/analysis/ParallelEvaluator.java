@@ -0,0 +1,472 @@
+/*
+ * Copyright 2017 Oyabun AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.oyabun.criters.analysis;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Parallel evaluation of entity predicates, such as those of the {@link FilterEvaluator}, over
+ * large collections on a dedicated {@link ForkJoinPool}.
+ *
+ * <p>Collections are split by their {@link Spliterator} into chunks evaluated sequentially by
+ * the pool workers. Matches are collected in encounter order or, when order does not matter, as
+ * found. Searches for a limited number of matches stop splitting and evaluating once the limit
+ * is reached, unordered searches as soon as any chunks found enough matches, ordered searches once
+ * the preceding chunks did.
+ *
+ * <p>Splitting costs more than it saves on small collections. The evaluator measures the time
+ * spent evaluating each element and only evaluates collections in parallel when evaluating them
+ * sequentially is estimated to take longer than {@value #FORK_NANOS} nanoseconds. Until a first
+ * measurement, collections of {@value #DEFAULT_THRESHOLD} elements or more are evaluated in parallel.
+ * Predicates of differing cost are best evaluated by evaluators of their own.
+ *
+ * <p>Evaluators are thread safe, and should be closed to shut down their pool.
+ *
+ * @author Daniel Sundberg
+ */
+public final class ParallelEvaluator
+        implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ParallelEvaluator.class);
+
+    static final String INVALID_PARALLELISM = "Parallelism must be positive, was %d.";
+    static final String INVALID_LIMIT = "Limit must not be negative, was %d.";
+
+    /** Estimated time of splitting a collection, forking and joining its chunks. */
+    static final long FORK_NANOS = 50_000L;
+
+    /** Sequential threshold in elements, until the cost of evaluating an element is measured. */
+    static final long DEFAULT_THRESHOLD = 2_048L;
+
+    /** Fewest elements of a chunk to measure, smaller chunks are dominated by timer overhead. */
+    private static final long MEASURED_ELEMENTS = 64L;
+
+    /** Elements evaluated between checks of whether a search reached its limit. */
+    private static final int CHECK_INTERVAL = 64;
+
+    private final ForkJoinPool pool;
+    private final LongSupplier ticker;
+
+    /**
+     * Exponentially weighted average of nanoseconds spent evaluating an element, zero until
+     * measured, as raw double bits.
+     */
+    private final AtomicLong elementNanos = new AtomicLong(Double.doubleToRawLongBits(0.0d));
+
+    ParallelEvaluator(final ForkJoinPool pool,
+                      final LongSupplier ticker) {
+
+        this.pool = pool;
+        this.ticker = ticker;
+
+    }
+
+    /**
+     * Create an evaluator with a dedicated pool of one worker per available processor.
+     *
+     * @return new evaluator
+     */
+    public static ParallelEvaluator of() {
+
+        return of(Runtime.getRuntime().availableProcessors());
+
+    }
+
+    /**
+     * Create an evaluator with a dedicated pool of given parallelism.
+     *
+     * @param parallelism number of pool workers, positive
+     * @return new evaluator
+     * @throws IllegalArgumentException if parallelism is not positive
+     */
+    public static ParallelEvaluator of(final int parallelism) {
+
+        if(parallelism < 1) {
+
+            throw new IllegalArgumentException(String.format(INVALID_PARALLELISM, parallelism));
+
+        }
+
+        return new ParallelEvaluator(new ForkJoinPool(parallelism), System::nanoTime);
+
+    }
+
+    /**
+     * Returns the elements matching a predicate.
+     *
+     * @param elements to evaluate
+     * @param predicate to match
+     * @param ordered true to return matches in encounter order
+     * @param <E> type of elements
+     * @return matching elements
+     */
+    public <E> List<E> filter(final Collection<? extends E> elements,
+                              final Predicate<? super E> predicate,
+                              final boolean ordered) {
+
+        return evaluate(elements, predicate, Long.MAX_VALUE, ordered);
+
+    }
+
+    /**
+     * Returns at most given number of elements matching a predicate, without evaluating further
+     * elements once enough matches were found.
+     *
+     * @param elements to evaluate
+     * @param predicate to match
+     * @param limit maximum number of matches
+     * @param ordered true to return the first matches in encounter order, false for any matches
+     * @param <E> type of elements
+     * @return matching elements, at most limit
+     * @throws IllegalArgumentException if limit is negative
+     */
+    public <E> List<E> limit(final Collection<? extends E> elements,
+                             final Predicate<? super E> predicate,
+                             final long limit,
+                             final boolean ordered) {
+
+        if(limit < 0) {
+
+            throw new IllegalArgumentException(String.format(INVALID_LIMIT, limit));
+
+        }
+
+        return evaluate(elements, predicate, limit, ordered);
+
+    }
+
+    /**
+     * Does any element match a predicate, without evaluating further elements once a match
+     * was found.
+     *
+     * @param elements to evaluate
+     * @param predicate to match
+     * @param <E> type of elements
+     * @return true if any element matches
+     */
+    public <E> boolean exists(final Collection<? extends E> elements,
+                              final Predicate<? super E> predicate) {
+
+        return !evaluate(elements, predicate, 1L, false).isEmpty();
+
+    }
+
+    /**
+     * Returns the number of elements a collection needs to be evaluated in parallel,
+     * as currently estimated.
+     *
+     * @return parallel threshold in elements
+     */
+    public long threshold() {
+
+        final double nanos = Double.longBitsToDouble(elementNanos.get());
+
+        return nanos > 0.0d ?
+               Math.max(1L, (long) Math.ceil(FORK_NANOS / nanos)) :
+               DEFAULT_THRESHOLD;
+
+    }
+
+    /**
+     * Shut down the pool of the evaluator, evaluations in progress complete.
+     */
+    @Override
+    public void close() {
+
+        pool.shutdown();
+
+    }
+
+    private <E> List<E> evaluate(final Collection<? extends E> elements,
+                                 final Predicate<? super E> predicate,
+                                 final long limit,
+                                 final boolean ordered) {
+
+        Objects.requireNonNull(predicate);
+
+        final int size = elements.size();
+
+        if(limit == 0 || size == 0) {
+
+            return List.of();
+
+        }
+
+        final Search<E> search = new Search<>(predicate, limit, ordered);
+
+        if(size < threshold() || pool.getParallelism() == 1) {
+
+            return search.chunk(null, elements.spliterator());
+
+        }
+
+        //
+        // Split into a few chunks per worker, leaving room to balance chunks of uneven cost.
+        //
+        final long grain = Math.max(1L, size / (pool.getParallelism() * 4L));
+
+        final List<List<E>> chunks =
+                pool.invoke(new Chunk<>(search, null, elements.spliterator(), grain));
+
+        if(logger.isDebugEnabled()) {
+
+            logger.debug("Evaluated {} elements in {} chunks.", size, chunks.size());
+
+        }
+
+        final List<E> matches = new ArrayList<>();
+
+        for(final List<E> chunk : chunks) {
+
+            matches.addAll(chunk);
+
+        }
+
+        return matches.size() > limit ?
+               new ArrayList<>(matches.subList(0, (int) limit)) :
+               matches;
+
+    }
+
+    /**
+     * Record the time spent evaluating a chunk of elements sequentially.
+     */
+    private void measure(final long elements,
+                         final long nanos) {
+
+        if(elements < MEASURED_ELEMENTS) {
+
+            return;
+
+        }
+
+        final double sample = (double) nanos / elements;
+
+        elementNanos.getAndUpdate(bits -> {
+
+            final double average = Double.longBitsToDouble(bits);
+
+            return Double.doubleToRawLongBits(average > 0.0d ?
+                                              average + (sample - average) / 8.0d :
+                                              sample);
+
+        });
+
+    }
+
+    /**
+     * Predicate, limit and progress of one evaluation, shared by its chunks.
+     */
+    private final class Search<E> {
+
+        private final Predicate<? super E> predicate;
+        private final long limit;
+        private final boolean ordered;
+
+        /** Matches found by any chunk, only read by unordered searches. */
+        private final AtomicLong found = new AtomicLong();
+
+        private Search(final Predicate<? super E> predicate,
+                       final long limit,
+                       final boolean ordered) {
+
+            this.predicate = predicate;
+            this.limit = limit;
+            this.ordered = ordered;
+
+        }
+
+        /**
+         * Evaluate the elements of a spliterator sequentially, until the limit is reached or the
+         * chunk is cancelled.
+         */
+        private List<E> chunk(final Chunk<E> task,
+                              final Spliterator<? extends E> spliterator) {
+
+            final List<E> matches = new ArrayList<>();
+            final Object[] element = new Object[1];
+            final long started = ticker.getAsLong();
+
+            long evaluated = 0;
+
+            while(!done(matches.size()) &&
+                  spliterator.tryAdvance(next -> element[ 0 ] = next)) {
+
+                @SuppressWarnings("unchecked")
+                final E current = (E) element[ 0 ];
+
+                if(predicate.test(current)) {
+
+                    matches.add(current);
+
+                    if(!ordered) {
+
+                        found.incrementAndGet();
+
+                    }
+
+                }
+
+                evaluated++;
+
+                //
+                // Cancellation is checked periodically, the limit of the chunk itself on every match.
+                //
+                if(evaluated % CHECK_INTERVAL == 0 && cancelled(task)) {
+
+                    break;
+
+                }
+
+            }
+
+            measure(evaluated, ticker.getAsLong() - started);
+
+            return matches;
+
+        }
+
+        private boolean done(final int matches) {
+
+            return matches >= limit || (!ordered && found.get() >= limit);
+
+        }
+
+        private boolean cancelled(final Chunk<E> task) {
+
+            for(Chunk<E> current = task; Objects.nonNull(current); current = current.parent) {
+
+                if(current.cancelled) {
+
+                    return true;
+
+                }
+
+            }
+
+            return false;
+
+        }
+
+    }
+
+    /**
+     * Chunk of a collection, split further while larger than the grain, its matches in
+     * encounter order of its sub chunks.
+     */
+    private static final class Chunk<E>
+            extends RecursiveTask<List<List<E>>> {
+
+        private final Search<E> search;
+        private final Chunk<E> parent;
+        private final Spliterator<? extends E> spliterator;
+        private final long grain;
+
+        private volatile boolean cancelled;
+
+        private Chunk(final Search<E> search,
+                      final Chunk<E> parent,
+                      final Spliterator<? extends E> spliterator,
+                      final long grain) {
+
+            this.search = search;
+            this.parent = parent;
+            this.spliterator = spliterator;
+            this.grain = grain;
+
+        }
+
+        @Override
+        protected List<List<E>> compute() {
+
+            if(search.cancelled(this) || search.done(0)) {
+
+                return List.of();
+
+            }
+
+            final Spliterator<? extends E> prefix = spliterator.estimateSize() > grain ?
+                                                    spliterator.trySplit() :
+                                                    null;
+
+            if(Objects.isNull(prefix)) {
+
+                return List.of(search.chunk(this, spliterator));
+
+            }
+
+            final Chunk<E> right = new Chunk<>(search, this, spliterator, grain);
+
+            right.fork();
+
+            final List<List<E>> left = new Chunk<>(search, this, prefix, grain).compute();
+
+            //
+            // The first matches in encounter order are all found before the right chunk
+            // once the left chunk found enough of them.
+            //
+            if(search.ordered && count(left) >= search.limit) {
+
+                right.cancelled = true;
+
+            }
+
+            final List<List<E>> rightMatches = right.join();
+
+            if(right.cancelled) {
+
+                return left;
+
+            }
+
+            final List<List<E>> matches = new ArrayList<>(left.size() + rightMatches.size());
+
+            matches.addAll(left);
+            matches.addAll(rightMatches);
+
+            return matches;
+
+        }
+
+        private static long count(final List<? extends List<?>> chunks) {
+
+            long count = 0;
+
+            for(final List<?> chunk : chunks) {
+
+                count += chunk.size();
+
+            }
+
+            return count;
+
+        }
+
+    }
+
+}
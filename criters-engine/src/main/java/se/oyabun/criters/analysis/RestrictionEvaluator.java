@@ -0,0 +1,389 @@
+/*
+ * Copyright 2017 Oyabun AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.oyabun.criters.analysis;
+
+import se.oyabun.criters.criteria.Restriction;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Predicate;
+
+/**
+ * In memory evaluation of {@link Restriction}s, following the semantics of the predicates
+ * they are translated to.
+ *
+ * <p>As in SQL, a restriction other than {@code IS_NULL} never matches a null attribute.
+ * Comparable values are compared by {@link Comparable#compareTo}, so that {@code 1.0} equals
+ * {@code 1.00}, numbers of differing types by their decimal value. Strings are compared by their
+ * characters and {@code LIKE} patterns match case sensitively, databases with case insensitive
+ * or padding collations may disagree.
+ *
+ * @author Daniel Sundberg
+ */
+public final class RestrictionEvaluator {
+
+    static final String INCOMPARABLE_VALUES = "Values '%s' and '%s' are not comparable.";
+    static final String INVALID_VALUE = "Value '%s' is not valid for restriction %s.";
+
+    private RestrictionEvaluator() {}
+
+    /**
+     * Can restrictions of values of given type be evaluated in memory.
+     *
+     * @param restriction to evaluate
+     * @param type of the restricted values
+     * @return true if restrictions can be evaluated
+     */
+    public static boolean supports(final Restriction restriction,
+                                   final Class<?> type) {
+
+        return switch (restriction) {
+            case EQUALS, NOT_EQUALS, IS_NULL, IS_NOT_NULL, IN -> true;
+            case GREATER_THAN, GREATER_THAN_OR_EQUALS, LESS_THAN, LESS_THAN_OR_EQUALS ->
+                    type.isPrimitive() || Comparable.class.isAssignableFrom(type);
+            case LIKE -> type == String.class;
+        };
+
+    }
+
+    /**
+     * Does an attribute value match a restriction.
+     *
+     * @param restriction to evaluate
+     * @param attribute value of the restricted attribute
+     * @param value of the restriction, ignored by null checks
+     * @return true if the attribute matches
+     * @throws IllegalArgumentException if the values can not be compared
+     */
+    public static boolean matches(final Restriction restriction,
+                                  final Object attribute,
+                                  final Object value) {
+
+        return of(restriction, value).test(attribute);
+
+    }
+
+    /**
+     * Returns a predicate of attribute values matching a restriction, parsing the restriction
+     * value once for any number of attributes.
+     *
+     * @param restriction to evaluate
+     * @param value of the restriction, ignored by null checks
+     * @return predicate of matching attribute values
+     * @throws IllegalArgumentException if the value is not valid for the restriction
+     */
+    public static Predicate<Object> of(final Restriction restriction,
+                                       final Object value) {
+
+        if(restriction == Restriction.IS_NULL) {
+
+            return Objects::isNull;
+
+        }
+
+        if(restriction == Restriction.IS_NOT_NULL) {
+
+            return Objects::nonNull;
+
+        }
+
+        if(Objects.isNull(value)) {
+
+            return attribute -> false;
+
+        }
+
+        final Predicate<Object> predicate = switch (restriction) {
+            case EQUALS -> attribute -> same(attribute, value);
+            case NOT_EQUALS -> attribute -> !same(attribute, value);
+            case GREATER_THAN -> attribute -> compare(attribute, value) > 0;
+            case GREATER_THAN_OR_EQUALS -> attribute -> compare(attribute, value) >= 0;
+            case LESS_THAN -> attribute -> compare(attribute, value) < 0;
+            case LESS_THAN_OR_EQUALS -> attribute -> compare(attribute, value) <= 0;
+            case LIKE -> like(value);
+            case IN -> in(value);
+            case IS_NULL, IS_NOT_NULL -> throw new IllegalStateException();
+        };
+
+        //
+        // Restrictions of null attributes are unknown in SQL, never matching.
+        //
+        return attribute -> Objects.nonNull(attribute) && predicate.test(attribute);
+
+    }
+
+    /**
+     * Does a restriction to one value admit only attributes admitted by the same restriction
+     * to another value, such as {@code GREATER_THAN 20} within {@code GREATER_THAN 10}, an
+     * {@code IN} subset, or {@code LIKE 'abc%'} within {@code LIKE 'ab%'}. Null values, only
+     * meaningful to null checks, never narrow or are narrowed.
+     *
+     * @param restriction of both values
+     * @param broader value of the restriction
+     * @param narrower value of the restriction
+     * @return true if the narrower value admits a subset of the broader value
+     */
+    public static boolean narrows(final Restriction restriction,
+                                  final Object broader,
+                                  final Object narrower) {
+
+        if(restriction == Restriction.IS_NULL ||
+           restriction == Restriction.IS_NOT_NULL) {
+
+            return true;
+
+        }
+
+        if(Objects.isNull(broader) ||
+           Objects.isNull(narrower)) {
+
+            return false;
+
+        }
+
+        try {
+
+            return switch (restriction) {
+                case EQUALS, NOT_EQUALS -> same(narrower, broader);
+                case GREATER_THAN, GREATER_THAN_OR_EQUALS -> compare(narrower, broader) >= 0;
+                case LESS_THAN, LESS_THAN_OR_EQUALS -> compare(narrower, broader) <= 0;
+                case LIKE -> narrower.equals(broader) ||
+                             broader instanceof String pattern &&
+                             narrower instanceof String narrowerPattern &&
+                             prefix(pattern).map(narrowerPattern::startsWith).orElse(false);
+                case IN -> broader instanceof Collection<?> broaderValues &&
+                           narrower instanceof Collection<?> narrowerValues &&
+                           narrowerValues.stream()
+                                         .filter(Objects::nonNull)
+                                         .allMatch(of(Restriction.IN, broaderValues));
+                case IS_NULL, IS_NOT_NULL -> true;
+            };
+
+        } catch (IllegalArgumentException e) {
+
+            return false;
+
+        }
+
+    }
+
+    /**
+     * Literal prefix of a pattern matching any suffix, such as {@code ab} of {@code ab%}.
+     */
+    private static Optional<String> prefix(final String pattern) {
+
+        final int wildcard = pattern.indexOf('%');
+
+        return wildcard == pattern.length() - 1 &&
+               pattern.indexOf('_') < 0 ?
+               Optional.of(pattern.substring(0, wildcard)) :
+               Optional.empty();
+
+    }
+
+    private static Predicate<Object> in(final Object value) {
+
+        if(!(value instanceof Collection<?> collection)) {
+
+            throw new IllegalArgumentException(String.format(INVALID_VALUE, value, Restriction.IN));
+
+        }
+
+        final Object[] candidates = collection.stream()
+                                              .filter(Objects::nonNull)
+                                              .toArray();
+
+        return attribute -> {
+
+            for(final Object candidate : candidates) {
+
+                if(same(attribute, candidate)) {
+
+                    return true;
+
+                }
+
+            }
+
+            return false;
+
+        };
+
+    }
+
+    private static Predicate<Object> like(final Object value) {
+
+        if(!(value instanceof String pattern)) {
+
+            throw new IllegalArgumentException(String.format(INVALID_VALUE, value, Restriction.LIKE));
+
+        }
+
+        return attribute -> like(pattern, attribute.toString());
+
+    }
+
+    /**
+     * Match a value against a {@code LIKE} pattern, where {@code %} matches any number of
+     * characters and {@code _} exactly one. Backtracks to the last {@code %} only, matching
+     * in linear space without compiling or allocating.
+     */
+    private static boolean like(final String pattern,
+                                final String value) {
+
+        int p = 0;
+        int v = 0;
+        int wildcard = -1;
+        int resume = 0;
+
+        while(v < value.length()) {
+
+            if(p < pattern.length() && pattern.charAt(p) == '%') {
+
+                wildcard = p++;
+                resume = v;
+
+            } else if(p < pattern.length() &&
+                      (pattern.charAt(p) == '_' || pattern.charAt(p) == value.charAt(v))) {
+
+                p++;
+                v++;
+
+            } else if(wildcard >= 0) {
+
+                p = wildcard + 1;
+                v = ++resume;
+
+            } else {
+
+                return false;
+
+            }
+
+        }
+
+        while(p < pattern.length() && pattern.charAt(p) == '%') {
+
+            p++;
+
+        }
+
+        return p == pattern.length();
+
+    }
+
+    private static boolean same(final Object first,
+                                final Object second) {
+
+        if(first.getClass() == second.getClass()) {
+
+            return first instanceof Comparable<?> ?
+                   compare(first, second) == 0 :
+                   first.equals(second);
+
+        }
+
+        if(integral(first) && integral(second)) {
+
+            return ((Number) first).longValue() == ((Number) second).longValue();
+
+        }
+
+        if(first instanceof Number firstNumber &&
+           second instanceof Number secondNumber) {
+
+            final BigDecimal firstDecimal = decimal(firstNumber);
+            final BigDecimal secondDecimal = decimal(secondNumber);
+
+            return Objects.nonNull(firstDecimal) &&
+                   Objects.nonNull(secondDecimal) &&
+                   firstDecimal.compareTo(secondDecimal) == 0;
+
+        }
+
+        return first.equals(second);
+
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compare(final Object first,
+                               final Object second) {
+
+        if(first instanceof Comparable comparable &&
+           first.getClass() == second.getClass()) {
+
+            return comparable.compareTo(second);
+
+        }
+
+        if(integral(first) && integral(second)) {
+
+            return Long.compare(((Number) first).longValue(), ((Number) second).longValue());
+
+        }
+
+        if(first instanceof Number firstNumber &&
+           second instanceof Number secondNumber) {
+
+            final BigDecimal firstDecimal = decimal(firstNumber);
+            final BigDecimal secondDecimal = decimal(secondNumber);
+
+            if(Objects.nonNull(firstDecimal) &&
+               Objects.nonNull(secondDecimal)) {
+
+                return firstDecimal.compareTo(secondDecimal);
+
+            }
+
+        }
+
+        throw new IllegalArgumentException(String.format(INCOMPARABLE_VALUES, first, second));
+
+    }
+
+    /**
+     * Is a value a boxed integral number, exactly comparable by its long value without
+     * converting it to a decimal.
+     */
+    private static boolean integral(final Object value) {
+
+        return value instanceof Long ||
+               value instanceof Integer ||
+               value instanceof Short ||
+               value instanceof Byte;
+
+    }
+
+    /**
+     * Exact decimal value of a number, null when not finite.
+     */
+    private static BigDecimal decimal(final Number number) {
+
+        try {
+
+            return new BigDecimal(number.toString());
+
+        } catch (NumberFormatException e) {
+
+            return null;
+
+        }
+
+    }
+
+}
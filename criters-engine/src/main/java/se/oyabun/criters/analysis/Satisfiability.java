@@ -0,0 +1,502 @@
+/*
+ * Copyright 2017 Oyabun AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.oyabun.criters.analysis;
+
+import se.oyabun.criters.criteria.Combination;
+import se.oyabun.criters.criteria.Parameter;
+import se.oyabun.criters.criteria.Relation;
+import se.oyabun.criters.criteria.Restriction;
+import se.oyabun.criters.exception.InvalidCritersFilteringException;
+import se.oyabun.criters.metadata.Accessor;
+import se.oyabun.criters.metadata.FilterMetadata;
+import se.oyabun.criters.metadata.ParameterMetadata;
+import se.oyabun.criters.metadata.RelationsMetadata;
+
+import java.util.ArrayList;
+import java.time.temporal.Temporal;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Static satisfiability analysis of the restrictions of a filter class.
+ *
+ * <p>The restrictions of a filter class are analysed once, collecting the restrictions that
+ * are always combined with {@code AND} per attribute. Each search then only reads the values
+ * of those restrictions to detect filters that can never match, such as an empty {@code IN},
+ * {@code IS_NULL} with {@code IS_NOT_NULL} or {@code GREATER_THAN 10} with {@code LESS_THAN 5}
+ * on the same attribute, without building any predicate.
+ *
+ * <p>The analysis is conservative, restrictions it can not reason about are assumed satisfiable.
+ * Null values, values of differing types and mixed {@code AND}/{@code OR} groups are never
+ * reported unsatisfiable. Values are only compared when numeric or temporal, the equality and
+ * order of strings and characters depend on the database collation, which may ignore case or
+ * padding.
+ *
+ * @author Daniel Sundberg
+ */
+public final class Satisfiability {
+
+    private static final ClassValue<Satisfiability> REGISTRY = new ClassValue<>() {
+
+        @Override
+        protected Satisfiability computeValue(final Class<?> filterClass) {
+
+            return new Satisfiability(FilterMetadata.of(filterClass));
+
+        }
+
+    };
+
+    private final List<List<Constraint>> conjunctions;
+    private final List<List<Accessor>> disjunctions;
+
+    private Satisfiability(final FilterMetadata metadata) {
+
+        final Map<String, List<ParameterMetadata>> groups = new LinkedHashMap<>();
+
+        for(final ParameterMetadata parameter : metadata.parameters()) {
+
+            groups.computeIfAbsent(parameter.group(), group -> new ArrayList<>())
+                  .add(parameter);
+
+        }
+
+        final Map<String, List<Constraint>> attributes = new LinkedHashMap<>();
+        final List<List<Accessor>> disjunctions = new ArrayList<>();
+
+        for(final List<ParameterMetadata> group : groups.values()) {
+
+            if(isConjunctive(group.stream().map(ParameterMetadata::combine).toList())) {
+
+                //
+                // Groups are combined with AND, so are the restrictions of conjunctive groups.
+                //
+                for(final ParameterMetadata parameter : group) {
+
+                    attributes.computeIfAbsent(parameter.name(), name -> new ArrayList<>())
+                              .add(new Constraint(parameter.restriction(), parameter.accessor()));
+
+                }
+
+            } else if(group.stream().allMatch(parameter -> parameter.restriction() == Restriction.IN)) {
+
+                //
+                // Any combination of restrictions is unsatisfiable when each one of them is,
+                // which only an empty IN is on its own.
+                //
+                disjunctions.add(group.stream().map(ParameterMetadata::accessor).toList());
+
+            }
+
+        }
+
+        final List<List<Constraint>> conjunctions = new ArrayList<>(attributes.values());
+
+        //
+        // Relation restrictions are combined across joins and subqueries, only analyse
+        // them when no relation restriction is combined with OR.
+        //
+        if(metadata.relations().stream()
+                   .flatMap(relations -> relations.path().stream())
+                   .flatMap(relation -> List.of(relation.parameters()).stream())
+                   .allMatch(parameter -> parameter.combinate().combine() == Combination.Combine.AND)) {
+
+            for(final RelationsMetadata relations : metadata.relations()) {
+
+                for(final Relation relation : relations.path()) {
+
+                    for(final Parameter parameter : relation.parameters()) {
+
+                        if(parameter.restriction() == Restriction.IN) {
+
+                            conjunctions.add(List.of(new Constraint(Restriction.IN, relations.accessor())));
+
+                        }
+
+                    }
+
+                }
+
+            }
+
+        }
+
+        this.conjunctions = List.copyOf(conjunctions);
+        this.disjunctions = List.copyOf(disjunctions);
+
+    }
+
+    /**
+     * Returns the analysis of given filter class, analysing it on first access.
+     *
+     * @param filterClass to analyse
+     * @return analysis of the filter class
+     */
+    public static Satisfiability of(final Class<?> filterClass) {
+
+        return REGISTRY.get(filterClass);
+
+    }
+
+    /**
+     * Is given filter provably unable to match any entity
+     *
+     * @param filter of the analysed filter class to read values from
+     * @return true if the restrictions of the filter contradict each other
+     * @throws InvalidCritersFilteringException if a value can not be read
+     */
+    public boolean unsatisfiable(final Object filter)
+            throws InvalidCritersFilteringException {
+
+        for(final List<Constraint> constraints : conjunctions) {
+
+            if(contradicts(constraints, filter)) {
+
+                return true;
+
+            }
+
+        }
+
+        for(final List<Accessor> accessors : disjunctions) {
+
+            boolean empty = true;
+
+            for(final Accessor accessor : accessors) {
+
+                empty &= accessor.get(filter) instanceof Collection<?> collection && collection.isEmpty();
+
+            }
+
+            if(empty) {
+
+                return true;
+
+            }
+
+        }
+
+        return false;
+
+    }
+
+    /**
+     * Is a group combined with AND only. Restrictions are folded in order, the combination
+     * of the first one is never applied.
+     */
+    private static boolean isConjunctive(final List<Combination.Combine> combines) {
+
+        return combines.stream()
+                       .skip(1)
+                       .allMatch(combine -> combine == Combination.Combine.AND);
+
+    }
+
+    /**
+     * Do the restrictions of one attribute, all combined with AND, contradict each other.
+     */
+    private static boolean contradicts(final List<Constraint> constraints,
+                                       final Object filter)
+            throws InvalidCritersFilteringException {
+
+        boolean isNull = false;
+        boolean isNotNull = false;
+        boolean ordered = true;
+
+        List<Object> candidates = null;
+        final List<Object> excluded = new ArrayList<>();
+
+        Bound lower = null;
+        Bound upper = null;
+
+        for(final Constraint constraint : constraints) {
+
+            if(constraint.restriction() == Restriction.IS_NULL) {
+
+                isNull = true;
+                continue;
+
+            }
+
+            isNotNull = true;
+
+            if(constraint.restriction() == Restriction.IS_NOT_NULL) {
+
+                continue;
+
+            }
+
+            final Object value = constraint.accessor().get(filter);
+
+            if(Objects.isNull(value)) {
+
+                //
+                // Null comparisons are rendered differently by providers, assume satisfiable.
+                //
+                return false;
+
+            }
+
+            if(!(value instanceof Collection<?>) && !isOrdered(value)) {
+
+                ordered = false;
+                continue;
+
+            }
+
+            switch (constraint.restriction()) {
+                case EQUALS -> {
+                    if (!isUniform(candidates, List.of(value))) {
+                        ordered = false;
+                        continue;
+                    }
+                    candidates = intersect(candidates, List.of(value));
+                }
+                case IN -> {
+                    if (!(value instanceof Collection<?> collection)) {
+                        return false;
+                    }
+                    if (collection.isEmpty()) {
+                        return true;
+                    }
+                    if (!collection.stream().allMatch(Satisfiability::isOrdered) ||
+                        !isUniform(candidates, collection)) {
+                        ordered = false;
+                        continue;
+                    }
+                    candidates = intersect(candidates, collection);
+                }
+                case NOT_EQUALS -> excluded.add(value);
+                case GREATER_THAN -> lower = Bound.tighter(lower, new Bound(value, false), 1);
+                case GREATER_THAN_OR_EQUALS -> lower = Bound.tighter(lower, new Bound(value, true), 1);
+                case LESS_THAN -> upper = Bound.tighter(upper, new Bound(value, false), -1);
+                case LESS_THAN_OR_EQUALS -> upper = Bound.tighter(upper, new Bound(value, true), -1);
+                default -> {}
+            }
+
+        }
+
+        if(isNull && isNotNull) {
+
+            return true;
+
+        }
+
+        if(!ordered) {
+
+            return false;
+
+        }
+
+        if(Objects.nonNull(candidates)) {
+
+            for(final Object candidate : candidates) {
+
+                if(Bound.admits(lower, candidate, 1) &&
+                   Bound.admits(upper, candidate, -1) &&
+                   excluded.stream().noneMatch(value -> same(value, candidate))) {
+
+                    return false;
+
+                }
+
+            }
+
+            return true;
+
+        }
+
+        if(Objects.isNull(lower) || Objects.isNull(upper)) {
+
+            return false;
+
+        }
+
+        final Integer comparison = compare(lower.value(), upper.value());
+
+        return Objects.nonNull(comparison) &&
+               (comparison > 0 || comparison == 0 && !(lower.inclusive() && upper.inclusive()));
+
+    }
+
+    /**
+     * Are values of given type compared alike by every database, numbers and temporals are while
+     * strings and characters are compared by collation.
+     */
+    private static boolean isOrdered(final Object value) {
+
+        return value instanceof Number ||
+               value instanceof Temporal ||
+               value instanceof Date;
+
+    }
+
+    /**
+     * Are the candidates and values all of one class, so that equal values are the same value.
+     * Values of differing classes, such as {@code 1} and {@code 1L}, may be converted to equal
+     * values by the database.
+     */
+    private static boolean isUniform(final List<Object> candidates,
+                                     final Collection<?> values) {
+
+        final Set<Class<?>> types = new HashSet<>();
+
+        if(Objects.nonNull(candidates)) {
+
+            candidates.forEach(candidate -> types.add(candidate.getClass()));
+
+        }
+
+        values.forEach(value -> types.add(value.getClass()));
+
+        return types.size() <= 1;
+
+    }
+
+    /**
+     * Values both restricted to equal the attribute, an absent list meaning unrestricted.
+     */
+    private static List<Object> intersect(final List<Object> candidates,
+                                          final Collection<?> values) {
+
+        if(Objects.isNull(candidates)) {
+
+            return new ArrayList<>(values);
+
+        }
+
+        final List<Object> intersection = new ArrayList<>(candidates.size());
+
+        for(final Object candidate : candidates) {
+
+            if(values.stream().anyMatch(value -> same(value, candidate))) {
+
+                intersection.add(candidate);
+
+            }
+
+        }
+
+        return intersection;
+
+    }
+
+    /**
+     * Compare values of the same comparable type, as the database would.
+     *
+     * @return comparison result, {@code null} when the values are not comparable
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Integer compare(final Object first,
+                                   final Object second) {
+
+        if(first instanceof Comparable comparable &&
+           Objects.nonNull(second) &&
+           first.getClass() == second.getClass()) {
+
+            return comparable.compareTo(second);
+
+        }
+
+        return null;
+
+    }
+
+    /**
+     * Are values equal, by comparison when comparable so that {@code 1.0} equals {@code 1.00}.
+     */
+    private static boolean same(final Object first,
+                                final Object second) {
+
+        final Integer comparison = compare(first, second);
+
+        return Objects.nonNull(comparison) ?
+               comparison == 0 :
+               Objects.equals(first, second);
+
+    }
+
+    /**
+     * Restriction of an attribute read from a filter getter.
+     */
+    private record Constraint(Restriction restriction,
+                              Accessor accessor) {}
+
+    /**
+     * Lower or upper range bound of an attribute.
+     */
+    private record Bound(Object value,
+                         boolean inclusive) {
+
+        /**
+         * Returns the tighter of two bounds, lower bounds tightening upwards with direction 1
+         * and upper bounds downwards with direction -1. Incomparable bounds are ignored.
+         */
+        private static Bound tighter(final Bound current,
+                                     final Bound bound,
+                                     final int direction) {
+
+            if(Objects.isNull(current)) {
+
+                return bound;
+
+            }
+
+            final Integer comparison = compare(bound.value(), current.value());
+
+            if(Objects.isNull(comparison)) {
+
+                return current;
+
+            }
+
+            return Integer.signum(comparison) * direction > 0 ||
+                   comparison == 0 && !bound.inclusive() ?
+                   bound :
+                   current;
+
+        }
+
+        /**
+         * Does a bound admit given value, assuming it does when not comparable.
+         */
+        private static boolean admits(final Bound bound,
+                                      final Object value,
+                                      final int direction) {
+
+            if(Objects.isNull(bound)) {
+
+                return true;
+
+            }
+
+            final Integer comparison = compare(value, bound.value());
+
+            return Objects.isNull(comparison) ||
+                   Integer.signum(comparison) * direction > 0 ||
+                   comparison == 0 && bound.inclusive();
+
+        }
+
+    }
+
+}
@@ -0,0 +1,639 @@
+/*
+ * Copyright 2017 Oyabun AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.oyabun.criters.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import se.oyabun.criters.analysis.RestrictionEvaluator;
+import se.oyabun.criters.criteria.Combination;
+import se.oyabun.criters.criteria.Filter;
+import se.oyabun.criters.criteria.Relation;
+import se.oyabun.criters.criteria.Restriction;
+import se.oyabun.criters.exception.InvalidCritersFilteringException;
+import se.oyabun.criters.metadata.Accessor;
+import se.oyabun.criters.metadata.FilterMetadata;
+import se.oyabun.criters.metadata.ParameterMetadata;
+import se.oyabun.criters.metadata.RelationsMetadata;
+import se.oyabun.criters.util.FilterUtil;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Size and time bounded cache of search results, keyed by the entity class, the filter class
+ * and the values of the filter getters.
+ *
+ * <p>Cache hits are served without an entity manager round trip, or touching the entity manager
+ * at all. Cached entities are shared by every search hitting the same entry and must be treated
+ * as read only, cached lists are unmodifiable.
+ *
+ * <p>Entries are evicted least recently used first once the cache is full, expire after their
+ * time to live and are invalidated whenever an entity of the searched type, or of a type reached
+ * through the filter relation paths, is persisted, updated or removed. Invalidation requires
+ * {@link ResultCacheListener} to be registered as an entity listener of those entities. Changes
+ * made by bulk queries or outside of the persistence unit are only seen once entries expire.
+ *
+ * <p>Entries are invalidated when changes are flushed, not when they are committed. Results
+ * another transaction loads between the flush and the commit of a change hold the state before
+ * it, and are served until they expire unless {@link ResultCacheListener#completed()} invalidates
+ * them again when the changing transaction completes.
+ *
+ * <p>Filter values are compared by equality, {@code IN} collections regardless of order, and
+ * must not be mutated while cached. A cache must only be shared by searches of one persistence
+ * unit.
+ *
+ * <p>A subsuming cache also serves searches narrower than a cached list of the same filter class,
+ * such as {@code value > 20} after {@code value > 10} or {@code LIKE 'abc%'} after
+ * {@code LIKE 'ab%'}, by evaluating the narrowed restrictions on the cached entities in memory with
+ * the {@link RestrictionEvaluator}. Only parameters of the searched entity in groups combined with
+ * {@code AND} are narrowed, other getters must return the values of the cached search. Counts are
+ * served from cached lists alike.
+ *
+ * @author Daniel Sundberg
+ */
+public final class ResultCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResultCache.class);
+
+    static final String INVALID_MAXIMUM_SIZE = "Maximum cache size must be positive, was %d.";
+    static final String INVALID_TIME_TO_LIVE = "Time to live must be positive, was %s.";
+
+    private static final Set<ResultCache> CACHES =
+            Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+
+    private static final ClassValue<Shape> SHAPES = new ClassValue<>() {
+
+        @Override
+        protected Shape computeValue(final Class<?> filterClass) {
+
+            return Shape.of(FilterMetadata.of(filterClass));
+
+        }
+
+    };
+
+    private final int maximumSize;
+    private final long timeToLive;
+    private final LongSupplier ticker;
+    private final boolean subsuming;
+
+    private final Map<Key, Entry> entries;
+
+    private long generation;
+
+    ResultCache(final int maximumSize,
+                final long timeToLive,
+                final LongSupplier ticker,
+                final boolean subsuming) {
+
+        this.maximumSize = maximumSize;
+        this.timeToLive = timeToLive;
+        this.ticker = ticker;
+        this.subsuming = subsuming;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Key, Entry> eldest) {
+
+                return size() > ResultCache.this.maximumSize;
+
+            }
+
+        };
+
+    }
+
+    /**
+     * Create a result cache invalidated by every registered {@link ResultCacheListener}.
+     *
+     * @param maximumSize of the cache, in entries
+     * @param timeToLive of each entry
+     * @return new, empty result cache
+     * @throws IllegalArgumentException if size or time to live is not positive
+     */
+    public static ResultCache of(final int maximumSize,
+                                 final Duration timeToLive) {
+
+        return of(maximumSize, timeToLive, false);
+
+    }
+
+    /**
+     * Create a result cache invalidated by every registered {@link ResultCacheListener},
+     * optionally serving narrower searches from cached lists.
+     *
+     * @param maximumSize of the cache, in entries
+     * @param timeToLive of each entry
+     * @param subsuming true to evaluate narrower searches in memory on cached lists
+     * @return new, empty result cache
+     * @throws IllegalArgumentException if size or time to live is not positive
+     */
+    public static ResultCache of(final int maximumSize,
+                                 final Duration timeToLive,
+                                 final boolean subsuming) {
+
+        if(maximumSize < 1) {
+
+            throw new IllegalArgumentException(String.format(INVALID_MAXIMUM_SIZE, maximumSize));
+
+        }
+
+        if(timeToLive.isNegative() || timeToLive.isZero()) {
+
+            throw new IllegalArgumentException(String.format(INVALID_TIME_TO_LIVE, timeToLive));
+
+        }
+
+        final ResultCache cache = new ResultCache(maximumSize, timeToLive.toNanos(), System::nanoTime, subsuming);
+
+        CACHES.add(cache);
+
+        return cache;
+
+    }
+
+    /**
+     * Returns the cached results of given filter, loading and caching them on a miss.
+     *
+     * @param filter searched with
+     * @param strategy default strategy of iterable relations
+     * @param loader of the results on a miss
+     * @param <E> type of entity
+     * @param <S> type of filter
+     * @return cached, unmodifiable results
+     * @throws InvalidCritersFilteringException if a getter or the loader fails
+     */
+    public <E, S extends Filter<E>> List<E> list(final S filter,
+                                                 final Relation.Strategy strategy,
+                                                 final Loader<List<E>> loader)
+            throws InvalidCritersFilteringException {
+
+        return load(Kind.LIST, filter, strategy, () -> List.copyOf(loader.load()));
+
+    }
+
+    /**
+     * Returns the cached result count of given filter, loading and caching it on a miss.
+     *
+     * @param filter searched with
+     * @param strategy default strategy of iterable relations
+     * @param loader of the count on a miss
+     * @param <E> type of entity
+     * @param <S> type of filter
+     * @return cached count
+     * @throws InvalidCritersFilteringException if a getter or the loader fails
+     */
+    public <E, S extends Filter<E>> long count(final S filter,
+                                               final Relation.Strategy strategy,
+                                               final Loader<Long> loader)
+            throws InvalidCritersFilteringException {
+
+        return load(Kind.COUNT, filter, strategy, loader);
+
+    }
+
+    /**
+     * Invalidate every entry depending on entities of given type, including entries depending
+     * on a supertype of it.
+     *
+     * @param entityClass of the changed entity
+     */
+    public synchronized void invalidate(final Class<?> entityClass) {
+
+        generation++;
+
+        final int size = entries.size();
+
+        entries.values().removeIf(entry -> entry.dependsOn(entityClass));
+
+        if(logger.isDebugEnabled()) {
+
+            logger.debug("Invalidated {} cached results depending on '{}'.",
+                         size - entries.size(), entityClass.getName());
+
+        }
+
+    }
+
+    /**
+     * Invalidate the entries depending on the type of given entity in every result cache.
+     *
+     * @param entity changed
+     */
+    public static void invalidateAll(final Object entity) {
+
+        invalidateAll(entity.getClass());
+
+    }
+
+    /**
+     * Invalidate the entries depending on entities of given type in every result cache.
+     */
+    static void invalidateAll(final Class<?> entityClass) {
+
+        final List<ResultCache> caches;
+
+        synchronized (CACHES) {
+
+            caches = new ArrayList<>(CACHES);
+
+        }
+
+        for(final ResultCache cache : caches) {
+
+            cache.invalidate(entityClass);
+
+        }
+
+    }
+
+    /**
+     * Remove every entry.
+     */
+    public synchronized void clear() {
+
+        generation++;
+        entries.clear();
+
+    }
+
+    /**
+     * Returns the number of cached entries, including expired entries not yet evicted.
+     *
+     * @return number of entries
+     */
+    public synchronized int size() {
+
+        return entries.size();
+
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T load(final Kind kind,
+                       final Filter<?> filter,
+                       final Relation.Strategy strategy,
+                       final Loader<T> loader)
+            throws InvalidCritersFilteringException {
+
+        final Shape shape = SHAPES.get(filter.getClass());
+        final Key key = new Key(kind, filter.getClass(), strategy, shape.values(filter));
+
+        final long loadedGeneration;
+        final Superset superset;
+
+        synchronized (this) {
+
+            final Entry entry = entries.get(key);
+
+            if(entry != null) {
+
+                if(ticker.getAsLong() - entry.expires() < 0) {
+
+                    return (T) entry.value();
+
+                }
+
+                entries.remove(key);
+
+            }
+
+            loadedGeneration = generation;
+            superset = subsuming ? superset(key, shape) : null;
+
+        }
+
+        final T value = Objects.nonNull(superset) ?
+                        (T) superset.refine(kind) :
+                        loader.load();
+
+        synchronized (this) {
+
+            //
+            // Results loaded while an invalidation happened may already be stale, leave
+            // them uncached.
+            //
+            if(loadedGeneration == generation) {
+
+                //
+                // Refined results are as old as the results they were refined from.
+                //
+                final long expires = Objects.nonNull(superset) ?
+                                     superset.expires() :
+                                     ticker.getAsLong() + timeToLive;
+
+                entries.put(key, new Entry(value, shape.dependencies(), expires));
+
+            }
+
+        }
+
+        return value;
+
+    }
+
+    /**
+     * Find a cached, unexpired list of a search that given search narrows.
+     */
+    private Superset superset(final Key key,
+                              final Shape shape) {
+
+        final long now = ticker.getAsLong();
+
+        for(final Map.Entry<Key, Entry> cached : entries.entrySet()) {
+
+            final Key cachedKey = cached.getKey();
+
+            if(cachedKey.kind() != Kind.LIST ||
+               cachedKey.filterClass() != key.filterClass() ||
+               cachedKey.strategy() != key.strategy() ||
+               now - cached.getValue().expires() >= 0) {
+
+                continue;
+
+            }
+
+            final List<Refinement> refinements = shape.refinements(cachedKey.values(), key.values());
+
+            //
+            // Lists are only refined by further restrictions, exact matches were hits.
+            //
+            if(Objects.nonNull(refinements) &&
+               (!refinements.isEmpty() || key.kind() == Kind.COUNT)) {
+
+                if(logger.isDebugEnabled()) {
+
+                    logger.debug("Refining cached results of '{}' with {} restrictions.",
+                                 key.filterClass().getName(), refinements.size());
+
+                }
+
+                return new Superset((List<?>) cached.getValue().value(),
+                                    refinements,
+                                    cached.getValue().expires());
+
+            }
+
+        }
+
+        return null;
+
+    }
+
+    /**
+     * Loader of a result on a cache miss.
+     *
+     * @param <T> type of result
+     */
+    @FunctionalInterface
+    public interface Loader<T> {
+
+        /**
+         * Load the result.
+         *
+         * @return loaded result
+         * @throws InvalidCritersFilteringException if the result fails to load
+         */
+        T load()
+                throws InvalidCritersFilteringException;
+
+    }
+
+    private enum Kind { LIST, COUNT }
+
+    private record Key(Kind kind,
+                       Class<?> filterClass,
+                       Relation.Strategy strategy,
+                       List<Object> values) {}
+
+    private record Entry(Object value,
+                         Set<Class<?>> dependencies,
+                         long expires) {
+
+        private boolean dependsOn(final Class<?> entityClass) {
+
+            return dependencies.stream()
+                               .anyMatch(dependency -> dependency.isAssignableFrom(entityClass));
+
+        }
+
+    }
+
+    /**
+     * Restriction of an entity attribute evaluated in memory.
+     */
+    private record Refinement(Accessor attribute,
+                              Predicate<Object> predicate) {}
+
+    /**
+     * Cached list of a broader search, with the restrictions narrowing it.
+     */
+    private record Superset(List<?> entities,
+                            List<Refinement> refinements,
+                            long expires) {
+
+        private Object refine(final Kind kind)
+                throws InvalidCritersFilteringException {
+
+            final List<Object> refined = new ArrayList<>();
+
+            for(final Object entity : entities) {
+
+                if(matches(entity)) {
+
+                    refined.add(entity);
+
+                }
+
+            }
+
+            //
+            // Lists of joined iterable relations repeat roots, counts are distinct.
+            //
+            if(kind == Kind.COUNT) {
+
+                final Set<Object> distinct = Collections.newSetFromMap(new IdentityHashMap<>());
+
+                distinct.addAll(refined);
+
+                return (long) distinct.size();
+
+            }
+
+            return List.copyOf(refined);
+
+        }
+
+        private boolean matches(final Object entity)
+                throws InvalidCritersFilteringException {
+
+            for(final Refinement refinement : refinements) {
+
+                if(!refinement.predicate().test(refinement.attribute().get(entity))) {
+
+                    return false;
+
+                }
+
+            }
+
+            return true;
+
+        }
+
+    }
+
+    /**
+     * Getters and entity dependencies of a filter class, with the restrictions of getters that
+     * can be evaluated in memory.
+     */
+    private record Shape(List<Accessor> accessors,
+                         List<Restriction> restrictions,
+                         List<Accessor> attributes,
+                         Set<Class<?>> dependencies) {
+
+        private static Shape of(final FilterMetadata metadata) {
+
+            final List<Accessor> accessors = new ArrayList<>();
+            final List<Restriction> restrictions = new ArrayList<>();
+            final List<Accessor> attributes = new ArrayList<>();
+            final Set<Class<?>> dependencies = new LinkedHashSet<>();
+
+            //
+            // Filters without a resolvable entity class depend on every entity.
+            //
+            final Class<?> entityClass = metadata.entityClass().orElse(Object.class);
+
+            dependencies.add(entityClass);
+
+            final Map<String, List<Combination.Combine>> groups = new LinkedHashMap<>();
+
+            for(final ParameterMetadata parameter : metadata.parameters()) {
+
+                groups.computeIfAbsent(parameter.group(), group -> new ArrayList<>())
+                      .add(parameter.combine());
+
+            }
+
+            for(final ParameterMetadata parameter : metadata.parameters()) {
+
+                accessors.add(parameter.accessor());
+                restrictions.add(parameter.restriction());
+
+                //
+                // Groups are combined with AND, restrictions of groups folded with AND only
+                // narrow a search. The combination of the first restriction is never applied.
+                //
+                final boolean conjunctive = groups.get(parameter.group())
+                                                  .stream()
+                                                  .skip(1)
+                                                  .allMatch(combine -> combine == Combination.Combine.AND);
+
+                attributes.add(conjunctive &&
+                               RestrictionEvaluator.supports(parameter.restriction(),
+                                                             parameter.accessor().type()) ?
+                               FilterUtil.getter(entityClass, parameter.name())
+                                         .map(Accessor::of)
+                                         .orElse(null) :
+                               null);
+
+            }
+
+            for(final RelationsMetadata relations : metadata.relations()) {
+
+                accessors.add(relations.accessor());
+                restrictions.add(null);
+                attributes.add(null);
+                dependencies.addAll(FilterUtil.relationTypes(entityClass, relations.path()));
+
+            }
+
+            return new Shape(List.copyOf(accessors),
+                             Collections.unmodifiableList(restrictions),
+                             Collections.unmodifiableList(attributes),
+                             Set.copyOf(dependencies));
+
+        }
+
+        private List<Object> values(final Object filter)
+                throws InvalidCritersFilteringException {
+
+            final List<Object> values = new ArrayList<>(accessors.size());
+
+            for(final Accessor accessor : accessors) {
+
+                final Object value = accessor.get(filter);
+
+                values.add(value instanceof Collection<?> collection ?
+                           new HashSet<>(collection) :
+                           value);
+
+            }
+
+            return values;
+
+        }
+
+        /**
+         * Returns the restrictions narrowing the search of the cached values to the search of
+         * given values, null when the search is not narrower.
+         */
+        private List<Refinement> refinements(final List<Object> cached,
+                                             final List<Object> values) {
+
+            final List<Refinement> refinements = new ArrayList<>();
+
+            for(int i = 0; i < values.size(); i++) {
+
+                if(Objects.equals(cached.get(i), values.get(i))) {
+
+                    continue;
+
+                }
+
+                if(Objects.nonNull(attributes.get(i)) &&
+                   RestrictionEvaluator.narrows(restrictions.get(i), cached.get(i), values.get(i))) {
+
+                    refinements.add(new Refinement(attributes.get(i),
+                                                   RestrictionEvaluator.of(restrictions.get(i), values.get(i))));
+
+                } else {
+
+                    return null;
+
+                }
+
+            }
+
+            return refinements;
+
+        }
+
+    }
+
+}
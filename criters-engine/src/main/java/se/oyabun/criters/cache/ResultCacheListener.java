@@ -0,0 +1,83 @@
+/*
+ * Copyright 2017 Oyabun AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.oyabun.criters.cache;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Entity listener invalidating the {@link ResultCache}s depending on changed entities.
+ *
+ * <p>Register the listener on every searched entity, and every entity reached through filter
+ * relation paths, with {@code @EntityListeners(ResultCacheListener.class)}, or once for all
+ * entities as a default entity listener in {@code orm.xml}.
+ *
+ * <p>Entity listeners are called when changes are flushed, before they are committed. Another
+ * transaction searching between the flush and the commit reads, and caches, the state before the
+ * change until the entry expires. Call {@link #completed()} when each transaction completes, for
+ * example from a Spring {@code TransactionSynchronization} or a JTA {@code Synchronization}, to
+ * invalidate results depending on the changed entities once more.
+ *
+ * @author Daniel Sundberg
+ */
+public class ResultCacheListener {
+
+    /** Types of the entities changed by each thread since its last completed transaction. */
+    private static final ThreadLocal<Set<Class<?>>> CHANGED = ThreadLocal.withInitial(LinkedHashSet::new);
+
+    /** Creates a new {@code ResultCacheListener}, instantiated by the persistence provider. */
+    public ResultCacheListener() {}
+
+    /**
+     * Invalidate cached results depending on the type of given entity.
+     *
+     * @param entity persisted, updated or removed
+     */
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void invalidate(final Object entity) {
+
+        ResultCache.invalidateAll(entity);
+
+        CHANGED.get().add(entity.getClass());
+
+    }
+
+    /**
+     * Invalidate cached results depending on the entities changed by the current thread since
+     * its last completed transaction again, dropping results cached by other transactions before
+     * the changes were committed. Call on the thread of the transaction once it committed or
+     * rolled back.
+     */
+    public static void completed() {
+
+        final Set<Class<?>> changed = CHANGED.get();
+
+        CHANGED.remove();
+
+        for(final Class<?> entityClass : changed) {
+
+            ResultCache.invalidateAll(entityClass);
+
+        }
+
+    }
+
+}
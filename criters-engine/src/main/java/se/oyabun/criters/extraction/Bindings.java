@@ -0,0 +1,251 @@
+/*
+ * Copyright 2017 Oyabun AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.oyabun.criters.extraction;
+
+import se.oyabun.criters.exception.InvalidCritersFilteringException;
+import se.oyabun.criters.metadata.Accessor;
+
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.ParameterExpression;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Parameter placeholders registered while extracting predicates for a prepared query plan,
+ * together with the filter getters their values are read from.
+ *
+ * <p>Collections bound to {@link se.oyabun.criters.criteria.Restriction#IN} restrictions are
+ * expanded into one placeholder per element, padded to the next power of two by repeating
+ * the last element. This keeps the number of distinct plans per filter class logarithmic
+ * in the largest collection size.
+ *
+ * @author Daniel Sundberg
+ */
+public final class Bindings {
+
+    private static final String INVALID_COLLECTION = "Collection size %d does not fit planned size %d.";
+    private static final String INVALID_ELEMENTS = "Expected a collection of elements, was '%s'.";
+
+    private static final String NAMED_PREFIX = "p";
+
+    private final List<Binding> bindings = new ArrayList<>();
+
+    /** Creates an empty set of bindings. */
+    public Bindings() {}
+
+    /**
+     * Register a placeholder for a single getter value.
+     *
+     * @param builder to create the placeholder with
+     * @param type of the restricted attribute
+     * @param accessor reading the value from the filter
+     * @param <T> type of placeholder
+     * @return the registered placeholder
+     */
+    public <T> ParameterExpression<T> value(final CriteriaBuilder builder,
+                                            final Class<T> type,
+                                            final Accessor accessor) {
+
+        final ParameterExpression<T> expression = builder.parameter(wrap(type));
+
+        bindings.add(new ValueBinding(expression, accessor));
+
+        return expression;
+
+    }
+
+    /**
+     * Register placeholders for the elements of a collection getter value.
+     *
+     * @param builder to create the placeholders with
+     * @param type of the restricted attribute
+     * @param accessor reading the collection from the filter
+     * @param size of the collection at planning time
+     * @return the registered placeholders, empty for an empty collection
+     */
+    public List<Expression<?>> elements(final CriteriaBuilder builder,
+                                        final Class<?> type,
+                                        final Accessor accessor,
+                                        final int size) {
+
+        final int planned = plannedSize(size);
+
+        final List<ParameterExpression<?>> expressions = new ArrayList<>(planned);
+
+        for(int i = 0; i < planned; i++) {
+
+            expressions.add(builder.parameter(wrap(type)));
+
+        }
+
+        bindings.add(new ElementsBinding(expressions, accessor));
+
+        return Collections.unmodifiableList(expressions);
+
+    }
+
+    /**
+     * Register a named placeholder for a getter value, as rendered in JPQL queries.
+     * Collections are bound as a whole to collection valued {@code IN} placeholders.
+     *
+     * @param accessor reading the value from the filter
+     * @return name of the registered placeholder
+     */
+    public String named(final Accessor accessor) {
+
+        final String name = NAMED_PREFIX + bindings.size();
+
+        bindings.add(new NamedBinding(name, accessor));
+
+        return name;
+
+    }
+
+    /**
+     * Bind the current values of given filter to the placeholders of a query.
+     *
+     * @param query to bind values on
+     * @param filter to read values from
+     * @param <Q> type of query
+     * @return the same query, for chaining
+     * @throws InvalidCritersFilteringException if a value can not be read or does not fit the plan
+     */
+    public <Q extends TypedQuery<?>> Q bind(final Q query,
+                                            final Object filter)
+            throws InvalidCritersFilteringException {
+
+        for(final Binding binding : bindings) {
+
+            binding.bind(query, filter);
+
+        }
+
+        return query;
+
+    }
+
+    /**
+     * Returns the number of placeholders an {@code IN} collection of given size is planned with.
+     *
+     * @param size of the collection
+     * @return zero for an empty collection, otherwise the next power of two
+     */
+    public static int plannedSize(final int size) {
+
+        return size <= 1 ? size : Integer.highestOneBit(size - 1) << 1;
+
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Class<T> wrap(final Class<T> type) {
+
+        return (Class<T>) MethodType.methodType(type).wrap().returnType();
+
+    }
+
+    private interface Binding {
+
+        void bind(TypedQuery<?> query, Object filter)
+                throws InvalidCritersFilteringException;
+
+    }
+
+    private record ValueBinding(ParameterExpression<?> expression,
+                                Accessor accessor)
+            implements Binding {
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void bind(final TypedQuery<?> query,
+                         final Object filter)
+                throws InvalidCritersFilteringException {
+
+            query.setParameter((ParameterExpression<Object>) expression, accessor.get(filter));
+
+        }
+
+    }
+
+    private record NamedBinding(String name,
+                                Accessor accessor)
+            implements Binding {
+
+        @Override
+        public void bind(final TypedQuery<?> query,
+                         final Object filter)
+                throws InvalidCritersFilteringException {
+
+            query.setParameter(name, accessor.get(filter));
+
+        }
+
+    }
+
+    private record ElementsBinding(List<ParameterExpression<?>> expressions,
+                                   Accessor accessor)
+            implements Binding {
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void bind(final TypedQuery<?> query,
+                         final Object filter)
+                throws InvalidCritersFilteringException {
+
+            final Object collection = accessor.get(filter);
+
+            if(!(collection instanceof Collection<?> values)) {
+
+                throw new InvalidCritersFilteringException(String.format(INVALID_ELEMENTS, collection));
+
+            }
+
+            if(plannedSize(values.size()) != expressions.size()) {
+
+                throw new InvalidCritersFilteringException(
+                        String.format(INVALID_COLLECTION, values.size(), expressions.size()));
+
+            }
+
+            final Iterator<?> iterator = values.iterator();
+
+            Object value = null;
+
+            for(final ParameterExpression<?> expression : expressions) {
+
+                //
+                // Pad trailing placeholders with the last element.
+                //
+                if(iterator.hasNext()) {
+
+                    value = iterator.next();
+
+                }
+
+                query.setParameter((ParameterExpression<Object>) expression, value);
+
+            }
+
+        }
+
+    }
+
+}
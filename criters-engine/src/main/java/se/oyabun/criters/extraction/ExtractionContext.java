@@ -0,0 +1,267 @@
+/*
+ * Copyright 2017 Oyabun AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.oyabun.criters.extraction;
+
+import se.oyabun.criters.criteria.Relation;
+import se.oyabun.criters.metadata.MetamodelIndex;
+
+import jakarta.persistence.criteria.CommonAbstractCriteria;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Root;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * State shared by all extractors producing the restrictions of one search.
+ *
+ * <p>A context either renders filter values as literals, or registers them as parameter
+ * placeholders on {@link Bindings} when the restrictions are compiled into a reusable
+ * query plan.
+ *
+ * @param <E> type of entity
+ * @author Daniel Sundberg
+ */
+public final class ExtractionContext<E> {
+
+    private final CriteriaBuilder criteriaBuilder;
+    private final CommonAbstractCriteria query;
+    private final Root<E> root;
+    private final Bindings bindings;
+    private final Relation.Strategy strategy;
+    private final MetamodelIndex metamodel;
+    private final boolean semiJoined;
+    private final Joins joins = new Joins();
+
+    private ExtractionContext(final CriteriaBuilder criteriaBuilder,
+                              final CommonAbstractCriteria query,
+                              final Root<E> root,
+                              final Bindings bindings,
+                              final Relation.Strategy strategy,
+                              final MetamodelIndex metamodel,
+                              final boolean semiJoined) {
+
+        this.criteriaBuilder = Objects.requireNonNull(criteriaBuilder);
+        this.query = query;
+        this.root = Objects.requireNonNull(root);
+        this.bindings = bindings;
+        this.strategy = strategy == Relation.Strategy.DEFAULT ?
+                        Relation.Strategy.JOIN :
+                        Objects.requireNonNull(strategy);
+        this.metamodel = metamodel;
+        this.semiJoined = semiJoined;
+
+    }
+
+    /**
+     * Create a context rendering filter values as literals. Without a query, iterable
+     * relations can not be restricted in subqueries and are always joined.
+     *
+     * @param criteriaBuilder to produce predicates with
+     * @param root of the search
+     * @param <E> type of entity
+     * @return new extraction context
+     */
+    public static <E> ExtractionContext<E> of(final CriteriaBuilder criteriaBuilder,
+                                              final Root<E> root) {
+
+        return new ExtractionContext<>(criteriaBuilder, null, root, null, Relation.Strategy.JOIN, null, false);
+
+    }
+
+    /**
+     * Create a context rendering filter values as literals.
+     *
+     * @param criteriaBuilder to produce predicates with
+     * @param query owning the root, used to create subqueries
+     * @param root of the search
+     * @param strategy default strategy of iterable relations
+     * @param <E> type of entity
+     * @return new extraction context
+     */
+    public static <E> ExtractionContext<E> of(final CriteriaBuilder criteriaBuilder,
+                                              final CommonAbstractCriteria query,
+                                              final Root<E> root,
+                                              final Relation.Strategy strategy) {
+
+        return new ExtractionContext<>(criteriaBuilder,
+                                       Objects.requireNonNull(query),
+                                       root,
+                                       null,
+                                       strategy,
+                                       null,
+                                       false);
+
+    }
+
+    /**
+     * Create a context registering filter values as parameter placeholders.
+     *
+     * @param criteriaBuilder to produce predicates with
+     * @param query owning the root, used to create subqueries
+     * @param root of the search
+     * @param bindings to register placeholders on
+     * @param strategy default strategy of iterable relations
+     * @param <E> type of entity
+     * @return new extraction context
+     */
+    public static <E> ExtractionContext<E> parameterized(final CriteriaBuilder criteriaBuilder,
+                                                         final CommonAbstractCriteria query,
+                                                         final Root<E> root,
+                                                         final Bindings bindings,
+                                                         final Relation.Strategy strategy) {
+
+        return new ExtractionContext<>(criteriaBuilder,
+                                       Objects.requireNonNull(query),
+                                       root,
+                                       Objects.requireNonNull(bindings),
+                                       strategy,
+                                       null,
+                                       false);
+
+    }
+
+    /**
+     * Create a copy of this context resolving attributes through given metamodel index.
+     * Must be called before the context is used for extraction.
+     *
+     * @param metamodel index of the persistence unit of the search
+     * @return new extraction context
+     */
+    public ExtractionContext<E> indexed(final MetamodelIndex metamodel) {
+
+        return new ExtractionContext<>(criteriaBuilder,
+                                       query,
+                                       root,
+                                       bindings,
+                                       strategy,
+                                       Objects.requireNonNull(metamodel),
+                                       semiJoined);
+
+    }
+
+    /**
+     * Create a copy of this context restricting every iterable relation in a subquery, also
+     * relations declaring {@link Relation.Strategy#JOIN}, so root rows are never repeated.
+     * Must be called before the context is used for extraction.
+     *
+     * @return new extraction context
+     */
+    public ExtractionContext<E> semiJoined() {
+
+        return new ExtractionContext<>(criteriaBuilder,
+                                       Objects.requireNonNull(query),
+                                       root,
+                                       bindings,
+                                       strategy,
+                                       metamodel,
+                                       true);
+
+    }
+
+    /**
+     * Returns the criteria builder of the search.
+     *
+     * @return the criteria builder
+     */
+    public CriteriaBuilder criteriaBuilder() {
+
+        return criteriaBuilder;
+
+    }
+
+    /**
+     * Returns the query owning the search root, if known.
+     *
+     * @return the query, empty when subqueries can not be created
+     */
+    public Optional<CommonAbstractCriteria> query() {
+
+        return Optional.ofNullable(query);
+
+    }
+
+    /**
+     * Returns the root of the search.
+     *
+     * @return the search root
+     */
+    public Root<E> root() {
+
+        return root;
+
+    }
+
+    /**
+     * Returns the placeholder bindings, if values should be parameterized.
+     *
+     * @return the bindings, empty when values are rendered as literals
+     */
+    public Optional<Bindings> bindings() {
+
+        return Optional.ofNullable(bindings);
+
+    }
+
+    /**
+     * Returns the metamodel index resolving typed attributes, if known.
+     *
+     * @return the metamodel index, empty when attributes are resolved by name
+     */
+    public Optional<MetamodelIndex> metamodel() {
+
+        return Optional.ofNullable(metamodel);
+
+    }
+
+    /**
+     * Resolve the strategy restricting given relation.
+     *
+     * @param relation to resolve strategy for
+     * @return {@link Relation.Strategy#EXISTS} for iterable relations restricted in subqueries,
+     *         otherwise {@link Relation.Strategy#JOIN}
+     */
+    public Relation.Strategy strategy(final Relation relation) {
+
+        if(!relation.iterable() || Objects.isNull(query)) {
+
+            return Relation.Strategy.JOIN;
+
+        }
+
+        if(semiJoined) {
+
+            return Relation.Strategy.EXISTS;
+
+        }
+
+        return relation.strategy() == Relation.Strategy.DEFAULT ?
+               strategy :
+               relation.strategy();
+
+    }
+
+    /**
+     * Returns the joins of the search, shared by all extractors using this context.
+     *
+     * @return the join registry
+     */
+    public Joins joins() {
+
+        return joins;
+
+    }
+
+}
@@ -48,4 +48,24 @@ public interface Extractor {
                                                                    final Root<E> root)
             throws InvalidCritersFilteringException;
 
+    /**
+     * Generate restriction predicate within a shared extraction context, by default from the
+     * builder and root of the context alone. Extractors overriding this method share joins and
+     * bindings with the other extractors of the search.
+     *
+     * @param filter to use for predicate generation
+     * @param context of the search to use for predicate generation
+     * @param <E> type of entity
+     * @param <S> type of search filter
+     * @return combined parameter predicate
+     * @throws InvalidCritersFilteringException if predicate generation fails
+     */
+    default <E, S extends Filter<E>> Optional<Predicate> generatePredicate(final S filter,
+                                                                           final ExtractionContext<E> context)
+            throws InvalidCritersFilteringException {
+
+        return generatePredicate(filter, context.criteriaBuilder(), context.root());
+
+    }
+
 }
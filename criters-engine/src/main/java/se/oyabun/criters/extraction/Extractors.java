@@ -0,0 +1,128 @@
+/*
+ * Copyright 2017 Oyabun AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.oyabun.criters.extraction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+/**
+ * Registry of the extractors producing the restrictions of a filter class.
+ *
+ * <p>Filters compiled with the criters annotation processor have a generated
+ * {@code <FilterClass>_Criters} extractor next to them, reading getters directly and
+ * validated at build time. Filters without one are extracted by the reflective
+ * {@link ParameterExtractor} and {@link RelationExtractor}. The lookup is done once per
+ * filter class.
+ *
+ * @author Daniel Sundberg
+ */
+public final class Extractors {
+
+    private static final Logger logger = LoggerFactory.getLogger(Extractors.class);
+
+    /** Simple name suffix of generated extractor classes. */
+    public static final String GENERATED_SUFFIX = "_Criters";
+
+    private static final List<Extractor> REFLECTIVE =
+            List.of(new ParameterExtractor(),
+                    new RelationExtractor());
+
+    private static final ClassValue<List<Extractor>> REGISTRY =
+            new ClassValue<>() {
+
+                @Override
+                protected List<Extractor> computeValue(final Class<?> filterClass) {
+
+                    return generated(filterClass);
+
+                }
+
+            };
+
+    private Extractors() {}
+
+    /**
+     * Returns the extractors of given filter class.
+     *
+     * @param filterClass to extract restrictions for
+     * @return the generated extractor if present, otherwise the reflective extractors
+     */
+    public static List<Extractor> of(final Class<?> filterClass) {
+
+        return REGISTRY.get(filterClass);
+
+    }
+
+    /**
+     * Returns the reflective extractors, usable with any filter class.
+     *
+     * @return the reflective extractors
+     */
+    public static List<Extractor> reflective() {
+
+        return REFLECTIVE;
+
+    }
+
+    private static List<Extractor> generated(final Class<?> filterClass) {
+
+        try {
+
+            final Class<?> generatedClass =
+                    Class.forName(filterClass.getName() + GENERATED_SUFFIX,
+                                  true,
+                                  filterClass.getClassLoader());
+
+            if(Extractor.class.isAssignableFrom(generatedClass)) {
+
+                final Extractor extractor =
+                        (Extractor) generatedClass.getDeclaredConstructor().newInstance();
+
+                if(logger.isDebugEnabled()) {
+
+                    logger.debug("Using generated extractor '{}'.",
+                                 generatedClass.getName());
+
+                }
+
+                return List.of(extractor);
+
+            }
+
+        } catch (ClassNotFoundException e) {
+
+            //
+            // Not compiled with the annotation processor.
+            //
+
+        } catch (ReflectiveOperationException | LinkageError e) {
+
+            if(logger.isDebugEnabled()) {
+
+                logger.debug("Ignoring generated extractor of '{}': {}",
+                             filterClass.getName(), e.getMessage());
+
+            }
+
+        }
+
+        return REFLECTIVE;
+
+    }
+
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2017 Oyabun AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.oyabun.criters.extraction;
+
+import se.oyabun.criters.criteria.Relation;
+
+import jakarta.persistence.criteria.CommonAbstractCriteria;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.From;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Registry of the joins of one search, keyed by relation path such as {@code bars} or
+ * {@code bars.baz}.
+ *
+ * <p>Every path is joined exactly once per alias, so relational getters restricting the same
+ * relation share one join instead of multiplying rows across redundant joins. Getters that
+ * need independent joins declare a distinct {@link se.oyabun.criters.criteria.Relations#alias()}.
+ *
+ * @author Daniel Sundberg
+ */
+public final class Joins {
+
+    private static final String PATH_SEPARATOR = ".";
+    private static final String ALIAS_SEPARATOR = "@";
+    private static final String GROUP_SEPARATOR = "#";
+
+    private final Map<String, From<?, ?>> joins = new HashMap<>();
+    private final Map<String, SemiJoin> semiJoins = new LinkedHashMap<>();
+
+    private boolean iterable;
+
+    /** Creates an empty join registry. */
+    public Joins() {}
+
+    /**
+     * Join given relation path from a root, reusing joins already registered for the path
+     * or any of its prefixes.
+     *
+     * @param from root to start joining from
+     * @param alias of the join namespace, empty for the shared default namespace
+     * @param relations to join, in join order
+     * @return the joins of every relation on the path, in path order
+     */
+    public List<From<?, ?>> join(final From<?, ?> from,
+                                 final String alias,
+                                 final List<Relation> relations) {
+
+        final StringBuilder key = new StringBuilder(alias).append(ALIAS_SEPARATOR);
+
+        final List<From<?, ?>> path = new ArrayList<>(relations.size());
+
+        From<?, ?> current = from;
+
+        for(int i = 0; i < relations.size(); i++) {
+
+            final String name = relations.get(i).name();
+
+            if(i > 0) {
+
+                key.append(PATH_SEPARATOR);
+
+            }
+
+            key.append(name);
+
+            iterable |= relations.get(i).iterable();
+
+            final From<?, ?> parent = current;
+
+            current = joins.computeIfAbsent(key.toString(), ignored -> parent.join(name));
+
+            path.add(current);
+
+        }
+
+        return path;
+
+    }
+
+    /**
+     * Returns the {@code EXISTS} subquery restricting the last relation of given path by the
+     * parameters of one combination group, creating it on first use.
+     *
+     * @param query to create the subquery on
+     * @param criteriaBuilder to create the subquery with
+     * @param from join of the relation preceding the last relation, correlated by the subquery
+     * @param alias of the join namespace, empty for the shared default namespace
+     * @param relations path ending with the iterable relation restricted by the subquery
+     * @param group of the restricting parameters, {@code null} for an unrestricted subquery
+     * @return the subquery of the path and group
+     */
+    SemiJoin semiJoin(final CommonAbstractCriteria query,
+                      final CriteriaBuilder criteriaBuilder,
+                      final From<?, ?> from,
+                      final String alias,
+                      final List<Relation> relations,
+                      final String group) {
+
+        final StringBuilder key = new StringBuilder(alias).append(ALIAS_SEPARATOR);
+
+        for(int i = 0; i < relations.size(); i++) {
+
+            key.append(i > 0 ? PATH_SEPARATOR : "").append(relations.get(i).name());
+
+        }
+
+        if(Objects.nonNull(group)) {
+
+            key.append(GROUP_SEPARATOR).append(group);
+
+        }
+
+        return semiJoins.computeIfAbsent(key.toString(),
+                                         ignored -> new SemiJoin(query,
+                                                                 criteriaBuilder,
+                                                                 from,
+                                                                 relations.get(relations.size() - 1).name()));
+
+    }
+
+    /**
+     * Returns the {@code EXISTS} subqueries created, in creation order.
+     *
+     * @return the subqueries
+     */
+    Collection<SemiJoin> semiJoins() {
+
+        return semiJoins.values();
+
+    }
+
+    /**
+     * Returns whether any iterable relation is joined, possibly repeating root rows.
+     *
+     * @return true if an iterable relation is joined
+     */
+    public boolean hasIterableJoins() {
+
+        return iterable;
+
+    }
+
+    /**
+     * Returns the number of distinct joins registered.
+     *
+     * @return number of joins
+     */
+    public int size() {
+
+        return joins.size();
+
+    }
+
+}
@@ -0,0 +1,538 @@
+/*
+ * Copyright 2017 Oyabun AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.oyabun.criters.extraction;
+
+import se.oyabun.criters.criteria.Combination;
+import se.oyabun.criters.criteria.Filter;
+import se.oyabun.criters.criteria.Parameter;
+import se.oyabun.criters.criteria.Relation;
+import se.oyabun.criters.exception.InvalidCritersFilteringException;
+import se.oyabun.criters.metadata.Accessor;
+import se.oyabun.criters.metadata.FilterMetadata;
+import se.oyabun.criters.metadata.MetamodelIndex;
+import se.oyabun.criters.metadata.ParameterMetadata;
+import se.oyabun.criters.metadata.RelationsMetadata;
+
+import jakarta.persistence.metamodel.EntityType;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Renders the restrictions of a filter to a parameterized JPQL query string, as an
+ * alternative to building criteria trees.
+ *
+ * <p>The rendered query joins, groups and restricts exactly as {@link ParameterExtractor}
+ * and {@link RelationExtractor} do, including {@code EXISTS} subqueries for iterable relations
+ * and foreign key restrictions of to-one relations. Values are bound to named placeholders
+ * registered in given {@link Bindings}, {@code IN} collections to a single collection valued
+ * placeholder. The query string only depends on the shape of the filter, so providers reuse
+ * their parsed query plans of it.
+ *
+ * @author Daniel Sundberg
+ */
+public final class JpqlRenderer {
+
+    private static final String ROOT = "e";
+
+    private static final String JOIN_PREFIX = "j";
+
+    private static final String SEMI_JOIN_PREFIX = "s";
+
+    private static final String ALIAS_SEPARATOR = "@";
+
+    private static final String PATH_SEPARATOR = ".";
+
+    private static final String GROUP_SEPARATOR = "#";
+
+    private static final String NO_PREDICATES = "No predicates generated.";
+
+    private static final String INVALID_RESTRICTION = "No parameter prepared restriction found for '%s'.";
+
+    private final MetamodelIndex metamodel;
+    private final Object filter;
+    private final Relation.Strategy strategy;
+    private final Bindings bindings;
+
+    private final Map<String, String> joins = new HashMap<>();
+    private final StringBuilder joinClauses = new StringBuilder();
+    private final Map<String, SemiJoinClause> semiJoins = new LinkedHashMap<>();
+
+    private int variables;
+
+    private JpqlRenderer(final MetamodelIndex metamodel,
+                         final Object filter,
+                         final Relation.Strategy strategy,
+                         final Bindings bindings) {
+
+        this.metamodel = metamodel;
+        this.filter = filter;
+        this.strategy = strategy == Relation.Strategy.DEFAULT ?
+                        Relation.Strategy.JOIN :
+                        strategy;
+        this.bindings = bindings;
+
+    }
+
+    /**
+     * Render a JPQL query selecting the entities matching given filter.
+     *
+     * @param metamodel index resolving entity names and foreign key restrictions
+     * @param filter to render restrictions of
+     * @param strategy default strategy of iterable relations
+     * @param bindings registering the placeholders of the query
+     * @param <E> type of entity
+     * @param <S> type of filter
+     * @return the parameterized query string
+     * @throws InvalidCritersFilteringException if the filter does not match its entity
+     */
+    public static <E, S extends Filter<E>> String render(final MetamodelIndex metamodel,
+                                                         final S filter,
+                                                         final Relation.Strategy strategy,
+                                                         final Bindings bindings)
+            throws InvalidCritersFilteringException {
+
+        return new JpqlRenderer(metamodel, filter, strategy, bindings).render(filter.getEntityClass());
+
+    }
+
+    private <E> String render(final Class<E> entityClass)
+            throws InvalidCritersFilteringException {
+
+        final FilterMetadata metadata = FilterMetadata.of(filter.getClass());
+
+        metadata.validateParameters(entityClass);
+        metadata.validateRelations(entityClass);
+
+        final Optional<EntityType<E>> entity = metamodel.entity(entityClass);
+
+        //
+        // Parameter and relation groups are combined separately, as by their extractors.
+        //
+        final Map<String, Group> parameterGroups = new LinkedHashMap<>();
+
+        for(final ParameterMetadata parameterMetadata : metadata.parameters()) {
+
+            restrict(parameterGroups,
+                     parameterMetadata.parameter(),
+                     restriction(ROOT,
+                                 parameterMetadata.parameter(),
+                                 parameterMetadata.accessor()));
+
+        }
+
+        final Map<String, Group> relationGroups = new LinkedHashMap<>();
+
+        for(final RelationsMetadata relationsMetadata : metadata.relations()) {
+
+            render(entity, relationsMetadata, relationGroups);
+
+        }
+
+        for(final SemiJoinClause semiJoin : semiJoins.values()) {
+
+            if(!semiJoin.restricted) {
+
+                relationGroups.computeIfAbsent("", group -> new Group())
+                              .add(Combination.Combine.AND, semiJoin::exists);
+
+            }
+
+        }
+
+        final List<String> restrictions = new ArrayList<>();
+
+        parameterGroups.values().forEach(group -> restrictions.add(group.render()));
+        relationGroups.values().forEach(group -> restrictions.add(group.render()));
+
+        if(restrictions.isEmpty()) {
+
+            throw new IllegalStateException(NO_PREDICATES);
+
+        }
+
+        return "select " + ROOT +
+               " from " + entity.map(EntityType::getName).orElse(entityClass.getSimpleName()) +
+               " " + ROOT +
+               joinClauses +
+               " where " + String.join(" and ", restrictions);
+
+    }
+
+    private void render(final Optional<? extends EntityType<?>> entity,
+                        final RelationsMetadata relationsMetadata,
+                        final Map<String, Group> groups)
+            throws InvalidCritersFilteringException {
+
+        final List<Relation> path = relationsMetadata.path();
+
+        final int joined = entity.isPresent() &&
+                           RelationExtractor.isForeignKeyRestriction(Optional.of(metamodel),
+                                                                     entity.get(),
+                                                                     path) ?
+                           path.size() - 1 :
+                           path.size();
+
+        final int semiJoinIndex = semiJoinIndex(path.subList(0, joined));
+
+        final List<String> variables = join(ROOT,
+                                            relationsMetadata.alias(),
+                                            path.subList(0, semiJoinIndex),
+                                            joins,
+                                            joinClauses);
+
+        final String owner = variables.isEmpty() ? ROOT : variables.get(variables.size() - 1);
+
+        final String foreignKey = joined < path.size() && semiJoinIndex == joined ?
+                                  owner + PATH_SEPARATOR + path.get(joined).name() :
+                                  null;
+
+        boolean semiJoined = false;
+
+        for(int i = 0; i < path.size(); i++) {
+
+            for(final Parameter parameter : path.get(i).parameters()) {
+
+                if(i < semiJoinIndex || semiJoinIndex == joined) {
+
+                    restrict(groups,
+                             parameter,
+                             restriction(i < variables.size() ? variables.get(i) : foreignKey,
+                                         parameter,
+                                         relationsMetadata.accessor()));
+
+                } else {
+
+                    final SemiJoinClause semiJoin = semiJoin(owner,
+                                                             relationsMetadata,
+                                                             semiJoinIndex,
+                                                             joined,
+                                                             parameter.combinate().group());
+
+                    final String restriction = restriction(semiJoinVariable(semiJoin, path, semiJoinIndex, joined, i),
+                                                           parameter,
+                                                           relationsMetadata.accessor());
+
+                    if(!semiJoin.restricted) {
+
+                        restrict(groups, parameter, semiJoin::exists);
+
+                    }
+
+                    semiJoin.restricted = true;
+                    semiJoin.restrictions.add(parameter.combinate().combine(), () -> restriction);
+                    semiJoined = true;
+
+                }
+
+            }
+
+        }
+
+        if(semiJoinIndex < joined && !semiJoined) {
+
+            semiJoin(owner, relationsMetadata, semiJoinIndex, joined, null);
+
+        }
+
+    }
+
+    /**
+     * Join relations onto an owner variable, reusing joins of the same alias and path.
+     *
+     * @return join variables of the relations, in path order
+     */
+    private List<String> join(final String owner,
+                              final String alias,
+                              final List<Relation> relations,
+                              final Map<String, String> registry,
+                              final StringBuilder clauses) {
+
+        final List<String> joined = new ArrayList<>(relations.size());
+        final StringBuilder key = new StringBuilder(alias).append(ALIAS_SEPARATOR);
+
+        String parent = owner;
+
+        for(int i = 0; i < relations.size(); i++) {
+
+            final String name = relations.get(i).name();
+            final String current = parent;
+
+            key.append(i > 0 ? PATH_SEPARATOR : "").append(name);
+
+            parent = registry.computeIfAbsent(key.toString(), ignored -> {
+
+                final String variable = JOIN_PREFIX + variables++;
+
+                clauses.append(" join ").append(current).append(PATH_SEPARATOR).append(name)
+                       .append(' ').append(variable);
+
+                return variable;
+
+            });
+
+            joined.add(parent);
+
+        }
+
+        return joined;
+
+    }
+
+    /**
+     * Returns the subquery of the relations of a path from its first iterable relation
+     * restricted by {@code EXISTS}, by the parameters of one group, joining the relations
+     * beyond it within the subquery.
+     */
+    private SemiJoinClause semiJoin(final String owner,
+                                    final RelationsMetadata relationsMetadata,
+                                    final int semiJoinIndex,
+                                    final int joined,
+                                    final String group) {
+
+        final List<Relation> path = relationsMetadata.path();
+        final StringBuilder key = new StringBuilder(relationsMetadata.alias()).append(ALIAS_SEPARATOR);
+
+        for(int i = 0; i <= semiJoinIndex; i++) {
+
+            key.append(i > 0 ? PATH_SEPARATOR : "").append(path.get(i).name());
+
+        }
+
+        if(Objects.nonNull(group)) {
+
+            key.append(GROUP_SEPARATOR).append(group);
+
+        }
+
+        final SemiJoinClause semiJoin =
+                semiJoins.computeIfAbsent(key.toString(),
+                                          ignored -> new SemiJoinClause(
+                                                  owner + PATH_SEPARATOR + path.get(semiJoinIndex).name(),
+                                                  SEMI_JOIN_PREFIX + variables++));
+
+        join(semiJoin.variable,
+             "",
+             path.subList(semiJoinIndex + 1, joined),
+             semiJoin.joins,
+             semiJoin.joinClauses);
+
+        return semiJoin;
+
+    }
+
+    /**
+     * Returns the variable of a relation restricted within a subquery, or the foreign key of a
+     * trailing to-one relation that is not joined.
+     */
+    private String semiJoinVariable(final SemiJoinClause semiJoin,
+                                    final List<Relation> path,
+                                    final int semiJoinIndex,
+                                    final int joined,
+                                    final int index) {
+
+        final List<String> variables = new ArrayList<>();
+
+        variables.add(semiJoin.variable);
+        variables.addAll(join(semiJoin.variable,
+                              "",
+                              path.subList(semiJoinIndex + 1, joined),
+                              semiJoin.joins,
+                              semiJoin.joinClauses));
+
+        return index < joined ?
+               variables.get(index - semiJoinIndex) :
+               variables.get(variables.size() - 1) + PATH_SEPARATOR + path.get(index).name();
+
+    }
+
+    private int semiJoinIndex(final List<Relation> path) {
+
+        for(int i = 0; i < path.size(); i++) {
+
+            final Relation relation = path.get(i);
+
+            if(relation.iterable() &&
+               (relation.strategy() == Relation.Strategy.DEFAULT ? strategy : relation.strategy()) ==
+               Relation.Strategy.EXISTS) {
+
+                return i;
+
+            }
+
+        }
+
+        return path.size();
+
+    }
+
+    /**
+     * Render a restriction of a variable attribute, registering its value placeholder.
+     */
+    private String restriction(final String variable,
+                               final Parameter parameter,
+                               final Accessor accessor)
+            throws InvalidCritersFilteringException {
+
+        final String attribute = variable + PATH_SEPARATOR + parameter.name();
+
+        return switch (parameter.restriction()) {
+            case EQUALS -> attribute + " = :" + bindings.named(accessor);
+            case NOT_EQUALS -> attribute + " <> :" + bindings.named(accessor);
+            case GREATER_THAN -> attribute + " > :" + bindings.named(accessor);
+            case GREATER_THAN_OR_EQUALS -> attribute + " >= :" + bindings.named(accessor);
+            case LESS_THAN -> attribute + " < :" + bindings.named(accessor);
+            case LESS_THAN_OR_EQUALS -> attribute + " <= :" + bindings.named(accessor);
+            case LIKE -> attribute + " like :" + bindings.named(accessor);
+            case IS_NULL -> attribute + " is null";
+            case IS_NOT_NULL -> attribute + " is not null";
+            case IN -> {
+                if (accessor.get(filter) instanceof Collection<?> collection) {
+                    //
+                    // Empty collections can not be bound, match nothing as the criteria does.
+                    //
+                    yield collection.isEmpty() ?
+                          "1 = 0" :
+                          attribute + " in :" + bindings.named(accessor);
+                }
+                throw new InvalidCritersFilteringException(
+                        INVALID_RESTRICTION.formatted(parameter.name()));
+            }
+        };
+
+    }
+
+    private static void restrict(final Map<String, Group> groups,
+                                 final Parameter parameter,
+                                 final String restriction) {
+
+        restrict(groups, parameter, () -> restriction);
+
+    }
+
+    private static void restrict(final Map<String, Group> groups,
+                                 final Parameter parameter,
+                                 final Supplier<String> restriction) {
+
+        groups.computeIfAbsent(parameter.combinate().group(), group -> new Group())
+              .add(parameter.combinate().combine(), restriction);
+
+    }
+
+    /**
+     * Restrictions of one combination group, rendered in order as each restriction is combined
+     * with the group by its own combination. Restrictions are rendered last, subqueries once
+     * every restriction of them is known.
+     *
+     * <p>As the {@link Junction} builds predicates, each run of restrictions sharing one
+     * combination is rendered once, {@code ((a or b) or c) and d} as {@code ((a or b or c) and d)}.
+     */
+    private static final class Group {
+
+        private final List<Combination.Combine> combines = new ArrayList<>();
+        private final List<Supplier<String>> restrictions = new ArrayList<>();
+
+        private void add(final Combination.Combine combine,
+                         final Supplier<String> restriction) {
+
+            combines.add(combine);
+            restrictions.add(restriction);
+
+        }
+
+        private String render() {
+
+            final List<String> run = new ArrayList<>();
+
+            Combination.Combine combine = null;
+
+            for(int i = 0; i < restrictions.size(); i++) {
+
+                if(run.size() > 1 && combines.get(i) != combine) {
+
+                    final String folded = fold(run, combine);
+
+                    run.clear();
+                    run.add(folded);
+
+                }
+
+                if(!run.isEmpty()) {
+
+                    combine = combines.get(i);
+
+                }
+
+                run.add(restrictions.get(i).get());
+
+            }
+
+            return fold(run, combine);
+
+        }
+
+        private static String fold(final List<String> run,
+                                   final Combination.Combine combine) {
+
+            return run.size() == 1 ?
+                   run.get(0) :
+                   "(" + String.join(combine == Combination.Combine.OR ? " or " : " and ", run) + ")";
+
+        }
+
+    }
+
+    /**
+     * Correlated subquery of an iterable relation restricted by {@code EXISTS}, by the
+     * parameters of one combination group.
+     */
+    private static final class SemiJoinClause {
+
+        private final String relation;
+        private final String variable;
+        private final Map<String, String> joins = new HashMap<>();
+        private final StringBuilder joinClauses = new StringBuilder();
+        private final Group restrictions = new Group();
+
+        private boolean restricted;
+
+        private SemiJoinClause(final String relation,
+                               final String variable) {
+
+            this.relation = relation;
+            this.variable = variable;
+
+        }
+
+        private String exists() {
+
+            return "exists (select " + variable +
+                   " from " + relation + " " + variable +
+                   joinClauses +
+                   (restricted ? " where " + restrictions.render() : "") +
+                   ")";
+
+        }
+
+    }
+
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2017 Oyabun AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.oyabun.criters.extraction;
+
+import se.oyabun.criters.criteria.Combination;
+import se.oyabun.criters.util.FilterUtil;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Predicate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Predicates of one combination group, combined in order as each predicate is combined with
+ * the group by its own combination.
+ *
+ * <p>Instead of nesting every predicate in a binary {@code and} or {@code or}, each run of
+ * predicates sharing one combination is combined once into an n-ary predicate. Since both
+ * combinations are associative, {@code ((a and b) and c) or d} is built as
+ * {@code or(and(a, b, c), d)}.
+ *
+ * @author Daniel Sundberg
+ */
+final class Junction {
+
+    private static final String EMPTY_JUNCTION = "No predicates combined.";
+
+    private final CriteriaBuilder criteriaBuilder;
+    private final List<Predicate> run = new ArrayList<>();
+
+    private Combination.Combine combine;
+
+    Junction(final CriteriaBuilder criteriaBuilder) {
+
+        this.criteriaBuilder = criteriaBuilder;
+
+    }
+
+    /**
+     * Combine a predicate with the group. The combination of the first predicate is never applied.
+     *
+     * @param combine combining the predicate with the predicates added before it
+     * @param predicate to add
+     * @return this junction, for chaining
+     */
+    Junction add(final Combination.Combine combine,
+                 final Predicate predicate) {
+
+        if(run.size() > 1 && combine != this.combine) {
+
+            final Predicate folded = build();
+
+            run.clear();
+            run.add(folded);
+
+        }
+
+        if(!run.isEmpty()) {
+
+            this.combine = combine;
+
+        }
+
+        run.add(Objects.requireNonNull(predicate));
+
+        return this;
+
+    }
+
+    /**
+     * Returns the combined predicate of the group.
+     *
+     * @return the combined predicate
+     * @throws IllegalStateException if no predicate was added
+     */
+    Predicate build() {
+
+        if(run.isEmpty()) {
+
+            throw new IllegalStateException(EMPTY_JUNCTION);
+
+        }
+
+        return run.size() == 1 ?
+               run.get(0) :
+               FilterUtil.combine(combine, criteriaBuilder, run.toArray(new Predicate[0]));
+
+    }
+
+}
@@ -0,0 +1,402 @@
+/*
+ * Copyright 2017 Oyabun AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.oyabun.criters.extraction;
+
+import se.oyabun.criters.criteria.Combination;
+import se.oyabun.criters.criteria.Restriction;
+import se.oyabun.criters.exception.InvalidCritersFilteringException;
+import se.oyabun.criters.metadata.Accessor;
+import se.oyabun.criters.metadata.FilterMetadata;
+import se.oyabun.criters.util.FilterUtil;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Predicate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Normalized restrictions of the parameter getters of a filter class.
+ *
+ * <p>Declared restrictions are normalized once per filter class, before any predicate is built:
+ * <ul>
+ *   <li>{@link Restriction#EQUALS} restrictions of one attribute in a group combined with
+ *       {@code OR} become one {@code IN}</li>
+ *   <li>{@link Restriction#GREATER_THAN_OR_EQUALS} and {@link Restriction#LESS_THAN_OR_EQUALS}
+ *       restrictions of one attribute in a group combined with {@code AND} become one
+ *       {@code BETWEEN}</li>
+ *   <li>repeated {@link Restriction#IS_NULL} and {@link Restriction#IS_NOT_NULL} restrictions of
+ *       one attribute in a group are dropped</li>
+ *   <li>groups are combined into flat, n-ary conjunctions and disjunctions instead of nested
+ *       binary ones</li>
+ * </ul>
+ *
+ * <p>Groups mixing {@code AND} and {@code OR} are combined in getter name order, the order of
+ * {@link FilterMetadata#parameters()}, each restriction combined with the group by its own
+ * combination, see {@link Junction}. Normalization never depends on filter values, so planned
+ * queries keep one shape per filter shape.
+ *
+ * @author Daniel Sundberg
+ */
+public final class NormalizedParameters {
+
+    private static final ClassValue<NormalizedParameters> REGISTRY = new ClassValue<>() {
+
+        @Override
+        protected NormalizedParameters computeValue(final Class<?> filterClass) {
+
+            return of(FilterMetadata.of(filterClass)
+                                    .parameters()
+                                    .stream()
+                                    .map(parameter -> new Declaration(parameter.name(),
+                                                                      parameter.restriction(),
+                                                                      parameter.group(),
+                                                                      parameter.combine(),
+                                                                      parameter.accessor()))
+                                    .toList());
+
+        }
+
+    };
+
+    private final List<Group> groups;
+
+    private NormalizedParameters(final List<Group> groups) {
+
+        this.groups = groups;
+
+    }
+
+    /**
+     * Returns the normalized restrictions of the parameter getters of given filter class,
+     * normalizing them on first access.
+     *
+     * @param filterClass to normalize parameter restrictions of
+     * @return normalized parameter restrictions
+     */
+    public static NormalizedParameters of(final Class<?> filterClass) {
+
+        return REGISTRY.get(filterClass);
+
+    }
+
+    /**
+     * Normalize given declared restrictions, as used by extractors generated at compile time.
+     *
+     * @param declarations of the parameter getters, in metadata order
+     * @return normalized parameter restrictions
+     */
+    public static NormalizedParameters of(final List<Declaration> declarations) {
+
+        final Map<String, List<Declaration>> groups = new LinkedHashMap<>();
+
+        for(final Declaration declaration : declarations) {
+
+            groups.computeIfAbsent(declaration.group(), group -> new ArrayList<>())
+                  .add(declaration);
+
+        }
+
+        return new NormalizedParameters(groups.values()
+                                              .stream()
+                                              .map(NormalizedParameters::normalize)
+                                              .toList());
+
+    }
+
+    /**
+     * Produce the combined predicate of the normalized restrictions for given filter.
+     *
+     * @param filter to read restricted values from
+     * @param context of the search, providing builder and value bindings
+     * @return combined predicate, empty if the filter class declares no parameters
+     * @throws InvalidCritersFilteringException if a value can not be read or restricted
+     */
+    public Optional<Predicate> generatePredicate(final Object filter,
+                                                 final ExtractionContext<?> context)
+            throws InvalidCritersFilteringException {
+
+        final CriteriaBuilder builder = context.criteriaBuilder();
+
+        final Predicate[] predicates = new Predicate[groups.size()];
+
+        for(int i = 0; i < groups.size(); i++) {
+
+            predicates[i] = groups.get(i).produce(filter, context);
+
+        }
+
+        return predicates.length == 0 ?
+               Optional.empty() :
+               Optional.of(FilterUtil.combine(Combination.Combine.AND, builder, predicates));
+
+    }
+
+    /**
+     * Returns the number of normalized restrictions, one per predicate built for a filter.
+     *
+     * @return number of restrictions
+     */
+    public int size() {
+
+        return groups.stream()
+                     .mapToInt(group -> group.terms().size())
+                     .sum();
+
+    }
+
+    /**
+     * Normalize the restrictions of one combination group.
+     */
+    private static Group normalize(final List<Declaration> declarations) {
+
+        //
+        // The combination of the first restriction of a group is never applied.
+        //
+        final Set<Combination.Combine> combines = declarations.stream()
+                                                              .skip(1)
+                                                              .map(Declaration::combine)
+                                                              .collect(Collectors.toSet());
+
+        if(combines.size() > 1) {
+
+            return new Group(null,
+                             declarations.stream()
+                                         .<Term>map(Single::new)
+                                         .toList());
+
+        }
+
+        final Combination.Combine combine = combines.isEmpty() ?
+                                            Combination.Combine.AND :
+                                            combines.iterator().next();
+
+        final Map<String, List<Accessor>> equalities = new LinkedHashMap<>();
+        final Map<String, Accessor> lowers = new LinkedHashMap<>();
+        final Map<String, Accessor> uppers = new LinkedHashMap<>();
+
+        for(final Declaration declaration : declarations) {
+
+            switch (declaration.restriction()) {
+                case EQUALS -> equalities.computeIfAbsent(declaration.name(), name -> new ArrayList<>())
+                                         .add(declaration.accessor());
+                case GREATER_THAN_OR_EQUALS -> lowers.putIfAbsent(declaration.name(), declaration.accessor());
+                case LESS_THAN_OR_EQUALS -> uppers.putIfAbsent(declaration.name(), declaration.accessor());
+                default -> {}
+            }
+
+        }
+
+        final List<Term> terms = new ArrayList<>(declarations.size());
+        final Set<String> produced = new HashSet<>();
+
+        for(final Declaration declaration : declarations) {
+
+            final String name = declaration.name();
+
+            if(combine == Combination.Combine.OR &&
+               declaration.restriction() == Restriction.EQUALS &&
+               equalities.get(name).size() > 1) {
+
+                if(produced.add(Restriction.IN + name)) {
+
+                    terms.add(new AnyOf(name, List.copyOf(equalities.get(name))));
+
+                }
+
+            } else if(combine == Combination.Combine.AND &&
+                      lowers.containsKey(name) &&
+                      uppers.containsKey(name) &&
+                      (declaration.accessor() == lowers.get(name) &&
+                       declaration.restriction() == Restriction.GREATER_THAN_OR_EQUALS ||
+                       declaration.accessor() == uppers.get(name) &&
+                       declaration.restriction() == Restriction.LESS_THAN_OR_EQUALS)) {
+
+                if(produced.add(Restriction.GREATER_THAN_OR_EQUALS + name)) {
+
+                    terms.add(new Between(name, lowers.get(name), uppers.get(name)));
+
+                }
+
+            } else if(declaration.restriction() == Restriction.IS_NULL ||
+                      declaration.restriction() == Restriction.IS_NOT_NULL) {
+
+                if(produced.add(declaration.restriction() + name)) {
+
+                    terms.add(new Single(declaration));
+
+                }
+
+            } else {
+
+                terms.add(new Single(declaration));
+
+            }
+
+        }
+
+        return new Group(combine, List.copyOf(terms));
+
+    }
+
+    /**
+     * Declared restriction of a parameter getter.
+     *
+     * @param name of the restricted attribute
+     * @param restriction to apply
+     * @param group of the restriction, empty when ungrouped
+     * @param combine combining the restriction with its group
+     * @param accessor of the getter returning the restricted value
+     */
+    public record Declaration(String name,
+                              Restriction restriction,
+                              String group,
+                              Combination.Combine combine,
+                              Accessor accessor) {
+
+        /**
+         * Validates the declaration components.
+         */
+        public Declaration {
+
+            Objects.requireNonNull(name);
+            Objects.requireNonNull(restriction);
+            Objects.requireNonNull(group);
+            Objects.requireNonNull(combine);
+            Objects.requireNonNull(accessor);
+
+        }
+
+    }
+
+    /**
+     * Restrictions of one group, combined by one combination or, when mixed, folded in order.
+     */
+    private record Group(Combination.Combine combine,
+                         List<Term> terms) {
+
+        private Predicate produce(final Object filter,
+                                  final ExtractionContext<?> context)
+                throws InvalidCritersFilteringException {
+
+            final CriteriaBuilder builder = context.criteriaBuilder();
+
+            final Predicate[] predicates = new Predicate[terms.size()];
+
+            for(int i = 0; i < terms.size(); i++) {
+
+                predicates[i] = terms.get(i).produce(filter, context);
+
+            }
+
+            if(Objects.nonNull(combine)) {
+
+                return FilterUtil.combine(combine, builder, predicates);
+
+            }
+
+            final Junction junction = new Junction(builder);
+
+            for(int i = 0; i < predicates.length; i++) {
+
+                junction.add(((Single) terms.get(i)).declaration().combine(), predicates[i]);
+
+            }
+
+            return junction.build();
+
+        }
+
+    }
+
+    /**
+     * Normalized restriction producing one predicate.
+     */
+    private interface Term {
+
+        Predicate produce(Object filter,
+                          ExtractionContext<?> context)
+                throws InvalidCritersFilteringException;
+
+    }
+
+    /**
+     * Restriction kept as declared.
+     */
+    private record Single(Declaration declaration)
+            implements Term {
+
+        @Override
+        public Predicate produce(final Object filter,
+                                 final ExtractionContext<?> context)
+                throws InvalidCritersFilteringException {
+
+            return ParameterExtractor.restrict(filter,
+                                               context,
+                                               context.root(),
+                                               declaration.name(),
+                                               declaration.restriction(),
+                                               declaration.accessor());
+
+        }
+
+    }
+
+    /**
+     * Equality restrictions of one attribute combined with {@code OR}, restricted by one {@code IN}.
+     */
+    private record AnyOf(String name,
+                         List<Accessor> accessors)
+            implements Term {
+
+        @Override
+        public Predicate produce(final Object filter,
+                                 final ExtractionContext<?> context)
+                throws InvalidCritersFilteringException {
+
+            return ParameterExtractor.anyOf(filter, context, context.root(), name, accessors);
+
+        }
+
+    }
+
+    /**
+     * Inclusive range restrictions of one attribute combined with {@code AND}, restricted by one
+     * {@code BETWEEN}.
+     */
+    private record Between(String name,
+                           Accessor lower,
+                           Accessor upper)
+            implements Term {
+
+        @Override
+        public Predicate produce(final Object filter,
+                                 final ExtractionContext<?> context)
+                throws InvalidCritersFilteringException {
+
+            return ParameterExtractor.between(filter, context, context.root(), name, lower, upper);
+
+        }
+
+    }
+
+}
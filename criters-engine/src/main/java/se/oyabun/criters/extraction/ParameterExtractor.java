@@ -17,26 +17,35 @@ package se.oyabun.criters.extraction;
 
 import se.oyabun.criters.criteria.Filter;
 import se.oyabun.criters.criteria.Parameter;
+import se.oyabun.criters.criteria.Restriction;
 import se.oyabun.criters.exception.InvalidCritersFilteringException;
+import se.oyabun.criters.metadata.Accessor;
+import se.oyabun.criters.metadata.FilterMetadata;
 import se.oyabun.criters.util.FilterUtil;
 
 import jakarta.persistence.criteria.CriteriaBuilder;
-import jakarta.persistence.criteria.From;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
 import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
+import jakarta.persistence.metamodel.SingularAttribute;
+import java.lang.invoke.MethodType;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.BiFunction;
 import java.util.function.Function;
 
 /**
  * Extractor producing predicates for filter parameters
  * implementing {@link se.oyabun.criters.criteria.Restriction} conversion to predicates.
  *
+ * <p>Parameter restrictions are built from their {@link NormalizedParameters}, merging
+ * equalities and ranges of the same attribute where the declared combinations allow it.
+ *
  * @author Daniel Sundberg
  */
 public class ParameterExtractor
@@ -47,8 +56,6 @@ public class ParameterExtractor
 
     private static final String INVALID_RESTRICTION = "No parameter prepared restriction found for '%s'.";
 
-    private static final String METHOD_INVOCATION = "Failed to access criteria parameter.";
-
     /**
      * ${@inheritDoc}
      */
@@ -58,33 +65,22 @@ public class ParameterExtractor
                                                                           final Root<E> root)
             throws InvalidCritersFilteringException {
 
-        final Map<String, Predicate> predicates = new HashMap<>();
-
-        for(final Method method : FilterUtil.parameterMethods(filter)) {
-
-            final Parameter parameter = method.getAnnotation(Parameter.class);
+        return generatePredicate(filter, ExtractionContext.of(criteriaBuilder, root));
 
-            FilterUtil.validateParameter(method, parameter.name(), filter.getEntityClass(), parameter.restriction());
-
-            final Predicate currentPredicate =
-                    ParameterExtractor.produce(filter,
-                                               criteriaBuilder,
-                                               root,
-                                               parameter,
-                                               method);
+    }
 
-            predicates.compute(parameter.combinate().group(),
-                               (key, combinedPredicates) ->
-                                       Objects.nonNull(combinedPredicates) ?
-                                       FilterUtil.combine(parameter.combinate().combine(),
-                                                          criteriaBuilder,
-                                                          combinedPredicates,
-                                                          currentPredicate) :
-                                       currentPredicate);
+    /**
+     * ${@inheritDoc}
+     */
+    @Override
+    public <E, S extends Filter<E>> Optional<Predicate> generatePredicate(final S filter,
+                                                                          final ExtractionContext<E> context)
+            throws InvalidCritersFilteringException {
 
-        }
+        FilterMetadata.of(filter).validateParameters(filter.getEntityClass());
 
-        return predicates.values().stream().reduce(criteriaBuilder::and);
+        return NormalizedParameters.of(filter.getClass())
+                                   .generatePredicate(filter, context);
 
     }
 
@@ -106,61 +102,320 @@ public class ParameterExtractor
      *   <li>{@link se.oyabun.criters.criteria.Restriction#IN} — field IN collection (getter must return {@link Collection})</li>
      * </ul>
      *
+     * <p>When the context carries {@link Bindings}, values are replaced by parameter placeholders
+     * bound later from the same getters.
+     *
      * @param filter to produce predicates for
-     * @param builder to create predicates and combinations with
-     * @param from root of parameter
+     * @param context of the search, providing builder and value bindings
+     * @param path owning the restricted parameter, a root, join or to-one association
      * @param parameter annotation instance to parse predicate restriction from
-     * @param method containing values when invoked
+     * @param accessor of the getter containing values when invoked
      * @param <S> type of filter
      * @return annotation configured predicate
-     * @throws InvalidCritersFilteringException when not matching any restriction or failing to invoke method
+     * @throws InvalidCritersFilteringException when not matching any restriction or failing to invoke getter
      */
-    static <S,A,B> Predicate produce(final S filter,
-                                     final CriteriaBuilder builder,
-                                     final From<A, B> from,
-                                     final Parameter parameter,
-                                     final Method method)
+    static <S> Predicate produce(final S filter,
+                                 final ExtractionContext<?> context,
+                                 final Path<?> path,
+                                 final Parameter parameter,
+                                 final Accessor accessor)
+
+            throws InvalidCritersFilteringException {
+
+        return restrict(filter,
+                        context,
+                        path,
+                        parameter.name(),
+                        parameter.restriction(),
+                        accessor);
+
+    }
 
+    /**
+     * Produce a predicate restricting a named attribute of a path, as {@link #produce} does for
+     * an annotated getter. Used by extractors generated at compile time.
+     *
+     * @param filter to read the restricted value from
+     * @param context of the search, providing builder and value bindings
+     * @param path owning the restricted attribute
+     * @param name of the restricted attribute
+     * @param restriction to apply
+     * @param accessor of the getter returning the restricted value
+     * @return restriction predicate
+     * @throws InvalidCritersFilteringException when the value can not be read or restricted
+     */
+    public static Predicate restrict(final Object filter,
+                                     final ExtractionContext<?> context,
+                                     final Path<?> path,
+                                     final String name,
+                                     final Restriction restriction,
+                                     final Accessor accessor)
             throws InvalidCritersFilteringException {
 
-        try {
-
-            return switch (parameter.restriction()) {
-                case EQUALS -> builder.equal(from.get(parameter.name()), method.invoke(filter));
-                case NOT_EQUALS -> builder.notEqual(from.get(parameter.name()), method.invoke(filter));
-                case GREATER_THAN -> applyComparison(method, method.invoke(filter),
-                        v -> builder.greaterThan(from.get(parameter.name()), v));
-                case GREATER_THAN_OR_EQUALS -> applyComparison(method, method.invoke(filter),
-                        v -> builder.greaterThanOrEqualTo(from.get(parameter.name()), v));
-                case LESS_THAN -> applyComparison(method, method.invoke(filter),
-                        v -> builder.lessThan(from.get(parameter.name()), v));
-                case LESS_THAN_OR_EQUALS -> applyComparison(method, method.invoke(filter),
-                        v -> builder.lessThanOrEqualTo(from.get(parameter.name()), v));
-                case LIKE -> builder.like(from.get(parameter.name()),
-                        (String) method.invoke(filter));
-                case IS_NULL -> builder.isNull(from.get(parameter.name()));
-                case IS_NOT_NULL -> builder.isNotNull(from.get(parameter.name()));
-                case IN -> {
-                    final Object value = method.invoke(filter);
-                    if (value instanceof Collection<?> collection) {
-                        yield from.get(parameter.name()).in(collection);
-                    }
-                    throw new InvalidCritersFilteringException(
-                            INVALID_RESTRICTION.formatted(parameter.name()));
+        final CriteriaBuilder builder = context.criteriaBuilder();
+
+        if(context.bindings().isPresent()) {
+
+            return producePlaceholder(filter,
+                                      builder,
+                                      context.bindings().get(),
+                                      attribute(context, path, name),
+                                      name,
+                                      restriction,
+                                      accessor);
+
+        }
+
+        return switch (restriction) {
+            case EQUALS -> builder.equal(attribute(context, path, name), accessor.get(filter));
+            case NOT_EQUALS -> builder.notEqual(attribute(context, path, name), accessor.get(filter));
+            case GREATER_THAN -> applyComparison(accessor, accessor.get(filter),
+                    v -> builder.greaterThan(attribute(context, path, name), v));
+            case GREATER_THAN_OR_EQUALS -> applyComparison(accessor, accessor.get(filter),
+                    v -> builder.greaterThanOrEqualTo(attribute(context, path, name), v));
+            case LESS_THAN -> applyComparison(accessor, accessor.get(filter),
+                    v -> builder.lessThan(attribute(context, path, name), v));
+            case LESS_THAN_OR_EQUALS -> applyComparison(accessor, accessor.get(filter),
+                    v -> builder.lessThanOrEqualTo(attribute(context, path, name), v));
+            case LIKE -> builder.like(attribute(context, path, name),
+                    (String) accessor.get(filter));
+            case IS_NULL -> builder.isNull(attribute(context, path, name));
+            case IS_NOT_NULL -> builder.isNotNull(attribute(context, path, name));
+            case IN -> {
+                final Object value = accessor.get(filter);
+                if (value instanceof Collection<?> collection) {
+                    yield attribute(context, path, name).in(collection);
                 }
-            };
+                throw new InvalidCritersFilteringException(
+                        INVALID_RESTRICTION.formatted(name));
+            }
+        };
 
-        } catch (IllegalAccessException | InvocationTargetException e) {
+    }
 
-            throw new InvalidCritersFilteringException(METHOD_INVOCATION, e);
+    /**
+     * Produce a predicate restricting a named attribute to equal any of the values of given
+     * getters, as one {@code IN} instead of a disjunction of equalities. Repeated values are
+     * dropped, values are only compared by equality when one of them is {@code null}.
+     *
+     * @param filter to read the restricted values from
+     * @param context of the search, providing builder and value bindings
+     * @param path owning the restricted attribute
+     * @param name of the restricted attribute
+     * @param accessors of the getters returning the restricted values
+     * @return restriction predicate
+     * @throws InvalidCritersFilteringException when a value can not be read
+     */
+    static Predicate anyOf(final Object filter,
+                           final ExtractionContext<?> context,
+                           final Path<?> path,
+                           final String name,
+                           final List<Accessor> accessors)
+            throws InvalidCritersFilteringException {
+
+        final CriteriaBuilder builder = context.criteriaBuilder();
+        final Path<?> attribute = attribute(context, path, name);
+
+        if(context.bindings().isPresent()) {
+
+            final Bindings bindings = context.bindings().get();
+            final Expression<?>[] placeholders = new Expression<?>[accessors.size()];
+
+            for(int i = 0; i < accessors.size(); i++) {
+
+                placeholders[i] = bindings.value(builder, attribute.getJavaType(), accessors.get(i));
+
+            }
+
+            return attribute.in(placeholders);
 
         }
 
+        final Set<Object> values = new LinkedHashSet<>(accessors.size());
+
+        for(final Accessor accessor : accessors) {
+
+            values.add(accessor.get(filter));
+
+        }
+
+        if(values.contains(null)) {
+
+            return builder.or(values.stream()
+                                    .map(value -> builder.equal(attribute, value))
+                                    .toArray(Predicate[]::new));
+
+        }
+
+        return values.size() == 1 ?
+               builder.equal(attribute, values.iterator().next()) :
+               attribute.in(values);
+
+    }
+
+    /**
+     * Produce a predicate restricting a named attribute to an inclusive range, as one
+     * {@code BETWEEN} instead of a conjunction of two comparisons.
+     *
+     * @param filter to read the range bounds from
+     * @param context of the search, providing builder and value bindings
+     * @param path owning the restricted attribute
+     * @param name of the restricted attribute
+     * @param lower accessor of the getter returning the lower bound
+     * @param upper accessor of the getter returning the upper bound
+     * @return restriction predicate
+     * @throws InvalidCritersFilteringException when a bound can not be read
+     */
+    static Predicate between(final Object filter,
+                             final ExtractionContext<?> context,
+                             final Path<?> path,
+                             final String name,
+                             final Accessor lower,
+                             final Accessor upper)
+            throws InvalidCritersFilteringException {
+
+        final CriteriaBuilder builder = context.criteriaBuilder();
+        final Path<?> attribute = attribute(context, path, name);
+
+        if(context.bindings().isPresent()) {
+
+            final Bindings bindings = context.bindings().get();
+
+            return betweenPlaceholders(builder,
+                                       attribute,
+                                       bindings.value(builder, attribute.getJavaType(), lower),
+                                       bindings.value(builder, attribute.getJavaType(), upper));
+
+        }
+
+        final Object lowerValue = lower.get(filter);
+        final Object upperValue = upper.get(filter);
+
+        if(Objects.isNull(lowerValue) || Objects.isNull(upperValue)) {
+
+            return builder.and(restrict(filter, context, path, name, Restriction.GREATER_THAN_OR_EQUALS, lower),
+                               restrict(filter, context, path, name, Restriction.LESS_THAN_OR_EQUALS, upper));
+
+        }
+
+        return betweenValues(builder, attribute, lower, lowerValue, upperValue);
+
+    }
+
+    /**
+     * Resolve an attribute of a path, through the typed metamodel attribute when indexed.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <Y> Path<Y> attribute(final ExtractionContext<?> context,
+                                         final Path<?> path,
+                                         final String name) {
+
+        return context.metamodel()
+                      .flatMap(metamodel -> metamodel.singularAttribute(path, name))
+                      .map(attribute -> (Path<Y>) path.get((SingularAttribute) attribute))
+                      .orElseGet(() -> path.get(name));
+
+    }
+
+    /**
+     * Produce a predicate comparing the path against parameter placeholders instead of values.
+     */
+    private static Predicate producePlaceholder(final Object filter,
+                                                final CriteriaBuilder builder,
+                                                final Bindings bindings,
+                                                final Path<?> path,
+                                                final String name,
+                                                final Restriction restriction,
+                                                final Accessor accessor)
+            throws InvalidCritersFilteringException {
+
+        final Class<?> type = path.getJavaType();
+
+        return switch (restriction) {
+            case EQUALS -> builder.equal(path, bindings.value(builder, type, accessor));
+            case NOT_EQUALS -> builder.notEqual(path, bindings.value(builder, type, accessor));
+            case GREATER_THAN -> comparePlaceholder(path, bindings.value(builder, type, accessor),
+                    builder::greaterThan);
+            case GREATER_THAN_OR_EQUALS -> comparePlaceholder(path, bindings.value(builder, type, accessor),
+                    builder::greaterThanOrEqualTo);
+            case LESS_THAN -> comparePlaceholder(path, bindings.value(builder, type, accessor),
+                    builder::lessThan);
+            case LESS_THAN_OR_EQUALS -> comparePlaceholder(path, bindings.value(builder, type, accessor),
+                    builder::lessThanOrEqualTo);
+            case LIKE -> builder.like(stringPath(path),
+                    bindings.value(builder, String.class, accessor));
+            case IS_NULL -> builder.isNull(path);
+            case IS_NOT_NULL -> builder.isNotNull(path);
+            case IN -> {
+                if (accessor.get(filter) instanceof Collection<?> collection) {
+                    final List<Expression<?>> elements =
+                            bindings.elements(builder, type, accessor, collection.size());
+                    yield elements.isEmpty() ?
+                          builder.disjunction() :
+                          path.in(elements.toArray(new Expression<?>[0]));
+                }
+                throw new InvalidCritersFilteringException(
+                        INVALID_RESTRICTION.formatted(name));
+            }
+        };
+
+    }
+
+    /**
+     * Applies a range between placeholders of the same, Comparable validated, type.
+     */
+    @SuppressWarnings("unchecked")
+    private static <Y extends Comparable<? super Y>> Predicate betweenPlaceholders(final CriteriaBuilder builder,
+                                                                                  final Expression<?> path,
+                                                                                  final Expression<?> lower,
+                                                                                  final Expression<?> upper) {
+
+        return builder.between((Expression<Y>) path, (Expression<Y>) lower, (Expression<Y>) upper);
+
+    }
+
+    /**
+     * Applies a range between runtime values, cast through the getter's declared return type
+     * like {@link #applyComparison}.
+     */
+    @SuppressWarnings("unchecked")
+    private static <Y extends Comparable<? super Y>> Predicate betweenValues(final CriteriaBuilder builder,
+                                                                            final Expression<?> path,
+                                                                            final Accessor accessor,
+                                                                            final Object lower,
+                                                                            final Object upper) {
+
+        final Class<Y> type = (Class<Y>) wrap(accessor.type()).asSubclass(Comparable.class);
+        return builder.between((Expression<Y>) path, type.cast(lower), type.cast(upper));
+
+    }
+
+    /**
+     * LIKE restrictions are validated against String typed getters.
+     */
+    @SuppressWarnings("unchecked")
+    private static Expression<String> stringPath(final Path<?> path) {
+
+        return (Expression<String>) path;
+
+    }
+
+    /**
+     * Applies a comparison between two expressions of the same, Comparable validated, type.
+     */
+    @SuppressWarnings("unchecked")
+    private static <Y extends Comparable<? super Y>> Predicate comparePlaceholder(
+            final Expression<?> path,
+            final Expression<?> placeholder,
+            final BiFunction<Expression<? extends Y>, Expression<? extends Y>, Predicate> factory) {
+
+        return factory.apply((Expression<Y>) path, (Expression<Y>) placeholder);
+
     }
 
     /**
      * Applies a comparison predicate factory to a runtime value after casting it through
-     * the method's declared return type.
+     * the getter's declared return type.
      *
      * <p>{@code Class.asSubclass} and {@code Class.cast} perform genuine runtime type checks,
      * so the only unchecked operation is narrowing {@code Class<? extends Comparable>} to
@@ -169,13 +424,22 @@ public class ParameterExtractor
      */
     @SuppressWarnings("unchecked")
     private static <Y extends Comparable<? super Y>> Predicate applyComparison(
-            final Method method,
+            final Accessor accessor,
             final Object rawValue,
             final Function<Y, Predicate> factory) {
 
-        final Class<Y> type = (Class<Y>) method.getReturnType().asSubclass(Comparable.class);
+        final Class<Y> type = (Class<Y>) wrap(accessor.type()).asSubclass(Comparable.class);
         return factory.apply(type.cast(rawValue));
 
     }
 
+    /**
+     * Primitive getters are compared through their boxed counterpart.
+     */
+    private static Class<?> wrap(final Class<?> type) {
+
+        return MethodType.methodType(type).wrap().returnType();
+
+    }
+
 }
@@ -15,19 +15,33 @@
  */
 package se.oyabun.criters.extraction;
 
+import se.oyabun.criters.criteria.Combination;
 import se.oyabun.criters.criteria.Filter;
 import se.oyabun.criters.criteria.Parameter;
 import se.oyabun.criters.criteria.Relation;
 import se.oyabun.criters.criteria.Relations;
+import se.oyabun.criters.criteria.Restriction;
 import se.oyabun.criters.exception.InvalidCritersFilteringException;
+import se.oyabun.criters.metadata.FilterMetadata;
+import se.oyabun.criters.metadata.MetamodelIndex;
+import se.oyabun.criters.metadata.RelationsMetadata;
 import se.oyabun.criters.util.FilterUtil;
 
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.From;
+import jakarta.persistence.criteria.Path;
 import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
-import java.lang.reflect.Method;
-import java.util.HashMap;
+import jakarta.persistence.metamodel.Attribute;
+import jakarta.persistence.metamodel.IdentifiableType;
+import jakarta.persistence.metamodel.ManagedType;
+import jakarta.persistence.metamodel.PluralAttribute;
+import jakarta.persistence.metamodel.SingularAttribute;
+import jakarta.persistence.metamodel.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
@@ -37,6 +51,13 @@ import java.util.Optional;
  * converting {@link Relations} references into joins and reusing {@link ParameterExtractor} for
  * restrictions on each {@link Relation} level.
  *
+ * <p>Iterable relations resolving to {@link Relation.Strategy#EXISTS} are restricted in
+ * correlated subqueries instead of joins, so root rows are never duplicated by matching
+ * several related rows. Each {@link se.oyabun.criters.criteria.Combination} group restricting a
+ * relation has a subquery of its own, taking the place of the first restriction of the group.
+ * Restrictions of different groups may thus be satisfied by different related rows. A trailing to-one relation restricted on its identifier only is not
+ * joined at all, the restriction is applied to the foreign key of the owning entity.
+ *
  * @author Daniel Sundberg
  */
 public class RelationExtractor
@@ -54,47 +75,293 @@ public class RelationExtractor
                                                                           final Root<E> root)
             throws InvalidCritersFilteringException {
 
-        final Map<String, Predicate> predicates = new HashMap<>();
+        return generatePredicate(filter, ExtractionContext.of(criteriaBuilder, root));
+
+    }
+
+    /**
+     * ${@inheritDoc}
+     */
+    @Override
+    public <E, S extends Filter<E>> Optional<Predicate> generatePredicate(final S filter,
+                                                                          final ExtractionContext<E> context)
+            throws InvalidCritersFilteringException {
+
+        final CriteriaBuilder criteriaBuilder = context.criteriaBuilder();
+        final Root<E> root = context.root();
+
+        final Map<String, Junction> predicates = new LinkedHashMap<>();
+
+        final FilterMetadata metadata = FilterMetadata.of(filter);
 
-        for(final Method method : FilterUtil.relationalMethods(filter)) {
+        metadata.validateRelations(root.getJavaType());
 
-            FilterUtil.validateRelations(method, root.getJavaType());
+        for(final RelationsMetadata relationsMetadata : metadata.relations()) {
 
-            From<?, ?> currentFrom = null;
+            final List<Relation> path = relationsMetadata.path();
 
-            final Relations relations = method.getAnnotation(Relations.class);
+            //
+            // A trailing to-one relation restricted on its identifier only is read from the
+            // foreign key of its owner, without joining the target.
+            //
+            final int joined = isForeignKeyRestriction(context.metamodel(), root.getModel(), path) ?
+                               path.size() - 1 :
+                               path.size();
 
-            for(final Relation relation : relations.value()) {
+            //
+            // Relations up to the first iterable relation restricted by EXISTS are joined,
+            // that relation and the ones beyond it are joined within its subquery.
+            //
+            final int semiJoinIndex = semiJoinIndex(context, path.subList(0, joined));
 
-                currentFrom = Objects.nonNull(currentFrom) ?
-                              currentFrom.join(relation.name()) :
-                              root.join(relation.name());
+            final List<From<?, ?>> joins = context.joins().join(root,
+                                                                relationsMetadata.alias(),
+                                                                path.subList(0, semiJoinIndex));
 
-                for(final Parameter parameter : relation.parameters()) {
+            final From<?, ?> owner = joins.isEmpty() ? root : joins.get(joins.size() - 1);
 
-                    final Predicate currentPredicate =
-                            ParameterExtractor.produce(filter,
-                                                       criteriaBuilder,
-                                                       currentFrom,
-                                                       parameter,
-                                                       method);
+            final Path<?> foreignKey = joined < path.size() && semiJoinIndex == joined ?
+                                       owner.get(path.get(joined).name()) :
+                                       null;
 
-                    predicates.compute(parameter.combinate().group(),
-                                       (key, combinedPredicates) ->
-                                               Objects.nonNull(combinedPredicates) ?
-                                               FilterUtil.combine(parameter.combinate().combine(),
-                                                                  criteriaBuilder,
-                                                                  combinedPredicates,
-                                                                  currentPredicate) :
-                                               currentPredicate);
+            boolean semiJoined = false;
+
+            for(int i = 0; i < path.size(); i++) {
+
+                for(final Parameter parameter : path.get(i).parameters()) {
+
+                    if(i < semiJoinIndex || semiJoinIndex == joined) {
+
+                        restrict(criteriaBuilder,
+                                 predicates,
+                                 parameter,
+                                 ParameterExtractor.produce(filter,
+                                                            context,
+                                                            i < joins.size() ? joins.get(i) : foreignKey,
+                                                            parameter,
+                                                            relationsMetadata.accessor()));
+
+                    } else {
+
+                        //
+                        // The subquery of the parameter group takes the place of its first
+                        // restriction within the group.
+                        //
+                        final SemiJoin semiJoin = semiJoin(context,
+                                                           owner,
+                                                           relationsMetadata,
+                                                           semiJoinIndex,
+                                                           joined,
+                                                           parameter.combinate().group());
+
+                        final Predicate currentPredicate =
+                                ParameterExtractor.produce(filter,
+                                                           context,
+                                                           semiJoinPath(semiJoin, path, semiJoinIndex, joined, i),
+                                                           parameter,
+                                                           relationsMetadata.accessor());
+
+                        if(semiJoin.restrict(parameter, currentPredicate)) {
+
+                            restrict(criteriaBuilder, predicates, parameter, semiJoin.exists());
+
+                        }
+
+                        semiJoined = true;
+
+                    }
 
                 }
 
             }
 
+            if(semiJoinIndex < joined && !semiJoined) {
+
+                semiJoin(context, owner, relationsMetadata, semiJoinIndex, joined, null);
+
+            }
+
         }
 
-        return predicates.values().stream().reduce(criteriaBuilder::and);
+        for(final SemiJoin semiJoin : context.joins().semiJoins()) {
+
+            semiJoin.complete();
+
+            if(!semiJoin.restricted()) {
+
+                predicates.computeIfAbsent("", group -> new Junction(criteriaBuilder))
+                          .add(Combination.Combine.AND, semiJoin.exists());
+
+            }
+
+        }
+
+        return predicates.isEmpty() ?
+               Optional.empty() :
+               Optional.of(FilterUtil.combine(Combination.Combine.AND,
+                                              criteriaBuilder,
+                                              predicates.values()
+                                                        .stream()
+                                                        .map(Junction::build)
+                                                        .toArray(Predicate[]::new)));
+
+    }
+
+    /**
+     * Returns the subquery restricting the relations of a path from its first iterable relation
+     * restricted by {@code EXISTS}, by the parameters of one group, joining the relations beyond
+     * it within the subquery.
+     */
+    private static SemiJoin semiJoin(final ExtractionContext<?> context,
+                                     final From<?, ?> owner,
+                                     final RelationsMetadata relationsMetadata,
+                                     final int semiJoinIndex,
+                                     final int joined,
+                                     final String group) {
+
+        final List<Relation> path = relationsMetadata.path();
+
+        final SemiJoin semiJoin = context.joins().semiJoin(context.query().orElseThrow(),
+                                                           context.criteriaBuilder(),
+                                                           owner,
+                                                           relationsMetadata.alias(),
+                                                           path.subList(0, semiJoinIndex + 1),
+                                                           group);
+
+        semiJoin.joins().join(semiJoin.from(), "", path.subList(semiJoinIndex + 1, joined));
+
+        return semiJoin;
+
+    }
+
+    /**
+     * Returns the path of a relation restricted within a subquery, the join of the relation or
+     * the foreign key of a trailing to-one relation that is not joined.
+     */
+    private static Path<?> semiJoinPath(final SemiJoin semiJoin,
+                                        final List<Relation> path,
+                                        final int semiJoinIndex,
+                                        final int joined,
+                                        final int index) {
+
+        final List<From<?, ?>> joins = new ArrayList<>();
+
+        joins.add(semiJoin.from());
+        joins.addAll(semiJoin.joins().join(semiJoin.from(), "", path.subList(semiJoinIndex + 1, joined)));
+
+        return index < joined ?
+               joins.get(index - semiJoinIndex) :
+               joins.get(joins.size() - 1).get(path.get(index).name());
+
+    }
+
+    /**
+     * Find the first relation of a path restricted by an {@code EXISTS} subquery.
+     *
+     * @param context of the search resolving relation strategies
+     * @param path of relations to search
+     * @return index of the relation, path size if every relation is joined
+     */
+    private static int semiJoinIndex(final ExtractionContext<?> context,
+                                     final List<Relation> path) {
+
+        for(int i = 0; i < path.size(); i++) {
+
+            if(context.strategy(path.get(i)) == Relation.Strategy.EXISTS) {
+
+                return i;
+
+            }
+
+        }
+
+        return path.size();
+
+    }
+
+    /**
+     * Determine whether the last relation of a path is a to-one association restricted on
+     * the identifier of its target only, which is then readable from the foreign key of the
+     * owning entity. {@link Restriction#IS_NULL} is excluded, as a missing target only fails
+     * an inner join.
+     *
+     * @param metamodel index resolving attributes, if present
+     * @param model of the search root
+     * @param path of relations to inspect
+     * @return true if the last relation does not need to be joined
+     */
+    static boolean isForeignKeyRestriction(final Optional<MetamodelIndex> metamodel,
+                                           final ManagedType<?> model,
+                                           final List<Relation> path) {
+
+        final Relation last = path.get(path.size() - 1);
+
+        if(Objects.isNull(model) ||
+           last.iterable() ||
+           last.parameters().length == 0 ||
+           Arrays.stream(last.parameters())
+                 .anyMatch(parameter -> parameter.restriction() == Restriction.IS_NULL)) {
+
+            return false;
+
+        }
+
+        ManagedType<?> owner = model;
+
+        for(final Relation relation : path.subList(0, path.size() - 1)) {
+
+            final Attribute<?, ?> attribute = attribute(metamodel, owner, relation.name());
+
+            final Type<?> type = attribute instanceof PluralAttribute<?, ?, ?> plural ?
+                                 plural.getElementType() :
+                                 ((SingularAttribute<?, ?>) attribute).getType();
+
+            if(!(type instanceof ManagedType<?> managedType)) {
+
+                return false;
+
+            }
+
+            owner = managedType;
+
+        }
+
+        if(attribute(metamodel, owner, last.name()) instanceof SingularAttribute<?, ?> attribute &&
+           attribute.isAssociation() &&
+           attribute.getType() instanceof IdentifiableType<?> target &&
+           target.hasSingleIdAttribute()) {
+
+            return target.getSingularAttributes()
+                         .stream()
+                         .filter(SingularAttribute::isId)
+                         .map(Attribute::getName)
+                         .findFirst()
+                         .map(id -> Arrays.stream(last.parameters())
+                                          .allMatch(parameter -> parameter.name().equals(id)))
+                         .orElse(false);
+
+        }
+
+        return false;
+
+    }
+
+    private static Attribute<?, ?> attribute(final Optional<MetamodelIndex> metamodel,
+                                            final ManagedType<?> owner,
+                                            final String name) {
+
+        return metamodel.flatMap(index -> index.attribute(owner, name))
+                        .orElseGet(() -> owner.getAttribute(name));
+
+    }
+
+    private static void restrict(final CriteriaBuilder criteriaBuilder,
+                                 final Map<String, Junction> predicates,
+                                 final Parameter parameter,
+                                 final Predicate currentPredicate) {
+
+        predicates.computeIfAbsent(parameter.combinate().group(), group -> new Junction(criteriaBuilder))
+                  .add(parameter.combinate().combine(), currentPredicate);
 
     }
 
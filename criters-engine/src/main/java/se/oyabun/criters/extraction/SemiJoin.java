@@ -0,0 +1,151 @@
+/*
+ * Copyright 2017 Oyabun AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.oyabun.criters.extraction;
+
+import se.oyabun.criters.criteria.Parameter;
+
+import jakarta.persistence.criteria.CommonAbstractCriteria;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.From;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+
+/**
+ * Correlated {@code EXISTS} subquery restricting an iterable relation, collecting the
+ * restrictions of one combination group of every relational getter sharing the relation path.
+ *
+ * <p>Restrictions of different groups are tested by subqueries of their own, so that each
+ * {@code EXISTS} predicate takes the place of its restrictions within their group.
+ *
+ * @author Daniel Sundberg
+ */
+final class SemiJoin {
+
+    private final Subquery<Integer> subquery;
+    private final From<?, ?> from;
+    private final Joins joins = new Joins();
+    private final Junction restrictions;
+    private final Predicate exists;
+
+    private boolean restricted;
+
+    SemiJoin(final CommonAbstractCriteria query,
+             final CriteriaBuilder criteriaBuilder,
+             final From<?, ?> parent,
+             final String name) {
+
+        this.subquery = query.subquery(Integer.class);
+        this.from = correlate(subquery, parent).join(name);
+        this.restrictions = new Junction(criteriaBuilder);
+        this.exists = criteriaBuilder.exists(subquery);
+
+        subquery.select(criteriaBuilder.literal(1));
+
+    }
+
+    /**
+     * Returns the join of the iterable relation within the subquery.
+     *
+     * @return the subquery join
+     */
+    From<?, ?> from() {
+
+        return from;
+
+    }
+
+    /**
+     * Returns the joins of relations beyond the iterable relation, within the subquery.
+     *
+     * @return the subquery join registry
+     */
+    Joins joins() {
+
+        return joins;
+
+    }
+
+    /**
+     * Add a restriction to the subquery, combined as within its group.
+     *
+     * @param parameter producing the predicate
+     * @param predicate to add
+     * @return true if the restriction is the first one of the subquery
+     */
+    boolean restrict(final Parameter parameter,
+                     final Predicate predicate) {
+
+        restrictions.add(parameter.combinate().combine(), predicate);
+
+        final boolean first = !restricted;
+
+        restricted = true;
+
+        return first;
+
+    }
+
+    /**
+     * Returns whether the subquery is restricted by any parameter.
+     *
+     * @return true if restricted
+     */
+    boolean restricted() {
+
+        return restricted;
+
+    }
+
+    /**
+     * Returns the predicate testing the subquery for a match, restricted once completed.
+     *
+     * @return the {@code EXISTS} predicate
+     */
+    Predicate exists() {
+
+        return exists;
+
+    }
+
+    /**
+     * Complete the subquery with its restrictions.
+     */
+    void complete() {
+
+        if(restricted) {
+
+            subquery.where(restrictions.build());
+
+        }
+
+    }
+
+    private static From<?, ?> correlate(final Subquery<?> subquery,
+                                        final From<?, ?> parent) {
+
+        if(parent instanceof Root<?> root) {
+
+            return subquery.correlate(root);
+
+        }
+
+        return subquery.correlate((Join<?, ?>) parent);
+
+    }
+
+}
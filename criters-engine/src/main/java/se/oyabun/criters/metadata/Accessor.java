@@ -0,0 +1,240 @@
+/*
+ * Copyright 2017 Oyabun AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.oyabun.criters.metadata;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import se.oyabun.criters.exception.InvalidCritersFilteringException;
+
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Compiled accessor of a no-argument getter method.
+ *
+ * <p>The getter is compiled into a {@link Function} generated by {@link LambdaMetafactory}
+ * whenever the declaring class allows it, falling back to a {@link MethodHandle} and as a
+ * last resort to reflective invocation. Access checks are performed once at compile time
+ * and never on invocation. Primitive return values are boxed by the generated function,
+ * since every JPA predicate and parameter binding takes object values.
+ *
+ * @author Daniel Sundberg
+ */
+public final class Accessor {
+
+    private static final Logger logger = LoggerFactory.getLogger(Accessor.class);
+
+    private static final String METHOD_INVOCATION = "Failed to access criteria parameter.";
+
+    private static final String LAMBDA_METHOD = "apply";
+
+    private final Class<?> type;
+    private final Function<Object, Object> function;
+
+    private Accessor(final Class<?> type,
+                     final Function<Object, Object> function) {
+
+        this.type = type;
+        this.function = function;
+
+    }
+
+    /**
+     * Compile an accessor for given getter method.
+     *
+     * @param method to compile, must not take any arguments
+     * @return compiled accessor
+     */
+    public static Accessor of(final Method method) {
+
+        if(method.getParameterCount() != 0) {
+
+            throw new IllegalArgumentException(
+                    String.format("Method '%s' is not a getter.", method.getName()));
+
+        }
+
+        return new Accessor(method.getReturnType(), compile(method));
+
+    }
+
+    /**
+     * Create an accessor of an already compiled getter, as used by generated extractors.
+     *
+     * @param type declared return type of the getter
+     * @param function invoking the getter on its target
+     * @return accessor of the getter
+     */
+    public static Accessor of(final Class<?> type,
+                              final Function<Object, Object> function) {
+
+        return new Accessor(Objects.requireNonNull(type),
+                            Objects.requireNonNull(function));
+
+    }
+
+    /**
+     * Returns the declared return type of the compiled getter.
+     *
+     * @return the getter return type
+     */
+    public Class<?> type() {
+
+        return type;
+
+    }
+
+    /**
+     * Invoke the compiled getter on given target.
+     *
+     * @param target to invoke getter on
+     * @return getter return value, boxed if primitive
+     * @throws InvalidCritersFilteringException if the getter throws
+     */
+    public Object get(final Object target)
+            throws InvalidCritersFilteringException {
+
+        try {
+
+            return function.apply(target);
+
+        } catch (Exception e) {
+
+            throw new InvalidCritersFilteringException(METHOD_INVOCATION, e);
+
+        }
+
+    }
+
+    private static Function<Object, Object> compile(final Method method) {
+
+        final Class<?> declaringClass = method.getDeclaringClass();
+
+        MethodHandles.Lookup lookup;
+        MethodHandle handle;
+
+        try {
+
+            lookup = MethodHandles.privateLookupIn(declaringClass, MethodHandles.lookup());
+            handle = lookup.unreflect(method);
+
+        } catch (IllegalAccessException | SecurityException e) {
+
+            return reflective(method, e);
+
+        }
+
+        try {
+
+            return lambda(lookup, handle);
+
+        } catch (Throwable e) {
+
+            //
+            // Lambda generation requires full privilege access to the declaring class,
+            // not available across class loaders, keep the plain method handle instead.
+            //
+            if(logger.isDebugEnabled()) {
+
+                logger.debug("Using method handle accessor for '{}': {}", method, e.getMessage());
+
+            }
+
+            return handle(handle);
+
+        }
+
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Function<Object, Object> lambda(final MethodHandles.Lookup lookup,
+                                                   final MethodHandle handle)
+            throws Throwable {
+
+        return (Function<Object, Object>) LambdaMetafactory.metafactory(
+                lookup,
+                LAMBDA_METHOD,
+                MethodType.methodType(Function.class),
+                MethodType.methodType(Object.class, Object.class),
+                handle,
+                handle.type().wrap())
+                .getTarget()
+                .invoke();
+
+    }
+
+    private static Function<Object, Object> handle(final MethodHandle handle) {
+
+        final MethodHandle generic = handle.asType(MethodType.methodType(Object.class, Object.class));
+
+        return target -> {
+
+            try {
+
+                return generic.invokeExact(target);
+
+            } catch (RuntimeException | Error e) {
+
+                throw e;
+
+            } catch (Throwable e) {
+
+                throw new IllegalStateException(e);
+
+            }
+
+        };
+
+    }
+
+    private static Function<Object, Object> reflective(final Method method,
+                                                       final Exception cause) {
+
+        if(logger.isDebugEnabled()) {
+
+            logger.debug("Using reflective accessor for '{}': {}", method, cause.getMessage());
+
+        }
+
+        method.trySetAccessible();
+
+        return target -> {
+
+            try {
+
+                return method.invoke(target);
+
+            } catch (IllegalAccessException e) {
+
+                throw new IllegalStateException(e);
+
+            } catch (InvocationTargetException e) {
+
+                throw new IllegalStateException(e.getCause());
+
+            }
+
+        };
+
+    }
+
+}
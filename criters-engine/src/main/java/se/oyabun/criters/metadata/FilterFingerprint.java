@@ -0,0 +1,293 @@
+/*
+ * Copyright 2017 Oyabun AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.oyabun.criters.metadata;
+
+import se.oyabun.criters.criteria.Filter;
+import se.oyabun.criters.criteria.Parameter;
+import se.oyabun.criters.criteria.Relation;
+import se.oyabun.criters.criteria.Restriction;
+import se.oyabun.criters.exception.InvalidCritersFilteringException;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Fingerprint of the shape of a filter instance, leaving out its values.
+ *
+ * <p>The shape is made up of the filter class annotations, meaning parameter names,
+ * restrictions, combinations and relation paths, combined with the sizes of {@code IN}
+ * collections. Getters returning {@code null} restrict as any other value does, and share
+ * the shape of getters returning values.
+ *
+ * <p>Two fingerprints are equal only when their shapes are identical, which makes them
+ * usable as cache keys. The {@link #value()} is a 64-bit hash of the shape that is stable
+ * between JVMs, intended for metrics labelling and logging.
+ *
+ * @author Daniel Sundberg
+ */
+public final class FilterFingerprint {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private static final int VALUE = 0;
+    private static final int COLLECTION = 1;
+
+    private final Class<?> filterClass;
+    private final int[] slots;
+    private final long value;
+    private final int hashCode;
+
+    private FilterFingerprint(final Class<?> filterClass,
+                              final int[] slots,
+                              final long value) {
+
+        this.filterClass = filterClass;
+        this.slots = slots;
+        this.value = value;
+        this.hashCode = Long.hashCode(value);
+
+    }
+
+    /**
+     * Compute the fingerprint of given filter.
+     *
+     * @param filter to fingerprint
+     * @param <E> type of entity
+     * @param <S> type of filter
+     * @return fingerprint of the filter shape
+     * @throws InvalidCritersFilteringException if a getter fails
+     */
+    public static <E, S extends Filter<E>> FilterFingerprint of(final S filter)
+            throws InvalidCritersFilteringException {
+
+        return of(filter, IntUnaryOperator.identity());
+
+    }
+
+    /**
+     * Compute the fingerprint of given filter, mapping {@code IN} collection sizes before
+     * they are recorded. Useful to let collections of similar sizes share a fingerprint.
+     *
+     * @param filter to fingerprint
+     * @param collectionSize mapping of collection sizes
+     * @param <E> type of entity
+     * @param <S> type of filter
+     * @return fingerprint of the filter shape
+     * @throws InvalidCritersFilteringException if a getter fails
+     */
+    public static <E, S extends Filter<E>> FilterFingerprint of(final S filter,
+                                                                final IntUnaryOperator collectionSize)
+            throws InvalidCritersFilteringException {
+
+        final FilterMetadata metadata = FilterMetadata.of(filter);
+
+        final List<ParameterMetadata> parameters = metadata.parameters();
+        final List<RelationsMetadata> relations = metadata.relations();
+
+        final int[] slots = new int[parameters.size() + relations.size()];
+
+        long value = metadata.shapeHash();
+
+        int slot = 0;
+
+        for(final ParameterMetadata parameter : parameters) {
+
+            slots[slot] = state(parameter.accessor().get(filter),
+                                parameter.restriction() == Restriction.IN,
+                                collectionSize);
+
+            value = mix(value, slots[slot++]);
+
+        }
+
+        for(final RelationsMetadata relation : relations) {
+
+            slots[slot] = state(relation.accessor().get(filter),
+                                relation.restrictedIn(),
+                                collectionSize);
+
+            value = mix(value, slots[slot++]);
+
+        }
+
+        return new FilterFingerprint(metadata.filterClass(), slots, value);
+
+    }
+
+    /**
+     * Returns the fingerprinted filter class.
+     *
+     * @return the filter class
+     */
+    public Class<?> filterClass() {
+
+        return filterClass;
+
+    }
+
+    /**
+     * Returns the stable 64-bit hash of the shape.
+     *
+     * @return the shape hash
+     */
+    public long value() {
+
+        return value;
+
+    }
+
+    /**
+     * Returns the recorded {@code IN} collection size of the getter at given position, positions
+     * follow {@link FilterMetadata#parameters()} followed by {@link FilterMetadata#relations()}.
+     *
+     * @param position of the getter
+     * @return the collection size, or -1 if the getter did not return a collection
+     */
+    public int collectionSize(final int position) {
+
+        return slots[position] >= COLLECTION ? slots[position] - COLLECTION : -1;
+
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+
+        if(this == o) {
+
+            return true;
+
+        }
+
+        if(!(o instanceof FilterFingerprint other)) {
+
+            return false;
+
+        }
+
+        return value == other.value &&
+               filterClass == other.filterClass &&
+               Arrays.equals(slots, other.slots);
+
+    }
+
+    @Override
+    public int hashCode() {
+
+        return hashCode;
+
+    }
+
+    @Override
+    public String toString() {
+
+        return filterClass.getSimpleName() + "#" + Long.toHexString(value);
+
+    }
+
+    /**
+     * Hash the static part of a filter shape, its annotations, in metadata order.
+     *
+     * @param metadata to hash
+     * @return stable hash of the filter annotations
+     */
+    static long hash(final FilterMetadata metadata) {
+
+        long hash = hash(FNV_OFFSET, metadata.filterClass().getName());
+
+        for(final ParameterMetadata parameter : metadata.parameters()) {
+
+            hash = hash(hash, parameter.method().getName());
+            hash = hash(hash, parameter.parameter());
+
+        }
+
+        for(final RelationsMetadata relations : metadata.relations()) {
+
+            hash = hash(hash, relations.method().getName());
+
+            for(final Relation relation : relations.path()) {
+
+                hash = hash(hash, relation.name());
+                hash = mix(hash, relation.iterable() ? 1 : 0);
+
+                for(final Parameter parameter : relation.parameters()) {
+
+                    hash = hash(hash, parameter);
+
+                }
+
+            }
+
+        }
+
+        return hash;
+
+    }
+
+    private static int state(final Object value,
+                             final boolean in,
+                             final IntUnaryOperator collectionSize) {
+
+        if(in && value instanceof Collection<?> collection) {
+
+            return COLLECTION + collectionSize.applyAsInt(collection.size());
+
+        }
+
+        return VALUE;
+
+    }
+
+    private static long hash(final long hash,
+                             final Parameter parameter) {
+
+        long current = hash(hash, parameter.name());
+        current = mix(current, parameter.restriction().ordinal());
+        current = hash(current, parameter.combinate().group());
+
+        return mix(current, parameter.combinate().combine().ordinal());
+
+    }
+
+    private static long hash(final long hash,
+                             final String value) {
+
+        long current = hash;
+
+        for(int i = 0; i < value.length(); i++) {
+
+            current = mix(current, value.charAt(i));
+
+        }
+
+        //
+        // Terminate strings so adjacent values can not shift into each other.
+        //
+        return mix(current, 0xffff);
+
+    }
+
+    private static long mix(final long hash,
+                            final int value) {
+
+        return (hash ^ value) * FNV_PRIME;
+
+    }
+
+}
@@ -0,0 +1,356 @@
+/*
+ * Copyright 2017 Oyabun AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.oyabun.criters.metadata;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import se.oyabun.criters.criteria.Filter;
+import se.oyabun.criters.criteria.Parameter;
+import se.oyabun.criters.criteria.Relation;
+import se.oyabun.criters.criteria.Relations;
+import se.oyabun.criters.exception.InvalidCritersFilteringException;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Introspected annotation metadata of a filter class.
+ *
+ * <p>Metadata is resolved once per filter class and kept in a {@link ClassValue} backed
+ * registry, so repeated searches with the same filter type never reflect on it again.
+ * Validation against an entity class is memoized per entity class, failures included.
+ * Instances are safe to share between threads.
+ *
+ * <p>Getters are ordered by name, as the order of declared methods is unspecified. Groups
+ * mixing {@code AND} and {@code OR} are therefore folded in getter name order.
+ *
+ * @author Daniel Sundberg
+ */
+public final class FilterMetadata {
+
+    private static final Logger logger = LoggerFactory.getLogger(FilterMetadata.class);
+
+    private static final ClassValue<FilterMetadata> REGISTRY =
+            new ClassValue<>() {
+
+                @Override
+                protected FilterMetadata computeValue(final Class<?> filterClass) {
+
+                    return new FilterMetadata(filterClass);
+
+                }
+
+            };
+
+    //
+    // Declared method order is unspecified by the JVM, sort to keep metadata stable.
+    //
+    private static final Comparator<Method> METHOD_ORDER =
+            Comparator.comparing(Method::getName)
+                      .thenComparing(method -> method.getReturnType().getName());
+
+    private final Class<?> filterClass;
+    private final Class<?> entityClass;
+    private final List<ParameterMetadata> parameters;
+    private final List<RelationsMetadata> relations;
+    private final Set<String> groups;
+    private final long shapeHash;
+
+    private final Map<Class<?>, Optional<InvalidCritersFilteringException>> parameterValidations =
+            new ConcurrentHashMap<>();
+
+    private final Map<Class<?>, Optional<InvalidCritersFilteringException>> relationValidations =
+            new ConcurrentHashMap<>();
+
+    private FilterMetadata(final Class<?> filterClass) {
+
+        this.filterClass = filterClass;
+
+        //
+        // Resolve the entity type the same way a filter instance does.
+        //
+        this.entityClass = filterClass.getGenericSuperclass() instanceof ParameterizedType type &&
+                           type.getActualTypeArguments()[0] instanceof Class<?> entity ?
+                           entity :
+                           null;
+
+        final Method[] methods = filterClass.getDeclaredMethods();
+        Arrays.sort(methods, METHOD_ORDER);
+
+        final List<ParameterMetadata> parameters = new ArrayList<>();
+        final List<RelationsMetadata> relations = new ArrayList<>();
+        final Set<String> groups = new LinkedHashSet<>();
+
+        for(final Method method : methods) {
+
+            if(method.getParameterCount() != 0) {
+
+                continue;
+
+            }
+
+            if(method.isAnnotationPresent(Parameter.class)) {
+
+                final ParameterMetadata parameter =
+                        new ParameterMetadata(method, method.getAnnotation(Parameter.class));
+
+                parameters.add(parameter);
+                groups.add(parameter.group());
+
+            }
+
+            if(method.isAnnotationPresent(Relations.class)) {
+
+                final RelationsMetadata relation =
+                        new RelationsMetadata(method, method.getAnnotation(Relations.class));
+
+                relations.add(relation);
+
+                for(final Relation hop : relation.path()) {
+
+                    for(final Parameter parameter : hop.parameters()) {
+
+                        groups.add(parameter.combinate().group());
+
+                    }
+
+                }
+
+            }
+
+        }
+
+        this.parameters = List.copyOf(parameters);
+        this.relations = List.copyOf(relations);
+        this.groups = Collections.unmodifiableSet(groups);
+        this.shapeHash = FilterFingerprint.hash(this);
+
+        if(logger.isDebugEnabled()) {
+
+            logger.debug("Resolved metadata for '{}' with {} parameter and {} relational methods.",
+                         filterClass.getName(), this.parameters.size(), this.relations.size());
+
+        }
+
+    }
+
+    /**
+     * Returns the metadata of given filter class, resolving it on first access.
+     *
+     * @param filterClass to resolve metadata for
+     * @return metadata of the filter class
+     */
+    public static FilterMetadata of(final Class<?> filterClass) {
+
+        return REGISTRY.get(filterClass);
+
+    }
+
+    /**
+     * Returns the metadata of given filter instance type.
+     *
+     * @param filter to resolve metadata for
+     * @param <E> type of entity
+     * @param <S> type of filter
+     * @return metadata of the filter class
+     */
+    public static <E, S extends Filter<E>> FilterMetadata of(final S filter) {
+
+        return REGISTRY.get(filter.getClass());
+
+    }
+
+    /**
+     * Returns the introspected filter class.
+     *
+     * @return the filter class
+     */
+    public Class<?> filterClass() {
+
+        return filterClass;
+
+    }
+
+    /**
+     * Returns the entity class targeted by the filter class.
+     *
+     * @return the entity class, empty if the filter class does not directly extend {@link Filter}
+     */
+    public Optional<Class<?>> entityClass() {
+
+        return Optional.ofNullable(entityClass);
+
+    }
+
+    /**
+     * Returns the {@link Parameter} annotated getters of the filter class, in getter name order.
+     *
+     * @return immutable list of parameter getters
+     */
+    public List<ParameterMetadata> parameters() {
+
+        return parameters;
+
+    }
+
+    /**
+     * Returns the {@link Relations} annotated getters of the filter class, in getter name order.
+     *
+     * @return immutable list of relational getters
+     */
+    public List<RelationsMetadata> relations() {
+
+        return relations;
+
+    }
+
+    /**
+     * Returns every combination group referenced by the filter class, in getter name order.
+     *
+     * @return immutable set of combination groups
+     */
+    public Set<String> groups() {
+
+        return groups;
+
+    }
+
+    /**
+     * Returns the stable hash of the filter class annotations, the static part of every
+     * {@link FilterFingerprint} of the class.
+     *
+     * @return the annotation shape hash
+     */
+    public long shapeHash() {
+
+        return shapeHash;
+
+    }
+
+    /**
+     * Validate all parameter getters against given entity class.
+     * The outcome is computed once per entity class and replayed on later calls.
+     *
+     * @param entityClass to validate parameters against
+     * @throws InvalidCritersFilteringException if any parameter does not match the entity
+     */
+    public void validateParameters(final Class<?> entityClass)
+            throws InvalidCritersFilteringException {
+
+        rethrow(parameterValidations.computeIfAbsent(
+                entityClass,
+                type -> attempt(() -> {
+
+                    for(final ParameterMetadata parameter : parameters) {
+
+                        EntityValidation.validateParameter(parameter.method(),
+                                                           parameter.name(),
+                                                           type,
+                                                           parameter.restriction());
+
+                    }
+
+                })));
+
+    }
+
+    /**
+     * Validate all relational getters against given entity class.
+     * The outcome is computed once per entity class and replayed on later calls.
+     *
+     * @param entityClass to validate relations against
+     * @throws InvalidCritersFilteringException if any relation does not match the entity
+     */
+    public void validateRelations(final Class<?> entityClass)
+            throws InvalidCritersFilteringException {
+
+        rethrow(relationValidations.computeIfAbsent(
+                entityClass,
+                type -> attempt(() -> {
+
+                    for(final RelationsMetadata relation : relations) {
+
+                        EntityValidation.validateRelations(relation.method(), type);
+
+                    }
+
+                })));
+
+    }
+
+    private Optional<InvalidCritersFilteringException> attempt(final Validation validation) {
+
+        try {
+
+            validation.validate();
+
+            return Optional.empty();
+
+        } catch (InvalidCritersFilteringException e) {
+
+            if(logger.isDebugEnabled()) {
+
+                logger.debug("Caching failed validation of '{}': {}",
+                             filterClass.getName(), e.getMessage());
+
+            }
+
+            return Optional.of(e);
+
+        }
+
+    }
+
+    private static void rethrow(final Optional<InvalidCritersFilteringException> failure)
+            throws InvalidCritersFilteringException {
+
+        if(failure.isPresent()) {
+
+            //
+            // Wrap the cached failure to get a stack trace of the current call site.
+            //
+            throw new InvalidCritersFilteringException(failure.get().getMessage(),
+                                                       failure.get());
+
+        }
+
+    }
+
+    @FunctionalInterface
+    private interface Validation {
+
+        void validate() throws InvalidCritersFilteringException;
+
+    }
+
+    @Override
+    public String toString() {
+
+        return "FilterMetadata[" + filterClass.getName() + "]";
+
+    }
+
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2017 Oyabun AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.oyabun.criters.metadata;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.metamodel.Attribute;
+import jakarta.persistence.metamodel.Bindable;
+import jakarta.persistence.metamodel.EntityType;
+import jakarta.persistence.metamodel.ManagedType;
+import jakarta.persistence.metamodel.PluralAttribute;
+import jakarta.persistence.metamodel.SingularAttribute;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index of the JPA metamodel of one {@link EntityManagerFactory}, mapping entity classes to
+ * their {@link EntityType} and attribute names to their {@link Attribute}.
+ *
+ * <p>Entities are indexed once when the index is created, attributes once per managed type
+ * on first lookup. Indexes are held weakly by their entity manager factory, indexes of closed
+ * factories are dropped on the next index lookup. Instances are safe to share between threads.
+ *
+ * @author Daniel Sundberg
+ */
+public final class MetamodelIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(MetamodelIndex.class);
+
+    private static final Map<EntityManagerFactory, MetamodelIndex> INDEXES =
+            Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final Map<Class<?>, EntityType<?>> entities;
+    private final Map<ManagedType<?>, Map<String, Attribute<?, ?>>> attributes = new ConcurrentHashMap<>();
+
+    private MetamodelIndex(final EntityManagerFactory entityManagerFactory) {
+
+        final Map<Class<?>, EntityType<?>> entities = new HashMap<>();
+
+        for(final EntityType<?> entityType : entityManagerFactory.getMetamodel().getEntities()) {
+
+            entities.put(entityType.getJavaType(), entityType);
+
+        }
+
+        this.entities = Map.copyOf(entities);
+
+        if(logger.isDebugEnabled()) {
+
+            logger.debug("Indexed {} entities of '{}'.",
+                         this.entities.size(), entityManagerFactory);
+
+        }
+
+    }
+
+    /**
+     * Returns the metamodel index of given entity manager factory.
+     *
+     * @param entityManagerFactory owning the metamodel
+     * @return metamodel index of the factory
+     */
+    public static MetamodelIndex of(final EntityManagerFactory entityManagerFactory) {
+
+        final MetamodelIndex index = INDEXES.get(entityManagerFactory);
+
+        if(index != null) {
+
+            return index;
+
+        }
+
+        synchronized (INDEXES) {
+
+            INDEXES.keySet().removeIf(factory -> !factory.isOpen());
+
+            return INDEXES.computeIfAbsent(entityManagerFactory, MetamodelIndex::new);
+
+        }
+
+    }
+
+    /**
+     * Is given class an entity of the metamodel
+     *
+     * @param type to look up
+     * @return true if the class is an entity
+     */
+    public boolean isEntity(final Class<?> type) {
+
+        return entities.containsKey(type);
+
+    }
+
+    /**
+     * Returns the entity type of given class.
+     *
+     * @param type to look up
+     * @param <X> type of entity
+     * @return the entity type, empty if the class is not an entity
+     */
+    @SuppressWarnings("unchecked")
+    public <X> Optional<EntityType<X>> entity(final Class<X> type) {
+
+        return Optional.ofNullable((EntityType<X>) entities.get(type));
+
+    }
+
+    /**
+     * Returns the attribute of given name declared on, or inherited by, a managed type.
+     *
+     * @param type declaring the attribute
+     * @param name of the attribute
+     * @return the attribute, empty if the type has no such attribute
+     */
+    public Optional<Attribute<?, ?>> attribute(final ManagedType<?> type,
+                                               final String name) {
+
+        return Optional.ofNullable(attributes.computeIfAbsent(type, MetamodelIndex::index)
+                                             .get(name));
+
+    }
+
+    /**
+     * Returns the singular attribute of given name on the managed type a path resolves to.
+     *
+     * @param path to resolve the attribute on
+     * @param name of the attribute
+     * @return the attribute, empty if the path type is unknown or the attribute not singular
+     */
+    public Optional<SingularAttribute<?, ?>> singularAttribute(final Path<?> path,
+                                                               final String name) {
+
+        return managedType(path.getModel())
+                .flatMap(type -> attribute(type, name))
+                .filter(SingularAttribute.class::isInstance)
+                .map(attribute -> (SingularAttribute<?, ?>) attribute);
+
+    }
+
+    /**
+     * Resolve the managed type of a path model, an entity type for roots and the target type
+     * of the joined attribute for joins.
+     */
+    private static Optional<ManagedType<?>> managedType(final Bindable<?> model) {
+
+        if(model instanceof ManagedType<?> managedType) {
+
+            return Optional.of(managedType);
+
+        }
+
+        if(model instanceof SingularAttribute<?, ?> singular &&
+           singular.getType() instanceof ManagedType<?> managedType) {
+
+            return Optional.of(managedType);
+
+        }
+
+        if(model instanceof PluralAttribute<?, ?, ?> plural &&
+           plural.getElementType() instanceof ManagedType<?> managedType) {
+
+            return Optional.of(managedType);
+
+        }
+
+        return Optional.empty();
+
+    }
+
+    private static Map<String, Attribute<?, ?>> index(final ManagedType<?> type) {
+
+        final Map<String, Attribute<?, ?>> attributes = new HashMap<>();
+
+        for(final Attribute<?, ?> attribute : type.getAttributes()) {
+
+            attributes.put(attribute.getName(), attribute);
+
+        }
+
+        return Map.copyOf(attributes);
+
+    }
+
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2017 Oyabun AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.oyabun.criters.metadata;
+
+import se.oyabun.criters.criteria.Combination;
+import se.oyabun.criters.criteria.Parameter;
+import se.oyabun.criters.criteria.Restriction;
+
+import java.lang.reflect.Method;
+
+/**
+ * Resolved {@link Parameter} annotated getter of a filter class.
+ *
+ * @author Daniel Sundberg
+ */
+public final class ParameterMetadata {
+
+    private final Method method;
+    private final Accessor accessor;
+    private final Parameter parameter;
+
+    ParameterMetadata(final Method method,
+                      final Parameter parameter) {
+
+        this.method = method;
+        this.accessor = Accessor.of(method);
+        this.parameter = parameter;
+
+    }
+
+    /**
+     * Returns the compiled accessor of the getter method.
+     *
+     * @return the getter accessor
+     */
+    public Accessor accessor() {
+
+        return accessor;
+
+    }
+
+    /**
+     * Returns the annotated getter method.
+     *
+     * @return the getter method
+     */
+    public Method method() {
+
+        return method;
+
+    }
+
+    /**
+     * Returns the parameter annotation declared on the getter.
+     *
+     * @return the parameter annotation
+     */
+    public Parameter parameter() {
+
+        return parameter;
+
+    }
+
+    /**
+     * Returns the entity field name the parameter maps to.
+     *
+     * @return the field name
+     */
+    public String name() {
+
+        return parameter.name();
+
+    }
+
+    /**
+     * Returns the restriction applied by the parameter.
+     *
+     * @return the restriction
+     */
+    public Restriction restriction() {
+
+        return parameter.restriction();
+
+    }
+
+    /**
+     * Returns the combination group the parameter belongs to.
+     *
+     * @return the combination group, empty string when ungrouped
+     */
+    public String group() {
+
+        return parameter.combinate().group();
+
+    }
+
+    /**
+     * Returns the operator combining the parameter with its group.
+     *
+     * @return the combine operator
+     */
+    public Combination.Combine combine() {
+
+        return parameter.combinate().combine();
+
+    }
+
+    @Override
+    public String toString() {
+
+        return method.getName() + "->" + parameter.name();
+
+    }
+
+}
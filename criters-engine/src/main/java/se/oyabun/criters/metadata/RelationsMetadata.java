@@ -0,0 +1,140 @@
+/*
+ * Copyright 2017 Oyabun AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.oyabun.criters.metadata;
+
+import se.oyabun.criters.criteria.Parameter;
+import se.oyabun.criters.criteria.Relation;
+import se.oyabun.criters.criteria.Relations;
+import se.oyabun.criters.criteria.Restriction;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Resolved {@link Relations} annotated getter of a filter class.
+ *
+ * @author Daniel Sundberg
+ */
+public final class RelationsMetadata {
+
+    private final Method method;
+    private final Accessor accessor;
+    private final Relations relations;
+    private final List<Relation> path;
+    private final List<Parameter> parameters;
+    private final boolean restrictedIn;
+
+    RelationsMetadata(final Method method,
+                      final Relations relations) {
+
+        this.method = method;
+        this.accessor = Accessor.of(method);
+        this.relations = relations;
+        this.path = List.of(relations.value());
+        this.parameters = path.stream()
+                              .flatMap(relation -> Arrays.stream(relation.parameters()))
+                              .toList();
+        this.restrictedIn = parameters.stream()
+                                      .anyMatch(parameter -> parameter.restriction() == Restriction.IN);
+
+    }
+
+    /**
+     * Returns the compiled accessor of the getter method.
+     *
+     * @return the getter accessor
+     */
+    public Accessor accessor() {
+
+        return accessor;
+
+    }
+
+    /**
+     * Returns the annotated getter method.
+     *
+     * @return the getter method
+     */
+    public Method method() {
+
+        return method;
+
+    }
+
+    /**
+     * Returns the relations annotation declared on the getter.
+     *
+     * @return the relations annotation
+     */
+    public Relations relations() {
+
+        return relations;
+
+    }
+
+    /**
+     * Returns the relations to traverse, in join order starting from the root.
+     *
+     * @return the relation path
+     */
+    public List<Relation> path() {
+
+        return path;
+
+    }
+
+    /**
+     * Returns the join alias of the relations.
+     *
+     * @return the join alias, empty for the shared default joins
+     */
+    public String alias() {
+
+        return relations.alias();
+
+    }
+
+    /**
+     * Returns the parameters of every relation on the path, in path order.
+     *
+     * @return the relation parameters
+     */
+    public List<Parameter> parameters() {
+
+        return parameters;
+
+    }
+
+    /**
+     * Is any relation parameter restricted by {@link Restriction#IN}, resolved once per getter.
+     *
+     * @return true if the getter value is restricted by {@code IN}
+     */
+    public boolean restrictedIn() {
+
+        return restrictedIn;
+
+    }
+
+    @Override
+    public String toString() {
+
+        return method.getName() + "->" + path.stream().map(Relation::name).toList();
+
+    }
+
+}
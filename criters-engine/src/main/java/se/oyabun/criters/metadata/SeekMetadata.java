@@ -0,0 +1,340 @@
+/*
+ * Copyright 2017 Oyabun AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.oyabun.criters.metadata;
+
+import org.apache.commons.lang3.StringUtils;
+import se.oyabun.criters.criteria.SeekKey;
+import se.oyabun.criters.exception.InvalidCritersFilteringException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Keyset pagination metadata of a filter class, the declared {@link SeekKey}s and the entity
+ * getters their values are read from.
+ *
+ * <p>Continuation tokens carry the key names and the key values of the last entity of a page
+ * in their string form, encoded as URL safe base 64. Tokens are decoded into the declared
+ * getter types of the entity only, never by instantiating types named by the token, so a
+ * tampered token can only fail to decode.
+ *
+ * @author Daniel Sundberg
+ */
+public final class SeekMetadata {
+
+    private static final String GETTER_PREFIX = "get";
+
+    private static final byte TOKEN_VERSION = 1;
+
+    private static final String MISMATCHING_GETTER = "No seek key getter '%s.%s()'.";
+
+    private static final String UNSUPPORTED_TYPE = "Unsupported type '%s' of seek key '%s'.";
+
+    private static final String NULL_VALUE = "Seek key '%s' is null.";
+
+    private static final String INVALID_TOKEN = "Invalid continuation token for seek keys %s.";
+
+    private static final ClassValue<SeekMetadata> REGISTRY =
+            new ClassValue<>() {
+
+                @Override
+                protected SeekMetadata computeValue(final Class<?> filterClass) {
+
+                    return new SeekMetadata(filterClass);
+
+                }
+
+            };
+
+    private static final Map<Class<?>, Function<String, Object>> PARSERS =
+            Map.ofEntries(Map.entry(String.class, value -> value),
+                          Map.entry(Integer.class, Integer::valueOf),
+                          Map.entry(Long.class, Long::valueOf),
+                          Map.entry(Short.class, Short::valueOf),
+                          Map.entry(Byte.class, Byte::valueOf),
+                          Map.entry(Double.class, Double::valueOf),
+                          Map.entry(Float.class, Float::valueOf),
+                          Map.entry(Boolean.class, Boolean::valueOf),
+                          Map.entry(Character.class, SeekMetadata::character),
+                          Map.entry(BigDecimal.class, BigDecimal::new),
+                          Map.entry(BigInteger.class, BigInteger::new),
+                          Map.entry(UUID.class, UUID::fromString),
+                          Map.entry(LocalDate.class, LocalDate::parse),
+                          Map.entry(LocalDateTime.class, LocalDateTime::parse),
+                          Map.entry(LocalTime.class, LocalTime::parse),
+                          Map.entry(Instant.class, Instant::parse),
+                          Map.entry(OffsetDateTime.class, OffsetDateTime::parse));
+
+    private final List<SeekKey> keys;
+
+    private final Map<Class<?>, List<Accessor>> accessors = new ConcurrentHashMap<>();
+
+    private SeekMetadata(final Class<?> filterClass) {
+
+        this.keys = List.of(filterClass.getAnnotationsByType(SeekKey.class));
+
+    }
+
+    /**
+     * Returns the seek metadata of given filter class, resolving it on first access.
+     *
+     * @param filterClass to resolve seek metadata for
+     * @return seek metadata of the filter class
+     */
+    public static SeekMetadata of(final Class<?> filterClass) {
+
+        return REGISTRY.get(filterClass);
+
+    }
+
+    /**
+     * Returns the declared seek keys, in sort order.
+     *
+     * @return immutable list of seek keys, empty if the filter declares none
+     */
+    public List<SeekKey> keys() {
+
+        return keys;
+
+    }
+
+    /**
+     * Read the seek key values of an entity.
+     *
+     * @param entityClass declaring the seek key getters
+     * @param entity to read values of
+     * @return seek key values, in key order
+     * @throws InvalidCritersFilteringException if a getter is missing or a value is null
+     */
+    public List<Object> values(final Class<?> entityClass,
+                               final Object entity)
+            throws InvalidCritersFilteringException {
+
+        final List<Accessor> getters = accessors(entityClass);
+        final List<Object> values = new ArrayList<>(keys.size());
+
+        for(int i = 0; i < keys.size(); i++) {
+
+            final Object value = getters.get(i).get(entity);
+
+            if(Objects.isNull(value)) {
+
+                throw new InvalidCritersFilteringException(
+                        String.format(NULL_VALUE, keys.get(i).name()));
+
+            }
+
+            values.add(value);
+
+        }
+
+        return values;
+
+    }
+
+    /**
+     * Encode seek key values into a continuation token.
+     *
+     * @param values of the seek keys, in key order
+     * @return URL safe continuation token
+     */
+    public String encode(final List<Object> values) {
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try(final DataOutputStream output = new DataOutputStream(bytes)) {
+
+            output.writeByte(TOKEN_VERSION);
+            output.writeShort(keys.size());
+
+            for(int i = 0; i < keys.size(); i++) {
+
+                final Object value = values.get(i);
+
+                output.writeUTF(keys.get(i).name());
+                output.writeUTF(value instanceof Enum<?> constant ? constant.name() : value.toString());
+
+            }
+
+        } catch (IOException e) {
+
+            throw new IllegalStateException(e);
+
+        }
+
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+
+    }
+
+    /**
+     * Decode a continuation token into seek key values of the entity getter types.
+     *
+     * @param entityClass declaring the seek key getters
+     * @param token to decode
+     * @return seek key values, in key order
+     * @throws InvalidCritersFilteringException if the token does not match the seek keys
+     */
+    public List<Object> decode(final Class<?> entityClass,
+                               final String token)
+            throws InvalidCritersFilteringException {
+
+        final List<Accessor> getters = accessors(entityClass);
+
+        try(final DataInputStream input =
+                    new DataInputStream(new ByteArrayInputStream(Base64.getUrlDecoder().decode(token)))) {
+
+            if(input.readByte() != TOKEN_VERSION || input.readShort() != keys.size()) {
+
+                throw invalidToken(null);
+
+            }
+
+            final List<Object> values = new ArrayList<>(keys.size());
+
+            for(int i = 0; i < keys.size(); i++) {
+
+                if(!keys.get(i).name().equals(input.readUTF())) {
+
+                    throw invalidToken(null);
+
+                }
+
+                values.add(parse(getters.get(i).type(), input.readUTF()));
+
+            }
+
+            if(input.available() > 0) {
+
+                throw invalidToken(null);
+
+            }
+
+            return values;
+
+        } catch (IOException | RuntimeException e) {
+
+            throw invalidToken(e);
+
+        }
+
+    }
+
+    private InvalidCritersFilteringException invalidToken(final Exception cause) {
+
+        return new InvalidCritersFilteringException(
+                String.format(INVALID_TOKEN, keys.stream().map(SeekKey::name).toList()),
+                cause);
+
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object parse(final Class<?> type,
+                                final String value) {
+
+        if(type.isEnum()) {
+
+            return Enum.valueOf((Class<? extends Enum>) type, value);
+
+        }
+
+        return PARSERS.get(MethodType.methodType(type).wrap().returnType()).apply(value);
+
+    }
+
+    private static Character character(final String value) {
+
+        if(value.length() != 1) {
+
+            throw new IllegalArgumentException(value);
+
+        }
+
+        return value.charAt(0);
+
+    }
+
+    private List<Accessor> accessors(final Class<?> entityClass)
+            throws InvalidCritersFilteringException {
+
+        final List<Accessor> cached = accessors.get(entityClass);
+
+        if(Objects.nonNull(cached)) {
+
+            return cached;
+
+        }
+
+        final List<Accessor> resolved = new ArrayList<>(keys.size());
+
+        for(final SeekKey key : keys) {
+
+            final String getterName = GETTER_PREFIX + StringUtils.capitalize(key.name());
+
+            final Method getter;
+
+            try {
+
+                getter = entityClass.getMethod(getterName);
+
+            } catch (NoSuchMethodException e) {
+
+                throw new InvalidCritersFilteringException(
+                        String.format(MISMATCHING_GETTER, entityClass.getSimpleName(), getterName), e);
+
+            }
+
+            final Class<?> type = MethodType.methodType(getter.getReturnType()).wrap().returnType();
+
+            if(!type.isEnum() && !PARSERS.containsKey(type)) {
+
+                throw new InvalidCritersFilteringException(
+                        String.format(UNSUPPORTED_TYPE, type.getSimpleName(), key.name()));
+
+            }
+
+            resolved.add(Accessor.of(getter));
+
+        }
+
+        final List<Accessor> getters = List.copyOf(resolved);
+
+        accessors.putIfAbsent(entityClass, getters);
+
+        return getters;
+
+    }
+
+}
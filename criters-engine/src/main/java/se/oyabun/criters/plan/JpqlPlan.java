@@ -0,0 +1,112 @@
+/*
+ * Copyright 2017 Oyabun AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.oyabun.criters.plan;
+
+import se.oyabun.criters.criteria.Filter;
+import se.oyabun.criters.criteria.Relation;
+import se.oyabun.criters.exception.InvalidCritersFilteringException;
+import se.oyabun.criters.extraction.Bindings;
+import se.oyabun.criters.extraction.JpqlRenderer;
+import se.oyabun.criters.metadata.MetamodelIndex;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+
+/**
+ * Compiled search plan rendered to a parameterized JPQL query string.
+ *
+ * <p>Where a {@link QueryPlan} hands the same criteria tree to the provider on every
+ * execution, a JPQL plan creates its queries from the same string, which providers resolve
+ * from their own query plan caches instead of translating it again.
+ *
+ * @param <E> type of entity
+ * @author Daniel Sundberg
+ */
+public final class JpqlPlan<E> {
+
+    private final Class<E> entityClass;
+    private final String jpql;
+    private final Bindings bindings;
+
+    private JpqlPlan(final Class<E> entityClass,
+                     final String jpql,
+                     final Bindings bindings) {
+
+        this.entityClass = entityClass;
+        this.jpql = jpql;
+        this.bindings = bindings;
+
+    }
+
+    /**
+     * Compile a plan for the shape of given filter.
+     *
+     * @param metamodel index resolving entity names and foreign key restrictions
+     * @param filter to compile the plan for
+     * @param strategy default strategy of iterable relations
+     * @param <E> type of entity
+     * @param <S> type of filter
+     * @return compiled plan
+     * @throws InvalidCritersFilteringException if restrictions fail to render
+     */
+    public static <E, S extends Filter<E>> JpqlPlan<E> compile(final MetamodelIndex metamodel,
+                                                               final S filter,
+                                                               final Relation.Strategy strategy)
+            throws InvalidCritersFilteringException {
+
+        final Bindings bindings = new Bindings();
+
+        return new JpqlPlan<>(filter.getEntityClass(),
+                              JpqlRenderer.render(metamodel, filter, strategy, bindings),
+                              bindings);
+
+    }
+
+    /**
+     * Returns the rendered query string.
+     *
+     * @return the parameterized JPQL query
+     */
+    public String jpql() {
+
+        return jpql;
+
+    }
+
+    /**
+     * Create a query of the plan on given entity manager, bound to the values of given filter.
+     *
+     * @param entityManager to create the query on
+     * @param filter of the same shape as the plan was compiled for
+     * @return bound, executable query
+     * @throws InvalidCritersFilteringException if values fail to bind
+     */
+    public TypedQuery<E> query(final EntityManager entityManager,
+                               final Filter<E> filter)
+            throws InvalidCritersFilteringException {
+
+        return bindings.bind(entityManager.createQuery(jpql, entityClass), filter);
+
+    }
+
+    @Override
+    public String toString() {
+
+        return "JpqlPlan[" + jpql + "]";
+
+    }
+
+}
@@ -0,0 +1,248 @@
+/*
+ * Copyright 2017 Oyabun AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.oyabun.criters.plan;
+
+import se.oyabun.criters.criteria.Filter;
+import se.oyabun.criters.criteria.Relation;
+import se.oyabun.criters.exception.InvalidCritersFilteringException;
+import se.oyabun.criters.extraction.Bindings;
+import se.oyabun.criters.extraction.ExtractionContext;
+import se.oyabun.criters.extraction.Extractor;
+import se.oyabun.criters.metadata.MetamodelIndex;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import jakarta.persistence.metamodel.EntityType;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compiled search plan, a criteria query restricted by parameter placeholders instead of
+ * literal filter values.
+ *
+ * <p>A plan is compiled once per filter shape and is never modified afterwards, each
+ * execution only binds the current filter values onto a new {@link TypedQuery}.
+ *
+ * @param <R> type of query result, the entity or its count
+ * @author Daniel Sundberg
+ */
+public final class QueryPlan<R> {
+
+    private static final String NO_PREDICATES = "No predicates generated.";
+
+    private final CriteriaQuery<R> criteriaQuery;
+    private final Bindings bindings;
+
+    private QueryPlan(final CriteriaQuery<R> criteriaQuery,
+                      final Bindings bindings) {
+
+        this.criteriaQuery = criteriaQuery;
+        this.bindings = bindings;
+
+    }
+
+    /**
+     * Compile a plan for the shape of given filter.
+     *
+     * @param criteriaBuilder to build the plan criteria with
+     * @param metamodel index resolving typed attributes
+     * @param filter to compile the plan for
+     * @param extractors producing the plan restrictions
+     * @param strategy default strategy of iterable relations
+     * @param <E> type of entity
+     * @param <S> type of filter
+     * @return compiled plan
+     * @throws InvalidCritersFilteringException if restrictions fail to compile
+     */
+    public static <E, S extends Filter<E>> QueryPlan<E> compile(final CriteriaBuilder criteriaBuilder,
+                                                                final MetamodelIndex metamodel,
+                                                                final S filter,
+                                                                final Iterable<Extractor> extractors,
+                                                                final Relation.Strategy strategy)
+            throws InvalidCritersFilteringException {
+
+        final CriteriaQuery<E> criteriaQuery = criteriaBuilder.createQuery(filter.getEntityClass());
+        final Root<E> root = criteriaQuery.from(filter.getEntityClass());
+        final Bindings bindings = new Bindings();
+
+        restrict(criteriaBuilder, metamodel, criteriaQuery, root, bindings, filter, extractors, strategy);
+
+        return new QueryPlan<>(criteriaQuery, bindings);
+
+    }
+
+    /**
+     * Compile a count plan for the shape of given filter, restricted like the plan of
+     * {@link #compile} but without ordering or fetches. Roots are only counted distinct when
+     * iterable relations are joined, since only those repeat root rows.
+     *
+     * @param criteriaBuilder to build the plan criteria with
+     * @param metamodel index resolving typed attributes
+     * @param filter to compile the plan for
+     * @param extractors producing the plan restrictions
+     * @param strategy default strategy of iterable relations
+     * @param <E> type of entity
+     * @param <S> type of filter
+     * @return compiled count plan
+     * @throws InvalidCritersFilteringException if restrictions fail to compile
+     */
+    public static <E, S extends Filter<E>> QueryPlan<Long> count(final CriteriaBuilder criteriaBuilder,
+                                                                 final MetamodelIndex metamodel,
+                                                                 final S filter,
+                                                                 final Iterable<Extractor> extractors,
+                                                                 final Relation.Strategy strategy)
+            throws InvalidCritersFilteringException {
+
+        final CriteriaQuery<Long> criteriaQuery = criteriaBuilder.createQuery(Long.class);
+        final Root<E> root = criteriaQuery.from(filter.getEntityClass());
+        final Bindings bindings = new Bindings();
+
+        final ExtractionContext<E> context =
+                restrict(criteriaBuilder, metamodel, criteriaQuery, root, bindings, filter, extractors, strategy);
+
+        criteriaQuery.select(context.joins().hasIterableJoins() ?
+                             criteriaBuilder.countDistinct(root) :
+                             criteriaBuilder.count(root));
+
+        return new QueryPlan<>(criteriaQuery, bindings);
+
+    }
+
+    /**
+     * Compile an identifier plan for the shape of given filter, selecting the identifiers of
+     * the roots restricted like the plan of {@link #compile}. Identifiers are only selected
+     * distinct when iterable relations are joined. Executed with a maximum number of results,
+     * the plan counts matches up to a bound without reading entities.
+     *
+     * @param criteriaBuilder to build the plan criteria with
+     * @param metamodel index resolving typed attributes
+     * @param filter to compile the plan for
+     * @param extractors producing the plan restrictions
+     * @param strategy default strategy of iterable relations
+     * @param <E> type of entity
+     * @param <S> type of filter
+     * @return compiled identifier plan
+     * @throws InvalidCritersFilteringException if restrictions fail to compile
+     */
+    public static <E, S extends Filter<E>> QueryPlan<Object> identifiers(final CriteriaBuilder criteriaBuilder,
+                                                                         final MetamodelIndex metamodel,
+                                                                         final S filter,
+                                                                         final Iterable<Extractor> extractors,
+                                                                         final Relation.Strategy strategy)
+            throws InvalidCritersFilteringException {
+
+        final CriteriaQuery<Object> criteriaQuery = criteriaBuilder.createQuery(Object.class);
+        final Root<E> root = criteriaQuery.from(filter.getEntityClass());
+        final Bindings bindings = new Bindings();
+
+        final ExtractionContext<E> context =
+                restrict(criteriaBuilder, metamodel, criteriaQuery, root, bindings, filter, extractors, strategy);
+
+        criteriaQuery.select(identifier(root))
+                     .distinct(context.joins().hasIterableJoins());
+
+        return new QueryPlan<>(criteriaQuery, bindings);
+
+    }
+
+    /**
+     * Select the single identifier attribute of a root, or the root itself for composite identifiers.
+     */
+    private static <E> Selection<?> identifier(final Root<E> root) {
+
+        final EntityType<E> type = root.getModel();
+
+        if(!type.hasSingleIdAttribute()) {
+
+            return root;
+
+        }
+
+        return root.get(type.getId(type.getIdType().getJavaType()));
+
+    }
+
+    /**
+     * Restrict given query by the placeholder predicates of every extractor.
+     */
+    private static <E, S extends Filter<E>> ExtractionContext<E> restrict(final CriteriaBuilder criteriaBuilder,
+                                                                          final MetamodelIndex metamodel,
+                                                                          final CriteriaQuery<?> criteriaQuery,
+                                                                          final Root<E> root,
+                                                                          final Bindings bindings,
+                                                                          final S filter,
+                                                                          final Iterable<Extractor> extractors,
+                                                                          final Relation.Strategy strategy)
+            throws InvalidCritersFilteringException {
+
+        final ExtractionContext<E> context =
+                ExtractionContext.parameterized(criteriaBuilder, criteriaQuery, root, bindings, strategy)
+                                 .indexed(metamodel);
+
+        final List<Predicate> predicates = new ArrayList<>();
+
+        for(final Extractor extractor : extractors) {
+
+            extractor.generatePredicate(filter, context)
+                     .ifPresent(predicates::add);
+
+        }
+
+        if(predicates.isEmpty()) {
+
+            throw new IllegalStateException(NO_PREDICATES);
+
+        }
+
+        criteriaQuery.where(predicates.toArray(new Predicate[0]));
+
+        return context;
+
+    }
+
+    /**
+     * Returns the planned criteria query. It must not be modified.
+     *
+     * @return the planned criteria query
+     */
+    public CriteriaQuery<R> criteria() {
+
+        return criteriaQuery;
+
+    }
+
+    /**
+     * Create a query of the plan on given entity manager, bound to the values of given filter.
+     *
+     * @param entityManager to create the query on
+     * @param filter of the same shape as the plan was compiled for
+     * @return bound, executable query
+     * @throws InvalidCritersFilteringException if values fail to bind
+     */
+    public TypedQuery<R> query(final EntityManager entityManager,
+                               final Filter<?> filter)
+            throws InvalidCritersFilteringException {
+
+        return bindings.bind(entityManager.createQuery(criteriaQuery), filter);
+
+    }
+
+}
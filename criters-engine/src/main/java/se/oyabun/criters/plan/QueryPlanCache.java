@@ -0,0 +1,286 @@
+/*
+ * Copyright 2017 Oyabun AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.oyabun.criters.plan;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import se.oyabun.criters.criteria.Filter;
+import se.oyabun.criters.criteria.Relation;
+import se.oyabun.criters.exception.InvalidCritersFilteringException;
+import se.oyabun.criters.extraction.Bindings;
+import se.oyabun.criters.extraction.Extractor;
+import se.oyabun.criters.metadata.FilterFingerprint;
+import se.oyabun.criters.metadata.MetamodelIndex;
+
+import jakarta.persistence.EntityManagerFactory;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache of compiled {@link QueryPlan}s and {@link JpqlPlan}s, one cache per
+ * {@link EntityManagerFactory}.
+ *
+ * <p>Plans are keyed by the {@link FilterFingerprint} of the filter, recording the planned
+ * rather than the actual sizes of {@code IN} collections, and the default strategy of
+ * iterable relations.
+ * Caches are held weakly by their entity manager factory, caches of closed factories are
+ * dropped on the next cache lookup.
+ *
+ * @author Daniel Sundberg
+ */
+public final class QueryPlanCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryPlanCache.class);
+
+    private static final Map<EntityManagerFactory, QueryPlanCache> CACHES =
+            Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final Map<PlanKey, QueryPlan<?>> plans = new ConcurrentHashMap<>();
+
+    private final Map<PlanKey, QueryPlan<Long>> countPlans = new ConcurrentHashMap<>();
+
+    private final Map<PlanKey, QueryPlan<Object>> identifierPlans = new ConcurrentHashMap<>();
+
+    private final Map<PlanKey, JpqlPlan<?>> jpqlPlans = new ConcurrentHashMap<>();
+
+    private QueryPlanCache() {}
+
+    /**
+     * Returns the plan cache of given entity manager factory.
+     *
+     * @param entityManagerFactory owning the cache
+     * @return plan cache of the factory
+     */
+    public static QueryPlanCache of(final EntityManagerFactory entityManagerFactory) {
+
+        final QueryPlanCache cache = CACHES.get(entityManagerFactory);
+
+        if(cache != null) {
+
+            return cache;
+
+        }
+
+        synchronized (CACHES) {
+
+            CACHES.keySet().removeIf(factory -> !factory.isOpen());
+
+            return CACHES.computeIfAbsent(entityManagerFactory, factory -> new QueryPlanCache());
+
+        }
+
+    }
+
+    /**
+     * Returns the plan for the shape of given filter, compiling it on first use.
+     *
+     * @param entityManagerFactory to compile the plan with
+     * @param filter to find the plan for
+     * @param extractors producing the plan restrictions
+     * @param strategy default strategy of iterable relations
+     * @param <E> type of entity
+     * @param <S> type of filter
+     * @return compiled plan
+     * @throws InvalidCritersFilteringException if the plan fails to compile
+     */
+    @SuppressWarnings("unchecked")
+    public <E, S extends Filter<E>> QueryPlan<E> plan(final EntityManagerFactory entityManagerFactory,
+                                                      final S filter,
+                                                      final Iterable<Extractor> extractors,
+                                                      final Relation.Strategy strategy)
+            throws InvalidCritersFilteringException {
+
+        final PlanKey key = new PlanKey(FilterFingerprint.of(filter, Bindings::plannedSize), strategy);
+
+        final QueryPlan<E> cached = (QueryPlan<E>) plans.get(key);
+
+        if(cached != null) {
+
+            return cached;
+
+        }
+
+        //
+        // Compile outside of the map, concurrent misses compile equivalent plans and the
+        // first one stored wins.
+        //
+        final QueryPlan<E> compiled =
+                QueryPlan.compile(entityManagerFactory.getCriteriaBuilder(),
+                                  MetamodelIndex.of(entityManagerFactory),
+                                  filter,
+                                  extractors,
+                                  strategy);
+
+        if(logger.isDebugEnabled()) {
+
+            logger.debug("Compiled query plan for '{}'.", key);
+
+        }
+
+        return (QueryPlan<E>) plans.computeIfAbsent(key, k -> compiled);
+
+    }
+
+    /**
+     * Returns the count plan for the shape of given filter, compiling it on first use.
+     *
+     * @param entityManagerFactory to compile the plan with
+     * @param filter to find the plan for
+     * @param extractors producing the plan restrictions
+     * @param strategy default strategy of iterable relations
+     * @param <E> type of entity
+     * @param <S> type of filter
+     * @return compiled count plan
+     * @throws InvalidCritersFilteringException if the plan fails to compile
+     */
+    public <E, S extends Filter<E>> QueryPlan<Long> count(final EntityManagerFactory entityManagerFactory,
+                                                          final S filter,
+                                                          final Iterable<Extractor> extractors,
+                                                          final Relation.Strategy strategy)
+            throws InvalidCritersFilteringException {
+
+        final PlanKey key = new PlanKey(FilterFingerprint.of(filter, Bindings::plannedSize), strategy);
+
+        final QueryPlan<Long> cached = countPlans.get(key);
+
+        if(cached != null) {
+
+            return cached;
+
+        }
+
+        final QueryPlan<Long> compiled =
+                QueryPlan.count(entityManagerFactory.getCriteriaBuilder(),
+                                MetamodelIndex.of(entityManagerFactory),
+                                filter,
+                                extractors,
+                                strategy);
+
+        if(logger.isDebugEnabled()) {
+
+            logger.debug("Compiled count plan for '{}'.", key);
+
+        }
+
+        return countPlans.computeIfAbsent(key, k -> compiled);
+
+    }
+
+    /**
+     * Returns the identifier plan for the shape of given filter, compiling it on first use.
+     *
+     * @param entityManagerFactory to compile the plan with
+     * @param filter to find the plan for
+     * @param extractors producing the plan restrictions
+     * @param strategy default strategy of iterable relations
+     * @param <E> type of entity
+     * @param <S> type of filter
+     * @return compiled identifier plan
+     * @throws InvalidCritersFilteringException if the plan fails to compile
+     */
+    public <E, S extends Filter<E>> QueryPlan<Object> identifiers(final EntityManagerFactory entityManagerFactory,
+                                                                  final S filter,
+                                                                  final Iterable<Extractor> extractors,
+                                                                  final Relation.Strategy strategy)
+            throws InvalidCritersFilteringException {
+
+        final PlanKey key = new PlanKey(FilterFingerprint.of(filter, Bindings::plannedSize), strategy);
+
+        final QueryPlan<Object> cached = identifierPlans.get(key);
+
+        if(cached != null) {
+
+            return cached;
+
+        }
+
+        final QueryPlan<Object> compiled =
+                QueryPlan.identifiers(entityManagerFactory.getCriteriaBuilder(),
+                                      MetamodelIndex.of(entityManagerFactory),
+                                      filter,
+                                      extractors,
+                                      strategy);
+
+        if(logger.isDebugEnabled()) {
+
+            logger.debug("Compiled identifier plan for '{}'.", key);
+
+        }
+
+        return identifierPlans.computeIfAbsent(key, k -> compiled);
+
+    }
+
+    /**
+     * Returns the JPQL plan for the shape of given filter, rendering it on first use.
+     * The sizes of non empty {@code IN} collections do not affect the rendered query.
+     *
+     * @param entityManagerFactory to render the plan for
+     * @param filter to find the plan for
+     * @param strategy default strategy of iterable relations
+     * @param <E> type of entity
+     * @param <S> type of filter
+     * @return compiled plan
+     * @throws InvalidCritersFilteringException if the plan fails to render
+     */
+    @SuppressWarnings("unchecked")
+    public <E, S extends Filter<E>> JpqlPlan<E> jpql(final EntityManagerFactory entityManagerFactory,
+                                                     final S filter,
+                                                     final Relation.Strategy strategy)
+            throws InvalidCritersFilteringException {
+
+        final PlanKey key = new PlanKey(FilterFingerprint.of(filter, size -> Math.min(size, 1)), strategy);
+
+        final JpqlPlan<E> cached = (JpqlPlan<E>) jpqlPlans.get(key);
+
+        if(cached != null) {
+
+            return cached;
+
+        }
+
+        final JpqlPlan<E> compiled =
+                JpqlPlan.compile(MetamodelIndex.of(entityManagerFactory),
+                                 filter,
+                                 strategy);
+
+        if(logger.isDebugEnabled()) {
+
+            logger.debug("Rendered JPQL plan '{}' for '{}'.", compiled.jpql(), key);
+
+        }
+
+        return (JpqlPlan<E>) jpqlPlans.computeIfAbsent(key, k -> compiled);
+
+    }
+
+    /**
+     * Returns the number of cached plans, criteria, count, identifier and JPQL plans alike.
+     *
+     * @return number of plans
+     */
+    public int size() {
+
+        return plans.size() + countPlans.size() + identifierPlans.size() + jpqlPlans.size();
+
+    }
+
+    private record PlanKey(FilterFingerprint fingerprint,
+                           Relation.Strategy strategy) {}
+
+}
@@ -16,8 +16,6 @@
 package se.oyabun.criters.util;
 
 import org.apache.commons.lang3.StringUtils;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import se.oyabun.criters.criteria.Combination;
 import se.oyabun.criters.criteria.Filter;
 import se.oyabun.criters.criteria.Parameter;
@@ -25,17 +23,19 @@ import se.oyabun.criters.criteria.Relation;
 import se.oyabun.criters.criteria.Relations;
 import se.oyabun.criters.criteria.Restriction;
 import se.oyabun.criters.exception.InvalidCritersFilteringException;
+import se.oyabun.criters.metadata.FilterMetadata;
+import se.oyabun.criters.metadata.ParameterMetadata;
+import se.oyabun.criters.metadata.RelationsMetadata;
 
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.Predicate;
 import java.lang.reflect.Method;
 import java.lang.reflect.ParameterizedType;
-import java.lang.reflect.Type;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.Objects;
+import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 /**
  * Filtering util containing externalized class handling methods
@@ -44,24 +44,15 @@ import java.util.stream.Collectors;
  */
 public class FilterUtil {
 
-    private static final Logger logger = LoggerFactory.getLogger(FilterUtil.class);
-
     private static final String GETTER_PREFIX = "get";
 
-    private static final String VALIDATION_TRACE_MESSAGE = "Validated '{}' method on '{}'.";
-
     private static final String ILLEGAL_COMBINATION = "Illegal combination.";
 
-    private static final String MISMATCHING_GETTERS = "No matching getter method '%s.%s()' for filter." ;
-
     private static final String NON_PREPARED_METHOD = "Method '%s' not indicated as prepared.";
 
-    private static final String MISMATCHING_RETURN_TYPE = "Return type '%s' not matching target.";
-
-    private static final String INVALID_ITERABLE = "Indicated collection '%s' not valid iterable.";
-
     /**
      * Introspect criteria for get methods with parameter annotations.
+     * Backed by the cached {@link FilterMetadata} of the criteria class.
      *
      * @param searchCriteria to introspect
      * @param <E> type of target class
@@ -70,15 +61,17 @@ public class FilterUtil {
      */
     public static <E, S extends Filter<E>> Collection<Method> parameterMethods(final S searchCriteria) {
 
-        return Arrays.stream(searchCriteria.getClass().getDeclaredMethods())
-                     .filter(method -> method.isAnnotationPresent(Parameter.class))
-                     .filter(method -> method.getParameterCount() == 0)
-                     .collect(Collectors.toList());
+        return FilterMetadata.of(searchCriteria)
+                             .parameters()
+                             .stream()
+                             .map(ParameterMetadata::method)
+                             .toList();
 
     }
 
     /**
      * Introspect criteria for get methods with relation annotations.
+     * Backed by the cached {@link FilterMetadata} of the criteria class.
      *
      * @param searchCriteria to introspect
      * @param <E> type of target class
@@ -87,20 +80,23 @@ public class FilterUtil {
      */
     public static <E, S extends Filter<E>> Collection<Method> relationalMethods(final S searchCriteria) {
 
-        return Arrays.stream(searchCriteria.getClass().getDeclaredMethods())
-                     .filter(method -> method.isAnnotationPresent(Relations.class))
-                     .filter(method -> method.getParameterCount() == 0)
-                     .collect(Collectors.toList());
+        return FilterMetadata.of(searchCriteria)
+                             .relations()
+                             .stream()
+                             .map(RelationsMetadata::method)
+                             .toList();
 
     }
 
     /**
-     * Validate method is corresponding to target type method
+     * Validate method is corresponding to target type method.
+     * Validates every parameter getter of the declaring filter class, backed by the cached
+     * {@link FilterMetadata#validateParameters(Class)} outcome per target type.
      *
      * @param searchCriteriaMethod which should match target type
-     * @param parameterName        the entity field name to validate against
+     * @param parameterName        the entity field name, as declared by the annotation
      * @param type on which getter should match
-     * @param restriction on parameter
+     * @param restriction on parameter, as declared by the annotation
      * @param <E> target type
      * @throws InvalidCritersFilteringException indicating issues with matching
      */
@@ -112,17 +108,8 @@ public class FilterUtil {
 
         if(searchCriteriaMethod.isAnnotationPresent(Parameter.class)) {
 
-            if(requiresTypeValidation(restriction)) {
-
-                validateRelationalParameter(getterOf(parameterName),
-                                            searchCriteriaMethod.getReturnType(),
-                                            type);
-
-            } else {
-
-                validateFieldExists(getterOf(parameterName), type);
-
-            }
+            FilterMetadata.of(searchCriteriaMethod.getDeclaringClass())
+                          .validateParameters(type);
 
         } else {
 
@@ -135,7 +122,9 @@ public class FilterUtil {
     }
 
     /**
-     * Validate method is corresponding to similar on target type
+     * Validate method is corresponding to similar on target type.
+     * Validates every relational getter of the declaring filter class, backed by the cached
+     * {@link FilterMetadata#validateRelations(Class)} outcome per target type.
      *
      * @param method which should match target type
      * @param type on which getter should match
@@ -145,80 +134,10 @@ public class FilterUtil {
                                          final Class<?> type)
             throws InvalidCritersFilteringException {
 
-        //
-        // Assert that there exists an relations annotation
-        //
         if(method.isAnnotationPresent(Relations.class)) {
 
-            final Relations relations = method.getDeclaredAnnotation(Relations.class);
-
-            Class<?> currentType = null;
-
-            //
-            // Iterate all relation on parent annotation, each iteration representing a join on
-            // the previous starting with the initial type as root.
-            //
-            for(final Relation relation : relations.value()) {
-
-                final String expectedMethodName = getterOf(relation.name());
-
-                final Optional<Method> optionalTargetMethod =
-                        Arrays.stream(Objects.nonNull(currentType) ?
-                                      currentType.getMethods() :
-                                      type.getMethods())
-                              .filter(typeMethod -> typeMethod.getName().equals(getterOf(relation.name())))
-                          .findFirst();
-
-                if(optionalTargetMethod.isPresent()) {
-
-                    final Method targetMethod = optionalTargetMethod.get();
-
-                    //
-                    // Validate getters for each parameter
-                    //
-                    for(final Parameter parameter : relation.parameters()) {
-
-                        Class<?> targetType = targetMethod.getReturnType();
-
-                        if(Iterable.class.isAssignableFrom(targetType)) {
-
-                            Type returnType = targetMethod.getGenericReturnType();
-
-                            if (returnType instanceof ParameterizedType) {
-
-                                final ParameterizedType paramType = (ParameterizedType) returnType;
-                                targetType = (Class<?>) paramType.getActualTypeArguments()[ 0 ];
-
-                            }
-
-                        }
-
-                        if(requiresTypeValidation(parameter.restriction())) {
-
-                            validateRelationalParameter(getterOf(parameter.name()),
-                                                        method.getReturnType(),
-                                                        targetType);
-
-                        } else {
-
-                            validateFieldExists(getterOf(parameter.name()), targetType);
-
-                        }
-
-                    }
-
-                    currentType = extractTargetType(relation, targetMethod);
-
-                } else {
-
-                    throw new InvalidCritersFilteringException(
-                            String.format(MISMATCHING_GETTERS,
-                                          type.getSimpleName(),
-                                          expectedMethodName));
-
-                }
-
-            }
+            FilterMetadata.of(method.getDeclaringClass())
+                          .validateRelations(type);
 
         } else {
 
@@ -228,116 +147,70 @@ public class FilterUtil {
 
         }
 
-
     }
 
     /**
-     * Validating relational parameter expectations on given type
+     * Find the public getter of a property, following the getPropertyName() convention.
      *
-     * @param expectedMethodName verified against method on given type
-     * @param expectedReturnType verified against method on given type
-     * @param type to verify methods on
-     * @param <E> inferred type of class
-     * @throws InvalidCritersFilteringException if validation fails
+     * @param type declaring or inheriting the getter
+     * @param propertyName of the getter
+     * @return the getter, empty if the type has no such getter
      */
-    private static <E> void validateRelationalParameter(final String expectedMethodName,
-                                                        final Class<?> expectedReturnType,
-                                                        final Class<E> type)
-            throws InvalidCritersFilteringException {
-
-        Optional<Method> optionalTargetMethod =
-                Arrays.stream(type.getMethods())
-                      .filter(method -> method.getName().equals(expectedMethodName))
-                      .filter(method -> method.getReturnType().equals(expectedReturnType))
-                      .findFirst();
-
-        if(optionalTargetMethod.isPresent()) {
-
-            final Method targetMethod = optionalTargetMethod.get();
-
-            if(targetMethod.getReturnType().equals(expectedReturnType)) {
-
-                if(logger.isTraceEnabled()) {
-
-                    logger.trace(VALIDATION_TRACE_MESSAGE,
-                                 expectedMethodName,
-                                 type.getSimpleName());
-
-                }
-
-            } else {
-
-                throw new InvalidCritersFilteringException(
-                        String.format(MISMATCHING_RETURN_TYPE,
-                                      expectedReturnType.getSimpleName()));
+    public static Optional<Method> getter(final Class<?> type,
+                                          final String propertyName) {
 
-            }
-
-        } else {
+        final String getter = getterOf(propertyName);
 
-            throw new InvalidCritersFilteringException(
-                    String.format(MISMATCHING_GETTERS,
-                                  type.getSimpleName(),
-                                  expectedMethodName));
-
-        }
+        return Arrays.stream(type.getMethods())
+                     .filter(typeMethod -> typeMethod.getName().equals(getter))
+                     .filter(typeMethod -> typeMethod.getParameterCount() == 0)
+                     .findFirst();
 
     }
 
     /**
-     * Extract target class type
+     * Resolve the types reached by each relation of a relation path, starting from given type.
+     * Iterable relations resolve to their element type. Resolution stops at the first relation
+     * without a matching getter, paths are expected to be validated beforehand.
      *
-     * @param relation of method
-     * @param targetMethod to be called
-     * @return class type returned from method call
-     * @throws InvalidCritersFilteringException if relations iterable indication is wrong
+     * @param type the path starts from
+     * @param path of relations
+     * @return types reached by the relations, in path order
      */
-    private static Class<?> extractTargetType(final Relation relation,
-                                              final Method targetMethod)
-            throws InvalidCritersFilteringException {
-
-        Class<?> currentType = targetMethod.getReturnType();
-
-        boolean indicationFail = false;
+    public static List<Class<?>> relationTypes(final Class<?> type,
+                                               final List<Relation> path) {
 
-        if(relation.iterable()) {
+        final List<Class<?>> types = new ArrayList<>();
 
-            if(Iterable.class.isAssignableFrom(currentType)) {
+        Class<?> currentType = type;
 
-                Type returnType = targetMethod.getGenericReturnType();
+        for(final Relation relation : path) {
 
-                if (returnType instanceof ParameterizedType) {
+            final Optional<Method> optionalTargetMethod = getter(currentType, relation.name());
 
-                    final ParameterizedType paramType = (ParameterizedType) returnType;
-                    currentType = (Class<?>) paramType.getActualTypeArguments()[ 0 ];
+            if(optionalTargetMethod.isEmpty()) {
 
-                }
-
-            } else {
-
-                indicationFail = true;
+                break;
 
             }
 
-        } else {
-
-            if(Iterable.class.isAssignableFrom(currentType)) {
+            final Method targetMethod = optionalTargetMethod.get();
 
-                indicationFail = true;
+            currentType = targetMethod.getReturnType();
 
-            }
+            if(Iterable.class.isAssignableFrom(currentType) &&
+               targetMethod.getGenericReturnType() instanceof ParameterizedType paramType &&
+               paramType.getActualTypeArguments()[ 0 ] instanceof Class<?> elementType) {
 
-        }
+                currentType = elementType;
 
-        if(indicationFail) {
+            }
 
-            throw new InvalidCritersFilteringException(
-                    String.format(INVALID_ITERABLE,
-                                  currentType.getSimpleName()));
+            types.add(currentType);
 
         }
 
-        return currentType;
+        return types;
 
     }
 
@@ -368,44 +241,50 @@ public class FilterUtil {
     }
 
     /**
-     * Implements getter convention.
-     * Parameters are expected to follow the getParameterName() convention.
+     * Combine any number of predicates into one flat conjunction or disjunction, instead of
+     * nesting them pairwise.
      *
-     * @param propertName to produce convention get method name for
-     * @return conventional getter method name for property
+     * @param combination of the predicates
+     * @param criteriaBuilder to combine with
+     * @param predicates to combine, at least one
+     * @return the only predicate, or the combined predicates
      */
-    private static String getterOf(final String propertName) {
+    public static Predicate combine(final Combination.Combine combination,
+                                    final CriteriaBuilder criteriaBuilder,
+                                    final Predicate... predicates) {
 
-        return GETTER_PREFIX + StringUtils.capitalize(propertName);
+        if(predicates.length == 1) {
 
-    }
+            return predicates[0];
 
-    private static boolean requiresTypeValidation(final Restriction restriction) {
+        }
 
-        return restriction != Restriction.IS_NULL &&
-               restriction != Restriction.IS_NOT_NULL &&
-               restriction != Restriction.IN;
+        switch (combination) {
 
-    }
+            case OR: return criteriaBuilder.or(predicates);
 
-    private static <E> void validateFieldExists(final String expectedMethodName,
-                                                final Class<E> type)
-            throws InvalidCritersFilteringException {
+            case AND: return criteriaBuilder.and(predicates);
 
-        boolean exists = Arrays.stream(type.getMethods())
-                               .anyMatch(method -> method.getName().equals(expectedMethodName));
+        }
 
-        if(!exists) {
+        throw new IllegalStateException(ILLEGAL_COMBINATION);
 
-            throw new InvalidCritersFilteringException(
-                    String.format(MISMATCHING_GETTERS,
-                                  type.getSimpleName(),
-                                  expectedMethodName));
+    }
 
-        }
+    /**
+     * Implements getter convention.
+     * Parameters are expected to follow the getParameterName() convention.
+     *
+     * @param propertName to produce convention get method name for
+     * @return conventional getter method name for property
+     */
+    private static String getterOf(final String propertName) {
+
+        return GETTER_PREFIX + StringUtils.capitalize(propertName);
 
     }
 
+
     private FilterUtil() {}
 
 }
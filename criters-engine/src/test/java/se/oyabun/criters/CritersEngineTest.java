@@ -0,0 +1,107 @@
+/*
+ * Copyright 2017 Oyabun AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.oyabun.criters;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import se.oyabun.criters.criteria.Filter;
+import se.oyabun.criters.criteria.Parameter;
+import se.oyabun.criters.criteria.Relation;
+import se.oyabun.criters.criteria.Restriction;
+import se.oyabun.criters.exception.CritersException;
+import se.oyabun.criters.exception.InvalidCritersTargetException;
+import se.oyabun.criters.test.data.Foo;
+
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.metamodel.EntityType;
+import jakarta.persistence.metamodel.Metamodel;
+import java.util.Collections;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.when;
+
+/**
+ * Criters engine verification tests
+ *
+ * @author Daniel Sundberg
+ */
+@ExtendWith(MockitoExtension.class)
+public class CritersEngineTest {
+
+    @Mock
+    private EntityManagerFactory entityManagerFactoryMock;
+
+    @Mock
+    private Metamodel metamodelMock;
+
+    @Mock
+    private EntityType<Foo> entityTypeMock;
+
+    @Test
+    public void testPlanIsShared()
+            throws CritersException {
+
+        when(entityManagerFactoryMock.getMetamodel()).thenReturn(metamodelMock);
+        when(metamodelMock.getEntities()).thenReturn(Collections.singleton(entityTypeMock));
+        when(entityTypeMock.getJavaType()).thenReturn(Foo.class);
+
+        final CritersEngine engine = Criters.engine(entityManagerFactoryMock);
+
+        final SearchPlan<Foo, FooValueFilter> plan = engine.plan(FooValueFilter.class);
+
+        assertThat(plan.entityClass(), is(Foo.class));
+        assertThat(engine.plan(FooValueFilter.class), is(sameInstance(plan)));
+
+    }
+
+    @Test
+    public void testInvalidTarget() {
+
+        when(entityManagerFactoryMock.getMetamodel()).thenReturn(metamodelMock);
+        when(metamodelMock.getEntities()).thenReturn(Collections.emptySet());
+
+        assertThrows(InvalidCritersTargetException.class,
+                     () -> Criters.engine(entityManagerFactoryMock).plan(FooValueFilter.class));
+
+    }
+
+    @Test
+    public void testStrategyCreatesEngine() {
+
+        final CritersEngine engine = Criters.engine(entityManagerFactoryMock);
+
+        assertThat(engine.strategy(Relation.Strategy.EXISTS), is(not(sameInstance(engine))));
+
+    }
+
+    public static class FooValueFilter
+            extends Filter<Foo> {
+
+        @Parameter(name = "value",
+                   restriction = Restriction.EQUALS)
+        public Integer getValue() {
+            return 1;
+        }
+
+    }
+
+}
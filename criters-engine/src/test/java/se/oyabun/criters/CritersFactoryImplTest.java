@@ -28,6 +28,7 @@ import se.oyabun.criters.exception.InvalidCritersTargetException;
 import se.oyabun.criters.test.data.Foo;
 
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
 import jakarta.persistence.criteria.Root;
@@ -37,6 +38,7 @@ import java.util.Collections;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.when;
 
 /**
@@ -55,6 +57,9 @@ public class CritersFactoryImplTest {
     @Mock
     private EntityManager entityManagerMock;
 
+    @Mock
+    private EntityManagerFactory entityManagerFactoryMock;
+
     @Mock
     private Metamodel metamodelMock;
 
@@ -123,13 +128,22 @@ public class CritersFactoryImplTest {
 
     }
 
+    @Test
+    public void testFetchSize() {
+
+        assertThat(critersFactory.fetchSize(100), is(critersFactory));
+        assertThrows(IllegalArgumentException.class, () -> critersFactory.fetchSize(0));
+
+    }
+
     public void testCriteria() {
 
     }
 
     private void expectEntityManager() {
 
-        when(entityManagerMock.getMetamodel()).thenReturn(metamodelMock);
+        when(entityManagerMock.getEntityManagerFactory()).thenReturn(entityManagerFactoryMock);
+        when(entityManagerFactoryMock.getMetamodel()).thenReturn(metamodelMock);
         when(metamodelMock.getEntities()).thenReturn(Collections.singleton(entityTypeMock));
         when(entityTypeMock.getJavaType()).thenReturn(Foo.class);
 
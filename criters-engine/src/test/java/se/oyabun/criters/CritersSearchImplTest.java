@@ -23,6 +23,7 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import se.oyabun.criters.criteria.Filter;
 import se.oyabun.criters.exception.InvalidCritersFilteringException;
+import se.oyabun.criters.extraction.ExtractionContext;
 import se.oyabun.criters.extraction.ParameterExtractor;
 import se.oyabun.criters.extraction.RelationExtractor;
 import se.oyabun.criters.test.data.Foo;
@@ -107,18 +108,15 @@ public class CritersSearchImplTest {
     public void prepareRestrictionExpectations()
             throws InvalidCritersFilteringException {
 
-        when(criteriaBuilderMock.and(any(Predicate.class),
-                                     any(Predicate.class)))
+        when(criteriaBuilderMock.and(any(Predicate[].class)))
                 .thenReturn(predicateMock);
 
         when(parameterExtractorMock.generatePredicate(isA(Filter.class),
-                                                      isA(CriteriaBuilder.class),
-                                                      isA(Root.class)))
+                                                      isA(ExtractionContext.class)))
                 .thenReturn(Optional.of(predicateMock));
 
         when(relationExtractorMock.generatePredicate(isA(Filter.class),
-                                                     isA(CriteriaBuilder.class),
-                                                     isA(Root.class)))
+                                                     isA(ExtractionContext.class)))
                 .thenReturn(Optional.of(predicateMock));
 
     }
@@ -0,0 +1,246 @@
+/*
+ * Copyright 2017 Oyabun AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.oyabun.criters.analysis;
+
+import org.junit.jupiter.api.Test;
+import se.oyabun.criters.CritersSearch;
+import se.oyabun.criters.criteria.Filter;
+import se.oyabun.criters.criteria.Parameter;
+import se.oyabun.criters.criteria.Relation;
+import se.oyabun.criters.criteria.Relations;
+import se.oyabun.criters.criteria.Restriction;
+import se.oyabun.criters.exception.InvalidCritersFilteringException;
+import se.oyabun.criters.test.data.Baz;
+import se.oyabun.criters.test.data.Foo;
+import se.oyabun.criters.test.filter.BazLikeFilter;
+import se.oyabun.criters.test.filter.FooAnyRangeFilter;
+import se.oyabun.criters.test.filter.FooValueFilter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static se.oyabun.criters.test.data.Entities.bar;
+
+/**
+ * Columnar snapshot verification tests
+ *
+ * @author Daniel Sundberg
+ */
+public class ColumnarSnapshotTest {
+
+    private final List<Foo> foos = foos(5, 15, null, 25, 5);
+
+    @Test
+    public void testIntegralColumns()
+            throws InvalidCritersFilteringException {
+
+        final ColumnarSnapshot<Foo> snapshot =
+                ColumnarSnapshot.of(FooValueFilter.class, foos);
+
+        assertThat(snapshot.size(), is(5));
+        assertEvaluated(snapshot, new FooValueFilter(5, List.of(5, 15)), 2);
+        assertEvaluated(snapshot, new FooValueFilter(5, List.of(15)), 0);
+        assertEvaluated(snapshot, new FooValueFilter(null, List.of(5)), 0);
+        assertEvaluated(snapshot, new FooValueFilter(5, Arrays.asList(null, 5)), 2);
+
+    }
+
+    @Test
+    public void testGroups()
+            throws InvalidCritersFilteringException {
+
+        final ColumnarSnapshot<Foo> snapshot =
+                ColumnarSnapshot.of(FooAnyRangeFilter.class, foos);
+
+        assertEvaluated(snapshot, new FooAnyRangeFilter(20, 10), 3);
+        assertEvaluated(snapshot, new FooAnyRangeFilter(null, 10), 2);
+
+    }
+
+    @Test
+    public void testNullChecks()
+            throws InvalidCritersFilteringException {
+
+        final ColumnarSnapshot<Foo> snapshot = ColumnarSnapshot.of(NullValueFilter.class, foos);
+
+        assertThat(snapshot.filter(new NullValueFilter()), is(List.of(foos.get(2))));
+
+    }
+
+    @Test
+    public void testDictionaryColumns()
+            throws InvalidCritersFilteringException {
+
+        final List<Baz> bazs = new ArrayList<>();
+
+        for(final String value : Arrays.asList("abc", "abd", null, "xyz", "abc")) {
+
+            final Baz baz = new Baz();
+            baz.setId(bazs.size());
+            baz.setValue(value);
+            bazs.add(baz);
+
+        }
+
+        final ColumnarSnapshot<Baz> snapshot = ColumnarSnapshot.of(BazLikeFilter.class, bazs);
+
+        assertThat(snapshot.filter(new BazLikeFilter("ab%")), is(List.of(bazs.get(0), bazs.get(1), bazs.get(4))));
+        assertThat(snapshot.filter(new BazLikeFilter("abc")), is(List.of(bazs.get(0), bazs.get(4))));
+        assertThat(snapshot.filter(new BazLikeFilter(null)).isEmpty(), is(true));
+
+    }
+
+    @Test
+    public void testRelations()
+            throws InvalidCritersFilteringException {
+
+        foos.get(0).setBars(List.of(bar("abc")));
+        foos.get(1).setBars(List.of(bar("xyz")));
+
+        final ColumnarSnapshot<Foo> snapshot =
+                ColumnarSnapshot.of(FilterEvaluatorTest.BazValueFilter.class, foos);
+
+        assertThat(snapshot.filter(new FilterEvaluatorTest.BazValueFilter("ab%")), is(List.of(foos.get(0))));
+
+    }
+
+    @Test
+    public void testSnapshotParametersWithRelations()
+            throws InvalidCritersFilteringException {
+
+        foos.get(0).setBars(List.of(bar("abc")));
+        foos.get(4).setBars(List.of(bar("abd")));
+
+        final ColumnarSnapshot<Foo> snapshot = ColumnarSnapshot.of(ValueBazFilter.class, foos);
+
+        foos.get(0).setValue(15);
+
+        assertThat(snapshot.filter(new ValueBazFilter(5, "ab%")), is(List.of(foos.get(0), foos.get(4))));
+
+    }
+
+    @Test
+    public void testDistinctSearchResults()
+            throws InvalidCritersFilteringException {
+
+        @SuppressWarnings("unchecked")
+        final CritersSearch<Foo> search = mock(CritersSearch.class);
+
+        when(search.list()).thenReturn(List.of(foos.get(0), foos.get(1), foos.get(0), foos.get(4)));
+
+        final ColumnarSnapshot<Foo> snapshot = ColumnarSnapshot.of(FooValueFilter.class, search);
+
+        assertThat(snapshot.size(), is(3));
+        assertThat(snapshot.filter(new FooValueFilter(5, List.of(5))), is(List.of(foos.get(0), foos.get(4))));
+
+    }
+
+    @Test
+    public void testFilterMismatch()
+            throws InvalidCritersFilteringException {
+
+        final ColumnarSnapshot<Foo> snapshot = ColumnarSnapshot.of(NullValueFilter.class, foos);
+
+        assertThrows(IllegalArgumentException.class,
+                     () -> snapshot.filter(new FooAnyRangeFilter(1, 2)));
+
+    }
+
+    /**
+     * Assert a snapshot matches as many entities as expected, the same entities the filter
+     * evaluator matches.
+     */
+    private void assertEvaluated(final ColumnarSnapshot<Foo> snapshot,
+                                 final Filter<Foo> filter,
+                                 final int expected)
+            throws InvalidCritersFilteringException {
+
+        final List<Foo> matches = snapshot.filter(filter);
+
+        assertThat(matches.size(), is(expected));
+        assertThat(matches, is(foos.stream().filter(FilterEvaluator.of(filter)).toList()));
+
+    }
+
+    private static List<Foo> foos(final Integer... values) {
+
+        final List<Foo> foos = new ArrayList<>();
+
+        for(final Integer value : values) {
+
+            final Foo foo = new Foo();
+            foo.setId(foos.size());
+            foo.setValue(value);
+            foos.add(foo);
+
+        }
+
+        return foos;
+
+    }
+
+    public static class ValueBazFilter
+           extends Filter<Foo> {
+
+        private final Integer value;
+        private final String pattern;
+
+        ValueBazFilter(final Integer value,
+                       final String pattern) {
+
+            this.value = value;
+            this.pattern = pattern;
+
+        }
+
+        @Parameter(name = "value")
+        public Integer getValue() {
+            return value;
+        }
+
+        @Relations({
+                @Relation(name = "bars",
+                          iterable = true),
+                @Relation(name = "baz",
+                          parameters = {
+                        @Parameter(name = "value",
+                                   restriction = Restriction.LIKE)
+                })
+        })
+        public String getPattern() {
+            return pattern;
+        }
+
+    }
+
+    public static class NullValueFilter
+           extends Filter<Foo> {
+
+        @Parameter(name = "value",
+                   restriction = Restriction.IS_NULL)
+        public Integer getValue() {
+            return null;
+        }
+
+    }
+
+}
@@ -0,0 +1,257 @@
+/*
+ * Copyright 2017 Oyabun AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.oyabun.criters.analysis;
+
+import org.junit.jupiter.api.Test;
+import se.oyabun.criters.criteria.Filter;
+import se.oyabun.criters.criteria.Parameter;
+import se.oyabun.criters.criteria.Relation;
+import se.oyabun.criters.criteria.Relations;
+import se.oyabun.criters.criteria.Restriction;
+import se.oyabun.criters.exception.InvalidCritersFilteringException;
+import se.oyabun.criters.test.data.Bar;
+import se.oyabun.criters.test.data.Foo;
+import se.oyabun.criters.test.filter.FooAnyRangeFilter;
+import se.oyabun.criters.test.filter.FooMixedGroupFilter;
+import se.oyabun.criters.test.filter.FooValueFilter;
+
+import java.util.List;
+import java.util.function.Predicate;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static se.oyabun.criters.test.data.Entities.bar;
+import static se.oyabun.criters.test.data.Entities.foo;
+
+/**
+ * Filter evaluator verification tests
+ *
+ * @author Daniel Sundberg
+ */
+public class FilterEvaluatorTest {
+
+    @Test
+    public void testParameters()
+            throws InvalidCritersFilteringException {
+
+        final Predicate<Foo> predicate = FilterEvaluator.of(new FooValueFilter(1, List.of(1, 2)));
+
+        assertThat(predicate.test(foo(1)), is(true));
+        assertThat(predicate.test(foo(2)), is(false));
+        assertThat(predicate.test(foo(null)), is(false));
+
+    }
+
+    @Test
+    public void testNullValuesMatchNothing()
+            throws InvalidCritersFilteringException {
+
+        assertThat(FilterEvaluator.of(new FooValueFilter(null, List.of(1))).test(foo(1)), is(false));
+        assertThat(FilterEvaluator.of(new FooValueFilter(null, List.of(1))).test(foo(null)), is(false));
+
+    }
+
+    @Test
+    public void testGroups()
+            throws InvalidCritersFilteringException {
+
+        final Predicate<Foo> predicate = FilterEvaluator.of(new FooAnyRangeFilter(20, 10));
+
+        assertThat(predicate.test(foo(5)), is(true));
+        assertThat(predicate.test(foo(15)), is(false));
+        assertThat(predicate.test(foo(25)), is(true));
+
+    }
+
+    @Test
+    public void testIterableRelations()
+            throws InvalidCritersFilteringException {
+
+        final Predicate<Foo> predicate = FilterEvaluator.of(new BazValueFilter("ab%"));
+
+        assertThat(predicate.test(foo(1, bar("xy"), bar("abc"))), is(true));
+        assertThat(predicate.test(foo(1, bar("xy"))), is(false));
+        assertThat(predicate.test(foo(1, bar(null))), is(false));
+        assertThat(predicate.test(foo(1, new Bar())), is(false));
+        assertThat(predicate.test(foo(1)), is(false));
+
+    }
+
+    @Test
+    public void testSharedJoins()
+            throws InvalidCritersFilteringException {
+
+        final Foo foo = foo(1, bar("a"), bar("b"));
+
+        assertThat(FilterEvaluator.of(new BazPairFilter("a", "b")).test(foo), is(false));
+        assertThat(FilterEvaluator.of(new BazPairFilter("a", "a")).test(foo), is(true));
+        assertThat(FilterEvaluator.of(new BazAliasFilter("a", "b")).test(foo), is(true));
+        assertThat(FilterEvaluator.of(new BazAliasFilter("a", "c")).test(foo), is(false));
+
+    }
+
+    @Test
+    public void testExistsStrategy()
+            throws InvalidCritersFilteringException {
+
+        final Foo foo = foo(1, bar("a"), bar("b"));
+
+        assertThat(FilterEvaluator.of(new BazPairFilter("a", "b"), Relation.Strategy.EXISTS).test(foo), is(false));
+        assertThat(FilterEvaluator.of(new BazPairFilter("b", "b"), Relation.Strategy.EXISTS).test(foo), is(true));
+        assertThat(FilterEvaluator.of(new BazPairFilter("b", "b"), Relation.Strategy.EXISTS).test(foo(1)), is(false));
+
+    }
+
+    @Test
+    public void testMixedGroupExists()
+            throws InvalidCritersFilteringException {
+
+        final Foo foo = foo(1, bar("a"));
+
+        assertThat(FilterEvaluator.of(new FooMixedGroupFilter(0L, "b", "a")).test(foo), is(true));
+        assertThat(FilterEvaluator.of(new FooMixedGroupFilter(0L, "a", "b")).test(foo), is(false));
+        assertThat(FilterEvaluator.of(new FooMixedGroupFilter(1L, "b", "a")).test(foo), is(false));
+
+    }
+
+    @Test
+    public void testInvalidValues() {
+
+        assertThrows(InvalidCritersFilteringException.class,
+                     () -> FilterEvaluator.of(new InvalidInFilter()));
+
+    }
+
+    public static class BazValueFilter
+           extends Filter<Foo> {
+
+        private final String pattern;
+
+        BazValueFilter(final String pattern) {
+
+            this.pattern = pattern;
+
+        }
+
+        @Relations({
+                @Relation(name = "bars",
+                          iterable = true),
+                @Relation(name = "baz",
+                          parameters = {
+                        @Parameter(name = "value",
+                                   restriction = Restriction.LIKE)
+                })
+        })
+        public String getPattern() {
+            return pattern;
+        }
+
+    }
+
+    public static class BazPairFilter
+           extends Filter<Foo> {
+
+        private final String value;
+        private final String other;
+
+        BazPairFilter(final String value,
+                      final String other) {
+
+            this.value = value;
+            this.other = other;
+
+        }
+
+        @Relations({
+                @Relation(name = "bars",
+                          iterable = true),
+                @Relation(name = "baz",
+                          parameters = {
+                        @Parameter(name = "value")
+                })
+        })
+        public String getValue() {
+            return value;
+        }
+
+        @Relations({
+                @Relation(name = "bars",
+                          iterable = true),
+                @Relation(name = "baz",
+                          parameters = {
+                        @Parameter(name = "value")
+                })
+        })
+        public String getOther() {
+            return other;
+        }
+
+    }
+
+    public static class BazAliasFilter
+           extends Filter<Foo> {
+
+        private final String value;
+        private final String other;
+
+        BazAliasFilter(final String value,
+                       final String other) {
+
+            this.value = value;
+            this.other = other;
+
+        }
+
+        @Relations({
+                @Relation(name = "bars",
+                          iterable = true),
+                @Relation(name = "baz",
+                          parameters = {
+                        @Parameter(name = "value")
+                })
+        })
+        public String getValue() {
+            return value;
+        }
+
+        @Relations(alias = "other",
+                   value = {
+                @Relation(name = "bars",
+                          iterable = true),
+                @Relation(name = "baz",
+                          parameters = {
+                        @Parameter(name = "value")
+                })
+        })
+        public String getOther() {
+            return other;
+        }
+
+    }
+
+    public static class InvalidInFilter
+           extends Filter<Foo> {
+
+        @Parameter(name = "value",
+                   restriction = Restriction.IN)
+        public Object getValues() {
+            return 1;
+        }
+
+    }
+
+}
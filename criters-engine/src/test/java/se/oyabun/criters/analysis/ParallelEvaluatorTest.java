@@ -0,0 +1,120 @@
+/*
+ * Copyright 2017 Oyabun AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.oyabun.criters.analysis;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Parallel evaluator verification tests
+ *
+ * @author Daniel Sundberg
+ */
+public class ParallelEvaluatorTest {
+
+    private static final List<Integer> ELEMENTS = IntStream.range(0, 100_000).boxed().toList();
+
+    private static final Predicate<Integer> MULTIPLE_OF_SEVEN = element -> element % 7 == 0;
+
+    @Test
+    public void testFilter() {
+
+        try(final ParallelEvaluator evaluator = ParallelEvaluator.of(4)) {
+
+            final List<Integer> expected = ELEMENTS.stream().filter(MULTIPLE_OF_SEVEN).toList();
+
+            assertThat(evaluator.filter(ELEMENTS, MULTIPLE_OF_SEVEN, true), is(expected));
+            assertThat(new HashSet<>(evaluator.filter(ELEMENTS, MULTIPLE_OF_SEVEN, false)),
+                       is(new HashSet<>(expected)));
+
+        }
+
+    }
+
+    @Test
+    public void testLimit() {
+
+        try(final ParallelEvaluator evaluator = ParallelEvaluator.of(4)) {
+
+            assertThat(evaluator.limit(ELEMENTS, MULTIPLE_OF_SEVEN, 10, true),
+                       is(ELEMENTS.stream().filter(MULTIPLE_OF_SEVEN).limit(10).toList()));
+
+            final List<Integer> any = evaluator.limit(ELEMENTS, MULTIPLE_OF_SEVEN, 10, false);
+
+            assertThat(any.size(), is(10));
+            assertThat(any.stream().allMatch(MULTIPLE_OF_SEVEN), is(true));
+            assertThat(evaluator.limit(ELEMENTS, MULTIPLE_OF_SEVEN, 0, true).isEmpty(), is(true));
+
+        }
+
+    }
+
+    @Test
+    public void testExists() {
+
+        try(final ParallelEvaluator evaluator = ParallelEvaluator.of(4)) {
+
+            assertThat(evaluator.exists(ELEMENTS, element -> element == 99_999), is(true));
+            assertThat(evaluator.exists(ELEMENTS, element -> element < 0), is(false));
+            assertThat(evaluator.exists(List.of(), element -> true), is(false));
+
+        }
+
+    }
+
+    @Test
+    public void testLearnedThreshold() {
+
+        final AtomicLong ticker = new AtomicLong();
+
+        try(final ParallelEvaluator evaluator =
+                    new ParallelEvaluator(new ForkJoinPool(2), () -> ticker.getAndAdd(1_000_000L))) {
+
+            assertThat(evaluator.threshold(), is(ParallelEvaluator.DEFAULT_THRESHOLD));
+
+            evaluator.filter(ELEMENTS.subList(0, 100), MULTIPLE_OF_SEVEN, true);
+
+            assertThat(evaluator.threshold(), is(ParallelEvaluator.FORK_NANOS / 10_000L));
+
+        }
+
+    }
+
+    @Test
+    public void testInvalidArguments() {
+
+        assertThrows(IllegalArgumentException.class, () -> ParallelEvaluator.of(0));
+
+        try(final ParallelEvaluator evaluator = ParallelEvaluator.of(1)) {
+
+            assertThrows(IllegalArgumentException.class,
+                         () -> evaluator.limit(ELEMENTS, MULTIPLE_OF_SEVEN, -1, true));
+
+        }
+
+    }
+
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2017 Oyabun AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.oyabun.criters.analysis;
+
+import org.junit.jupiter.api.Test;
+import se.oyabun.criters.criteria.Restriction;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Restriction evaluator verification tests
+ *
+ * @author Daniel Sundberg
+ */
+public class RestrictionEvaluatorTest {
+
+    @Test
+    public void testComparisons() {
+
+        assertThat(RestrictionEvaluator.matches(Restriction.EQUALS, 1, 1), is(true));
+        assertThat(RestrictionEvaluator.matches(Restriction.EQUALS, new BigDecimal("1.0"), new BigDecimal("1.00")), is(true));
+        assertThat(RestrictionEvaluator.matches(Restriction.EQUALS, 1L, 1), is(true));
+        assertThat(RestrictionEvaluator.matches(Restriction.NOT_EQUALS, 1, 2), is(true));
+        assertThat(RestrictionEvaluator.matches(Restriction.GREATER_THAN, 2, 1), is(true));
+        assertThat(RestrictionEvaluator.matches(Restriction.GREATER_THAN, 1, 1), is(false));
+        assertThat(RestrictionEvaluator.matches(Restriction.GREATER_THAN_OR_EQUALS, 1, 1), is(true));
+        assertThat(RestrictionEvaluator.matches(Restriction.LESS_THAN, "a", "b"), is(true));
+        assertThat(RestrictionEvaluator.matches(Restriction.LESS_THAN_OR_EQUALS, 2, 1), is(false));
+        assertThat(RestrictionEvaluator.matches(Restriction.IN, 2L, List.of(1, 2)), is(true));
+        assertThat(RestrictionEvaluator.matches(Restriction.IN, 3, List.of()), is(false));
+
+        assertThrows(IllegalArgumentException.class,
+                     () -> RestrictionEvaluator.matches(Restriction.GREATER_THAN, "a", 1));
+
+    }
+
+    @Test
+    public void testNulls() {
+
+        assertThat(RestrictionEvaluator.matches(Restriction.IS_NULL, null, null), is(true));
+        assertThat(RestrictionEvaluator.matches(Restriction.IS_NOT_NULL, 1, null), is(true));
+        assertThat(RestrictionEvaluator.matches(Restriction.EQUALS, null, 1), is(false));
+        assertThat(RestrictionEvaluator.matches(Restriction.NOT_EQUALS, null, 1), is(false));
+
+    }
+
+    @Test
+    public void testLike() {
+
+        assertThat(RestrictionEvaluator.matches(Restriction.LIKE, "abc", "ab%"), is(true));
+        assertThat(RestrictionEvaluator.matches(Restriction.LIKE, "abc", "a_c"), is(true));
+        assertThat(RestrictionEvaluator.matches(Restriction.LIKE, "a.c", "a.c"), is(true));
+        assertThat(RestrictionEvaluator.matches(Restriction.LIKE, "abc", "a.c"), is(false));
+        assertThat(RestrictionEvaluator.matches(Restriction.LIKE, "ABC", "ab%"), is(false));
+        assertThat(RestrictionEvaluator.matches(Restriction.LIKE, "axbbxc", "a%b_c"), is(true));
+        assertThat(RestrictionEvaluator.matches(Restriction.LIKE, "abcb", "%b_"), is(false));
+        assertThat(RestrictionEvaluator.matches(Restriction.LIKE, "", "%%"), is(true));
+
+    }
+
+    @Test
+    public void testNarrows() {
+
+        assertThat(RestrictionEvaluator.narrows(Restriction.GREATER_THAN, 10, 20), is(true));
+        assertThat(RestrictionEvaluator.narrows(Restriction.GREATER_THAN, 20, 10), is(false));
+        assertThat(RestrictionEvaluator.narrows(Restriction.LESS_THAN_OR_EQUALS, 20, 10), is(true));
+        assertThat(RestrictionEvaluator.narrows(Restriction.EQUALS, 1, 2), is(false));
+        assertThat(RestrictionEvaluator.narrows(Restriction.IN, List.of(1, 2), List.of(2)), is(true));
+        assertThat(RestrictionEvaluator.narrows(Restriction.IN, List.of(1), List.of(2)), is(false));
+        assertThat(RestrictionEvaluator.narrows(Restriction.LIKE, "ab%", "abc%"), is(true));
+        assertThat(RestrictionEvaluator.narrows(Restriction.LIKE, "ab%", "ab"), is(true));
+        assertThat(RestrictionEvaluator.narrows(Restriction.LIKE, "a_%", "abc%"), is(false));
+        assertThat(RestrictionEvaluator.narrows(Restriction.GREATER_THAN, null, 10), is(false));
+        assertThat(RestrictionEvaluator.narrows(Restriction.GREATER_THAN, "a", 10), is(false));
+
+    }
+
+    @Test
+    public void testSupports() {
+
+        assertThat(RestrictionEvaluator.supports(Restriction.GREATER_THAN, int.class), is(true));
+        assertThat(RestrictionEvaluator.supports(Restriction.GREATER_THAN, Object.class), is(false));
+        assertThat(RestrictionEvaluator.supports(Restriction.LIKE, String.class), is(true));
+        assertThat(RestrictionEvaluator.supports(Restriction.LIKE, Integer.class), is(false));
+
+    }
+
+}
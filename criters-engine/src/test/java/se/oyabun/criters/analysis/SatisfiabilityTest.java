@@ -0,0 +1,268 @@
+/*
+ * Copyright 2017 Oyabun AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.oyabun.criters.analysis;
+
+import org.junit.jupiter.api.Test;
+import se.oyabun.criters.criteria.Combination;
+import se.oyabun.criters.criteria.Filter;
+import se.oyabun.criters.criteria.Parameter;
+import se.oyabun.criters.criteria.Relation;
+import se.oyabun.criters.criteria.Relations;
+import se.oyabun.criters.criteria.Restriction;
+import se.oyabun.criters.exception.InvalidCritersFilteringException;
+import se.oyabun.criters.test.data.Foo;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Satisfiability analysis verification tests
+ *
+ * @author Daniel Sundberg
+ */
+public class SatisfiabilityTest {
+
+    @Test
+    public void testEmptyIn()
+            throws InvalidCritersFilteringException {
+
+        final Satisfiability analysis = Satisfiability.of(InFilter.class);
+
+        assertThat(analysis.unsatisfiable(new InFilter(1, List.of())), is(true));
+        assertThat(analysis.unsatisfiable(new InFilter(1, List.of(1, 2))), is(false));
+        assertThat(analysis.unsatisfiable(new InFilter(3, List.of(1, 2))), is(true));
+        assertThat(analysis.unsatisfiable(new InFilter(null, List.of(1, 2))), is(false));
+        assertThat(analysis.unsatisfiable(new InFilter(1, List.of(1L))), is(false));
+        assertThat(analysis.unsatisfiable(new InFilter(1, List.of(1L, 2))), is(false));
+
+    }
+
+    @Test
+    public void testNullity()
+            throws InvalidCritersFilteringException {
+
+        assertThat(Satisfiability.of(NullityFilter.class).unsatisfiable(new NullityFilter()), is(true));
+
+    }
+
+    @Test
+    public void testRanges()
+            throws InvalidCritersFilteringException {
+
+        final Satisfiability analysis = Satisfiability.of(RangeFilter.class);
+
+        assertThat(analysis.unsatisfiable(new RangeFilter(10, 5)), is(true));
+        assertThat(analysis.unsatisfiable(new RangeFilter(5, 5)), is(true));
+        assertThat(analysis.unsatisfiable(new RangeFilter(5, 10)), is(false));
+        assertThat(analysis.unsatisfiable(new RangeFilter(new BigDecimal("1.0"), new BigDecimal("1.00"))), is(true));
+        assertThat(analysis.unsatisfiable(new RangeFilter(10, 5L)), is(false));
+        assertThat(analysis.unsatisfiable(new RangeFilter(LocalDate.of(2020, 1, 2), LocalDate.of(2020, 1, 1))),
+                   is(true));
+
+    }
+
+    @Test
+    public void testCollatedValues()
+            throws InvalidCritersFilteringException {
+
+        assertThat(Satisfiability.of(RangeFilter.class).unsatisfiable(new RangeFilter("b", "B")), is(false));
+        assertThat(Satisfiability.of(RangeFilter.class).unsatisfiable(new RangeFilter('b', 'a')), is(false));
+        assertThat(Satisfiability.of(TextFilter.class).unsatisfiable(new TextFilter("abc", List.of("ABC"))),
+                   is(false));
+        assertThat(Satisfiability.of(TextFilter.class).unsatisfiable(new TextFilter("abc", List.of())), is(true));
+
+    }
+
+    @Test
+    public void testDisjunctions()
+            throws InvalidCritersFilteringException {
+
+        final Satisfiability analysis = Satisfiability.of(AnyInFilter.class);
+
+        assertThat(analysis.unsatisfiable(new AnyInFilter(List.of(), List.of())), is(true));
+        assertThat(analysis.unsatisfiable(new AnyInFilter(List.of(), List.of(1))), is(false));
+
+    }
+
+    @Test
+    public void testRelations()
+            throws InvalidCritersFilteringException {
+
+        final Satisfiability analysis = Satisfiability.of(RelationInFilter.class);
+
+        assertThat(analysis.unsatisfiable(new RelationInFilter(List.of())), is(true));
+        assertThat(analysis.unsatisfiable(new RelationInFilter(List.of(1L))), is(false));
+
+    }
+
+    public static class InFilter
+           extends Filter<Foo> {
+
+        private final Integer value;
+        private final Collection<? extends Number> values;
+
+        InFilter(final Integer value,
+                 final Collection<? extends Number> values) {
+
+            this.value = value;
+            this.values = values;
+
+        }
+
+        @Parameter(name = "value")
+        public Integer getValue() {
+            return value;
+        }
+
+        @Parameter(name = "value",
+                   restriction = Restriction.IN)
+        public Collection<? extends Number> getValues() {
+            return values;
+        }
+
+    }
+
+    public static class TextFilter
+           extends Filter<Foo> {
+
+        private final String value;
+        private final Collection<String> values;
+
+        TextFilter(final String value,
+                   final Collection<String> values) {
+
+            this.value = value;
+            this.values = values;
+
+        }
+
+        @Parameter(name = "value")
+        public String getValue() {
+            return value;
+        }
+
+        @Parameter(name = "value",
+                   restriction = Restriction.IN)
+        public Collection<String> getValues() {
+            return values;
+        }
+
+    }
+
+    public static class NullityFilter
+           extends Filter<Foo> {
+
+        @Parameter(name = "value",
+                   restriction = Restriction.IS_NULL)
+        public Integer getNull() {
+            return null;
+        }
+
+        @Parameter(name = "value",
+                   restriction = Restriction.IS_NOT_NULL)
+        public Integer getNotNull() {
+            return null;
+        }
+
+    }
+
+    public static class RangeFilter
+           extends Filter<Foo> {
+
+        private final Comparable<?> lower;
+        private final Comparable<?> upper;
+
+        RangeFilter(final Comparable<?> lower,
+                    final Comparable<?> upper) {
+
+            this.lower = lower;
+            this.upper = upper;
+
+        }
+
+        @Parameter(name = "value",
+                   restriction = Restriction.GREATER_THAN_OR_EQUALS)
+        public Comparable<?> getLower() {
+            return lower;
+        }
+
+        @Parameter(name = "value",
+                   restriction = Restriction.LESS_THAN)
+        public Comparable<?> getUpper() {
+            return upper;
+        }
+
+    }
+
+    public static class AnyInFilter
+           extends Filter<Foo> {
+
+        private final Collection<Integer> values;
+        private final Collection<Integer> others;
+
+        AnyInFilter(final Collection<Integer> values,
+                    final Collection<Integer> others) {
+
+            this.values = values;
+            this.others = others;
+
+        }
+
+        @Parameter(name = "value",
+                   restriction = Restriction.IN,
+                   combinate = @Combination(group = "any",
+                                            combine = Combination.Combine.OR))
+        public Collection<Integer> getOthers() {
+            return others;
+        }
+
+        @Parameter(name = "value",
+                   restriction = Restriction.IN,
+                   combinate = @Combination(group = "any",
+                                            combine = Combination.Combine.OR))
+        public Collection<Integer> getValues() {
+            return values;
+        }
+
+    }
+
+    public static class RelationInFilter
+           extends Filter<Foo> {
+
+        private final Collection<Long> barIds;
+
+        RelationInFilter(final Collection<Long> barIds) {
+
+            this.barIds = barIds;
+
+        }
+
+        @Relations(@Relation(name = "bars",
+                             iterable = true,
+                             parameters = @Parameter(name = "id",
+                                                     restriction = Restriction.IN)))
+        public Collection<Long> getBarIds() {
+            return barIds;
+        }
+
+    }
+
+}
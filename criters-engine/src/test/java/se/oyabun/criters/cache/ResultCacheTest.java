@@ -0,0 +1,282 @@
+/*
+ * Copyright 2017 Oyabun AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.oyabun.criters.cache;
+
+import org.junit.jupiter.api.Test;
+import se.oyabun.criters.criteria.Filter;
+import se.oyabun.criters.criteria.Parameter;
+import se.oyabun.criters.criteria.Relation;
+import se.oyabun.criters.criteria.Relations;
+import se.oyabun.criters.criteria.Restriction;
+import se.oyabun.criters.exception.InvalidCritersFilteringException;
+import se.oyabun.criters.test.data.Baz;
+import se.oyabun.criters.test.data.Foo;
+import se.oyabun.criters.test.filter.BazLikeFilter;
+import se.oyabun.criters.test.filter.FooAnyRangeFilter;
+import se.oyabun.criters.test.filter.FooValueFilter;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static se.oyabun.criters.test.data.Entities.baz;
+import static se.oyabun.criters.test.data.Entities.foo;
+
+/**
+ * Result cache verification tests
+ *
+ * @author Daniel Sundberg
+ */
+public class ResultCacheTest {
+
+    private final AtomicLong ticker = new AtomicLong();
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private final ResultCache resultCache = new ResultCache(2, 100L, ticker::get, false);
+
+    private final ResultCache subsumingCache = new ResultCache(10, 100L, ticker::get, true);
+
+    @Test
+    public void testHits()
+            throws InvalidCritersFilteringException {
+
+        assertThat(count(new FooValueFilter(1, List.of(1, 2))), is(1L));
+        assertThat(count(new FooValueFilter(1, List.of(2, 1))), is(1L));
+        assertThat(count(new FooValueFilter(2, List.of(1, 2))), is(2L));
+        assertThat(resultCache.list(new FooValueFilter(1, List.of(1, 2)), Relation.Strategy.JOIN, List::of).isEmpty(), is(true));
+        assertThat(loads.get(), is(2));
+
+    }
+
+    @Test
+    public void testExpiry()
+            throws InvalidCritersFilteringException {
+
+        count(new FooValueFilter(1, null));
+        ticker.addAndGet(99L);
+        count(new FooValueFilter(1, null));
+        ticker.addAndGet(1L);
+        count(new FooValueFilter(1, null));
+
+        assertThat(loads.get(), is(2));
+
+    }
+
+    @Test
+    public void testEviction()
+            throws InvalidCritersFilteringException {
+
+        count(new FooValueFilter(1, null));
+        count(new FooValueFilter(2, null));
+        count(new FooValueFilter(1, null));
+        count(new FooValueFilter(3, null));
+
+        assertThat(resultCache.size(), is(2));
+
+        count(new FooValueFilter(1, null));
+        count(new FooValueFilter(2, null));
+
+        assertThat(loads.get(), is(4));
+
+    }
+
+    @Test
+    public void testInvalidation()
+            throws InvalidCritersFilteringException {
+
+        count(new FooValueFilter(1, null));
+        count(new BazFilter(1L));
+
+        resultCache.invalidate(String.class);
+
+        assertThat(resultCache.size(), is(2));
+
+        resultCache.invalidate(Baz.class);
+
+        assertThat(resultCache.size(), is(1));
+
+        resultCache.invalidate(Foo.class);
+
+        assertThat(resultCache.size(), is(0));
+
+    }
+
+    @Test
+    public void testInvalidationWhileLoading()
+            throws InvalidCritersFilteringException {
+
+        resultCache.count(new FooValueFilter(1, null), Relation.Strategy.JOIN, () -> {
+
+            resultCache.invalidate(Foo.class);
+
+            return 1L;
+
+        });
+
+        assertThat(resultCache.size(), is(0));
+
+    }
+
+    @Test
+    public void testInvalidationOnCompletion()
+            throws InvalidCritersFilteringException {
+
+        final ResultCache registeredCache = ResultCache.of(10, Duration.ofMinutes(1));
+        final ResultCacheListener listener = new ResultCacheListener();
+
+        registeredCache.count(new FooValueFilter(1, null), Relation.Strategy.JOIN, () -> 1L);
+        listener.invalidate(new Foo());
+
+        assertThat(registeredCache.size(), is(0));
+
+        //
+        // Results loaded by another transaction between the flush and the commit.
+        //
+        registeredCache.count(new FooValueFilter(1, null), Relation.Strategy.JOIN, () -> 1L);
+        ResultCacheListener.completed();
+
+        assertThat(registeredCache.size(), is(0));
+
+        registeredCache.count(new FooValueFilter(1, null), Relation.Strategy.JOIN, () -> 1L);
+        ResultCacheListener.completed();
+
+        assertThat(registeredCache.size(), is(1));
+
+    }
+
+    @Test
+    public void testSubsumption()
+            throws InvalidCritersFilteringException {
+
+        final List<Foo> foos = List.of(foo(5), foo(15), foo(25));
+
+        assertThat(subsumingCache.list(new RangeFilter(0, 100), Relation.Strategy.JOIN, () -> foos), is(foos));
+        assertThat(subsumingCache.list(new RangeFilter(10, 100), Relation.Strategy.JOIN, this::fail), is(List.of(foos.get(1), foos.get(2))));
+        assertThat(subsumingCache.list(new RangeFilter(10, 20), Relation.Strategy.JOIN, this::fail), is(List.of(foos.get(1))));
+        assertThat(subsumingCache.count(new RangeFilter(0, 20), Relation.Strategy.JOIN, this::fail), is(2L));
+        assertThat(subsumingCache.count(new RangeFilter(0, 100), Relation.Strategy.JOIN, this::fail), is(3L));
+
+        assertThat(resultCache.list(new RangeFilter(0, 100), Relation.Strategy.JOIN, () -> foos), is(foos));
+        assertThat(resultCache.list(new RangeFilter(10, 100), Relation.Strategy.JOIN, List::of).isEmpty(), is(true));
+
+    }
+
+    @Test
+    public void testTypeAhead()
+            throws InvalidCritersFilteringException {
+
+        final List<Baz> bazs = List.of(baz("abc"), baz("abd"), baz("ab"));
+
+        subsumingCache.list(new BazLikeFilter("ab%"), Relation.Strategy.JOIN, () -> bazs);
+
+        assertThat(subsumingCache.list(new BazLikeFilter("abc%"), Relation.Strategy.JOIN, this::fail), is(List.of(bazs.get(0))));
+        assertThat(subsumingCache.count(new BazLikeFilter("ab_"), Relation.Strategy.JOIN, this::fail), is(2L));
+
+    }
+
+    @Test
+    public void testBroaderSearchesAreLoaded()
+            throws InvalidCritersFilteringException {
+
+        subsumingCache.list(new RangeFilter(10, 100), Relation.Strategy.JOIN, () -> List.of(foo(25)));
+        subsumingCache.list(new FooAnyRangeFilter(10, 0), Relation.Strategy.JOIN, () -> List.of(foo(25)));
+
+        assertThat(subsumingCache.list(new RangeFilter(5, 100), Relation.Strategy.JOIN, List::of).isEmpty(), is(true));
+        assertThat(subsumingCache.list(new RangeFilter(null, 100), Relation.Strategy.JOIN, List::of).isEmpty(), is(true));
+        assertThat(subsumingCache.list(new FooAnyRangeFilter(20, 0), Relation.Strategy.JOIN, List::of).isEmpty(), is(true));
+
+    }
+
+    @Test
+    public void testInvalidConfiguration() {
+
+        assertThrows(IllegalArgumentException.class, () -> ResultCache.of(0, Duration.ofSeconds(1)));
+        assertThrows(IllegalArgumentException.class, () -> ResultCache.of(1, Duration.ZERO));
+
+    }
+
+    private <T> T fail() {
+
+        throw new AssertionError("Subsumed search was loaded.");
+
+    }
+
+    private long count(final Filter<Foo> filter)
+            throws InvalidCritersFilteringException {
+
+        return resultCache.count(filter, Relation.Strategy.JOIN, () -> (long) loads.incrementAndGet());
+
+    }
+
+    public static class RangeFilter
+           extends Filter<Foo> {
+
+        private final Integer minimum;
+        private final Integer maximum;
+
+        RangeFilter(final Integer minimum,
+                    final Integer maximum) {
+
+            this.minimum = minimum;
+            this.maximum = maximum;
+
+        }
+
+        @Parameter(name = "value",
+                   restriction = Restriction.GREATER_THAN)
+        public Integer getMinimum() {
+            return minimum;
+        }
+
+        @Parameter(name = "value",
+                   restriction = Restriction.LESS_THAN)
+        public Integer getMaximum() {
+            return maximum;
+        }
+
+    }
+
+    public static class BazFilter
+           extends Filter<Foo> {
+
+        private final Long bazId;
+
+        BazFilter(final Long bazId) {
+
+            this.bazId = bazId;
+
+        }
+
+        @Relations({
+                @Relation(name = "bars",
+                          iterable = true),
+                @Relation(name = "baz",
+                          parameters = {
+                        @Parameter(name = "id")
+                })
+        })
+        public Long getBazId() {
+            return bazId;
+        }
+
+    }
+
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2017 Oyabun AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.oyabun.criters.extraction;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import se.oyabun.criters.exception.InvalidCritersFilteringException;
+import se.oyabun.criters.metadata.Accessor;
+
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.ParameterExpression;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Placeholder binding verification tests
+ *
+ * @author Daniel Sundberg
+ */
+@ExtendWith(MockitoExtension.class)
+public class BindingsTest {
+
+    @Mock
+    private CriteriaBuilder criteriaBuilderMock;
+
+    @Mock
+    private ParameterExpression<Object> parameterMock;
+
+    @Mock
+    private TypedQuery<Object> queryMock;
+
+    @Test
+    public void testBindElements()
+            throws InvalidCritersFilteringException {
+
+        when(criteriaBuilderMock.parameter(any())).thenReturn(parameterMock);
+
+        final Bindings bindings = new Bindings();
+
+        bindings.elements(criteriaBuilderMock, Integer.class, Accessor.of(List.class, filter -> filter), 1);
+        bindings.bind(queryMock, List.of(5));
+
+        verify(queryMock).setParameter(parameterMock, 5);
+
+    }
+
+    @Test
+    public void testBindMissingElements() {
+
+        when(criteriaBuilderMock.parameter(any())).thenReturn(parameterMock);
+
+        final Bindings bindings = new Bindings();
+
+        bindings.elements(criteriaBuilderMock, Integer.class, Accessor.of(List.class, filter -> null), 1);
+
+        assertThrows(InvalidCritersFilteringException.class, () -> bindings.bind(queryMock, new Object()));
+
+    }
+
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2017 Oyabun AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.oyabun.criters.extraction;
+
+import org.junit.jupiter.api.Test;
+import se.oyabun.criters.criteria.Filter;
+import se.oyabun.criters.test.data.Foo;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import java.util.Optional;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Extractor registry verification tests
+ *
+ * @author Daniel Sundberg
+ */
+public class ExtractorsTest {
+
+    @Test
+    public void testGeneratedExtractor() {
+
+        assertThat(Extractors.of(GeneratedFilter.class).size(), is(1));
+        assertThat(Extractors.of(GeneratedFilter.class).get(0),
+                   is(instanceOf(GeneratedFilter_Criters.class)));
+        assertThat(Extractors.of(GeneratedFilter.class),
+                   is(sameInstance(Extractors.of(GeneratedFilter.class))));
+
+    }
+
+    @Test
+    public void testReflectiveExtractors() {
+
+        assertThat(Extractors.of(ReflectiveFilter.class),
+                   is(sameInstance(Extractors.reflective())));
+
+    }
+
+    public static class GeneratedFilter
+            extends Filter<Foo> {}
+
+    public static class GeneratedFilter_Criters
+            implements Extractor {
+
+        @Override
+        public <E, S extends Filter<E>> Optional<Predicate> generatePredicate(final S filter,
+                                                                              final CriteriaBuilder criteriaBuilder,
+                                                                              final Root<E> root) {
+
+            return Optional.empty();
+
+        }
+
+        @Override
+        public <E, S extends Filter<E>> Optional<Predicate> generatePredicate(final S filter,
+                                                                              final ExtractionContext<E> context) {
+
+            return Optional.empty();
+
+        }
+
+    }
+
+    public static class ReflectiveFilter
+            extends Filter<Foo> {}
+
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2017 Oyabun AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.oyabun.criters.extraction;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import se.oyabun.criters.criteria.Relation;
+import se.oyabun.criters.criteria.Relations;
+import se.oyabun.criters.test.data.Foo;
+
+import jakarta.persistence.criteria.From;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Root;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Join registry verification tests
+ *
+ * @author Daniel Sundberg
+ */
+@ExtendWith(MockitoExtension.class)
+public class JoinsTest {
+
+    @Mock
+    private Root<Foo> rootMock;
+
+    @Mock
+    private Join<Foo, Object> barsJoinMock;
+
+    @Mock
+    private Join<Object, Object> bazJoinMock;
+
+    @Test
+    public void testSharedPathIsJoinedOnce()
+            throws Exception {
+
+        doReturn(barsJoinMock).when(rootMock).join("bars");
+        doReturn(bazJoinMock).when(barsJoinMock).join("baz");
+
+        final Joins joins = new Joins();
+
+        final List<From<?, ?>> bars = joins.join(rootMock, "", path("getBars"));
+        final List<From<?, ?>> baz = joins.join(rootMock, "", path("getBaz"));
+
+        assertThat(bars.getFirst(), is(sameInstance(barsJoinMock)));
+        assertThat(baz.get(0), is(sameInstance(barsJoinMock)));
+        assertThat(baz.get(1), is(sameInstance(bazJoinMock)));
+        assertThat(joins.size(), is(2));
+        assertThat(joins.hasIterableJoins(), is(true));
+
+        verify(rootMock, times(1)).join("bars");
+
+    }
+
+    @Test
+    public void testAliasedPathIsJoinedSeparately()
+            throws Exception {
+
+        doReturn(barsJoinMock).when(rootMock).join("bars");
+
+        final Joins joins = new Joins();
+
+        joins.join(rootMock, "", path("getBars"));
+        joins.join(rootMock, "other", path("getBars"));
+
+        assertThat(joins.size(), is(2));
+
+        verify(rootMock, times(2)).join("bars");
+
+    }
+
+    @Test
+    public void testToOneJoinsAreNotIterable()
+            throws Exception {
+
+        doReturn(bazJoinMock).when(rootMock).join("baz");
+
+        final Joins joins = new Joins();
+
+        joins.join(rootMock, "", path("getOwnBaz"));
+
+        assertThat(joins.size(), is(1));
+        assertThat(joins.hasIterableJoins(), is(false));
+
+    }
+
+    private static List<Relation> path(final String method)
+            throws NoSuchMethodException {
+
+        return List.of(Paths.class.getMethod(method).getAnnotation(Relations.class).value());
+
+    }
+
+    public interface Paths {
+
+        @Relations(@Relation(name = "bars", iterable = true))
+        Object getBars();
+
+        @Relations({@Relation(name = "bars", iterable = true),
+                    @Relation(name = "baz")})
+        Object getBaz();
+
+        @Relations(@Relation(name = "baz"))
+        Object getOwnBaz();
+
+    }
+
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2017 Oyabun AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.oyabun.criters.extraction;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import se.oyabun.criters.criteria.Combination;
+import se.oyabun.criters.criteria.Filter;
+import se.oyabun.criters.criteria.Parameter;
+import se.oyabun.criters.criteria.Relation;
+import se.oyabun.criters.criteria.Relations;
+import se.oyabun.criters.criteria.Restriction;
+import se.oyabun.criters.exception.InvalidCritersFilteringException;
+import se.oyabun.criters.metadata.MetamodelIndex;
+import se.oyabun.criters.test.data.Foo;
+import se.oyabun.criters.test.filter.FooMixedGroupFilter;
+
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.metamodel.Metamodel;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.when;
+
+/**
+ * JPQL renderer verification tests
+ *
+ * @author Daniel Sundberg
+ */
+@ExtendWith(MockitoExtension.class)
+public class JpqlRendererTest {
+
+    @Mock
+    private EntityManagerFactory entityManagerFactoryMock;
+
+    @Mock
+    private Metamodel metamodelMock;
+
+    @Test
+    public void testRenderJoins()
+            throws InvalidCritersFilteringException {
+
+        assertThat(render(new TestFilter(List.of(1, 2, 3)), Relation.Strategy.JOIN),
+                   is("select e from Foo e join e.bars j0 join j0.baz j1 " +
+                      "where (e.value in :p0 or e.value = :p1) and j1.value = :p2"));
+
+    }
+
+    @Test
+    public void testRenderExists()
+            throws InvalidCritersFilteringException {
+
+        assertThat(render(new TestFilter(List.of(1)), Relation.Strategy.EXISTS),
+                   is("select e from Foo e " +
+                      "where (e.value in :p0 or e.value = :p1) and " +
+                      "exists (select s0 from e.bars s0 join s0.baz j1 where j1.value = :p2)"));
+
+    }
+
+    @Test
+    public void testRenderMixedGroupExists()
+            throws InvalidCritersFilteringException {
+
+        assertThat(render(new FooMixedGroupFilter(1L, "a", "b"), Relation.Strategy.JOIN),
+                   is("select e from Foo e join e.bars j0 " +
+                      "where (j0.id = :p0 or exists (select s1 from e.bars s1 join s1.baz j2 where j2.value = :p1)) and " +
+                      "exists (select s3 from e.bars s3 join s3.baz j4 where j4.value = :p2)"));
+
+    }
+
+    @Test
+    public void testRenderEmptyCollection()
+            throws InvalidCritersFilteringException {
+
+        assertThat(render(new TestFilter(List.of()), Relation.Strategy.JOIN),
+                   is("select e from Foo e join e.bars j0 join j0.baz j1 " +
+                      "where (1 = 0 or e.value = :p0) and j1.value = :p1"));
+
+    }
+
+    @Test
+    public void testRenderFlatRuns()
+            throws InvalidCritersFilteringException {
+
+        assertThat(render(new RunFilter(), Relation.Strategy.JOIN),
+                   is("select e from Foo e " +
+                      "where ((e.value in :p0 or e.value = :p1 or e.value > :p2) and e.value < :p3)"));
+
+    }
+
+    private String render(final Filter<Foo> filter,
+                          final Relation.Strategy strategy)
+            throws InvalidCritersFilteringException {
+
+        when(entityManagerFactoryMock.getMetamodel()).thenReturn(metamodelMock);
+        when(metamodelMock.getEntities()).thenReturn(Set.of());
+
+        return JpqlRenderer.render(MetamodelIndex.of(entityManagerFactoryMock),
+                                   filter,
+                                   strategy,
+                                   new Bindings());
+
+    }
+
+    public static class TestFilter
+           extends Filter<Foo> {
+
+        private final Collection<Integer> values;
+
+        public TestFilter(final Collection<Integer> values) {
+
+            this.values = values;
+
+        }
+
+        @Parameter(name = "value",
+                   restriction = Restriction.IN,
+                   combinate = @Combination(group = "value",
+                                            combine = Combination.Combine.OR))
+        public Collection<Integer> getIn() {
+            return values;
+        }
+
+        @Parameter(name = "value",
+                   combinate = @Combination(group = "value",
+                                            combine = Combination.Combine.OR))
+        public Integer getValue() {
+            return 1;
+        }
+
+        @Relations({
+                @Relation(name = "bars",
+                          iterable = true),
+                @Relation(name = "baz",
+                          parameters = @Parameter(name = "value"))
+        })
+        public String getBazValue() {
+            return "value";
+        }
+
+    }
+
+    public static class RunFilter
+           extends Filter<Foo> {
+
+        @Parameter(name = "value",
+                   restriction = Restriction.IN,
+                   combinate = @Combination(group = "value",
+                                            combine = Combination.Combine.OR))
+        public Collection<Integer> getA() {
+            return List.of(1);
+        }
+
+        @Parameter(name = "value",
+                   combinate = @Combination(group = "value",
+                                            combine = Combination.Combine.OR))
+        public Integer getB() {
+            return 2;
+        }
+
+        @Parameter(name = "value",
+                   restriction = Restriction.GREATER_THAN,
+                   combinate = @Combination(group = "value",
+                                            combine = Combination.Combine.OR))
+        public Integer getC() {
+            return 3;
+        }
+
+        @Parameter(name = "value",
+                   restriction = Restriction.LESS_THAN,
+                   combinate = @Combination(group = "value"))
+        public Integer getD() {
+            return 4;
+        }
+
+    }
+
+}
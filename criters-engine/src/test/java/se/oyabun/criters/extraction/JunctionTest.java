@@ -0,0 +1,88 @@
+/*
+ * Copyright 2017 Oyabun AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.oyabun.criters.extraction;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import se.oyabun.criters.criteria.Combination;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Predicate;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.when;
+
+/**
+ * Ordered predicate combination verification tests
+ *
+ * @author Daniel Sundberg
+ */
+@ExtendWith(MockitoExtension.class)
+public class JunctionTest {
+
+    @Mock
+    private CriteriaBuilder criteriaBuilderMock;
+
+    @Mock
+    private Predicate firstMock;
+
+    @Mock
+    private Predicate secondMock;
+
+    @Mock
+    private Predicate thirdMock;
+
+    @Mock
+    private Predicate fourthMock;
+
+    @Mock
+    private Predicate conjunctionMock;
+
+    @Mock
+    private Predicate disjunctionMock;
+
+    @Test
+    public void testRunsAreCombinedOnce() {
+
+        when(criteriaBuilderMock.and(firstMock, secondMock, thirdMock)).thenReturn(conjunctionMock);
+        when(criteriaBuilderMock.or(new Predicate[] {conjunctionMock, fourthMock})).thenReturn(disjunctionMock);
+
+        final Predicate predicate = new Junction(criteriaBuilderMock)
+                .add(Combination.Combine.OR, firstMock)
+                .add(Combination.Combine.AND, secondMock)
+                .add(Combination.Combine.AND, thirdMock)
+                .add(Combination.Combine.OR, fourthMock)
+                .build();
+
+        assertThat(predicate, is(sameInstance(disjunctionMock)));
+
+    }
+
+    @Test
+    public void testSinglePredicateIsKept() {
+
+        assertThat(new Junction(criteriaBuilderMock).add(Combination.Combine.OR, firstMock).build(),
+                   is(sameInstance(firstMock)));
+        assertThrows(IllegalStateException.class, () -> new Junction(criteriaBuilderMock).build());
+
+    }
+
+}
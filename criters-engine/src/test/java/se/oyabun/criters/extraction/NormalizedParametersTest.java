@@ -0,0 +1,245 @@
+/*
+ * Copyright 2017 Oyabun AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.oyabun.criters.extraction;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import se.oyabun.criters.criteria.Combination;
+import se.oyabun.criters.criteria.Filter;
+import se.oyabun.criters.criteria.Parameter;
+import se.oyabun.criters.criteria.Restriction;
+import se.oyabun.criters.exception.InvalidCritersFilteringException;
+import se.oyabun.criters.test.data.Foo;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.doReturn;
+
+/**
+ * Normalized parameters verification tests
+ *
+ * @author Daniel Sundberg
+ */
+@ExtendWith(MockitoExtension.class)
+public class NormalizedParametersTest {
+
+    @Mock
+    private CriteriaBuilder criteriaBuilderMock;
+
+    @Mock
+    private Root<Foo> rootMock;
+
+    @Mock
+    private Path<Integer> pathMock;
+
+    @Mock
+    private Predicate predicateMock;
+
+    @Mock
+    private Predicate firstMock;
+
+    @Mock
+    private Predicate secondMock;
+
+    @Mock
+    private Predicate thirdMock;
+
+    @Mock
+    private Predicate disjunctionMock;
+
+    @Test
+    public void testEqualitiesBecomeIn()
+            throws InvalidCritersFilteringException {
+
+        doReturn(pathMock).when(rootMock).get("value");
+        doReturn(predicateMock).when(pathMock).in(Set.of(1, 2));
+
+        final NormalizedParameters parameters = NormalizedParameters.of(AnyValueFilter.class);
+
+        assertThat(parameters.size(), is(1));
+        assertThat(parameters.generatePredicate(new AnyValueFilter(), ExtractionContext.of(criteriaBuilderMock, rootMock)),
+                   is(Optional.of(predicateMock)));
+
+    }
+
+    @Test
+    public void testRangeBecomesBetween()
+            throws InvalidCritersFilteringException {
+
+        doReturn(pathMock).when(rootMock).get("value");
+        doReturn(predicateMock).when(criteriaBuilderMock).between(pathMock, 1, 5);
+
+        final NormalizedParameters parameters = NormalizedParameters.of(RangeFilter.class);
+
+        assertThat(parameters.size(), is(1));
+        assertThat(parameters.generatePredicate(new RangeFilter(), ExtractionContext.of(criteriaBuilderMock, rootMock))
+                             .orElseThrow(),
+                   is(sameInstance(predicateMock)));
+
+    }
+
+    @Test
+    public void testRepeatedNullityIsDropped() {
+
+        assertThat(NormalizedParameters.of(NullFilter.class).size(), is(1));
+
+    }
+
+    @Test
+    public void testMixedGroupsAreKept() {
+
+        assertThat(NormalizedParameters.of(MixedFilter.class).size(), is(3));
+
+    }
+
+    @Test
+    public void testMixedGroupsFoldInGetterNameOrder()
+            throws InvalidCritersFilteringException {
+
+        doReturn(pathMock).when(rootMock).get("value");
+        doReturn(firstMock).when(criteriaBuilderMock).equal(pathMock, 1);
+        doReturn(secondMock).when(criteriaBuilderMock).equal(pathMock, 2);
+        doReturn(thirdMock).when(criteriaBuilderMock).equal(pathMock, 3);
+        doReturn(disjunctionMock).when(criteriaBuilderMock).or(new Predicate[] {firstMock, secondMock});
+        doReturn(predicateMock).when(criteriaBuilderMock).and(new Predicate[] {disjunctionMock, thirdMock});
+
+        assertThat(NormalizedParameters.of(ReversedMixedFilter.class)
+                                       .generatePredicate(new ReversedMixedFilter(),
+                                                          ExtractionContext.of(criteriaBuilderMock, rootMock))
+                                       .orElseThrow(),
+                   is(sameInstance(predicateMock)));
+
+    }
+
+    public static class AnyValueFilter
+           extends Filter<Foo> {
+
+        @Parameter(name = "value",
+                   combinate = @Combination(group = "any",
+                                            combine = Combination.Combine.OR))
+        public Integer getFirst() {
+            return 1;
+        }
+
+        @Parameter(name = "value",
+                   combinate = @Combination(group = "any",
+                                            combine = Combination.Combine.OR))
+        public Integer getSecond() {
+            return 2;
+        }
+
+        @Parameter(name = "value",
+                   combinate = @Combination(group = "any",
+                                            combine = Combination.Combine.OR))
+        public Integer getThird() {
+            return 2;
+        }
+
+    }
+
+    public static class RangeFilter
+           extends Filter<Foo> {
+
+        @Parameter(name = "value",
+                   restriction = Restriction.GREATER_THAN_OR_EQUALS)
+        public Integer getLower() {
+            return 1;
+        }
+
+        @Parameter(name = "value",
+                   restriction = Restriction.LESS_THAN_OR_EQUALS)
+        public Integer getUpper() {
+            return 5;
+        }
+
+    }
+
+    public static class NullFilter
+           extends Filter<Foo> {
+
+        @Parameter(name = "value",
+                   restriction = Restriction.IS_NULL)
+        public Integer getNull() {
+            return null;
+        }
+
+        @Parameter(name = "value",
+                   restriction = Restriction.IS_NULL)
+        public Integer getOtherNull() {
+            return null;
+        }
+
+    }
+
+    public static class MixedFilter
+           extends Filter<Foo> {
+
+        @Parameter(name = "value",
+                   combinate = @Combination(group = "mixed"))
+        public Integer getFirst() {
+            return 1;
+        }
+
+        @Parameter(name = "value",
+                   combinate = @Combination(group = "mixed",
+                                            combine = Combination.Combine.OR))
+        public Integer getSecond() {
+            return 2;
+        }
+
+        @Parameter(name = "value",
+                   combinate = @Combination(group = "mixed"))
+        public Integer getThird() {
+            return 3;
+        }
+
+    }
+
+    public static class ReversedMixedFilter
+           extends Filter<Foo> {
+
+        @Parameter(name = "value",
+                   combinate = @Combination(group = "mixed"))
+        public Integer getThird() {
+            return 3;
+        }
+
+        @Parameter(name = "value",
+                   combinate = @Combination(group = "mixed",
+                                            combine = Combination.Combine.OR))
+        public Integer getSecond() {
+            return 2;
+        }
+
+        @Parameter(name = "value",
+                   combinate = @Combination(group = "mixed"))
+        public Integer getFirst() {
+            return 1;
+        }
+
+    }
+
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2017 Oyabun AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.oyabun.criters.metadata;
+
+import org.junit.jupiter.api.Test;
+import se.oyabun.criters.exception.InvalidCritersFilteringException;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Compiled getter accessor verification tests
+ *
+ * @author Daniel Sundberg
+ */
+public class AccessorTest {
+
+    private static final long ID = 1337L;
+    private static final String VALUE = "VALUE";
+
+    @Test
+    public void testPrimitiveGetter()
+            throws Exception {
+
+        final Accessor accessor = Accessor.of(TestBean.class.getMethod("getId"));
+
+        assertThat(accessor.type(), is(long.class));
+        assertThat(accessor.get(new TestBean()), is(ID));
+
+    }
+
+    @Test
+    public void testObjectGetter()
+            throws Exception {
+
+        assertThat(Accessor.of(TestBean.class.getMethod("getValue")).get(new TestBean()), is(VALUE));
+
+    }
+
+    @Test
+    public void testAnonymousClassGetter()
+            throws Exception {
+
+        final Object anonymous = new Object() {
+
+            public String getValue() {
+                return VALUE;
+            }
+
+        };
+
+        assertThat(Accessor.of(anonymous.getClass().getMethod("getValue")).get(anonymous), is(VALUE));
+
+    }
+
+    @Test
+    public void testFailingGetter()
+            throws Exception {
+
+        final Accessor accessor = Accessor.of(TestBean.class.getMethod("getFailure"));
+
+        final InvalidCritersFilteringException exception =
+                assertThrows(InvalidCritersFilteringException.class,
+                             () -> accessor.get(new TestBean()));
+
+        assertThat(exception.getCause(), is(instanceOf(UnsupportedOperationException.class)));
+
+    }
+
+    @Test
+    public void testNonGetter() {
+
+        assertThrows(IllegalArgumentException.class,
+                     () -> Accessor.of(TestBean.class.getMethod("setValue", String.class)));
+
+    }
+
+    public static class TestBean {
+
+        public long getId() {
+            return ID;
+        }
+
+        public String getValue() {
+            return VALUE;
+        }
+
+        public void setValue(final String value) {}
+
+        public String getFailure() {
+            throw new UnsupportedOperationException();
+        }
+
+    }
+
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2017 Oyabun AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.oyabun.criters.metadata;
+
+import org.junit.jupiter.api.Test;
+import se.oyabun.criters.criteria.Filter;
+import se.oyabun.criters.criteria.Parameter;
+import se.oyabun.criters.criteria.Relation;
+import se.oyabun.criters.criteria.Relations;
+import se.oyabun.criters.criteria.Restriction;
+import se.oyabun.criters.exception.InvalidCritersFilteringException;
+import se.oyabun.criters.test.data.Foo;
+
+import java.util.Collection;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Filter shape fingerprint verification tests
+ *
+ * @author Daniel Sundberg
+ */
+public class FilterFingerprintTest {
+
+    @Test
+    public void testValuesAreIgnored()
+            throws InvalidCritersFilteringException {
+
+        final FilterFingerprint first = FilterFingerprint.of(new TestFilter(1, List.of(1, 2), "a"));
+        final FilterFingerprint second = FilterFingerprint.of(new TestFilter(2, List.of(3, 4), "b"));
+
+        assertThat(first, is(second));
+        assertThat(first.value(), is(second.value()));
+
+    }
+
+    @Test
+    public void testNullValuesAreIgnored()
+            throws InvalidCritersFilteringException {
+
+        final FilterFingerprint value = FilterFingerprint.of(new TestFilter(1, List.of(1), "a"));
+        final FilterFingerprint nullValue = FilterFingerprint.of(new TestFilter(null, List.of(1), null));
+
+        assertThat(value, is(nullValue));
+        assertThat(nullValue.collectionSize(1), is(-1));
+
+    }
+
+    @Test
+    public void testCollectionSizeChangesShape()
+            throws InvalidCritersFilteringException {
+
+        final FilterFingerprint single = FilterFingerprint.of(new TestFilter(1, List.of(1), "a"));
+        final FilterFingerprint pair = FilterFingerprint.of(new TestFilter(1, List.of(1, 2), "a"));
+
+        assertThat(single, is(not(pair)));
+        assertThat(pair.collectionSize(0), is(2));
+
+    }
+
+    @Test
+    public void testCollectionSizeMapping()
+            throws InvalidCritersFilteringException {
+
+        final FilterFingerprint three = FilterFingerprint.of(new TestFilter(1, List.of(1, 2, 3), "a"), size -> 4);
+        final FilterFingerprint four = FilterFingerprint.of(new TestFilter(1, List.of(1, 2, 3, 4), "a"), size -> 4);
+
+        assertThat(three, is(four));
+
+    }
+
+    @Test
+    public void testFilterClassChangesShape()
+            throws InvalidCritersFilteringException {
+
+        final FilterFingerprint filter = FilterFingerprint.of(new TestFilter(1, List.of(1), "a"));
+        final FilterFingerprint other = FilterFingerprint.of(new OtherTestFilter(1));
+
+        assertThat(filter, is(not(other)));
+        assertThat(filter.value(), is(not(other.value())));
+
+    }
+
+    public static class TestFilter
+           extends Filter<Foo> {
+
+        private final Integer value;
+        private final Collection<Integer> values;
+        private final String bazValue;
+
+        public TestFilter(final Integer value,
+                          final Collection<Integer> values,
+                          final String bazValue) {
+
+            this.value = value;
+            this.values = values;
+            this.bazValue = bazValue;
+
+        }
+
+        @Parameter(name = "value",
+                   restriction = Restriction.IN)
+        public Collection<Integer> getIn() {
+            return values;
+        }
+
+        @Parameter(name = "value")
+        public Integer getValue() {
+            return value;
+        }
+
+        @Relations({
+                @Relation(name = "bars",
+                          iterable = true),
+                @Relation(name = "baz",
+                          parameters = @Parameter(name = "value"))
+        })
+        public String getBazValue() {
+            return bazValue;
+        }
+
+    }
+
+    public static class OtherTestFilter
+           extends Filter<Foo> {
+
+        private final Integer value;
+
+        public OtherTestFilter(final Integer value) {
+
+            this.value = value;
+
+        }
+
+        @Parameter(name = "value")
+        public Integer getValue() {
+            return value;
+        }
+
+    }
+
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2017 Oyabun AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.oyabun.criters.metadata;
+
+import org.junit.jupiter.api.Test;
+import se.oyabun.criters.criteria.Combination;
+import se.oyabun.criters.criteria.Filter;
+import se.oyabun.criters.criteria.Parameter;
+import se.oyabun.criters.criteria.Relation;
+import se.oyabun.criters.criteria.Relations;
+import se.oyabun.criters.criteria.Restriction;
+import se.oyabun.criters.exception.InvalidCritersFilteringException;
+import se.oyabun.criters.test.data.Foo;
+
+import java.util.stream.Collectors;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Filter metadata registry verification tests
+ *
+ * @author Daniel Sundberg
+ */
+public class FilterMetadataTest {
+
+    private static final String GROUP = "GROUP";
+
+    @Test
+    public void testMetadataIsCachedPerClass() {
+
+        assertThat(FilterMetadata.of(new TestFilter()),
+                   is(sameInstance(FilterMetadata.of(TestFilter.class))));
+
+    }
+
+    @Test
+    public void testParameters() {
+
+        final FilterMetadata metadata = FilterMetadata.of(TestFilter.class);
+
+        assertThat(metadata.parameters()
+                           .stream()
+                           .map(parameter -> parameter.method().getName())
+                           .collect(Collectors.toList()),
+                   contains("getFirst", "getSecond"));
+
+        assertThat(metadata.parameters().get(1).group(), is(GROUP));
+        assertThat(metadata.parameters().get(1).combine(), is(Combination.Combine.OR));
+
+    }
+
+    @Test
+    public void testRelations() {
+
+        final FilterMetadata metadata = FilterMetadata.of(TestFilter.class);
+
+        assertThat(metadata.relations().size(), is(1));
+        assertThat(metadata.relations().getFirst().path().size(), is(2));
+        assertThat(metadata.relations().getFirst().restrictedIn(), is(false));
+
+    }
+
+    @Test
+    public void testGroups() {
+
+        assertThat(FilterMetadata.of(TestFilter.class).groups(), containsInAnyOrder("", GROUP));
+
+    }
+
+    @Test
+    public void testValidation()
+            throws InvalidCritersFilteringException {
+
+        final FilterMetadata metadata = FilterMetadata.of(TestFilter.class);
+
+        metadata.validateParameters(Foo.class);
+        metadata.validateRelations(Foo.class);
+
+    }
+
+    @Test
+    public void testValidationFailureIsCached() {
+
+        final FilterMetadata metadata = FilterMetadata.of(InvalidTestFilter.class);
+
+        final InvalidCritersFilteringException first =
+                assertThrows(InvalidCritersFilteringException.class,
+                             () -> metadata.validateParameters(Foo.class));
+
+        final InvalidCritersFilteringException second =
+                assertThrows(InvalidCritersFilteringException.class,
+                             () -> metadata.validateParameters(Foo.class));
+
+        assertThat(second.getCause(), is(sameInstance(first.getCause())));
+        assertThat(second.getMessage(), is(first.getMessage()));
+
+    }
+
+    public static class InvalidTestFilter
+           extends Filter<Foo> {
+
+        @Parameter(name = "missing")
+        public Integer getMissing() {
+            return 0;
+        }
+
+    }
+
+    public static class TestFilter
+           extends Filter<Foo> {
+
+        @Parameter(name = "value",
+                   combinate = @Combination(group = GROUP,
+                                            combine = Combination.Combine.OR))
+        public Integer getSecond() {
+            return 1;
+        }
+
+        @Parameter(name = "value",
+                   restriction = Restriction.GREATER_THAN)
+        public Integer getFirst() {
+            return 0;
+        }
+
+        @Relations({
+                @Relation(name = "bars",
+                          iterable = true),
+                @Relation(name = "baz",
+                          parameters = {
+                            @Parameter(name = "value",
+                                       combinate = @Combination(group = GROUP))
+                          })
+        })
+        public String getBazValue() {
+            return "";
+        }
+
+        public String getIgnored() {
+            return "";
+        }
+
+    }
+
+}
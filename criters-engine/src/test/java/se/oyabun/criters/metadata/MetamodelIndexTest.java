@@ -0,0 +1,107 @@
+/*
+ * Copyright 2017 Oyabun AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.oyabun.criters.metadata;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import se.oyabun.criters.test.data.Bar;
+import se.oyabun.criters.test.data.Foo;
+
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.metamodel.EntityType;
+import jakarta.persistence.metamodel.Metamodel;
+import jakarta.persistence.metamodel.SingularAttribute;
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Metamodel index verification tests
+ *
+ * @author Daniel Sundberg
+ */
+@ExtendWith(MockitoExtension.class)
+public class MetamodelIndexTest {
+
+    @Mock
+    private EntityManagerFactory entityManagerFactoryMock;
+
+    @Mock
+    private Metamodel metamodelMock;
+
+    @Mock
+    private EntityType<Foo> entityTypeMock;
+
+    @Mock
+    private SingularAttribute<Foo, Integer> valueAttributeMock;
+
+    @Mock
+    private Root<Foo> rootMock;
+
+    @Test
+    public void testEntityLookup() {
+
+        expectEntities();
+
+        final MetamodelIndex index = MetamodelIndex.of(entityManagerFactoryMock);
+
+        assertThat(index.isEntity(Foo.class), is(true));
+        assertThat(index.isEntity(Bar.class), is(false));
+        assertThat(index.entity(Foo.class).orElseThrow(), is(sameInstance(entityTypeMock)));
+        assertThat(MetamodelIndex.of(entityManagerFactoryMock), is(sameInstance(index)));
+
+        verify(metamodelMock, times(1)).getEntities();
+
+    }
+
+    @Test
+    public void testAttributeLookup() {
+
+        expectEntities();
+        when(valueAttributeMock.getName()).thenReturn("value");
+        doReturn(Set.of(valueAttributeMock)).when(entityTypeMock).getAttributes();
+        when(rootMock.getModel()).thenReturn(entityTypeMock);
+
+        final MetamodelIndex index = MetamodelIndex.of(entityManagerFactoryMock);
+
+        assertThat(index.singularAttribute(rootMock, "value").orElseThrow(),
+                   is(sameInstance(valueAttributeMock)));
+        assertThat(index.attribute(entityTypeMock, "value").orElseThrow(),
+                   is(sameInstance(valueAttributeMock)));
+        assertThat(index.attribute(entityTypeMock, "missing").isPresent(), is(false));
+
+        verify(entityTypeMock, times(1)).getAttributes();
+
+    }
+
+    private void expectEntities() {
+
+        when(entityManagerFactoryMock.getMetamodel()).thenReturn(metamodelMock);
+        when(metamodelMock.getEntities()).thenReturn(Set.of(entityTypeMock));
+        when(entityTypeMock.getJavaType()).thenReturn(Foo.class);
+
+    }
+
+}
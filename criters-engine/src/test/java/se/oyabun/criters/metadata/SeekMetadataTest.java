@@ -0,0 +1,100 @@
+/*
+ * Copyright 2017 Oyabun AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.oyabun.criters.metadata;
+
+import org.junit.jupiter.api.Test;
+import se.oyabun.criters.criteria.Filter;
+import se.oyabun.criters.criteria.SeekKey;
+import se.oyabun.criters.exception.InvalidCritersFilteringException;
+import se.oyabun.criters.test.data.Foo;
+
+import java.util.Base64;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Seek metadata verification tests
+ *
+ * @author Daniel Sundberg
+ */
+public class SeekMetadataTest {
+
+    @Test
+    public void testKeys() {
+
+        final SeekMetadata metadata = SeekMetadata.of(SeekFilter.class);
+
+        assertThat(metadata.keys().size(), is(2));
+        assertThat(metadata.keys().get(0).name(), is("value"));
+        assertThat(metadata.keys().get(0).descending(), is(true));
+        assertThat(metadata.keys().get(1).name(), is("id"));
+        assertThat(SeekMetadata.of(UnseekableFilter.class).keys().isEmpty(), is(true));
+
+    }
+
+    @Test
+    public void testTokenRoundTrip()
+            throws InvalidCritersFilteringException {
+
+        final SeekMetadata metadata = SeekMetadata.of(SeekFilter.class);
+
+        final Foo foo = new Foo();
+        foo.setValue(42);
+
+        final List<Object> values = metadata.values(Foo.class, foo);
+
+        assertThat(values, is(List.of(42, 0L)));
+        assertThat(metadata.decode(Foo.class, metadata.encode(values)), is(values));
+
+    }
+
+    @Test
+    public void testInvalidTokens() {
+
+        final SeekMetadata metadata = SeekMetadata.of(SeekFilter.class);
+
+        final String token = metadata.encode(List.of(42, 7L));
+        final String otherKeys = SeekMetadata.of(OtherSeekFilter.class).encode(List.of(42, 7L));
+
+        assertThrows(InvalidCritersFilteringException.class,
+                     () -> metadata.decode(Foo.class, "not a token"));
+        assertThrows(InvalidCritersFilteringException.class,
+                     () -> metadata.decode(Foo.class, otherKeys));
+        assertThrows(InvalidCritersFilteringException.class,
+                     () -> metadata.decode(Foo.class, token + Base64.getUrlEncoder().encodeToString(new byte[] {1})));
+        assertThrows(InvalidCritersFilteringException.class,
+                     () -> metadata.values(Foo.class, new Foo()));
+
+    }
+
+    @SeekKey(name = "value",
+             descending = true)
+    @SeekKey(name = "id")
+    public static class SeekFilter
+           extends Filter<Foo> {}
+
+    @SeekKey(name = "value")
+    @SeekKey(name = "bars")
+    public static class OtherSeekFilter
+           extends Filter<Foo> {}
+
+    public static class UnseekableFilter
+           extends Filter<Foo> {}
+
+}
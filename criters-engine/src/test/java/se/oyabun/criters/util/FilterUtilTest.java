@@ -24,6 +24,7 @@ import se.oyabun.criters.criteria.Parameter;
 import se.oyabun.criters.criteria.Relation;
 import se.oyabun.criters.criteria.Relations;
 import se.oyabun.criters.criteria.Restriction;
+import se.oyabun.criters.exception.InvalidCritersFilteringException;
 import se.oyabun.criters.test.data.Foo;
 
 import java.lang.reflect.Method;
@@ -31,8 +32,11 @@ import java.util.Collection;
 import java.util.stream.Collectors;
 
 import static org.hamcrest.CoreMatchers.hasItem;
+import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 /**
  * Filter utility functionality verification
@@ -85,6 +89,30 @@ public class FilterUtilTest {
 
     }
 
+    @Test
+    public void testValidationIsCachedPerClass()
+            throws NoSuchMethodException {
+
+        final InvalidCritersFilteringException first =
+                assertThrows(InvalidCritersFilteringException.class,
+                             () -> FilterUtil.validateRelations(annotatedRelationalMethod, Foo.class));
+
+        final InvalidCritersFilteringException second =
+                assertThrows(InvalidCritersFilteringException.class,
+                             () -> FilterUtil.validateRelations(annotatedRelationalMethod, Foo.class));
+
+        assertThat(second.getCause(), is(sameInstance(first.getCause())));
+
+        final Method noAnnotationMethod = testFilter.getClass().getMethod("getNoAnnotationMethod");
+
+        assertThrows(InvalidCritersFilteringException.class,
+                     () -> FilterUtil.validateParameter(noAnnotationMethod,
+                                                        SOURCE_PARAMETER,
+                                                        Foo.class,
+                                                        Restriction.EQUALS));
+
+    }
+
     public static class TestFilter
            extends Filter<Foo> {
 
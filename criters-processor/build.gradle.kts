@@ -0,0 +1,9 @@
+plugins {
+    alias(libs.plugins.java.library)
+}
+
+dependencies {
+    implementation(project(":criters-annotation"))
+    testImplementation(project(":criters-engine"))
+    testImplementation(libs.bundles.testing)
+}
@@ -0,0 +1,255 @@
+/*
+ * Copyright 2017 Oyabun AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.oyabun.criters.processor;
+
+import se.oyabun.criters.criteria.Parameter;
+import se.oyabun.criters.criteria.Relations;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Annotation processor generating an extractor for every filter class, named after the
+ * filter with a {@code _Criters} suffix.
+ *
+ * <p>Generated extractors read {@link Parameter} getters directly and construct their
+ * predicates without reflection, the getters are validated against the entity at build time.
+ * {@link Relations} getters are delegated to the runtime relation extractor, as joins depend
+ * on the persistence metamodel.
+ *
+ * <p>Only top level, non generic filter classes directly extending the filter base class are
+ * generated, other filters keep using the reflective extractors. Validation failures are
+ * compile errors, unless the {@value #VALIDATION_OPTION} option is set to {@code warning},
+ * in which case the filter is left to the reflective extractors and fails at search time.
+ *
+ * @author Daniel Sundberg
+ */
+@SupportedAnnotationTypes({
+        CritersProcessor.PARAMETER,
+        CritersProcessor.RELATIONS
+})
+@SupportedOptions(CritersProcessor.VALIDATION_OPTION)
+public class CritersProcessor
+        extends AbstractProcessor {
+
+    /** Processor option controlling the severity of validation failures. */
+    public static final String VALIDATION_OPTION = "criters.validation";
+
+    static final String PARAMETER = "se.oyabun.criters.criteria.Parameter";
+    static final String RELATIONS = "se.oyabun.criters.criteria.Relations";
+    static final String FILTER = "se.oyabun.criters.criteria.Filter";
+
+    private static final String WARNING = "warning";
+
+    private static final String UNSUPPORTED_FILTER = "Filter '%s' is not generated, %s.";
+
+    private static final String PRIVATE_GETTER = "Getter '%s' must not be private to be generated.";
+
+    private static final String WRITE_FAILURE = "Failed to generate extractor of '%s': %s";
+
+    //
+    // Same getter order as the runtime filter metadata.
+    //
+    private static final Comparator<ExecutableElement> METHOD_ORDER =
+            Comparator.comparing((ExecutableElement method) -> method.getSimpleName().toString())
+                      .thenComparing(method -> method.getReturnType().toString());
+
+    /** Creates a new {@code CritersProcessor}. */
+    public CritersProcessor() {}
+
+    /**
+     * ${@inheritDoc}
+     */
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+
+        return SourceVersion.latestSupported();
+
+    }
+
+    /**
+     * ${@inheritDoc}
+     */
+    @Override
+    public boolean process(final Set<? extends TypeElement> annotations,
+                           final RoundEnvironment roundEnvironment) {
+
+        final Set<TypeElement> filters = new LinkedHashSet<>();
+
+        for(final TypeElement annotation : annotations) {
+
+            for(final Element element : roundEnvironment.getElementsAnnotatedWith(annotation)) {
+
+                if(element.getEnclosingElement() instanceof TypeElement filter) {
+
+                    filters.add(filter);
+
+                }
+
+            }
+
+        }
+
+        for(final TypeElement filter : filters) {
+
+            process(filter);
+
+        }
+
+        //
+        // Criters annotations are runtime annotations, leave them to other processors.
+        //
+        return false;
+
+    }
+
+    private void process(final TypeElement filter) {
+
+        final TypeElement entity = entityOf(filter);
+
+        if(entity == null) {
+
+            return;
+
+        }
+
+        final List<ExecutableElement> getters =
+                ElementFilter.methodsIn(filter.getEnclosedElements())
+                             .stream()
+                             .filter(method -> method.getParameters().isEmpty())
+                             .filter(method -> method.getAnnotation(Parameter.class) != null ||
+                                               method.getAnnotation(Relations.class) != null)
+                             .sorted(METHOD_ORDER)
+                             .toList();
+
+        for(final ExecutableElement getter : getters) {
+
+            if(getter.getModifiers().contains(Modifier.PRIVATE)) {
+
+                processingEnv.getMessager()
+                             .printMessage(Diagnostic.Kind.WARNING,
+                                           String.format(PRIVATE_GETTER,
+                                                         getter.getSimpleName()),
+                                           getter);
+
+                return;
+
+            }
+
+        }
+
+        final FilterValidator validator =
+                new FilterValidator(processingEnv,
+                                    WARNING.equalsIgnoreCase(processingEnv.getOptions()
+                                                                          .get(VALIDATION_OPTION)) ?
+                                    Diagnostic.Kind.WARNING :
+                                    Diagnostic.Kind.ERROR);
+
+        if(!validator.validate(entity, getters)) {
+
+            return;
+
+        }
+
+        try {
+
+            new ExtractorWriter(processingEnv).write(filter, getters);
+
+        } catch (IOException e) {
+
+            processingEnv.getMessager()
+                         .printMessage(Diagnostic.Kind.ERROR,
+                                       String.format(WRITE_FAILURE,
+                                                     filter.getQualifiedName(),
+                                                     e.getMessage()),
+                                       filter);
+
+        }
+
+    }
+
+    /**
+     * Resolve the entity of a filter class, the type argument of its filter base class.
+     *
+     * @param filter class to resolve entity for
+     * @return the entity type, null if the filter can not be generated
+     */
+    private TypeElement entityOf(final TypeElement filter) {
+
+        final String unsupported;
+
+        if(filter.getNestingKind() != NestingKind.TOP_LEVEL) {
+
+            unsupported = "not being a top level class";
+
+        } else if(filter.getModifiers().contains(Modifier.ABSTRACT)) {
+
+            unsupported = "being abstract";
+
+        } else if(!filter.getTypeParameters().isEmpty()) {
+
+            unsupported = "being generic";
+
+        } else {
+
+            final TypeMirror superclass = filter.getSuperclass();
+
+            if(superclass.getKind() == TypeKind.DECLARED &&
+               superclass instanceof DeclaredType declared &&
+               declared.asElement() instanceof TypeElement base &&
+               base.getQualifiedName().contentEquals(FILTER) &&
+               declared.getTypeArguments().size() == 1 &&
+               declared.getTypeArguments().get(0) instanceof DeclaredType entity &&
+               entity.asElement() instanceof TypeElement entityElement) {
+
+                return entityElement;
+
+            }
+
+            unsupported = "not directly extending " + FILTER + " of an entity class";
+
+        }
+
+        processingEnv.getMessager()
+                     .printMessage(Diagnostic.Kind.NOTE,
+                                   String.format(UNSUPPORTED_FILTER,
+                                                 filter.getQualifiedName(),
+                                                 unsupported),
+                                   filter);
+
+        return null;
+
+    }
+
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright 2017 Oyabun AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.oyabun.criters.processor;
+
+import se.oyabun.criters.criteria.Parameter;
+import se.oyabun.criters.criteria.Relations;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes the generated extractor of a validated filter class.
+ *
+ * <p>Parameter getters are declared in the same order and with the same group combinations
+ * as the reflective parameter extractor reads them, and are restricted through the same
+ * normalized parameters. Relational getters are delegated to the relation extractor.
+ *
+ * @author Daniel Sundberg
+ */
+class ExtractorWriter {
+
+    static final String SUFFIX = "_Criters";
+
+    private final ProcessingEnvironment processingEnv;
+
+    ExtractorWriter(final ProcessingEnvironment processingEnv) {
+
+        this.processingEnv = processingEnv;
+
+    }
+
+    /**
+     * Write the extractor of given filter.
+     *
+     * @param filter class to write extractor of
+     * @param getters annotated getters of the filter, in metadata order
+     * @throws IOException if the source file can not be written
+     */
+    void write(final TypeElement filter,
+               final List<ExecutableElement> getters)
+            throws IOException {
+
+        final PackageElement packageElement = processingEnv.getElementUtils().getPackageOf(filter);
+        final String filterName = filter.getSimpleName().toString();
+        final String extractorName = filterName + SUFFIX;
+
+        final List<ExecutableElement> parameters = new ArrayList<>();
+        boolean relational = false;
+
+        for(final ExecutableElement getter : getters) {
+
+            if(getter.getAnnotation(Parameter.class) != null) {
+
+                parameters.add(getter);
+
+            }
+
+            relational |= getter.getAnnotation(Relations.class) != null;
+
+        }
+
+        final JavaFileObject source =
+                processingEnv.getFiler()
+                             .createSourceFile(packageElement.isUnnamed() ?
+                                               extractorName :
+                                               packageElement.getQualifiedName() + "." + extractorName,
+                                               filter);
+
+        try(final Writer writer = source.openWriter();
+            final PrintWriter out = new PrintWriter(writer)) {
+
+            if(!packageElement.isUnnamed()) {
+
+                out.println("package " + packageElement.getQualifiedName() + ";");
+                out.println();
+
+            }
+
+            out.println("import se.oyabun.criters.criteria.Combination;");
+            out.println("import se.oyabun.criters.criteria.Filter;");
+            out.println("import se.oyabun.criters.criteria.Restriction;");
+            out.println("import se.oyabun.criters.exception.InvalidCritersFilteringException;");
+            out.println("import se.oyabun.criters.extraction.ExtractionContext;");
+            out.println("import se.oyabun.criters.extraction.Extractor;");
+            out.println("import se.oyabun.criters.extraction.NormalizedParameters;");
+            out.println("import se.oyabun.criters.extraction.RelationExtractor;");
+            out.println("import se.oyabun.criters.metadata.Accessor;");
+            out.println();
+            out.println("import jakarta.persistence.criteria.CriteriaBuilder;");
+            out.println("import jakarta.persistence.criteria.Predicate;");
+            out.println("import jakarta.persistence.criteria.Root;");
+            out.println("import java.util.ArrayList;");
+            out.println("import java.util.List;");
+            out.println("import java.util.Optional;");
+            out.println("import javax.annotation.processing.Generated;");
+            out.println();
+            out.println("/**");
+            out.println(" * Extractor of {@link " + filterName + "}, generated by the criters annotation processor.");
+            out.println(" */");
+            out.println("@Generated(\"" + CritersProcessor.class.getName() + "\")");
+            out.println("public final class " + extractorName);
+            out.println("        implements Extractor {");
+            out.println();
+
+            for(final ExecutableElement getter : parameters) {
+
+                out.println("    private static final Accessor " + constantOf(getter) + " =");
+                out.println("            Accessor.of(" + typeOf(getter) + ".class,");
+                out.println("                        filter -> ((" + filterName + ") filter)." +
+                            getter.getSimpleName() + "());");
+                out.println();
+
+            }
+
+            if(!parameters.isEmpty()) {
+
+                out.println("    private static final NormalizedParameters PARAMETERS =");
+                out.println("            NormalizedParameters.of(List.of(");
+
+                for(int i = 0; i < parameters.size(); i++) {
+
+                    final ExecutableElement getter = parameters.get(i);
+                    final Parameter parameter = getter.getAnnotation(Parameter.class);
+
+                    out.println("                    new NormalizedParameters.Declaration(" +
+                                literalOf(parameter.name()) + ", Restriction." + parameter.restriction() + ", " +
+                                literalOf(parameter.combinate().group()) + ", Combination.Combine." +
+                                parameter.combinate().combine() + ", " + constantOf(getter) + ")" +
+                                (i < parameters.size() - 1 ? "," : "));"));
+
+                }
+
+                out.println();
+
+            }
+
+            if(relational) {
+
+                out.println("    private static final Extractor RELATIONS = new RelationExtractor();");
+                out.println();
+
+            }
+
+            out.println("    /** Creates a new {@code " + extractorName + "}. */");
+            out.println("    public " + extractorName + "() {}");
+            out.println();
+            out.println("    @Override");
+            out.println("    public <E, S extends Filter<E>> Optional<Predicate> generatePredicate(final S filter,");
+            out.println("                                                                          final CriteriaBuilder criteriaBuilder,");
+            out.println("                                                                          final Root<E> root)");
+            out.println("            throws InvalidCritersFilteringException {");
+            out.println();
+            out.println("        return generatePredicate(filter, ExtractionContext.of(criteriaBuilder, root));");
+            out.println();
+            out.println("    }");
+            out.println();
+            out.println("    @Override");
+            out.println("    public <E, S extends Filter<E>> Optional<Predicate> generatePredicate(final S filter,");
+            out.println("                                                                          final ExtractionContext<E> context)");
+            out.println("            throws InvalidCritersFilteringException {");
+            out.println();
+            out.println("        final CriteriaBuilder builder = context.criteriaBuilder();");
+            out.println("        final List<Predicate> predicates = new ArrayList<>();");
+            out.println();
+
+            if(!parameters.isEmpty()) {
+
+                out.println("        PARAMETERS.generatePredicate(filter, context).ifPresent(predicates::add);");
+
+            }
+
+            if(relational) {
+
+                out.println("        RELATIONS.generatePredicate(filter, context).ifPresent(predicates::add);");
+
+            }
+
+            out.println();
+            out.println("        return predicates.size() > 1 ?");
+            out.println("               Optional.of(builder.and(predicates.toArray(new Predicate[0]))) :");
+            out.println("               predicates.stream().findFirst();");
+            out.println();
+            out.println("    }");
+            out.println();
+            out.println("}");
+
+        }
+
+    }
+
+    /**
+     * Constant name of a getter accessor, {@code getFooBar} becomes {@code GET_FOO_BAR}.
+     */
+    private static String constantOf(final ExecutableElement getter) {
+
+        return getter.getSimpleName()
+                     .toString()
+                     .replaceAll("([a-z0-9])([A-Z])", "$1_$2")
+                     .toUpperCase();
+
+    }
+
+    private String typeOf(final ExecutableElement getter) {
+
+        return processingEnv.getTypeUtils().erasure(getter.getReturnType()).toString();
+
+    }
+
+    private static String literalOf(final String value) {
+
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+
+    }
+
+}
@@ -0,0 +1,252 @@
+/*
+ * Copyright 2017 Oyabun AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.oyabun.criters.processor;
+
+import se.oyabun.criters.criteria.Parameter;
+import se.oyabun.criters.criteria.Relation;
+import se.oyabun.criters.criteria.Relations;
+import se.oyabun.criters.criteria.Restriction;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Build time counterpart of the runtime filter validation, verifying filter getters against
+ * the public getters of their entity and related types.
+ *
+ * @author Daniel Sundberg
+ */
+class FilterValidator {
+
+    private static final String GETTER_PREFIX = "get";
+
+    private static final String MISMATCHING_GETTERS = "No matching getter method '%s.%s()' for filter.";
+
+    private static final String MISMATCHING_RETURN_TYPE = "Return type '%s' not matching '%s.%s()'.";
+
+    private static final String INVALID_ITERABLE = "Indicated collection '%s' not valid iterable.";
+
+    private final ProcessingEnvironment processingEnv;
+    private final Types types;
+    private final TypeMirror iterable;
+    private final Diagnostic.Kind kind;
+
+    FilterValidator(final ProcessingEnvironment processingEnv,
+                    final Diagnostic.Kind kind) {
+
+        this.processingEnv = processingEnv;
+        this.types = processingEnv.getTypeUtils();
+        this.iterable = types.erasure(processingEnv.getElementUtils()
+                                                   .getTypeElement(Iterable.class.getCanonicalName())
+                                                   .asType());
+        this.kind = kind;
+
+    }
+
+    /**
+     * Validate filter getters against given entity, reporting every failure.
+     *
+     * @param entity targeted by the filter
+     * @param getters annotated getters of the filter
+     * @return true if every getter is valid
+     */
+    boolean validate(final TypeElement entity,
+                     final List<ExecutableElement> getters) {
+
+        boolean valid = true;
+
+        for(final ExecutableElement getter : getters) {
+
+            final Parameter parameter = getter.getAnnotation(Parameter.class);
+
+            if(parameter != null) {
+
+                valid &= validateParameter(getter, parameter, entity);
+
+            }
+
+            final Relations relations = getter.getAnnotation(Relations.class);
+
+            if(relations != null) {
+
+                valid &= validateRelations(getter, relations, entity);
+
+            }
+
+        }
+
+        return valid;
+
+    }
+
+    private boolean validateParameter(final ExecutableElement getter,
+                                      final Parameter parameter,
+                                      final TypeElement type) {
+
+        final Optional<ExecutableElement> target = getterOf(type, parameter.name());
+
+        if(target.isEmpty()) {
+
+            return report(getter,
+                          String.format(MISMATCHING_GETTERS,
+                                        type.getSimpleName(),
+                                        getterName(parameter.name())));
+
+        }
+
+        if(requiresTypeValidation(parameter.restriction()) &&
+           !types.isSameType(types.erasure(getter.getReturnType()),
+                             types.erasure(target.get().getReturnType()))) {
+
+            return report(getter,
+                          String.format(MISMATCHING_RETURN_TYPE,
+                                        getter.getReturnType(),
+                                        type.getSimpleName(),
+                                        getterName(parameter.name())));
+
+        }
+
+        return true;
+
+    }
+
+    private boolean validateRelations(final ExecutableElement getter,
+                                      final Relations relations,
+                                      final TypeElement entity) {
+
+        TypeElement current = entity;
+
+        //
+        // Each relation is a join on the previous one, starting with the entity as root.
+        //
+        for(final Relation relation : relations.value()) {
+
+            final Optional<ExecutableElement> target = getterOf(current, relation.name());
+
+            if(target.isEmpty()) {
+
+                return report(getter,
+                              String.format(MISMATCHING_GETTERS,
+                                            current.getSimpleName(),
+                                            getterName(relation.name())));
+
+            }
+
+            final TypeMirror returnType = target.get().getReturnType();
+            final boolean isIterable = types.isAssignable(types.erasure(returnType), iterable);
+
+            if(relation.iterable() != isIterable) {
+
+                return report(getter,
+                              String.format(INVALID_ITERABLE,
+                                            returnType));
+
+            }
+
+            final TypeMirror related = isIterable ? elementType(returnType) : returnType;
+
+            if(!(related instanceof DeclaredType declared &&
+                 declared.asElement() instanceof TypeElement relatedType)) {
+
+                return report(getter,
+                              String.format(INVALID_ITERABLE,
+                                            returnType));
+
+            }
+
+            for(final Parameter parameter : relation.parameters()) {
+
+                if(!validateParameter(getter, parameter, relatedType)) {
+
+                    return false;
+
+                }
+
+            }
+
+            current = relatedType;
+
+        }
+
+        return true;
+
+    }
+
+    /**
+     * Resolve the element type of an iterable type, the type itself when not parameterized.
+     */
+    private static TypeMirror elementType(final TypeMirror iterableType) {
+
+        return iterableType instanceof DeclaredType declared &&
+               declared.getTypeArguments().size() == 1 ?
+               declared.getTypeArguments().get(0) :
+               iterableType;
+
+    }
+
+    private Optional<ExecutableElement> getterOf(final TypeElement type,
+                                                 final String name) {
+
+        final String getterName = getterName(name);
+
+        return ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(type))
+                            .stream()
+                            .filter(method -> method.getModifiers().contains(Modifier.PUBLIC))
+                            .filter(method -> method.getParameters().isEmpty())
+                            .filter(method -> method.getSimpleName().contentEquals(getterName))
+                            .findFirst();
+
+    }
+
+    private boolean report(final Element element,
+                           final String message) {
+
+        processingEnv.getMessager().printMessage(kind, message, element);
+
+        return false;
+
+    }
+
+    /**
+     * Implements getter convention, as the runtime validation does.
+     */
+    static String getterName(final String name) {
+
+        return name.isEmpty() ?
+               GETTER_PREFIX :
+               GETTER_PREFIX + Character.toTitleCase(name.charAt(0)) + name.substring(1);
+
+    }
+
+    private static boolean requiresTypeValidation(final Restriction restriction) {
+
+        return restriction != Restriction.IS_NULL &&
+               restriction != Restriction.IS_NOT_NULL &&
+               restriction != Restriction.IN;
+
+    }
+
+}
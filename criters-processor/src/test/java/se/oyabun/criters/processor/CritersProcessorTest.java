@@ -0,0 +1,214 @@
+/*
+ * Copyright 2017 Oyabun AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.oyabun.criters.processor;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.hasItem;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+/**
+ * Criters annotation processor verification tests
+ *
+ * @author Daniel Sundberg
+ */
+public class CritersProcessorTest {
+
+    private static final String ENTITY =
+            """
+            package test;
+
+            import java.util.List;
+
+            public class Item {
+                public Integer getValue() { return null; }
+                public String getName() { return null; }
+                public List<Part> getParts() { return null; }
+            }
+            """;
+
+    private static final String PART =
+            """
+            package test;
+
+            public class Part {
+                public long getId() { return 0L; }
+            }
+            """;
+
+    private static final String VALID_FILTER =
+            """
+            package test;
+
+            import se.oyabun.criters.criteria.Combination;
+            import se.oyabun.criters.criteria.Filter;
+            import se.oyabun.criters.criteria.Parameter;
+            import se.oyabun.criters.criteria.Relation;
+            import se.oyabun.criters.criteria.Relations;
+            import se.oyabun.criters.criteria.Restriction;
+
+            public class ItemFilter extends Filter<Item> {
+                @Parameter(name = "value",
+                           combinate = @Combination(group = "any", combine = Combination.Combine.OR))
+                public Integer getValue() { return 1; }
+                @Parameter(name = "name",
+                           restriction = Restriction.LIKE,
+                           combinate = @Combination(group = "any", combine = Combination.Combine.OR))
+                public String getName() { return "name"; }
+                @Relations(@Relation(name = "parts", iterable = true, parameters = @Parameter(name = "id")))
+                public long getPartId() { return 1L; }
+            }
+            """;
+
+    private static final String INVALID_FILTER =
+            """
+            package test;
+
+            import se.oyabun.criters.criteria.Filter;
+            import se.oyabun.criters.criteria.Parameter;
+            import se.oyabun.criters.criteria.Relation;
+            import se.oyabun.criters.criteria.Relations;
+
+            public class InvalidItemFilter extends Filter<Item> {
+                @Parameter(name = "value")
+                public Long getValue() { return 1L; }
+                @Relations(@Relation(name = "parts", parameters = @Parameter(name = "id")))
+                public long getPartId() { return 1L; }
+            }
+            """;
+
+    @TempDir
+    private Path output;
+
+    @Test
+    public void testGeneratesExtractor()
+            throws IOException {
+
+        final DiagnosticCollector<JavaFileObject> diagnostics =
+                compile(List.of(), ENTITY, PART, VALID_FILTER);
+
+        assertThat(errors(diagnostics).isEmpty(), is(true));
+
+        final String generated =
+                Files.readString(output.resolve("test/ItemFilter" + ExtractorWriter.SUFFIX + ".java"));
+
+        assertThat(generated, containsString("implements Extractor"));
+        assertThat(generated, containsString("((ItemFilter) filter).getValue()"));
+        assertThat(generated, containsString(
+                "new NormalizedParameters.Declaration(\"value\", Restriction.EQUALS, \"any\", " +
+                "Combination.Combine.OR, GET_VALUE)"));
+        assertThat(generated, containsString("RELATIONS.generatePredicate(filter, context)"));
+        assertThat(generated, containsString("generatePredicate(filter, ExtractionContext.of(criteriaBuilder, root))"));
+        assertThat(Files.exists(output.resolve("test/ItemFilter" + ExtractorWriter.SUFFIX + ".class")),
+                   is(true));
+
+    }
+
+    @Test
+    public void testReportsInvalidGetters() {
+
+        final DiagnosticCollector<JavaFileObject> diagnostics =
+                compile(List.of(), ENTITY, PART, INVALID_FILTER);
+
+        final List<String> errors = errors(diagnostics);
+
+        assertThat(errors, hasItem("Return type 'java.lang.Long' not matching 'Item.getValue()'."));
+        assertThat(errors, hasItem("Indicated collection 'java.util.List<test.Part>' not valid iterable."));
+
+    }
+
+    @Test
+    public void testWarnsInvalidGettersWhenLenient() {
+
+        final DiagnosticCollector<JavaFileObject> diagnostics =
+                compile(List.of("-A" + CritersProcessor.VALIDATION_OPTION + "=warning"),
+                        ENTITY, PART, INVALID_FILTER);
+
+        assertThat(errors(diagnostics).isEmpty(), is(true));
+        assertThat(Files.exists(output.resolve("test/InvalidItemFilter" + ExtractorWriter.SUFFIX + ".java")),
+                   is(false));
+
+    }
+
+    private DiagnosticCollector<JavaFileObject> compile(final List<String> options,
+                                                        final String... sources) {
+
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+
+        final List<String> arguments = new ArrayList<>(options);
+        arguments.addAll(List.of("-classpath", System.getProperty("java.class.path"),
+                                 "-d", output.toString(),
+                                 "-s", output.toString()));
+
+        final List<JavaFileObject> units = new ArrayList<>();
+
+        for(final String source : sources) {
+
+            final String name = source.substring(source.indexOf("public class ") + 13,
+                                                 source.indexOf(' ', source.indexOf("public class ") + 13));
+
+            units.add(new SimpleJavaFileObject(URI.create("string:///test/" + name + ".java"),
+                                               JavaFileObject.Kind.SOURCE) {
+
+                @Override
+                public CharSequence getCharContent(final boolean ignoreEncodingErrors) {
+
+                    return source;
+
+                }
+
+            });
+
+        }
+
+        final JavaCompiler.CompilationTask task =
+                compiler.getTask(null, null, diagnostics, arguments, null, units);
+
+        task.setProcessors(List.of(new CritersProcessor()));
+        task.call();
+
+        return diagnostics;
+
+    }
+
+    private static List<String> errors(final DiagnosticCollector<JavaFileObject> diagnostics) {
+
+        return diagnostics.getDiagnostics()
+                          .stream()
+                          .filter(diagnostic -> diagnostic.getKind() == Diagnostic.Kind.ERROR)
+                          .map(diagnostic -> diagnostic.getMessage(null))
+                          .toList();
+
+    }
+
+}
@@ -10,4 +10,10 @@ dependencies {
     api(libs.hamcrest)
     api(libs.p6spy)
     api(libs.bundles.testing)
+    annotationProcessor(project(":criters-processor"))
+}
+
+tasks.withType<JavaCompile>().configureEach {
+    // InvalidFooFilter is invalid on purpose, left to fail at search time
+    options.compilerArgs.add("-Acriters.validation=warning")
 }
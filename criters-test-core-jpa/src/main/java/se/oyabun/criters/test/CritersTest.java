@@ -23,19 +23,29 @@ import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import se.oyabun.criters.BoundedCount;
 import se.oyabun.criters.Criters;
+import se.oyabun.criters.CritersEngine;
 import se.oyabun.criters.CritersFactory;
+import se.oyabun.criters.CritersSearch;
+import se.oyabun.criters.KeysetPage;
+import se.oyabun.criters.SearchPlan;
+import se.oyabun.criters.cache.ResultCache;
 import se.oyabun.criters.criteria.Filter;
+import se.oyabun.criters.criteria.Relation;
 import se.oyabun.criters.exception.CritersException;
 import se.oyabun.criters.exception.CritersSearchCriteriaException;
 import se.oyabun.criters.exception.InvalidCritersTargetException;
 import se.oyabun.criters.test.data.Bar;
 import se.oyabun.criters.test.data.Baz;
 import se.oyabun.criters.test.data.Foo;
+import se.oyabun.criters.test.filter.FooBazIdFilter;
 import se.oyabun.criters.test.filter.FooBazLikeFilter;
 import se.oyabun.criters.test.filter.FooInFilter;
+import se.oyabun.criters.test.filter.FooMixedGroupFilter;
 import se.oyabun.criters.test.filter.FooPropertyFilter;
 import se.oyabun.criters.test.filter.FooRelationFilter;
+import se.oyabun.criters.test.filter.FooSeekFilter;
 import se.oyabun.criters.test.filter.FooValueIsNotNullFilter;
 import se.oyabun.criters.test.filter.FooValueIsNullFilter;
 import se.oyabun.criters.test.filter.InvalidFooFilter;
@@ -43,11 +53,16 @@ import se.oyabun.criters.test.filter.InvalidFooFilter;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.Persistence;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.hamcrest.MatcherAssert.assertThat;
 
 /**
@@ -263,6 +278,328 @@ public abstract class CritersTest {
         assertThat(results.getFirst().getValue(), is(TEST_VALUE));
     }
 
+    /**
+     * Verifies that a prepared query binds the filter value onto the planned criteria.
+     *
+     * @throws InvalidCritersTargetException  when target is invalid
+     * @throws CritersSearchCriteriaException when search criteria fails
+     */
+    @Test
+    public void testPreparedQuery()
+            throws InvalidCritersTargetException,
+                   CritersSearchCriteriaException {
+        final List<Foo> results = critersFactory.prepare(new FooPropertyFilter(TEST_VALUE)).build()
+                                                .query().getResultList();
+        assertThat(results.size(), is(1));
+        assertThat(results.getFirst().getValue(), is(TEST_VALUE));
+        final List<Foo> otherResults = critersFactory.prepare(new FooPropertyFilter(OTHER_VALUE)).build()
+                                                     .query().getResultList();
+        assertThat(otherResults.size(), is(1));
+        assertThat(otherResults.getFirst().getValue(), is(OTHER_VALUE));
+    }
+
+    /**
+     * Verifies that a prepared IN query pads its collection placeholders without changing results.
+     *
+     * @throws InvalidCritersTargetException  when target is invalid
+     * @throws CritersSearchCriteriaException when search criteria fails
+     */
+    @Test
+    public void testPreparedInQuery()
+            throws InvalidCritersTargetException,
+                   CritersSearchCriteriaException {
+        final Filter<Foo> testFilter = new FooInFilter(Arrays.asList(TEST_VALUE, OTHER_VALUE, -1));
+        final List<Foo> results = critersFactory.prepare(testFilter).build().query().getResultList();
+        assertThat(results.size(), is(2));
+    }
+
+    /**
+     * Verifies that a prepared relational query returns exactly one result.
+     *
+     * @throws InvalidCritersTargetException  when target is invalid
+     * @throws CritersSearchCriteriaException when search criteria fails
+     */
+    @Test
+    public void testPreparedRelationQuery()
+            throws InvalidCritersTargetException,
+                   CritersSearchCriteriaException {
+        final Filter<Foo> testFilter = new FooRelationFilter(bar.getId(), BAZ_VALUE);
+        assertNotNull(critersFactory.prepare(testFilter).build().query().getSingleResult());
+    }
+
+    /**
+     * Verifies that iterable relations restricted by EXISTS subqueries do not duplicate roots
+     * matching several related entities, as joined relations do.
+     *
+     * @throws InvalidCritersTargetException  when target is invalid
+     * @throws CritersSearchCriteriaException when search criteria fails
+     */
+    @Test
+    public void testExistsRelationCriters()
+            throws InvalidCritersTargetException,
+                   CritersSearchCriteriaException {
+        final Bar otherBar = new Bar();
+        otherBar.setFoo(foo);
+        foo.getBars().add(otherBar);
+        entityManager.persist(otherBar);
+        final Baz otherBaz = new Baz();
+        otherBaz.setValue(BAZ_VALUE);
+        otherBaz.setBar(otherBar);
+        otherBar.setBaz(otherBaz);
+        entityManager.persist(otherBaz);
+        entityManager.flush();
+        final Filter<Foo> testFilter = new FooBazLikeFilter("%alu%");
+        final List<Foo> joined = entityManager.createQuery(
+                critersFactory.prepare(testFilter).build().criteria()).getResultList();
+        assertThat(joined.size(), is(2));
+        final List<Foo> results = entityManager.createQuery(
+                critersFactory.strategy(Relation.Strategy.EXISTS)
+                              .prepare(testFilter).build().criteria()).getResultList();
+        assertThat(results.size(), is(1));
+        assertThat(results.getFirst().getValue(), is(TEST_VALUE));
+        final Filter<Foo> relationFilter = new FooRelationFilter(bar.getId(), BAZ_VALUE);
+        assertNotNull(critersFactory.prepare(relationFilter).build().query().getSingleResult());
+    }
+
+    /**
+     * Verifies that subqueries of one relation restricted by parameters of different groups
+     * keep the meaning of their groups, each subquery taking the place of its restrictions.
+     *
+     * @throws InvalidCritersTargetException  when target is invalid
+     * @throws CritersSearchCriteriaException when search criteria fails
+     */
+    @Test
+    public void testMixedGroupExistsCriters()
+            throws InvalidCritersTargetException,
+                   CritersSearchCriteriaException {
+        final Filter<Foo> matching = new FooMixedGroupFilter(bar.getId(), "other", BAZ_VALUE);
+        assertThat(critersFactory.prepare(matching).build().list().size(), is(1));
+        assertThat(critersFactory.prepare(matching).build().jpqlQuery().getResultList().size(), is(1));
+        final Filter<Foo> failing = new FooMixedGroupFilter(bar.getId(), BAZ_VALUE, "other");
+        assertThat(critersFactory.prepare(failing).build().list().size(), is(0));
+        assertThat(critersFactory.prepare(failing).build().jpqlQuery().getResultList().size(), is(0));
+    }
+
+    /**
+     * Verifies that a to-one identifier restriction read from the foreign key returns the
+     * expected entity, literal and prepared.
+     *
+     * @throws InvalidCritersTargetException  when target is invalid
+     * @throws CritersSearchCriteriaException when search criteria fails
+     */
+    @Test
+    public void testForeignKeyRelationCriters()
+            throws InvalidCritersTargetException,
+                   CritersSearchCriteriaException {
+        final Filter<Foo> testFilter = new FooBazIdFilter(baz.getId());
+        final List<Foo> results = entityManager.createQuery(
+                critersFactory.prepare(testFilter).build().criteria()).getResultList();
+        assertThat(results.size(), is(1));
+        assertThat(results.getFirst().getValue(), is(TEST_VALUE));
+        assertThat(critersFactory.prepare(new FooBazIdFilter(-1L)).build().query().getResultList().size(), is(0));
+    }
+
+    /**
+     * Verifies that queries rendered to JPQL return the same results as criteria queries,
+     * joined and restricted in subqueries.
+     *
+     * @throws InvalidCritersTargetException  when target is invalid
+     * @throws CritersSearchCriteriaException when search criteria fails
+     */
+    @Test
+    public void testJpqlQuery()
+            throws InvalidCritersTargetException,
+                   CritersSearchCriteriaException {
+        final List<Foo> results = critersFactory.prepare(new FooPropertyFilter(TEST_VALUE)).build()
+                                                .jpqlQuery().getResultList();
+        assertThat(results.size(), is(1));
+        assertThat(results.getFirst().getValue(), is(TEST_VALUE));
+        final Filter<Foo> inFilter = new FooInFilter(Arrays.asList(TEST_VALUE, OTHER_VALUE, -1));
+        assertThat(critersFactory.prepare(inFilter).build().jpqlQuery().getResultList().size(), is(2));
+        final Filter<Foo> emptyInFilter = new FooInFilter(List.of());
+        assertThat(critersFactory.prepare(emptyInFilter).build().jpqlQuery().getResultList().size(), is(0));
+        final Filter<Foo> relationFilter = new FooRelationFilter(bar.getId(), BAZ_VALUE);
+        assertNotNull(critersFactory.prepare(relationFilter).build().jpqlQuery().getSingleResult());
+        assertNotNull(critersFactory.strategy(Relation.Strategy.EXISTS)
+                                    .prepare(relationFilter).build().jpqlQuery().getSingleResult());
+        final List<Foo> foreignKeyResults = critersFactory.prepare(new FooBazIdFilter(baz.getId())).build()
+                                                          .jpqlQuery().getResultList();
+        assertThat(foreignKeyResults.size(), is(1));
+    }
+
+    /**
+     * Verifies that count queries count the results of the same filters, distinct through
+     * iterable joins.
+     *
+     * @throws InvalidCritersTargetException  when target is invalid
+     * @throws CritersSearchCriteriaException when search criteria fails
+     */
+    @Test
+    public void testCountQuery()
+            throws InvalidCritersTargetException,
+                   CritersSearchCriteriaException {
+        final Filter<Foo> inFilter = new FooInFilter(Arrays.asList(TEST_VALUE, OTHER_VALUE, -1));
+        assertThat(critersFactory.prepare(inFilter).build().countQuery().getSingleResult(), is(2L));
+        final Filter<Foo> emptyInFilter = new FooInFilter(List.of());
+        assertThat(critersFactory.prepare(emptyInFilter).build().countQuery().getSingleResult(), is(0L));
+        final Filter<Foo> relationFilter = new FooRelationFilter(bar.getId(), BAZ_VALUE);
+        assertThat(critersFactory.prepare(relationFilter).build().countQuery().getSingleResult(), is(1L));
+        assertThat(critersFactory.strategy(Relation.Strategy.EXISTS)
+                                 .prepare(relationFilter).build().countQuery().getSingleResult(), is(1L));
+    }
+
+    /**
+     * Verifies that bounded counts are exact up to the limit and flagged beyond it.
+     *
+     * @throws InvalidCritersTargetException  when target is invalid
+     * @throws CritersSearchCriteriaException when search criteria fails
+     */
+    @Test
+    public void testCountAtMost()
+            throws InvalidCritersTargetException,
+                   CritersSearchCriteriaException {
+        final Filter<Foo> inFilter = new FooInFilter(Arrays.asList(TEST_VALUE, OTHER_VALUE));
+        final BoundedCount exceeded = critersFactory.prepare(inFilter).build().countAtMost(1);
+        assertThat(exceeded.count(), is(1L));
+        assertThat(exceeded.exceeded(), is(true));
+        assertThat(exceeded.toString(), is("1+"));
+        final BoundedCount exact = critersFactory.prepare(inFilter).build().countAtMost(2);
+        assertThat(exact.count(), is(2L));
+        assertThat(exact.exceeded(), is(false));
+        final Filter<Foo> relationFilter = new FooRelationFilter(bar.getId(), BAZ_VALUE);
+        assertThat(critersFactory.prepare(relationFilter).build().countAtMost(10).count(), is(1L));
+        assertThrows(IllegalArgumentException.class,
+                     () -> critersFactory.prepare(inFilter).build().countAtMost(0));
+    }
+
+    /**
+     * Verifies that executed searches list and count results, and return none for
+     * contradicting restrictions.
+     *
+     * @throws InvalidCritersTargetException  when target is invalid
+     * @throws CritersSearchCriteriaException when search criteria fails
+     */
+    @Test
+    public void testListAndCount()
+            throws InvalidCritersTargetException,
+                   CritersSearchCriteriaException {
+        final Filter<Foo> inFilter = new FooInFilter(Arrays.asList(TEST_VALUE, OTHER_VALUE));
+        assertThat(critersFactory.prepare(inFilter).build().list().size(), is(2));
+        assertThat(critersFactory.prepare(inFilter).build().count(), is(2L));
+        final Filter<Foo> emptyInFilter = new FooInFilter(List.of());
+        assertThat(critersFactory.prepare(emptyInFilter).build().list().isEmpty(), is(true));
+        assertThat(critersFactory.prepare(emptyInFilter).build().count(), is(0L));
+        assertThat(critersFactory.prepare(emptyInFilter).build().countAtMost(10).count(), is(0L));
+    }
+
+    /**
+     * Verifies that cached results are served until an entity of the searched type is persisted.
+     *
+     * @throws InvalidCritersTargetException  when target is invalid
+     * @throws CritersSearchCriteriaException when search criteria fails
+     */
+    @Test
+    public void testResultCache()
+            throws InvalidCritersTargetException,
+                   CritersSearchCriteriaException {
+        final ResultCache resultCache = ResultCache.of(10, Duration.ofMinutes(1));
+        critersFactory.cache(resultCache);
+        final List<Foo> results = critersFactory.prepare(new FooPropertyFilter(TEST_VALUE)).build().list();
+        assertThat(results.size(), is(1));
+        assertThat(critersFactory.prepare(new FooPropertyFilter(TEST_VALUE)).build().list(), is(sameInstance(results)));
+        assertThat(critersFactory.prepare(new FooPropertyFilter(TEST_VALUE)).build().count(), is(1L));
+        assertThat(resultCache.size(), is(2));
+        final Foo fooThree = new Foo();
+        fooThree.setValue(TEST_VALUE);
+        entityManager.persist(fooThree);
+        entityManager.flush();
+        assertThat(resultCache.size(), is(0));
+        assertThat(critersFactory.prepare(new FooPropertyFilter(TEST_VALUE)).build().list().size(), is(2));
+    }
+
+    /**
+     * Verifies that streamed, chunked and iterated results match the query results, stay
+     * managed by default and are cleared from the persistence context only when configured to.
+     *
+     * @throws InvalidCritersTargetException  when target is invalid
+     * @throws CritersSearchCriteriaException when search criteria fails
+     */
+    @Test
+    public void testStreamResults()
+            throws InvalidCritersTargetException,
+                   CritersSearchCriteriaException {
+        final Filter<Foo> testFilter = new FooInFilter(Arrays.asList(TEST_VALUE, OTHER_VALUE));
+        try(final Stream<Foo> results = critersFactory.fetchSize(1).prepare(testFilter).build().stream()) {
+            assertThat(results.count(), is(2L));
+        }
+        final List<List<Foo>> chunks = new ArrayList<>();
+        critersFactory.prepare(testFilter).build().forEachChunk(1, chunks::add);
+        assertThat(chunks.size(), is(2));
+        assertThat(chunks.getFirst().size(), is(1));
+        assertThat(entityManager.contains(chunks.getFirst().getFirst()), is(true));
+        final List<Foo> cleared = new ArrayList<>();
+        critersFactory.clearing(true).prepare(testFilter).build().forEachChunk(1, cleared::addAll);
+        assertThat(cleared.size(), is(2));
+        assertThat(entityManager.contains(cleared.getFirst()), is(false));
+        final Iterator<Foo> iterator = critersFactory.prepare(testFilter).build().iterator();
+        int iterated = 0;
+        while(iterator.hasNext()) {
+            assertNotNull(iterator.next());
+            iterated++;
+        }
+        assertThat(iterated, is(2));
+        assertThrows(IllegalArgumentException.class,
+                     () -> critersFactory.prepare(testFilter).build().forEachChunk(0, chunk -> {}));
+    }
+
+    /**
+     * Verifies that keyset pages follow the seek key order, that the continuation token
+     * seeks the next page and that seeking leaves the search criteria query unordered.
+     *
+     * @throws InvalidCritersTargetException  when target is invalid
+     * @throws CritersSearchCriteriaException when search criteria fails
+     */
+    @Test
+    public void testSeekPagination()
+            throws InvalidCritersTargetException,
+                   CritersSearchCriteriaException {
+        final CritersSearch<Foo> search = critersFactory.prepare(new FooSeekFilter()).build();
+        final KeysetPage<Foo> first = search.seek(1);
+        assertThat(search.criteria().getOrderList().isEmpty(), is(true));
+        assertThat(first.results().size(), is(1));
+        assertThat(first.results().getFirst().getValue(), is(OTHER_VALUE));
+        assertThat(first.hasNext(), is(true));
+        final KeysetPage<Foo> second = critersFactory.prepare(new FooSeekFilter()).build()
+                                                     .seek(1, first.next().orElseThrow());
+        assertThat(second.results().size(), is(1));
+        assertThat(second.results().getFirst().getValue(), is(TEST_VALUE));
+        assertThat(second.hasNext(), is(false));
+        assertThrows(CritersSearchCriteriaException.class,
+                     () -> critersFactory.prepare(new FooSeekFilter()).build().seek(1, "invalid"));
+        assertThrows(CritersSearchCriteriaException.class,
+                     () -> critersFactory.prepare(new FooPropertyFilter(TEST_VALUE)).build().seek(1));
+    }
+
+    /**
+     * Verifies that a shared engine plan searches with literal and prepared queries.
+     *
+     * @throws CritersException when the plan can not be resolved or the search fails
+     */
+    @Test
+    public void testEngineSearchPlan()
+            throws CritersException {
+        final CritersEngine engine = Criters.engine(entityManagerFactory);
+        final SearchPlan<Foo, FooPropertyFilter> plan = engine.plan(FooPropertyFilter.class);
+        final List<Foo> results = entityManager.createQuery(
+                plan.search(entityManager, new FooPropertyFilter(TEST_VALUE)).criteria()).getResultList();
+        assertThat(results.size(), is(1));
+        assertThat(results.getFirst().getValue(), is(TEST_VALUE));
+        final List<Foo> otherResults = plan.query(entityManager, new FooPropertyFilter(OTHER_VALUE)).getResultList();
+        assertThat(otherResults.size(), is(1));
+        assertThat(otherResults.getFirst().getValue(), is(OTHER_VALUE));
+        assertThrows(CritersSearchCriteriaException.class, () -> engine.plan(InvalidFooFilter.class));
+    }
+
     /** Rolls back the transaction and releases resources after each test. */
     @AfterEach
     public void after() {
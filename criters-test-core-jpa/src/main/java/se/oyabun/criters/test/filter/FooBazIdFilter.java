@@ -0,0 +1,67 @@
+/*
+ * Copyright 2017 Oyabun AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.oyabun.criters.test.filter;
+
+import se.oyabun.criters.criteria.Filter;
+import se.oyabun.criters.criteria.Parameter;
+import se.oyabun.criters.criteria.Relation;
+import se.oyabun.criters.criteria.Relations;
+import se.oyabun.criters.criteria.Restriction;
+import se.oyabun.criters.test.data.Foo;
+
+/**
+ * Identifier restriction filter for {@link Foo} entities, matching via the nested
+ * {@code bars -> baz.id} relation path, readable from the foreign key of {@code Bar}.
+ *
+ * @author Daniel Sundberg
+ */
+public class FooBazIdFilter
+        extends Filter<Foo> {
+
+    private final long bazId;
+
+    /**
+     * Constructs a filter that matches {@link Foo} entities related to given {@code Baz}.
+     *
+     * @param bazId the id of the related {@link se.oyabun.criters.test.data.Baz} to filter by
+     */
+    public FooBazIdFilter(final long bazId) {
+
+        this.bazId = bazId;
+
+    }
+
+    /**
+     * Returns the baz id used as the relational EQUALS filter criterion.
+     *
+     * @return the baz id
+     */
+    @Relations({
+            @Relation(name = "bars",
+                      iterable = true),
+            @Relation(name = "baz",
+                      parameters = {
+                    @Parameter(name = "id",
+                               restriction = Restriction.EQUALS)
+            })
+    })
+    public long getBazId() {
+
+        return bazId;
+
+    }
+
+}
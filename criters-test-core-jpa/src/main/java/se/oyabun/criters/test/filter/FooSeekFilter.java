@@ -0,0 +1,52 @@
+/*
+ * Copyright 2017 Oyabun AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.oyabun.criters.test.filter;
+
+import se.oyabun.criters.criteria.Filter;
+import se.oyabun.criters.criteria.Parameter;
+import se.oyabun.criters.criteria.Restriction;
+import se.oyabun.criters.criteria.SeekKey;
+import se.oyabun.criters.test.data.Foo;
+
+/**
+ * Keyset paginated filter for {@link Foo} entities with a {@code value}, seeking by descending
+ * {@code value} and ascending {@code id}.
+ *
+ * @author Daniel Sundberg
+ */
+@SeekKey(name = "value",
+         descending = true)
+@SeekKey(name = "id")
+public class FooSeekFilter
+        extends Filter<Foo> {
+
+    /** Creates a new {@code FooSeekFilter}. */
+    public FooSeekFilter() {}
+
+    /**
+     * Marker method supplying the field name for the IS NOT NULL predicate.
+     *
+     * @return {@code null}
+     */
+    @Parameter(restriction = Restriction.IS_NOT_NULL,
+               name = "value")
+    public Integer getValue() {
+
+        return null;
+
+    }
+
+}
@@ -17,8 +17,10 @@ package se.oyabun.criters.test.data;
 
 import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
+import se.oyabun.criters.cache.ResultCacheListener;
 
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
@@ -31,6 +33,7 @@ import jakarta.persistence.OneToOne;
  * @author Daniel Sundberg
  */
 @Entity
+@EntityListeners(ResultCacheListener.class)
 public class Baz {
 
     @Id
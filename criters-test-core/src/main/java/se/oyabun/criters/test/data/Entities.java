@@ -0,0 +1,80 @@
+/*
+ * Copyright 2017 Oyabun AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.oyabun.criters.test.data;
+
+import java.util.List;
+
+/**
+ * Builders of unpersisted test entities, for evaluating filters in memory.
+ *
+ * @author Daniel Sundberg
+ */
+public final class Entities {
+
+    private Entities() {}
+
+    /**
+     * Create a {@link Foo} with given value and bars.
+     *
+     * @param value of the foo
+     * @param bars of the foo
+     * @return new foo
+     */
+    public static Foo foo(final Integer value,
+                          final Bar... bars) {
+
+        final Foo foo = new Foo();
+
+        foo.setValue(value);
+        foo.setBars(List.of(bars));
+
+        return foo;
+
+    }
+
+    /**
+     * Create a {@link Bar} with a {@link Baz} of given value.
+     *
+     * @param bazValue value of the baz
+     * @return new bar
+     */
+    public static Bar bar(final String bazValue) {
+
+        final Bar bar = new Bar();
+
+        bar.setBaz(baz(bazValue));
+
+        return bar;
+
+    }
+
+    /**
+     * Create a {@link Baz} with given value.
+     *
+     * @param value of the baz
+     * @return new baz
+     */
+    public static Baz baz(final String value) {
+
+        final Baz baz = new Baz();
+
+        baz.setValue(value);
+
+        return baz;
+
+    }
+
+}
@@ -17,8 +17,10 @@ package se.oyabun.criters.test.data;
 
 import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
+import se.oyabun.criters.cache.ResultCacheListener;
 
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
@@ -33,6 +35,7 @@ import java.util.Collection;
  * @author Daniel Sundberg
  */
 @Entity
+@EntityListeners(ResultCacheListener.class)
 public class Foo{
 
     @Id
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2017 Oyabun AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.oyabun.criters.test.filter;
+
+import se.oyabun.criters.criteria.Filter;
+import se.oyabun.criters.criteria.Parameter;
+import se.oyabun.criters.criteria.Restriction;
+import se.oyabun.criters.test.data.Baz;
+
+/**
+ * LIKE restriction filter for {@link Baz} entities, matching {@code value} using a SQL LIKE pattern.
+ *
+ * @author Daniel Sundberg
+ */
+public class BazLikeFilter
+        extends Filter<Baz> {
+
+    private final String pattern;
+
+    /**
+     * Constructs a filter that matches {@link Baz} entities whose value matches the given
+     * SQL LIKE pattern.
+     *
+     * @param pattern the SQL LIKE pattern (e.g. {@code "ab%"})
+     */
+    public BazLikeFilter(final String pattern) {
+
+        this.pattern = pattern;
+
+    }
+
+    /**
+     * Returns the SQL LIKE pattern used to filter on the value.
+     *
+     * @return the LIKE pattern
+     */
+    @Parameter(name = "value",
+               restriction = Restriction.LIKE)
+    public String getValue() {
+
+        return pattern;
+
+    }
+
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2017 Oyabun AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.oyabun.criters.test.filter;
+
+import se.oyabun.criters.criteria.Combination;
+import se.oyabun.criters.criteria.Filter;
+import se.oyabun.criters.criteria.Parameter;
+import se.oyabun.criters.criteria.Restriction;
+import se.oyabun.criters.test.data.Foo;
+
+/**
+ * Range filter for {@link Foo} entities, matching {@code value} either above a minimum or below
+ * a maximum.
+ *
+ * @author Daniel Sundberg
+ */
+public class FooAnyRangeFilter
+        extends Filter<Foo> {
+
+    private final Integer minimum;
+    private final Integer maximum;
+
+    /**
+     * Constructs a filter that matches {@link Foo} entities whose value is greater than the
+     * minimum or less than the maximum.
+     *
+     * @param minimum exclusive lower bound
+     * @param maximum exclusive upper bound
+     */
+    public FooAnyRangeFilter(final Integer minimum,
+                             final Integer maximum) {
+
+        this.minimum = minimum;
+        this.maximum = maximum;
+
+    }
+
+    /**
+     * Returns the exclusive lower bound of the value.
+     *
+     * @return the minimum
+     */
+    @Parameter(name = "value",
+               restriction = Restriction.GREATER_THAN,
+               combinate = @Combination(group = "any"))
+    public Integer getAbove() {
+
+        return minimum;
+
+    }
+
+    /**
+     * Returns the exclusive upper bound of the value.
+     *
+     * @return the maximum
+     */
+    @Parameter(name = "value",
+               restriction = Restriction.LESS_THAN,
+               combinate = @Combination(group = "any",
+                                        combine = Combination.Combine.OR))
+    public Integer getBelow() {
+
+        return maximum;
+
+    }
+
+}
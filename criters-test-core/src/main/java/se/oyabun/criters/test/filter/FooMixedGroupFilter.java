@@ -0,0 +1,128 @@
+/*
+ * Copyright 2017 Oyabun AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.oyabun.criters.test.filter;
+
+import se.oyabun.criters.criteria.Combination;
+import se.oyabun.criters.criteria.Filter;
+import se.oyabun.criters.criteria.Parameter;
+import se.oyabun.criters.criteria.Relation;
+import se.oyabun.criters.criteria.Relations;
+import se.oyabun.criters.criteria.Restriction;
+import se.oyabun.criters.test.data.Foo;
+
+/**
+ * Foo typed filter restricting relations in EXISTS subqueries across two combination groups,
+ * matching {@code (bars.id = barId or exists bars.baz.value = bazValue) and
+ * exists bars.baz.value = otherBazValue}.
+ *
+ * @author Daniel Sundberg
+ */
+public class FooMixedGroupFilter
+        extends Filter<Foo> {
+
+    private final long barId;
+
+    private final String bazValue;
+
+    private final String otherBazValue;
+
+    /**
+     * Constructs a filter combining a joined and a subquery restriction in one group, and a
+     * subquery restriction of the same relation in another group.
+     *
+     * @param barId         the id of a joined {@link se.oyabun.criters.test.data.Bar}
+     * @param bazValue      the value of a {@link se.oyabun.criters.test.data.Baz}, or the bar id
+     * @param otherBazValue the value of a {@link se.oyabun.criters.test.data.Baz}, always required
+     */
+    public FooMixedGroupFilter(final long barId,
+                               final String bazValue,
+                               final String otherBazValue) {
+
+        this.barId = barId;
+        this.bazValue = bazValue;
+        this.otherBazValue = otherBazValue;
+
+    }
+
+    /**
+     * Returns the bar id restricting a joined bar, in the group of the baz value.
+     *
+     * @return the bar id
+     */
+    @Relations(alias = "joined",
+               value = {
+            @Relation(name = "bars",
+                      iterable = true,
+                      strategy = Relation.Strategy.JOIN,
+                      parameters = {
+                    @Parameter(name = "id",
+                               restriction = Restriction.EQUALS,
+                               combinate = @Combination(group = "any",
+                                                        combine = Combination.Combine.OR))
+            })
+    })
+    public long getBarId() {
+
+        return barId;
+
+    }
+
+    /**
+     * Returns the baz value restricted in a subquery, in the group of the bar id.
+     *
+     * @return the baz value
+     */
+    @Relations({
+            @Relation(name = "bars",
+                      iterable = true,
+                      strategy = Relation.Strategy.EXISTS),
+            @Relation(name = "baz",
+                      parameters = {
+                    @Parameter(name = "value",
+                               restriction = Restriction.EQUALS,
+                               combinate = @Combination(group = "any",
+                                                        combine = Combination.Combine.OR))
+            })
+    })
+    public String getBazValue() {
+
+        return bazValue;
+
+    }
+
+    /**
+     * Returns the baz value restricted in a subquery of a group of its own.
+     *
+     * @return the other baz value
+     */
+    @Relations({
+            @Relation(name = "bars",
+                      iterable = true,
+                      strategy = Relation.Strategy.EXISTS),
+            @Relation(name = "baz",
+                      parameters = {
+                    @Parameter(name = "value",
+                               restriction = Restriction.EQUALS,
+                               combinate = @Combination(group = "all"))
+            })
+    })
+    public String getOtherBazValue() {
+
+        return otherBazValue;
+
+    }
+
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2017 Oyabun AB
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *  http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package se.oyabun.criters.test.filter;
+
+import se.oyabun.criters.criteria.Filter;
+import se.oyabun.criters.criteria.Parameter;
+import se.oyabun.criters.criteria.Restriction;
+import se.oyabun.criters.test.data.Foo;
+
+import java.util.Collection;
+
+/**
+ * Equality and IN restriction filter for {@link Foo} entities, matching {@code value} against
+ * both a single value and a collection.
+ *
+ * @author Daniel Sundberg
+ */
+public class FooValueFilter
+        extends Filter<Foo> {
+
+    private final Integer value;
+    private final Collection<Integer> values;
+
+    /**
+     * Constructs a filter that matches {@link Foo} entities whose value equals the given value
+     * and is contained in the given collection.
+     *
+     * @param value the value to match
+     * @param values the collection of values to match against
+     */
+    public FooValueFilter(final Integer value,
+                          final Collection<Integer> values) {
+
+        this.value = value;
+        this.values = values;
+
+    }
+
+    /**
+     * Returns the value used as the equality criterion.
+     *
+     * @return the value
+     */
+    @Parameter(name = "value")
+    public Integer getValue() {
+
+        return value;
+
+    }
+
+    /**
+     * Returns the collection of values used as the IN filter criterion.
+     *
+     * @return the values collection
+     */
+    @Parameter(name = "value",
+               restriction = Restriction.IN)
+    public Collection<Integer> getValues() {
+
+        return values;
+
+    }
+
+}
@@ -3,9 +3,11 @@ rootProject.name = "criters"
 include(
     "criters-annotation",
     "criters-engine",
+    "criters-processor",
     "criters-test-core",
     "criters-test-core-jpa",
     "criters-test-eclipselink",
     "criters-test-hibernate",
-    "criters-spring-data-jpa"
+    "criters-spring-data-jpa",
+    "criters-benchmark"
 )